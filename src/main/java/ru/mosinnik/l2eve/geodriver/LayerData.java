@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ru.mosinnik.l2eve.geodriver;
+
+/**
+ * Упакованный слой ячейки: высота и NSWE в одном int, как их возвращает
+ * {@link ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver#getNearestLayer(int, int, int)}.
+ * <p>
+ * Формат: {@code (height << 4) | nswe}, высота знаковая, NSWE занимает младшие 4 бита.
+ * Под высоту остается 28 бит, так что упаковываются высоты из {@link #MIN_HEIGHT}..{@link #MAX_HEIGHT}.
+ */
+public final class LayerData {
+
+    public static final int MIN_HEIGHT = Integer.MIN_VALUE >> 4;
+    public static final int MAX_HEIGHT = Integer.MAX_VALUE >> 4;
+
+    private LayerData() {
+    }
+
+    /**
+     * Высота должна быть в пределах {@link #MIN_HEIGHT}..{@link #MAX_HEIGHT}, иначе старшие биты теряются.
+     * Высоты из геодаты (short) всегда в этих пределах, мировую координату упаковывает {@link #packWorldZ}.
+     */
+    public static int pack(int height, int nswe) {
+        return (height << 4) | (nswe & 0x0F);
+    }
+
+    /**
+     * Упаковывает произвольную мировую высоту там, где нет геодаты и запрос возвращает ее как есть:
+     * высота зажимается в {@link #MIN_HEIGHT}..{@link #MAX_HEIGHT}.
+     */
+    public static int packWorldZ(int worldZ, int nswe) {
+        return pack(Math.clamp(worldZ, MIN_HEIGHT, MAX_HEIGHT), nswe);
+    }
+
+    /**
+     * Упаковывает слой в формате l2j: высота в битах 4..15 (в половинах), NSWE в младших 4 битах.
+     */
+    public static int fromLayer(short layer) {
+        return pack(((short) (layer & 0xFFF0)) >> 1, layer & 0x0F);
+    }
+
+    public static int height(int layerData) {
+        return layerData >> 4;
+    }
+
+    public static byte nswe(int layerData) {
+        return (byte) (layerData & 0x0F);
+    }
+
+    public static boolean checkNswe(int layerData, byte nswe) {
+        return (layerData & nswe) == nswe;
+    }
+}
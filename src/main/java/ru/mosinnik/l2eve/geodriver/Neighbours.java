@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ru.mosinnik.l2eve.geodriver;
+
+/**
+ * Направления соседей ячейки для
+ * {@link ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver#expandNeighbours(int, int, int, int[], byte[])}
+ * и правила прохождения между ними по NSWE флагам.
+ * <p>
+ * Ось x растет на восток, ось y - на юг, как у {@link Cell}.
+ * Ортогональный сосед доступен, если у центральной ячейки открыто направление к нему.
+ * Диагональный сосед доступен, если доступны оба соседних ортогональных и у каждого из них
+ * открыто второе направление диагонали, т.е. угол не срезается через стену.
+ */
+public final class Neighbours {
+    public static final int EAST = 0;
+    public static final int WEST = 1;
+    public static final int SOUTH = 2;
+    public static final int NORTH = 3;
+    public static final int NORTH_EAST = 4;
+    public static final int NORTH_WEST = 5;
+    public static final int SOUTH_EAST = 6;
+    public static final int SOUTH_WEST = 7;
+
+    /**
+     * Количество соседей, минимальный размер массивов для expandNeighbours
+     */
+    public static final int COUNT = 8;
+
+    /**
+     * Упакованный слой соседа, до которого нельзя дойти (за пределами мира)
+     */
+    public static final int NO_LAYER = Integer.MIN_VALUE;
+
+    private static final int[] DX = {1, -1, 0, 0, 1, -1, 1, -1};
+    private static final int[] DY = {0, 0, 1, -1, -1, -1, 1, 1};
+
+    private Neighbours() {
+    }
+
+    public static int dx(int direction) {
+        return DX[direction];
+    }
+
+    public static int dy(int direction) {
+        return DY[direction];
+    }
+
+    public static int bit(int direction) {
+        return 1 << direction;
+    }
+
+    public static boolean isReachable(int mask, int direction) {
+        return (mask & (1 << direction)) != 0;
+    }
+
+    /**
+     * Применяет правила прохождения.
+     * На входе в {@code outZ} упакованные {@link LayerData} слои всех 8 соседей, взятые на высоте центральной ячейки,
+     * либо {@link #NO_LAYER}. На выходе для доступных направлений в {@code outZ} высота, в {@code outMask} NSWE
+     * соседа, остальные элементы не определены.
+     *
+     * @return битовая маска доступных направлений, см. {@link #bit(int)}
+     */
+    public static int resolve(int centreLayer, int[] outZ, byte[] outMask) {
+        int nswe = centreLayer & 0x0F;
+        int mask = 0;
+        mask |= resolveOrthogonal(EAST, Cell.NSWE_EAST, nswe, outZ, outMask);
+        mask |= resolveOrthogonal(WEST, Cell.NSWE_WEST, nswe, outZ, outMask);
+        mask |= resolveOrthogonal(SOUTH, Cell.NSWE_SOUTH, nswe, outZ, outMask);
+        mask |= resolveOrthogonal(NORTH, Cell.NSWE_NORTH, nswe, outZ, outMask);
+        mask |= resolveDiagonal(NORTH_EAST, NORTH, Cell.NSWE_NORTH, EAST, Cell.NSWE_EAST, mask, outZ, outMask);
+        mask |= resolveDiagonal(NORTH_WEST, NORTH, Cell.NSWE_NORTH, WEST, Cell.NSWE_WEST, mask, outZ, outMask);
+        mask |= resolveDiagonal(SOUTH_EAST, SOUTH, Cell.NSWE_SOUTH, EAST, Cell.NSWE_EAST, mask, outZ, outMask);
+        mask |= resolveDiagonal(SOUTH_WEST, SOUTH, Cell.NSWE_SOUTH, WEST, Cell.NSWE_WEST, mask, outZ, outMask);
+        return mask;
+    }
+
+    private static int resolveOrthogonal(int direction, byte flag, int nswe, int[] outZ, byte[] outMask) {
+        int layer = outZ[direction];
+        if ((nswe & flag) == 0 || layer == NO_LAYER) {
+            return 0;
+        }
+        outZ[direction] = LayerData.height(layer);
+        outMask[direction] = LayerData.nswe(layer);
+        return 1 << direction;
+    }
+
+    /**
+     * Ортогональные соседи к этому моменту уже распакованы, их NSWE лежит в outMask.
+     */
+    private static int resolveDiagonal(int direction,
+                                       int vertical, byte verticalFlag,
+                                       int horizontal, byte horizontalFlag,
+                                       int mask, int[] outZ, byte[] outMask) {
+        int layer = outZ[direction];
+        if ((mask & (1 << vertical)) == 0 || (mask & (1 << horizontal)) == 0 || layer == NO_LAYER) {
+            return 0;
+        }
+        // from the vertical neighbour we continue horizontally and vice versa
+        if ((outMask[vertical] & horizontalFlag) == 0 || (outMask[horizontal] & verticalFlag) == 0) {
+            return 0;
+        }
+        outZ[direction] = LayerData.height(layer);
+        outMask[direction] = LayerData.nswe(layer);
+        return 1 << direction;
+    }
+}
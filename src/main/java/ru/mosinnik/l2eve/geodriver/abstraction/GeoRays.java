@@ -0,0 +1,78 @@
+package ru.mosinnik.l2eve.geodriver.abstraction;
+
+/**
+ * Ray walk of {@link GeoScans#isRayAboveTerrain}: nodes of each level along the ray (Amanatides-Woo),<br>
+ * descending only into nodes the ray is not entirely above.
+ */
+final class GeoRays {
+
+    private GeoRays() {
+    }
+
+    /**
+     * Walks the nodes of the level along the ray on [tFrom, tTo] inside the parent (Amanatides-Woo).
+     * Node bounds are always computed from the ray start, so all levels resolve a corner pass the same way.
+     * The ray is passed as primitives: the recursion is not inlined and a ray object would not be scalar replaced.
+     */
+    static boolean isRayAbove(IGeoDriver driver, IHeightLevels levels,
+                              int geoX, int geoY, int worldZ, int dx, int dy, int dz,
+                              int level, int nodeMinX, int nodeMinY, int nodeMaxX, int nodeMaxY,
+                              double tFrom, double tTo) {
+        double fromX = geoX + 0.5;
+        double fromY = geoY + 0.5;
+        int shift = GeoScans.levelShift(levels, level);
+        int x = Math.clamp((long) Math.floor(rayAt(fromX, dx, tFrom)) >> shift, nodeMinX, nodeMaxX);
+        int y = Math.clamp((long) Math.floor(rayAt(fromY, dy, tFrom)) >> shift, nodeMinY, nodeMaxY);
+        int stepX = Integer.signum(dx);
+        int stepY = Integer.signum(dy);
+        double tNextX = rayT(fromX, dx, (x + (stepX > 0 ? 1 : 0)) << shift);
+        double tNextY = rayT(fromY, dy, (y + (stepY > 0 ? 1 : 0)) << shift);
+        double tEnter = tFrom;
+        while (true) {
+            double tExit = Math.min(tTo, Math.min(tNextX, tNextY));
+            int height = GeoScans.getMaxHeight(driver, levels, level, x, y);
+            if ((height != GeoScans.NO_HEIGHT) && (Math.min(rayAt(worldZ, dz, tEnter), rayAt(worldZ, dz, tExit)) <= height)) {
+                if (level == GeoScans.cellLevel(levels)) {
+                    return false;
+                }
+                int bits = shift - GeoScans.levelShift(levels, level + 1);
+                if (!isRayAbove(driver, levels, geoX, geoY, worldZ, dx, dy, dz, level + 1,
+                    x << bits, y << bits, ((x + 1) << bits) - 1, ((y + 1) << bits) - 1, tEnter, tExit)) {
+                    return false;
+                }
+            }
+            if (tExit >= tTo) {
+                return true;
+            }
+            // a corner steps both axes at once
+            boolean stepByX = tNextX <= tNextY;
+            boolean stepByY = tNextY <= tNextX;
+            if (stepByX) {
+                x += stepX;
+                tNextX = rayT(fromX, dx, (x + (stepX > 0 ? 1 : 0)) << shift);
+            }
+            if (stepByY) {
+                y += stepY;
+                tNextY = rayT(fromY, dy, (y + (stepY > 0 ? 1 : 0)) << shift);
+            }
+            if ((x < nodeMinX) || (x > nodeMaxX) || (y < nodeMinY) || (y > nodeMaxY)) {
+                return true;
+            }
+            tEnter = tExit;
+        }
+    }
+
+    /**
+     * Ray coordinate on one axis at t
+     */
+    private static double rayAt(double from, int d, double t) {
+        return from + t * d;
+    }
+
+    /**
+     * t at which the ray reaches coord on one axis
+     */
+    private static double rayT(double from, int d, int coord) {
+        return d == 0 ? Double.POSITIVE_INFINITY : (coord - from) / d;
+    }
+}
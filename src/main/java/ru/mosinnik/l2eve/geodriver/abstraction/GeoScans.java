@@ -0,0 +1,172 @@
+package ru.mosinnik.l2eve.geodriver.abstraction;
+
+import ru.mosinnik.l2eve.geodriver.Cell;
+
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_CELLS_X;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_CELLS_Y;
+
+/**
+ * Block and area scans over any {@link IGeoDriver}, used by its default methods<br>
+ * and by drivers with precomputed indexes.<br>
+ * Area and ray queries go from coarse to fine over the given {@link IHeightLevels},<br>
+ * a node entirely below the ray or the given height is skipped without descending.<br>
+ * Cells are read through the driver only where coarse levels gave no answer,<br>
+ * without levels every query goes over cells.<br>
+ * Nothing is allocated per call.
+ */
+public final class GeoScans {
+
+    public static final int NO_HEIGHT = Integer.MIN_VALUE;
+
+    private static final ThreadLocal<LayerBuffers> LAYER_BUFFERS = ThreadLocal.withInitial(LayerBuffers::new);
+
+    private GeoScans() {
+    }
+
+    /**
+     * Packs min and max height into int as (min << 16) | (max & 0xFFFF), geodata heights fit into short
+     */
+    public static int pack(int minHeight, int maxHeight) {
+        return (minHeight << 16) | (maxHeight & 0xFFFF);
+    }
+
+    public static int minHeight(int packed) {
+        return packed >> 16;
+    }
+
+    public static int maxHeight(int packed) {
+        return (short) packed;
+    }
+
+    /**
+     * Summary of one block on the thread buffers, see {@link #summarizeBlock(IGeoDriver, int, int, int[], byte[])}
+     */
+    public static long summarizeBlock(IGeoDriver driver, int geoX, int geoY) {
+        LayerBuffers buffers = LAYER_BUFFERS.get();
+        return summarizeBlock(driver, geoX, geoY, buffers.heights, buffers.nswe);
+    }
+
+    /**
+     * Summary of one block, cells are read through {@link IGeoDriver#getLayers}.
+     *
+     * @return packed heights in the low 32 bits, "all open" flag in bit 32
+     */
+    public static long summarizeBlock(IGeoDriver driver, int geoX, int geoY, int[] layerHeights, byte[] layerNswe) {
+        int blockGeoX = geoX & ~0x07;
+        int blockGeoY = geoY & ~0x07;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        boolean allOpen = true;
+        for (int x = blockGeoX; x < blockGeoX + IBlock.BLOCK_CELLS_X; x++) {
+            for (int y = blockGeoY; y < blockGeoY + IBlock.BLOCK_CELLS_Y; y++) {
+                int layers = driver.getLayers(x, y, layerHeights, layerNswe);
+                for (int i = 0; i < layers; i++) {
+                    min = Math.min(min, layerHeights[i]);
+                    max = Math.max(max, layerHeights[i]);
+                    allOpen &= layerNswe[i] == Cell.NSWE_ALL;
+                }
+            }
+        }
+        return (allOpen ? 1L << 32 : 0L) | (pack(min, max) & 0xFFFF_FFFFL);
+    }
+
+    /**
+     * See {@link IGeoDriver#getAreaMaxZ(int, int, int, int)}
+     *
+     * @param levels coarse levels or null to scan cells only
+     */
+    public static int getAreaMaxZ(IGeoDriver driver, IHeightLevels levels,
+                                  int minGeoX, int minGeoY, int maxGeoX, int maxGeoY) {
+        int shift = levelShift(levels, 0);
+        return getAreaMaxHeight(driver, levels, 0, 0, 0, (GEO_CELLS_X >> shift) - 1, (GEO_CELLS_Y >> shift) - 1,
+            minGeoX, minGeoY, maxGeoX, maxGeoY, NO_HEIGHT, Integer.MAX_VALUE);
+    }
+
+    /**
+     * See {@link IGeoDriver#hasHeightAbove(int, int, int, int, int)}, the descent stops on the first layer found
+     *
+     * @param levels coarse levels or null to scan cells only
+     */
+    public static boolean hasHeightAbove(IGeoDriver driver, IHeightLevels levels,
+                                         int minGeoX, int minGeoY, int maxGeoX, int maxGeoY, int worldZ) {
+        int shift = levelShift(levels, 0);
+        return getAreaMaxHeight(driver, levels, 0, 0, 0, (GEO_CELLS_X >> shift) - 1, (GEO_CELLS_Y >> shift) - 1,
+            minGeoX, minGeoY, maxGeoX, maxGeoY, worldZ, worldZ) > worldZ;
+    }
+
+    /**
+     * See {@link IGeoDriver#isRayAboveTerrain(int, int, int, int, int, int)}.<br>
+     * Cells the ray only touches by a corner are not checked.
+     *
+     * @param levels coarse levels or null to scan cells only
+     */
+    public static boolean isRayAboveTerrain(IGeoDriver driver, IHeightLevels levels,
+                                            int geoX, int geoY, int worldZ, int toGeoX, int toGeoY, int toWorldZ) {
+        int shift = levelShift(levels, 0);
+        return GeoRays.isRayAbove(driver, levels, geoX, geoY, worldZ, toGeoX - geoX, toGeoY - geoY, toWorldZ - worldZ,
+            0, 0, 0, (GEO_CELLS_X >> shift) - 1, (GEO_CELLS_Y >> shift) - 1, 0, 1);
+    }
+
+    static int cellLevel(IHeightLevels levels) {
+        return levels == null ? 0 : levels.levelCount();
+    }
+
+    static int levelShift(IHeightLevels levels, int level) {
+        return level == cellLevel(levels) ? 0 : levels.levelShift(level);
+    }
+
+    /**
+     * Max height of the node on the level or NO_HEIGHT if there is no geodata
+     */
+    static int getMaxHeight(IGeoDriver driver, IHeightLevels levels, int level, int nodeX, int nodeY) {
+        if (level == cellLevel(levels)) {
+            return driver.hasGeoPos(nodeX, nodeY) ? driver.getNearestZ(nodeX, nodeY, Short.MAX_VALUE) : NO_HEIGHT;
+        }
+        return levels.getMaxHeight(level, nodeX, nodeY);
+    }
+
+    /**
+     * @param best  max found so far, nodes not higher than it are skipped
+     * @param limit the descent stops as soon as a max higher than limit is found
+     */
+    private static int getAreaMaxHeight(IGeoDriver driver, IHeightLevels levels, int level,
+                                        int nodeMinX, int nodeMinY, int nodeMaxX, int nodeMaxY,
+                                        int minGeoX, int minGeoY, int maxGeoX, int maxGeoY, int best, int limit) {
+        int shift = levelShift(levels, level);
+        int fromX = Math.max(nodeMinX, minGeoX >> shift);
+        int toX = Math.min(nodeMaxX, maxGeoX >> shift);
+        int fromY = Math.max(nodeMinY, minGeoY >> shift);
+        int toY = Math.min(nodeMaxY, maxGeoY >> shift);
+        for (int x = fromX; x <= toX; x++) {
+            for (int y = fromY; y <= toY; y++) {
+                int height = getMaxHeight(driver, levels, level, x, y);
+                if (height <= best) {
+                    continue;
+                }
+                boolean covered = (x << shift) >= minGeoX && (((x + 1) << shift) - 1) <= maxGeoX
+                    && (y << shift) >= minGeoY && (((y + 1) << shift) - 1) <= maxGeoY;
+                if (covered) {
+                    best = height;
+                } else {
+                    int bits = shift - levelShift(levels, level + 1);
+                    best = getAreaMaxHeight(driver, levels, level + 1,
+                        x << bits, y << bits, ((x + 1) << bits) - 1, ((y + 1) << bits) - 1,
+                        minGeoX, minGeoY, maxGeoX, maxGeoY, best, limit);
+                }
+                if (best > limit) {
+                    return best;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Per thread layer buffers of summarizeBlock, the default block queries of a driver run on any thread
+     * and must not allocate per call
+     */
+    private static final class LayerBuffers {
+        final int[] heights = new int[IBlock.MAX_CELL_LAYERS];
+        final byte[] nswe = new byte[IBlock.MAX_CELL_LAYERS];
+    }
+}
@@ -17,13 +17,21 @@ public interface IBlock {
      * Cells in a block
      */
     int BLOCK_CELLS = BLOCK_CELLS_X * BLOCK_CELLS_Y;
+    /**
+     * Max layers in a cell
+     */
+    int MAX_CELL_LAYERS = 125;
 
 
     boolean checkNearestNSWE(int geoX, int geoY, int worldZ, byte nswe);
 
     int getNearestZ(int geoX, int geoY, int worldZ);
 
+    int getNearestLayer(int geoX, int geoY, int worldZ);
+
     int getNextLowerZ(int geoX, int geoY, int worldZ);
 
     int getNextHigherZ(int geoX, int geoY, int worldZ);
+
+    int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe);
 }
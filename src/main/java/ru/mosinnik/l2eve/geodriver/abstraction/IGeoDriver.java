@@ -1,6 +1,9 @@
 package ru.mosinnik.l2eve.geodriver.abstraction;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
+import ru.mosinnik.l2eve.geodriver.Neighbours;
+
 import java.io.IOException;
 import java.nio.file.Path;
 
@@ -92,6 +95,19 @@ public interface IGeoDriver {
      */
     int getNearestZ(int geoX, int geoY, int worldZ);
 
+    /**
+     * Method to get the nearest layer: z and NSWE of the layer {@link #getNearestZ}<br>
+     * and {@link #checkNearestNSWE} would use, packed by {@link LayerData}.<br>
+     * If there is no geodata available at the specified position,<br>
+     * {@code worldZ} with all directions open is returned.
+     *
+     * @param geoX   geo x
+     * @param geoY   geo y
+     * @param worldZ world z
+     * @return packed nearest layer, see {@link LayerData}
+     */
+    int getNearestLayer(int geoX, int geoY, int worldZ);
+
     /**
      * Method to get the next lower z value. If there is a layer with a z<br>
      * equals to {@code worldZ} or there is no lower z, {@code worldZ} is<br>
@@ -116,5 +132,183 @@ public interface IGeoDriver {
      */
     int getNextHigherZ(int geoX, int geoY, int worldZ);
 
+    /**
+     * Method to get all layers of the cell in one pass, in the order they are stored<br>
+     * (from the highest to the lowest for l2j geodata). Nothing is allocated, the<br>
+     * arrays are filled from index 0 and must fit all layers of the cell,<br>
+     * {@link IBlock#MAX_CELL_LAYERS} is always enough.
+     *
+     * @param geoX       geo x
+     * @param geoY       geo y
+     * @param outHeights array to receive layer heights
+     * @param outNswe    array to receive layer NSWE flags
+     * @return layers count, 0 if there is no geodata available
+     */
+    int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe);
+
+    /**
+     * Method to get the storage type of the block containing the cell,<br>
+     * one of the block types of GeoDriverBytesConstants, e.g. for the block type of JFR query events<br>
+     * and per block type statistics. Wrappers forward it to the wrapped driver.<br>
+     * If there is no geodata available or the driver does not know block types, -1 is returned.
+     *
+     * @param geoX geo x
+     * @param geoY geo y
+     * @return block type or -1(see description above)
+     */
+    default int getBlockType(int geoX, int geoY) {
+        return -1;
+    }
+
+    /**
+     * Method to get the lowest z of all layers of all cells of the block<br>
+     * containing the cell, e.g. to skip the whole block in LOS or movement checks.<br>
+     * If there is no geodata available, {@link Integer#MAX_VALUE} is returned.
+     *
+     * @param geoX geo x
+     * @param geoY geo y
+     * @return block min z or {@link Integer#MAX_VALUE}(see description above)
+     */
+    default int getBlockMinZ(int geoX, int geoY) {
+        if (!hasGeoPos(geoX, geoY)) {
+            return Integer.MAX_VALUE;
+        }
+        return GeoScans.minHeight((int) summarizeBlock(geoX, geoY));
+    }
+
+    /**
+     * Method to get the highest z of all layers of all cells of the block<br>
+     * containing the cell. If there is no geodata available,<br>
+     * {@link Integer#MIN_VALUE} is returned.
+     *
+     * @param geoX geo x
+     * @param geoY geo y
+     * @return block max z or {@link Integer#MIN_VALUE}(see description above)
+     */
+    default int getBlockMaxZ(int geoX, int geoY) {
+        if (!hasGeoPos(geoX, geoY)) {
+            return Integer.MIN_VALUE;
+        }
+        return GeoScans.maxHeight((int) summarizeBlock(geoX, geoY));
+    }
+
+    /**
+     * Method to check that all layers of all cells of the block containing<br>
+     * the cell have all directions open. If there is no geodata available,<br>
+     * true is returned.
+     *
+     * @param geoX geo x
+     * @param geoY geo y
+     * @return true if the whole block is open
+     */
+    default boolean isBlockAllOpen(int geoX, int geoY) {
+        if (!hasGeoPos(geoX, geoY)) {
+            return true;
+        }
+        return (summarizeBlock(geoX, geoY) >>> 32) != 0;
+    }
+
+    /**
+     * Method to check that the block containing the cell is a single open plane:<br>
+     * one layer of the same height in every cell with all directions open,<br>
+     * so any cell of the block is reachable from any other one by an octile move.<br>
+     * If there is no geodata available, false is returned.
+     *
+     * @param geoX geo x
+     * @param geoY geo y
+     * @return true if the whole block is one open plane
+     */
+    default boolean isBlockUniform(int geoX, int geoY) {
+        if (!hasGeoPos(geoX, geoY)) {
+            return false;
+        }
+        long summary = summarizeBlock(geoX, geoY);
+        return ((summary >>> 32) != 0) && (GeoScans.minHeight((int) summary) == GeoScans.maxHeight((int) summary));
+    }
+
+    /**
+     * Decodes the whole block, drivers with a block summary read it instead.
+     */
+    private long summarizeBlock(int geoX, int geoY) {
+        return GeoScans.summarizeBlock(this, geoX, geoY);
+    }
+
+    /**
+     * Method to get the highest z of all layers of all cells in the area,<br>
+     * bounds are inclusive. If there is no geodata available in the area,<br>
+     * {@link Integer#MIN_VALUE} is returned.
+     *
+     * @param minGeoX min geo x
+     * @param minGeoY min geo y
+     * @param maxGeoX max geo x
+     * @param maxGeoY max geo y
+     * @return area max z or {@link Integer#MIN_VALUE}(see description above)
+     */
+    default int getAreaMaxZ(int minGeoX, int minGeoY, int maxGeoX, int maxGeoY) {
+        return GeoScans.getAreaMaxZ(this, null, minGeoX, minGeoY, maxGeoX, maxGeoY);
+    }
+
+    /**
+     * Method to check if any layer of any cell in the area is higher than<br>
+     * the given z, bounds are inclusive.
+     *
+     * @param minGeoX min geo x
+     * @param minGeoY min geo y
+     * @param maxGeoX max geo x
+     * @param maxGeoY max geo y
+     * @param worldZ  world z
+     * @return true if there is a layer higher than worldZ in the area
+     */
+    default boolean hasHeightAbove(int minGeoX, int minGeoY, int maxGeoX, int maxGeoY, int worldZ) {
+        return GeoScans.hasHeightAbove(this, null, minGeoX, minGeoY, maxGeoX, maxGeoY, worldZ);
+    }
+
+    /**
+     * Method to check that the ray between the cell centres passes above the<br>
+     * highest layer of every cell on its way. The check is conservative: a ray<br>
+     * under a bridge or in a cave is reported as blocked, so true is a fast answer<br>
+     * for open terrain and false needs an exact line of sight check.
+     *
+     * @param geoX     geo x
+     * @param geoY     geo y
+     * @param worldZ   world z
+     * @param toGeoX   target geo x
+     * @param toGeoY   target geo y
+     * @param toWorldZ target world z
+     * @return true if the ray is above the terrain
+     */
+    default boolean isRayAboveTerrain(int geoX, int geoY, int worldZ, int toGeoX, int toGeoY, int toWorldZ) {
+        return GeoScans.isRayAboveTerrain(this, null, geoX, geoY, worldZ, toGeoX, toGeoY, toWorldZ);
+    }
+
+    /**
+     * Method to expand a pathfinding node: finds the nearest layer of the cell and<br>
+     * the layers of its 8 neighbours at that height and applies the passability<br>
+     * rules, see {@link Neighbours}. For reachable directions {@code outZ} receives<br>
+     * the neighbour z and {@code outMask} its NSWE flags, both indexed by<br>
+     * {@link Neighbours} direction. Neighbours outside of the world are not reachable.
+     *
+     * @param geoX    geo x
+     * @param geoY    geo y
+     * @param worldZ  world z
+     * @param outZ    array of at least {@link Neighbours#COUNT} to receive neighbour z
+     * @param outMask array of at least {@link Neighbours#COUNT} to receive neighbour NSWE
+     * @return bit mask of reachable directions, see {@link Neighbours#bit(int)}
+     */
+    default int expandNeighbours(int geoX, int geoY, int worldZ, int[] outZ, byte[] outMask) {
+        int centreLayer = getNearestLayer(geoX, geoY, worldZ);
+        int z = LayerData.height(centreLayer);
+        for (int direction = 0; direction < Neighbours.COUNT; direction++) {
+            int x = geoX + Neighbours.dx(direction);
+            int y = geoY + Neighbours.dy(direction);
+            if ((x < 0) || (x >= GEO_CELLS_X) || (y < 0) || (y >= GEO_CELLS_Y)) {
+                outZ[direction] = Neighbours.NO_LAYER;
+            } else {
+                outZ[direction] = getNearestLayer(x, y, z);
+            }
+        }
+        return Neighbours.resolve(centreLayer, outZ, outMask);
+    }
+
     boolean checkNearestNSWE(int geoX, int geoY, int worldZ, byte nswe);
 }
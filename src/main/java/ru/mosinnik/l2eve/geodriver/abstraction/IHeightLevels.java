@@ -0,0 +1,28 @@
+package ru.mosinnik.l2eve.geodriver.abstraction;
+
+/**
+ * Coarse height levels above the cells for area and ray queries, see {@link GeoScans}.<br>
+ * Levels go from the coarsest (0) to the finest, the cell level itself is not included.<br>
+ * Node sides are powers of two in cells, the coarsest level must cover the world.
+ */
+public interface IHeightLevels {
+
+    /**
+     * @return number of coarse levels
+     */
+    int levelCount();
+
+    /**
+     * @param level level, 0 is the coarsest
+     * @return log2 of the node side in cells
+     */
+    int levelShift(int level);
+
+    /**
+     * @param level level, 0 is the coarsest
+     * @param nodeX node x on the level
+     * @param nodeY node y on the level
+     * @return max height of all layers of the node or {@link GeoScans#NO_HEIGHT} if there is no geodata
+     */
+    int getMaxHeight(int level, int nodeX, int nodeY);
+}
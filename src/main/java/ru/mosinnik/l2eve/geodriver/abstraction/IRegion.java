@@ -36,9 +36,13 @@ public interface IRegion {
 
     int getNearestZ(int geoX, int geoY, int worldZ);
 
+    int getNearestLayer(int geoX, int geoY, int worldZ);
+
     int getNextLowerZ(int geoX, int geoY, int worldZ);
 
     int getNextHigherZ(int geoX, int geoY, int worldZ);
 
+    int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe);
+
     boolean hasGeo();
 }
@@ -19,6 +19,7 @@
 package ru.mosinnik.l2eve.geodriver.blocks;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 
 import java.nio.ByteBuffer;
@@ -90,6 +91,11 @@ public final class ComplexBlock implements IBlock {
         return getCellHeight(geoX, geoY);
     }
 
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        return LayerData.fromLayer(data[((geoX & 0x07) << 3) + (geoY & 0x07)]);
+    }
+
     @Override
     public int getNextLowerZ(int geoX, int geoY, int worldZ) {
         int cellHeight = getCellHeight(geoX, geoY);
@@ -101,4 +107,11 @@ public final class ComplexBlock implements IBlock {
         int cellHeight = getCellHeight(geoX, geoY);
         return Math.max(cellHeight, worldZ);
     }
+
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        outHeights[0] = getCellHeight(geoX, geoY);
+        outNswe[0] = (byte) getCellNSWE(geoX, geoY);
+        return 1;
+    }
 }
@@ -23,6 +23,7 @@
 package ru.mosinnik.l2eve.geodriver.blocks;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 import ru.mosinnik.l2eve.geodriver.util.BlockStat;
 
@@ -92,6 +93,11 @@ public final class FewHeightsComplexBlock implements IBlock {
         return getCellHeight(geoX, geoY);
     }
 
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        return LayerData.pack(getCellHeight(geoX, geoY), getCellNSWE(geoX, geoY));
+    }
+
     @Override
     public int getNextLowerZ(int geoX, int geoY, int worldZ) {
         int cellHeight = getCellHeight(geoX, geoY);
@@ -103,4 +109,11 @@ public final class FewHeightsComplexBlock implements IBlock {
         int cellHeight = getCellHeight(geoX, geoY);
         return Math.max(cellHeight, worldZ);
     }
+
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        outHeights[0] = getCellHeight(geoX, geoY);
+        outNswe[0] = getCellNSWE(geoX, geoY);
+        return 1;
+    }
 }
@@ -23,6 +23,7 @@
 package ru.mosinnik.l2eve.geodriver.blocks;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 import ru.mosinnik.l2eve.geodriver.util.BlockStat;
 
@@ -102,6 +103,11 @@ public final class FewHeightsOneNsweComplexBlock implements IBlock {
         return getCellHeight(geoX, geoY);
     }
 
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        return LayerData.pack(getCellHeight(geoX, geoY), nswe);
+    }
+
     @Override
     public int getNextLowerZ(int geoX, int geoY, int worldZ) {
         int cellHeight = getCellHeight(geoX, geoY);
@@ -113,4 +119,11 @@ public final class FewHeightsOneNsweComplexBlock implements IBlock {
         int cellHeight = getCellHeight(geoX, geoY);
         return Math.max(cellHeight, worldZ);
     }
+
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        outHeights[0] = getCellHeight(geoX, geoY);
+        outNswe[0] = nswe;
+        return 1;
+    }
 }
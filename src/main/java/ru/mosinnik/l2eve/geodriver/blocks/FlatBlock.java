@@ -19,6 +19,8 @@
 package ru.mosinnik.l2eve.geodriver.blocks;
 
 
+import ru.mosinnik.l2eve.geodriver.Cell;
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 
 import java.nio.ByteBuffer;
@@ -51,6 +53,11 @@ public class FlatBlock implements IBlock {
         return height;
     }
 
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        return LayerData.pack(height, Cell.NSWE_ALL);
+    }
+
     @Override
     public int getNextLowerZ(int geoX, int geoY, int worldZ) {
         return height <= worldZ ? height : worldZ;
@@ -60,4 +67,11 @@ public class FlatBlock implements IBlock {
     public int getNextHigherZ(int geoX, int geoY, int worldZ) {
         return height >= worldZ ? height : worldZ;
     }
+
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        outHeights[0] = height;
+        outNswe[0] = Cell.NSWE_ALL;
+        return 1;
+    }
 }
@@ -23,10 +23,12 @@
 package ru.mosinnik.l2eve.geodriver.blocks;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 import ru.mosinnik.l2eve.geodriver.util.OrderType;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 
 import static ru.mosinnik.l2eve.geodriver.util.OrderType.detectOrder;
@@ -61,7 +63,7 @@ public class Indexed32MultilayerBlock implements IBlock {
     /**
      * Initializes a new instance of this block reading the specified buffer.
      *
-     * @param bb the buffer
+     * @param bb the buffer with l2j block data, must be in LITTLE_ENDIAN order
      */
     public Indexed32MultilayerBlock(ByteBuffer bb) {
         int start = bb.position();
@@ -91,7 +93,7 @@ public class Indexed32MultilayerBlock implements IBlock {
             short[] layerDatum = new short[nLayers];
             int[] heights = new int[nLayers];
             for (int j = 0; j < nLayers; j++) {
-                short layerData = Short.reverseBytes(bb.getShort());
+                short layerData = bb.getShort();
                 layerDatum[j] = layerData;
 
                 int height = extractLayerHeight(layerData);
@@ -109,7 +111,7 @@ public class Indexed32MultilayerBlock implements IBlock {
     }
 
     public Indexed32MultilayerBlock(byte[] data) {
-        this(ByteBuffer.wrap(data));
+        this(ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN));
     }
 
     public short[] getData() {
@@ -138,7 +140,7 @@ public class Indexed32MultilayerBlock implements IBlock {
         return layer >> 1;
     }
 
-    private short getNearestLayer(int geoX, int geoY, int worldZ) {
+    private short getNearestLayerData(int geoX, int geoY, int worldZ) {
         int cellDataOffset = getCellDataOffset(geoX, geoY);
         int startOffset = cellDataOffset & 0x01FF;
         int nLayers = (cellDataOffset >> 11) & 0x01F;
@@ -190,7 +192,7 @@ public class Indexed32MultilayerBlock implements IBlock {
     }
 
     private int getNearestNSWE(int geoX, int geoY, int worldZ) {
-        short nearestLayer = getNearestLayer(geoX, geoY, worldZ);
+        short nearestLayer = getNearestLayerData(geoX, geoY, worldZ);
         return extractLayerNswe(nearestLayer);
     }
 
@@ -201,7 +203,12 @@ public class Indexed32MultilayerBlock implements IBlock {
 
     @Override
     public int getNearestZ(int geoX, int geoY, int worldZ) {
-        return extractLayerHeight(getNearestLayer(geoX, geoY, worldZ));
+        return extractLayerHeight(getNearestLayerData(geoX, geoY, worldZ));
+    }
+
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        return LayerData.fromLayer(getNearestLayerData(geoX, geoY, worldZ));
     }
 
     @Override
@@ -238,4 +245,16 @@ public class Indexed32MultilayerBlock implements IBlock {
         return prevLayerZ;
     }
 
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        int cellDataOffset = getCellDataOffset(geoX, geoY);
+        int startOffset = cellDataOffset & 0x01FF;
+        int nLayers = (cellDataOffset >> 11) & 0x01F;
+        for (int i = 0; i < nLayers; i++) {
+            short layerData = data[startOffset + i];
+            outHeights[i] = extractLayerHeight(layerData);
+            outNswe[i] = (byte) extractLayerNswe(layerData);
+        }
+        return nLayers;
+    }
 }
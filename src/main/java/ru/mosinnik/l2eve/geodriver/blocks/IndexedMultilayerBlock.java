@@ -23,6 +23,7 @@
 package ru.mosinnik.l2eve.geodriver.blocks;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 
 import java.nio.ByteBuffer;
@@ -43,7 +44,7 @@ public class IndexedMultilayerBlock implements IBlock {
         for (int i = 0; i < IBlock.BLOCK_CELLS; i++) {
             index[i] = (short) (bb.position() - start);
             byte nLayers = bb.get();
-            if ((nLayers <= 0) || (nLayers > 125)) {
+            if ((nLayers <= 0) || (nLayers > IBlock.MAX_CELL_LAYERS)) {
                 throw new RuntimeException("L2JGeoDriver: Geo file corrupted! Invalid layers count!");
             }
             bb.position(bb.position() + (nLayers * 2));
@@ -80,7 +81,7 @@ public class IndexedMultilayerBlock implements IBlock {
     }
 
     private int getNearestNSWE(int geoX, int geoY, int worldZ) {
-        short nearestLayer = getNearestLayer(geoX, geoY, worldZ);
+        short nearestLayer = getNearestLayerData(geoX, geoY, worldZ);
         return extractLayerNswe(nearestLayer);
     }
 
@@ -93,7 +94,7 @@ public class IndexedMultilayerBlock implements IBlock {
         return layer >> 1;
     }
 
-    private short getNearestLayer(int geoX, int geoY, int worldZ) {
+    private short getNearestLayerData(int geoX, int geoY, int worldZ) {
         int startOffset = getCellDataOffset(geoX, geoY);
         byte nLayers = data[startOffset];
         if (nLayers == 1) {
@@ -128,7 +129,12 @@ public class IndexedMultilayerBlock implements IBlock {
 
     @Override
     public int getNearestZ(int geoX, int geoY, int worldZ) {
-        return extractLayerHeight(getNearestLayer(geoX, geoY, worldZ));
+        return extractLayerHeight(getNearestLayerData(geoX, geoY, worldZ));
+    }
+
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        return LayerData.fromLayer(getNearestLayerData(geoX, geoY, worldZ));
     }
 
     @Override
@@ -174,4 +180,16 @@ public class IndexedMultilayerBlock implements IBlock {
         }
         return higherZ == Integer.MAX_VALUE ? worldZ : higherZ;
     }
+
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        int startOffset = getCellDataOffset(geoX, geoY);
+        byte nLayers = data[startOffset];
+        for (int i = 0; i < nLayers; i++) {
+            short layerData = extractLayerData(startOffset + 1 + 2 * i);
+            outHeights[i] = extractLayerHeight(layerData);
+            outNswe[i] = (byte) extractLayerNswe(layerData);
+        }
+        return nLayers;
+    }
 }
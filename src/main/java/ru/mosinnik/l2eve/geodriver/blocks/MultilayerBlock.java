@@ -19,6 +19,7 @@
 package ru.mosinnik.l2eve.geodriver.blocks;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 
 import java.nio.ByteBuffer;
@@ -41,7 +42,7 @@ public class MultilayerBlock implements IBlock {
 
         for (int blockCellOffset = 0; blockCellOffset < IBlock.BLOCK_CELLS; blockCellOffset++) {
             byte nLayers = bb.get();
-            if ((nLayers <= 0) || (nLayers > 125)) {
+            if ((nLayers <= 0) || (nLayers > IBlock.MAX_CELL_LAYERS)) {
                 throw new RuntimeException("L2JGeoDriver: Geo file corrupted! Invalid layers count!");
             }
 
@@ -92,7 +93,7 @@ public class MultilayerBlock implements IBlock {
         return maxHeight;
     }
 
-    private short getNearestLayer(int geoX, int geoY, int worldZ) {
+    private short getNearestLayerData(int geoX, int geoY, int worldZ) {
         int startOffset = getCellDataOffset(geoX, geoY);
         byte nLayers = data[startOffset];
         int endOffset = startOffset + 1 + (nLayers * 2);
@@ -137,7 +138,7 @@ public class MultilayerBlock implements IBlock {
     }
 
     private int getNearestNSWE(int geoX, int geoY, int worldZ) {
-        short nearestLayer = getNearestLayer(geoX, geoY, worldZ);
+        short nearestLayer = getNearestLayerData(geoX, geoY, worldZ);
         return extractLayerNswe(nearestLayer);
     }
 
@@ -157,7 +158,12 @@ public class MultilayerBlock implements IBlock {
 
     @Override
     public int getNearestZ(int geoX, int geoY, int worldZ) {
-        return extractLayerHeight(getNearestLayer(geoX, geoY, worldZ));
+        return extractLayerHeight(getNearestLayerData(geoX, geoY, worldZ));
+    }
+
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        return LayerData.fromLayer(getNearestLayerData(geoX, geoY, worldZ));
     }
 
     @Override
@@ -203,4 +209,16 @@ public class MultilayerBlock implements IBlock {
         }
         return higherZ == Integer.MAX_VALUE ? worldZ : higherZ;
     }
+
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        int startOffset = getCellDataOffset(geoX, geoY);
+        byte nLayers = data[startOffset];
+        for (int i = 0; i < nLayers; i++) {
+            short layerData = extractLayerData(startOffset + 1 + 2 * i);
+            outHeights[i] = extractLayerHeight(layerData);
+            outNswe[i] = (byte) extractLayerNswe(layerData);
+        }
+        return nLayers;
+    }
 }
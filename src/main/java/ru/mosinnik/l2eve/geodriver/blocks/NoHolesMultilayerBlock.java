@@ -23,6 +23,7 @@
 package ru.mosinnik.l2eve.geodriver.blocks;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 import ru.mosinnik.l2eve.geodriver.util.BlockStat;
 
@@ -73,7 +74,7 @@ public class NoHolesMultilayerBlock implements IBlock {
         return layersCount;
     }
 
-    private short getNearestLayer(int geoX, int geoY, int worldZ) {
+    private short getNearestLayerData(int geoX, int geoY, int worldZ) {
         int startOffset = layersCount * (((geoX & 0x07) << 3) + (geoY & 0x07));
 
         int nearestDZ = 0;
@@ -98,7 +99,7 @@ public class NoHolesMultilayerBlock implements IBlock {
     }
 
     private int getNearestNSWE(int geoX, int geoY, int worldZ) {
-        return extractLayerNswe(getNearestLayer(geoX, geoY, worldZ));
+        return extractLayerNswe(getNearestLayerData(geoX, geoY, worldZ));
     }
 
     private int extractLayerNswe(short layer) {
@@ -117,7 +118,12 @@ public class NoHolesMultilayerBlock implements IBlock {
 
     @Override
     public int getNearestZ(int geoX, int geoY, int worldZ) {
-        return extractLayerHeight(getNearestLayer(geoX, geoY, worldZ));
+        return extractLayerHeight(getNearestLayerData(geoX, geoY, worldZ));
+    }
+
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        return LayerData.fromLayer(getNearestLayerData(geoX, geoY, worldZ));
     }
 
     @Override
@@ -149,4 +155,15 @@ public class NoHolesMultilayerBlock implements IBlock {
         }
         return prevLayerZ;
     }
+
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        int startOffset = layersCount * (((geoX & 0x07) << 3) + (geoY & 0x07));
+        for (int i = 0; i < layersCount; i++) {
+            short layerData = data[startOffset + i];
+            outHeights[i] = extractLayerHeight(layerData);
+            outNswe[i] = (byte) extractLayerNswe(layerData);
+        }
+        return layersCount;
+    }
 }
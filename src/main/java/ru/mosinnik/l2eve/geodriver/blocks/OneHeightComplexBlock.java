@@ -23,6 +23,7 @@
 package ru.mosinnik.l2eve.geodriver.blocks;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 import ru.mosinnik.l2eve.geodriver.util.BlockStat;
 
@@ -71,6 +72,11 @@ public final class OneHeightComplexBlock implements IBlock {
         return height;
     }
 
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        return LayerData.pack(height, getCellNSWE(geoX, geoY));
+    }
+
     @Override
     public int getNextLowerZ(int geoX, int geoY, int worldZ) {
         return Math.min(height, worldZ);
@@ -80,4 +86,11 @@ public final class OneHeightComplexBlock implements IBlock {
     public int getNextHigherZ(int geoX, int geoY, int worldZ) {
         return Math.max(height, worldZ);
     }
+
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        outHeights[0] = height;
+        outNswe[0] = getCellNSWE(geoX, geoY);
+        return 1;
+    }
 }
@@ -23,6 +23,7 @@
 package ru.mosinnik.l2eve.geodriver.bytes;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 import ru.mosinnik.l2eve.geodriver.blocks.BaseHeightComplexBlock;
 
@@ -85,6 +86,12 @@ public final class BaseHeightComplexBlockBytes {
         return getCellHeight(geoX, geoY, blockDataOffset, data);
     }
 
+    public static int getNearestLayer(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
+        int cellOffset = ((geoX & 0x07) << 3) + (geoY & 0x07);
+        byte cell = data.get(blockDataOffset + INNER_DATA_OFFSET + cellOffset);
+        return LayerData.pack(((cell & 0x0000_00F0) >> 1) + data.getShort(blockDataOffset), cell & 0x0F);
+    }
+
     public static int getNextLowerZ(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
         int cellHeight = getCellHeight(geoX, geoY, blockDataOffset, data);
         return Math.min(cellHeight, worldZ);
@@ -95,4 +102,9 @@ public final class BaseHeightComplexBlockBytes {
         return Math.max(cellHeight, worldZ);
     }
 
+    public static int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe, int blockDataOffset, ByteBuffer data) {
+        outHeights[0] = getCellHeight(geoX, geoY, blockDataOffset, data);
+        outNswe[0] = getCellNSWE(geoX, geoY, blockDataOffset, data);
+        return 1;
+    }
 }
@@ -23,6 +23,7 @@
 package ru.mosinnik.l2eve.geodriver.bytes;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 import ru.mosinnik.l2eve.geodriver.blocks.BaseHeightOneNsweComplexBlock;
 
@@ -83,6 +84,10 @@ public final class BaseHeightOneNsweComplexBlockBytes {
         return getCellHeight(geoX, geoY, blockDataOffset, data);
     }
 
+    public static int getNearestLayer(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
+        return LayerData.pack(getCellHeight(geoX, geoY, blockDataOffset, data), data.get(blockDataOffset + NSWE_OFFSET));
+    }
+
     public static int getNextLowerZ(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
         int cellHeight = getCellHeight(geoX, geoY, blockDataOffset, data);
         return Math.min(cellHeight, worldZ);
@@ -93,4 +98,9 @@ public final class BaseHeightOneNsweComplexBlockBytes {
         return Math.max(cellHeight, worldZ);
     }
 
+    public static int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe, int blockDataOffset, ByteBuffer data) {
+        outHeights[0] = getCellHeight(geoX, geoY, blockDataOffset, data);
+        outNswe[0] = data.get(blockDataOffset + NSWE_OFFSET);
+        return 1;
+    }
 }
@@ -23,6 +23,7 @@
 package ru.mosinnik.l2eve.geodriver.bytes;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 import ru.mosinnik.l2eve.geodriver.blocks.ComplexBlock;
 
@@ -81,6 +82,11 @@ public final class ComplexBlockBytes {
         return getCellHeight(geoX, geoY, blockDataOffset, data);
     }
 
+    public static int getNearestLayer(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
+        int cellOffset = ((geoX & 0x07) << 3) + (geoY & 0x07);
+        return LayerData.fromLayer(data.getShort(blockDataOffset + 2 * cellOffset));
+    }
+
     public static int getNextLowerZ(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
         int cellHeight = getCellHeight(geoX, geoY, blockDataOffset, data);
         return Math.min(cellHeight, worldZ);
@@ -90,4 +96,10 @@ public final class ComplexBlockBytes {
         int cellHeight = getCellHeight(geoX, geoY, blockDataOffset, data);
         return Math.max(cellHeight, worldZ);
     }
+
+    public static int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe, int blockDataOffset, ByteBuffer data) {
+        outHeights[0] = getCellHeight(geoX, geoY, blockDataOffset, data);
+        outNswe[0] = (byte) getCellNSWE(geoX, geoY, blockDataOffset, data);
+        return 1;
+    }
 }
@@ -23,6 +23,7 @@
 package ru.mosinnik.l2eve.geodriver.bytes;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 import ru.mosinnik.l2eve.geodriver.blocks.FewHeightsComplexBlock;
 
@@ -94,6 +95,13 @@ public final class FewHeightsComplexBlockBytes {
         return getCellHeight(geoX, geoY, blockDataOffset, data);
     }
 
+    public static int getNearestLayer(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
+        int cellOffset = ((geoX & 0x07) << 3) + (geoY & 0x07);
+        byte cell = data.get(blockDataOffset + INNER_DATA_OFFSET + cellOffset);
+        int heightIndex = (cell >> 4) & 0x0F;
+        return LayerData.pack(data.getShort(blockDataOffset + HEIGHTS_OFFSET + 2 * heightIndex), cell & 0x0F);
+    }
+
     public static int getNextLowerZ(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
         int cellHeight = getCellHeight(geoX, geoY, blockDataOffset, data);
         return Math.min(cellHeight, worldZ);
@@ -104,4 +112,9 @@ public final class FewHeightsComplexBlockBytes {
         return Math.max(cellHeight, worldZ);
     }
 
+    public static int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe, int blockDataOffset, ByteBuffer data) {
+        outHeights[0] = getCellHeight(geoX, geoY, blockDataOffset, data);
+        outNswe[0] = getCellNSWE(geoX, geoY, blockDataOffset, data);
+        return 1;
+    }
 }
@@ -23,6 +23,8 @@
 package ru.mosinnik.l2eve.geodriver.bytes;
 
 
+import ru.mosinnik.l2eve.geodriver.Cell;
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.blocks.FlatBlock;
 
 import java.nio.ByteBuffer;
@@ -55,6 +57,10 @@ public class FlatBlockBytes {
         return data.getShort(blockDataOffset);
     }
 
+    public static int getNearestLayer(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
+        return LayerData.pack(data.getShort(blockDataOffset), Cell.NSWE_ALL);
+    }
+
     public static int getNextLowerZ(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
         return Math.min(data.getShort(blockDataOffset), worldZ);
     }
@@ -63,4 +69,9 @@ public class FlatBlockBytes {
         return Math.max(data.getShort(blockDataOffset), worldZ);
     }
 
+    public static int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe, int blockDataOffset, ByteBuffer data) {
+        outHeights[0] = data.getShort(blockDataOffset);
+        outNswe[0] = Cell.NSWE_ALL;
+        return 1;
+    }
 }
@@ -23,6 +23,8 @@
 package ru.mosinnik.l2eve.geodriver.bytes;
 
 
+import ru.mosinnik.l2eve.geodriver.Cell;
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.blocks.FlatBlock;
 
 import java.nio.ByteBuffer;
@@ -62,6 +64,10 @@ public class FlatBlockFromOffsetBytes {
         return blockDataOffset;
     }
 
+    public static int getNearestLayer(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
+        return LayerData.pack(blockDataOffset, Cell.NSWE_ALL);
+    }
+
     public static int getNextLowerZ(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
         return Math.min(blockDataOffset, worldZ);
     }
@@ -70,4 +76,9 @@ public class FlatBlockFromOffsetBytes {
         return Math.max(blockDataOffset, worldZ);
     }
 
+    public static int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe, int blockDataOffset, ByteBuffer data) {
+        outHeights[0] = blockDataOffset;
+        outNswe[0] = Cell.NSWE_ALL;
+        return 1;
+    }
 }
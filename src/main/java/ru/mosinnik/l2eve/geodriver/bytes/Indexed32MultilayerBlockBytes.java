@@ -23,6 +23,7 @@
 package ru.mosinnik.l2eve.geodriver.bytes;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 import ru.mosinnik.l2eve.geodriver.blocks.Indexed32MultilayerBlock;
 
@@ -91,7 +92,7 @@ public class Indexed32MultilayerBlockBytes {
     }
 
 
-    private static short getNearestLayer(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
+    private static short getNearestLayerData(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
         int cellDataOffset = getCellDataOffset(geoX, geoY, blockDataOffset, data);
         int startOffset = (cellDataOffset & 0x01FF) << 1;
         int nLayers = (cellDataOffset >> 11) & 0x01F;
@@ -148,7 +149,7 @@ public class Indexed32MultilayerBlockBytes {
     }
 
     private static int getNearestNSWE(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
-        short nearestLayer = getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+        short nearestLayer = getNearestLayerData(geoX, geoY, worldZ, blockDataOffset, data);
         return extractLayerNswe(nearestLayer);
     }
 
@@ -158,11 +159,15 @@ public class Indexed32MultilayerBlockBytes {
     }
 
     public static int getNearestZ(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
-        short layer = getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+        short layer = getNearestLayerData(geoX, geoY, worldZ, blockDataOffset, data);
         layer = (short) (layer & 0x0fff0);
         return layer >> 1;
     }
 
+    public static int getNearestLayer(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
+        return LayerData.fromLayer(getNearestLayerData(geoX, geoY, worldZ, blockDataOffset, data));
+    }
+
     public static int getNextLowerZ(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
         int cellDataOffset = getCellDataOffset(geoX, geoY, blockDataOffset, data);
         int startOffset = (cellDataOffset & 0x01FF) << 1;
@@ -197,4 +202,16 @@ public class Indexed32MultilayerBlockBytes {
         }
         return prevLayerZ;
     }
+
+    public static int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe, int blockDataOffset, ByteBuffer data) {
+        int cellDataOffset = getCellDataOffset(geoX, geoY, blockDataOffset, data);
+        int startOffset = (cellDataOffset & 0x01FF) << 1;
+        int nLayers = (cellDataOffset >> 11) & 0x01F;
+        for (int i = 0; i < nLayers; i++) {
+            short layerData = extractLayerData(startOffset + 2 * i, blockDataOffset, data);
+            outHeights[i] = extractLayerHeight(layerData);
+            outNswe[i] = (byte) extractLayerNswe(layerData);
+        }
+        return nLayers;
+    }
 }
@@ -23,13 +23,20 @@
 package ru.mosinnik.l2eve.geodriver.bytes;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 import ru.mosinnik.l2eve.geodriver.blocks.IndexedMultilayerBlock;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 public class IndexedMultilayerBlockBytes {
 
+    // слои лежат как в l2j файле (LITTLE_ENDIAN) независимо от порядка байт data
+    private static final VarHandle LAYER_DATA = MethodHandles.byteBufferViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+
     public static final int INDEX_SIZE = 2 * IBlock.BLOCK_CELLS;
 
     private static final int INDEX_OFFSET = 0;
@@ -72,8 +79,7 @@ public class IndexedMultilayerBlockBytes {
     }
 
     private static short extractLayerData(int dataOffset, int blockDataOffset, ByteBuffer data) {
-        return (short) ((data.get(blockDataOffset + INNER_DATA_OFFSET + dataOffset) & 0xFF) |
-                (data.get(blockDataOffset + INNER_DATA_OFFSET + dataOffset + 1) << 8));
+        return (short) LAYER_DATA.get(data, blockDataOffset + INNER_DATA_OFFSET + dataOffset);
     }
 
     private static int extractLayerHeight(short layer) {
@@ -82,7 +88,7 @@ public class IndexedMultilayerBlockBytes {
     }
 
 
-    private static short getNearestLayer(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
+    private static short getNearestLayerData(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
         int startOffset = getCellDataOffset(geoX, geoY, blockDataOffset, data);
         byte nLayers = data.get(blockDataOffset + INNER_DATA_OFFSET + startOffset);
         int endOffset = startOffset + 1 + (nLayers * 2);
@@ -112,7 +118,7 @@ public class IndexedMultilayerBlockBytes {
     }
 
     private static int getNearestNSWE(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
-        short nearestLayer = getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+        short nearestLayer = getNearestLayerData(geoX, geoY, worldZ, blockDataOffset, data);
         return extractLayerNswe(nearestLayer);
     }
 
@@ -122,7 +128,11 @@ public class IndexedMultilayerBlockBytes {
     }
 
     public static int getNearestZ(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
-        return extractLayerHeight(getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data));
+        return extractLayerHeight(getNearestLayerData(geoX, geoY, worldZ, blockDataOffset, data));
+    }
+
+    public static int getNearestLayer(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
+        return LayerData.fromLayer(getNearestLayerData(geoX, geoY, worldZ, blockDataOffset, data));
     }
 
     public static int getNextLowerZ(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
@@ -166,4 +176,15 @@ public class IndexedMultilayerBlockBytes {
         }
         return higherZ == Integer.MAX_VALUE ? worldZ : higherZ;
     }
+
+    public static int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe, int blockDataOffset, ByteBuffer data) {
+        int startOffset = getCellDataOffset(geoX, geoY, blockDataOffset, data);
+        byte nLayers = data.get(blockDataOffset + INNER_DATA_OFFSET + startOffset);
+        for (int i = 0; i < nLayers; i++) {
+            short layerData = extractLayerData(startOffset + 1 + 2 * i, blockDataOffset, data);
+            outHeights[i] = extractLayerHeight(layerData);
+            outNswe[i] = (byte) extractLayerNswe(layerData);
+        }
+        return nLayers;
+    }
 }
@@ -23,12 +23,19 @@
 package ru.mosinnik.l2eve.geodriver.bytes;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.blocks.MultilayerBlock;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 public class MultilayerBlockBytes {
 
+    // слои лежат как в l2j файле (LITTLE_ENDIAN) независимо от порядка байт data
+    private static final VarHandle LAYER_DATA = MethodHandles.byteBufferViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+
     public static int calcBytesCount(MultilayerBlock block) {
         return block.getDataLength();
     }
@@ -70,8 +77,7 @@ public class MultilayerBlockBytes {
     }
 
     private static short extractLayerData(int dataOffset, int blockDataOffset, ByteBuffer data) {
-        return (short) ((data.get(blockDataOffset + dataOffset) & 0xFF) |
-                (data.get(blockDataOffset + dataOffset + 1) << 8));
+        return (short) LAYER_DATA.get(data, blockDataOffset + dataOffset);
     }
 
     private static int extractLayerHeight(short layer) {
@@ -80,7 +86,7 @@ public class MultilayerBlockBytes {
     }
 
 
-    private static short getNearestLayer(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
+    private static short getNearestLayerData(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
         // локальный оффсет
         int startOffset = getCellDataOffset(geoX, geoY, blockDataOffset, data);
         byte nLayers = data.get(blockDataOffset + startOffset);
@@ -111,7 +117,7 @@ public class MultilayerBlockBytes {
     }
 
     private static int getNearestNSWE(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
-        return extractLayerNswe(getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data));
+        return extractLayerNswe(getNearestLayerData(geoX, geoY, worldZ, blockDataOffset, data));
     }
 
 
@@ -120,7 +126,11 @@ public class MultilayerBlockBytes {
     }
 
     public static int getNearestZ(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
-        return extractLayerHeight(getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data));
+        return extractLayerHeight(getNearestLayerData(geoX, geoY, worldZ, blockDataOffset, data));
+    }
+
+    public static int getNearestLayer(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
+        return LayerData.fromLayer(getNearestLayerData(geoX, geoY, worldZ, blockDataOffset, data));
     }
 
     public static int getNextLowerZ(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
@@ -164,4 +174,15 @@ public class MultilayerBlockBytes {
         }
         return higherZ == Integer.MAX_VALUE ? worldZ : higherZ;
     }
+
+    public static int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe, int blockDataOffset, ByteBuffer data) {
+        int startOffset = getCellDataOffset(geoX, geoY, blockDataOffset, data);
+        byte nLayers = data.get(blockDataOffset + startOffset);
+        for (int i = 0; i < nLayers; i++) {
+            short layerData = extractLayerData(startOffset + 1 + 2 * i, blockDataOffset, data);
+            outHeights[i] = extractLayerHeight(layerData);
+            outNswe[i] = (byte) extractLayerNswe(layerData);
+        }
+        return nLayers;
+    }
 }
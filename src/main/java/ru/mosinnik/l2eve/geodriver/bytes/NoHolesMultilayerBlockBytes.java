@@ -23,6 +23,7 @@
 package ru.mosinnik.l2eve.geodriver.bytes;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 import ru.mosinnik.l2eve.geodriver.blocks.NoHolesMultilayerBlock;
 
@@ -71,7 +72,7 @@ public class NoHolesMultilayerBlockBytes {
     /**
      * Don't need to optimized with layersCount == 1 or == 2 - no perf boost
      */
-    private static short getNearestLayer(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
+    private static short getNearestLayerData(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
         byte layersCount = data.get(blockDataOffset + LAYER_COUNT_OFFSET);
 
         int startOffset = 2 * layersCount * (((geoX & 0x07) << 3) + (geoY & 0x07));
@@ -98,7 +99,7 @@ public class NoHolesMultilayerBlockBytes {
     }
 
     private static int getNearestNSWE(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
-        return extractLayerNswe(getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data));
+        return extractLayerNswe(getNearestLayerData(geoX, geoY, worldZ, blockDataOffset, data));
     }
 
 
@@ -107,7 +108,11 @@ public class NoHolesMultilayerBlockBytes {
     }
 
     public static int getNearestZ(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
-        return extractLayerHeight(getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data));
+        return extractLayerHeight(getNearestLayerData(geoX, geoY, worldZ, blockDataOffset, data));
+    }
+
+    public static int getNearestLayer(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
+        return LayerData.fromLayer(getNearestLayerData(geoX, geoY, worldZ, blockDataOffset, data));
     }
 
     public static int getNextLowerZ(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
@@ -141,4 +146,17 @@ public class NoHolesMultilayerBlockBytes {
         }
         return prevLayerZ;
     }
+
+    public static int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe, int blockDataOffset, ByteBuffer data) {
+        byte layersCount = data.get(blockDataOffset + LAYER_COUNT_OFFSET);
+        int startOffset = 2 * layersCount * (((geoX & 0x07) << 3) + (geoY & 0x07));
+
+        int baseOffset = blockDataOffset + INNER_DATA_OFFSET + startOffset;
+        for (int i = 0; i < layersCount; i++) {
+            short layerData = data.getShort(baseOffset + 2 * i);
+            outHeights[i] = extractLayerHeight(layerData);
+            outNswe[i] = (byte) extractLayerNswe(layerData);
+        }
+        return layersCount;
+    }
 }
@@ -22,6 +22,9 @@
 
 package ru.mosinnik.l2eve.geodriver.bytes;
 
+import ru.mosinnik.l2eve.geodriver.Cell;
+import ru.mosinnik.l2eve.geodriver.LayerData;
+
 public final class NullRegionBytes {
 
     public static boolean checkNearestNSWE(int geoX, int geoY, int worldZ, byte nswe) {
@@ -32,6 +35,10 @@ public final class NullRegionBytes {
         return worldZ;
     }
 
+    public static int getNearestLayer(int geoX, int geoY, int worldZ) {
+        return LayerData.packWorldZ(worldZ, Cell.NSWE_ALL);
+    }
+
     public static int getNextLowerZ(int geoX, int geoY, int worldZ) {
         return worldZ;
     }
@@ -40,4 +47,7 @@ public final class NullRegionBytes {
         return worldZ;
     }
 
+    public static int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        return 0;
+    }
 }
@@ -23,6 +23,7 @@
 package ru.mosinnik.l2eve.geodriver.bytes;
 
 
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 import ru.mosinnik.l2eve.geodriver.blocks.OneHeightComplexBlock;
 
@@ -73,6 +74,10 @@ public final class OneHeightComplexBlockBytes {
         return data.getShort(blockDataOffset);
     }
 
+    public static int getNearestLayer(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
+        return LayerData.pack(data.getShort(blockDataOffset), getCellNSWE(geoX, geoY, blockDataOffset, data));
+    }
+
     public static int getNextLowerZ(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
         return Math.min(data.getShort(blockDataOffset), worldZ);
     }
@@ -80,4 +85,10 @@ public final class OneHeightComplexBlockBytes {
     public static int getNextHigherZ(int geoX, int geoY, int worldZ, int blockDataOffset, ByteBuffer data) {
         return Math.max(data.getShort(blockDataOffset), worldZ);
     }
+
+    public static int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe, int blockDataOffset, ByteBuffer data) {
+        outHeights[0] = data.getShort(blockDataOffset);
+        outNswe[0] = getCellNSWE(geoX, geoY, blockDataOffset, data);
+        return 1;
+    }
 }
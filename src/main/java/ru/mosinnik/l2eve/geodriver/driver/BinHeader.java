@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.driver;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants.HEADER_FILE_NAME;
+
+/**
+ * Заголовок bin формата: версия и порядок байт, в котором записаны data.bin и все индексы.
+ * <p>
+ * Первая версия писалась без заголовка в BIG_ENDIAN, из-за чего на x86 каждый getShort из mmap
+ * разворачивал байты. Вторая версия пишется в LITTLE_ENDIAN, порядок явно указан в заголовке.
+ * <p>
+ * Сам заголовок всегда в BIG_ENDIAN: magic (int), version (int), byte order (byte, 0 - BE, 1 - LE).
+ */
+@Slf4j
+public record BinHeader(int version, ByteOrder byteOrder) {
+
+    public static final int MAGIC = 0x4C324745; // L2GE
+    public static final int HEADER_SIZE = 4 + 4 + 1;
+
+    public static final BinHeader V1 = new BinHeader(1, ByteOrder.BIG_ENDIAN);
+    public static final BinHeader V2 = new BinHeader(2, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Current format, used for geodata loaded from l2j
+     */
+    public static final BinHeader CURRENT = V2;
+
+    @SneakyThrows
+    public static BinHeader readFromFiles(Path dataDir) {
+        Path headerPath = dataDir.resolve(HEADER_FILE_NAME);
+        if (!Files.exists(headerPath)) {
+            log.info("No header file: {}, using format v{} {}", HEADER_FILE_NAME, V1.version(), V1.byteOrder());
+            return V1;
+        }
+
+        byte[] bytes = Files.readAllBytes(headerPath);
+        if (bytes.length != HEADER_SIZE) {
+            throw new IllegalArgumentException("Wrong header size: " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int magic = buffer.getInt();
+        if (magic != MAGIC) {
+            throw new IllegalArgumentException("Wrong header magic: " + Integer.toHexString(magic));
+        }
+        int version = buffer.getInt();
+        ByteOrder byteOrder = switch (buffer.get()) {
+            case 0 -> ByteOrder.BIG_ENDIAN;
+            case 1 -> ByteOrder.LITTLE_ENDIAN;
+            default -> throw new IllegalArgumentException("Unknown byte order in header: " + bytes[HEADER_SIZE - 1]);
+        };
+        if (version < V1.version() || version > CURRENT.version()) {
+            throw new IllegalArgumentException("Unsupported format version: " + version);
+        }
+        BinHeader header = new BinHeader(version, byteOrder);
+        log.info("Read header: {}", header);
+        return header;
+    }
+
+    @SneakyThrows
+    public void writeToFiles(Path dataDir) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        buffer.putInt(MAGIC);
+        buffer.putInt(version);
+        buffer.put((byte) (byteOrder == ByteOrder.LITTLE_ENDIAN ? 1 : 0));
+        Files.write(dataDir.resolve(HEADER_FILE_NAME), buffer.array());
+        log.info("Updated header file: {}", HEADER_FILE_NAME);
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.driver;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants.*;
+import static ru.mosinnik.l2eve.geodriver.util.Converter.*;
+
+/**
+ * Сжатый индекс смещений блоков в data вместо плоского int[] на каждый блок (43Мб на 10.8кк блоков).
+ * <p>
+ * Три уровня:
+ * - regionDataOffsets: long база данных региона в data.bin (по индексу региона, как regionFirstBlockIndexes),
+ * нужна только для чтения/записи файла, в памяти у каждого региона свой буфер
+ * - stripDataOffsets: int смещение полосы из 256 блоков (один geoX блока) относительно начала данных региона
+ * - blockDataOffsets: char смещение блока относительно начала полосы
+ * <p>
+ * Весь регион в 16 бит не влезает (уже ~500 complex блоков дают 64кб), а полоса из 256 блоков
+ * влезает почти всегда - complex полоса это 32кб. Если полоса не влезла, то stripDataOffsets хранит
+ * ~escapeIndex, а смещения ее блоков лежат в escapeDataOffsets как int относительно базы региона.
+ * <p>
+ * Высота flat блока хранится в blockDataOffsets как есть (short -> char), база к ней не прибавляется.
+ * <p>
+ * Для бинарников без файлов индекса читается старый blockDataOffsets.bin и сжимается при загрузке.
+ * <p>
+ * Массивы индекса наружу не отдаются, драйверы этого пакета берут их без копии для горячего пути
+ * и только читают.
+ */
+@Slf4j
+public final class BlockOffsetIndex {
+
+    /**
+     * Blocks in one strip, strip is all blocks of a region with the same block x
+     */
+    public static final int STRIP_BLOCKS = IRegion.REGION_BLOCKS_Y;
+
+    private final long[] regionDataOffsets;
+    private final int[] stripDataOffsets;
+    private final char[] blockDataOffsets;
+    private final int[] escapeDataOffsets;
+
+    private BlockOffsetIndex(long[] regionDataOffsets, int[] stripDataOffsets, char[] blockDataOffsets, int[] escapeDataOffsets) {
+        this.regionDataOffsets = regionDataOffsets;
+        this.stripDataOffsets = stripDataOffsets;
+        this.blockDataOffsets = blockDataOffsets;
+        this.escapeDataOffsets = escapeDataOffsets;
+    }
+
+    /**
+     * Base of region data in data.bin, 0 for regions loaded from l2j and not written yet
+     */
+    public long getRegionDataOffset(int regionIndex) {
+        return regionDataOffsets[regionIndex];
+    }
+
+    int[] stripDataOffsets() {
+        return stripDataOffsets;
+    }
+
+    char[] blockDataOffsets() {
+        return blockDataOffsets;
+    }
+
+    int[] escapeDataOffsets() {
+        return escapeDataOffsets;
+    }
+
+    /**
+     * Returns block offset in region data, or height for flat blocks.
+     * <p>
+     * readable:
+     * int stripIndex = blockIndex / STRIP_BLOCKS;
+     * int blockIndexInStrip = blockIndex % STRIP_BLOCKS;
+     */
+    public static int getBlockDataOffset(byte blockType, int blockIndex,
+                                         int[] stripDataOffsets, char[] blockDataOffsets, int[] escapeDataOffsets) {
+        int stripDataOffset = stripDataOffsets[blockIndex >> 8];
+        if (stripDataOffset < 0) {
+            return escapeDataOffsets[((~stripDataOffset) << 8) + (blockIndex & 0xFF)];
+        }
+        char blockDataOffset = blockDataOffsets[blockIndex];
+        if (blockType == FLAT_BLOCK) {
+            return (short) blockDataOffset;
+        }
+        return stripDataOffset + blockDataOffset;
+    }
+
+    public int getBlockDataOffset(byte blockType, int blockIndex) {
+        return getBlockDataOffset(blockType, blockIndex, stripDataOffsets, blockDataOffsets, escapeDataOffsets);
+    }
+
+    /**
+     * Sizes of regions data in data.bin, regions are stored one after another in order of their bases.
+     * Regions with flat blocks only have no data.
+     */
+    public long[] regionDataSizes(int[] regionFirstBlockIndexes, byte[] blockTypes, long dataSize) {
+        long[] regionDataSizes = new long[GEO_REGIONS];
+        Integer[] regionIndexes = IntStream.range(0, GEO_REGIONS)
+            .filter(regionIndex -> hasRegionData(regionFirstBlockIndexes[regionIndex], blockTypes))
+            .boxed()
+            .sorted(Comparator.comparingLong(regionIndex -> regionDataOffsets[regionIndex]))
+            .toArray(Integer[]::new);
+        for (int i = 0; i < regionIndexes.length; i++) {
+            long regionDataEnd = i + 1 < regionIndexes.length ? regionDataOffsets[regionIndexes[i + 1]] : dataSize;
+            regionDataSizes[regionIndexes[i]] = regionDataEnd - regionDataOffsets[regionIndexes[i]];
+        }
+        return regionDataSizes;
+    }
+
+    private static boolean hasRegionData(int regionFirstBlockIndex, byte[] blockTypes) {
+        if (regionFirstBlockIndex == NO_INDEX) {
+            return false;
+        }
+        for (int blockIndex = regionFirstBlockIndex; blockIndex < regionFirstBlockIndex + IRegion.REGION_BLOCKS; blockIndex++) {
+            if (blockTypes[blockIndex] != FLAT_BLOCK) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Approximate size of index in bytes
+     */
+    public long sizeInBytes() {
+        return 8L * regionDataOffsets.length
+            + 4L * stripDataOffsets.length
+            + 2L * blockDataOffsets.length
+            + 4L * escapeDataOffsets.length;
+    }
+
+    public int escapedStripsCount() {
+        return escapeDataOffsets.length / STRIP_BLOCKS;
+    }
+
+    /**
+     * Builds index from flat absolute offsets (old blockDataOffsets.bin format) or region relative offsets
+     * collected on l2j loading, then all bases are 0 until regions are written to data.bin.
+     *
+     * @param regionFirstBlockIndexes offsets of first region block, NO_INDEX for regions without data
+     * @param blockTypes              block types
+     * @param absoluteDataOffsets     absolute offset of block in data, or height for flat blocks
+     */
+    public static BlockOffsetIndex compress(int[] regionFirstBlockIndexes, byte[] blockTypes, int[] absoluteDataOffsets) {
+        if (blockTypes.length != absoluteDataOffsets.length || blockTypes.length % IRegion.REGION_BLOCKS != 0) {
+            throw new IllegalArgumentException("Wrong blocks count: types " + blockTypes.length + ", offsets " + absoluteDataOffsets.length);
+        }
+
+        long[] regionDataOffsets = new long[GEO_REGIONS];
+        int stripCount = blockTypes.length / STRIP_BLOCKS;
+        int[] stripDataOffsets = new int[stripCount];
+        char[] blockDataOffsets = new char[blockTypes.length];
+        int[] escapeDataOffsets = new int[0];
+        int escapedStrips = 0;
+
+        for (int regionIndex = 0; regionIndex < regionFirstBlockIndexes.length; regionIndex++) {
+            int regionFirstBlockIndex = regionFirstBlockIndexes[regionIndex];
+            if (regionFirstBlockIndex == NO_INDEX) {
+                continue;
+            }
+
+            int regionDataOffset = Math.max(0, minDataOffset(blockTypes, absoluteDataOffsets, regionFirstBlockIndex, IRegion.REGION_BLOCKS));
+            regionDataOffsets[regionIndex] = regionDataOffset;
+
+            for (int stripIndex = regionFirstBlockIndex / STRIP_BLOCKS;
+                 stripIndex < (regionFirstBlockIndex + IRegion.REGION_BLOCKS) / STRIP_BLOCKS;
+                 stripIndex++) {
+                int stripFirstBlockIndex = stripIndex * STRIP_BLOCKS;
+                int stripMinDataOffset = minDataOffset(blockTypes, absoluteDataOffsets, stripFirstBlockIndex, STRIP_BLOCKS);
+                // strip with flat blocks only has no data
+                int stripDataOffset = stripMinDataOffset == NO_INDEX ? 0 : stripMinDataOffset - regionDataOffset;
+
+                boolean fits = true;
+                for (int blockIndex = stripFirstBlockIndex; blockIndex < stripFirstBlockIndex + STRIP_BLOCKS; blockIndex++) {
+                    if (blockTypes[blockIndex] != FLAT_BLOCK
+                        && absoluteDataOffsets[blockIndex] - regionDataOffset - stripDataOffset > Character.MAX_VALUE) {
+                        fits = false;
+                        break;
+                    }
+                }
+
+                if (fits) {
+                    stripDataOffsets[stripIndex] = stripDataOffset;
+                    for (int blockIndex = stripFirstBlockIndex; blockIndex < stripFirstBlockIndex + STRIP_BLOCKS; blockIndex++) {
+                        int absoluteDataOffset = absoluteDataOffsets[blockIndex];
+                        blockDataOffsets[blockIndex] = blockTypes[blockIndex] == FLAT_BLOCK
+                            ? (char) absoluteDataOffset
+                            : (char) (absoluteDataOffset - regionDataOffset - stripDataOffset);
+                    }
+                } else {
+                    if (escapeDataOffsets.length < (escapedStrips + 1) * STRIP_BLOCKS) {
+                        escapeDataOffsets = Arrays.copyOf(escapeDataOffsets, Math.max(STRIP_BLOCKS, 2 * escapeDataOffsets.length));
+                    }
+                    for (int i = 0; i < STRIP_BLOCKS; i++) {
+                        int blockIndex = stripFirstBlockIndex + i;
+                        int absoluteDataOffset = absoluteDataOffsets[blockIndex];
+                        escapeDataOffsets[escapedStrips * STRIP_BLOCKS + i] = blockTypes[blockIndex] == FLAT_BLOCK
+                            ? absoluteDataOffset
+                            : absoluteDataOffset - regionDataOffset;
+                    }
+                    stripDataOffsets[stripIndex] = ~escapedStrips;
+                    escapedStrips++;
+                }
+            }
+        }
+
+        return new BlockOffsetIndex(
+            regionDataOffsets,
+            stripDataOffsets,
+            blockDataOffsets,
+            Arrays.copyOf(escapeDataOffsets, escapedStrips * STRIP_BLOCKS)
+        );
+    }
+
+    public void writeToFiles(Path dataDir, ByteOrder order) {
+        writeToFiles(dataDir, order, regionDataOffsets);
+    }
+
+    /**
+     * @param regionDataOffsets базы регионов в записываемом data.bin, вместо баз самого индекса
+     */
+    @SneakyThrows
+    public void writeToFiles(Path dataDir, ByteOrder order, long[] regionDataOffsets) {
+        Files.write(dataDir.resolve(REGION_DATA_OFFSETS_FILE_NAME), asBytes(regionDataOffsets, order));
+        log.info("Updated regionDataOffsets file: {}", REGION_DATA_OFFSETS_FILE_NAME);
+
+        Files.write(dataDir.resolve(STRIP_DATA_OFFSETS_FILE_NAME), asBytes(stripDataOffsets, order));
+        log.info("Updated stripDataOffsets file: {}", STRIP_DATA_OFFSETS_FILE_NAME);
+
+        Files.write(dataDir.resolve(BLOCK_RELATIVE_DATA_OFFSETS_FILE_NAME), asBytes(blockDataOffsets, order));
+        log.info("Updated blockRelativeDataOffsets file: {}", BLOCK_RELATIVE_DATA_OFFSETS_FILE_NAME);
+
+        Files.write(dataDir.resolve(ESCAPE_DATA_OFFSETS_FILE_NAME), asBytes(escapeDataOffsets, order));
+        log.info("Updated escapeDataOffsets file: {}", ESCAPE_DATA_OFFSETS_FILE_NAME);
+    }
+
+    @SneakyThrows
+    public static BlockOffsetIndex readFromFiles(Path dataDir, ByteOrder order, int[] regionFirstBlockIndexes, byte[] blockTypes) {
+        if (!Files.exists(dataDir.resolve(REGION_DATA_OFFSETS_FILE_NAME))) {
+            int[] absoluteDataOffsets = asInts(Files.readAllBytes(dataDir.resolve(BLOCK_DATA_OFFSETS_FILE_NAME)), order);
+            log.info("Read {} ints from data file: {}", absoluteDataOffsets.length, BLOCK_DATA_OFFSETS_FILE_NAME);
+            return compress(regionFirstBlockIndexes, blockTypes, absoluteDataOffsets);
+        }
+
+        long[] regionDataOffsets = new long[GEO_REGIONS];
+        asLongs(Files.readAllBytes(dataDir.resolve(REGION_DATA_OFFSETS_FILE_NAME)), regionDataOffsets, order);
+        log.info("Read {} longs from data file: {}", regionDataOffsets.length, REGION_DATA_OFFSETS_FILE_NAME);
+
+        int[] stripDataOffsets = asInts(Files.readAllBytes(dataDir.resolve(STRIP_DATA_OFFSETS_FILE_NAME)), order);
+        log.info("Read {} ints from data file: {}", stripDataOffsets.length, STRIP_DATA_OFFSETS_FILE_NAME);
+
+        char[] blockDataOffsets = asChars(Files.readAllBytes(dataDir.resolve(BLOCK_RELATIVE_DATA_OFFSETS_FILE_NAME)), order);
+        log.info("Read {} chars from data file: {}", blockDataOffsets.length, BLOCK_RELATIVE_DATA_OFFSETS_FILE_NAME);
+
+        int[] escapeDataOffsets = asInts(Files.readAllBytes(dataDir.resolve(ESCAPE_DATA_OFFSETS_FILE_NAME)), order);
+        log.info("Read {} ints from data file: {}", escapeDataOffsets.length, ESCAPE_DATA_OFFSETS_FILE_NAME);
+
+        if (blockDataOffsets.length != blockTypes.length || stripDataOffsets.length * STRIP_BLOCKS != blockTypes.length) {
+            throw new IllegalArgumentException("Block offsets index does not match block types: " + blockTypes.length);
+        }
+        return new BlockOffsetIndex(regionDataOffsets, stripDataOffsets, blockDataOffsets, escapeDataOffsets);
+    }
+
+    /**
+     * Returns NO_INDEX if there are only flat blocks
+     */
+    private static int minDataOffset(byte[] blockTypes, int[] absoluteDataOffsets, int firstBlockIndex, int blockCount) {
+        int min = Integer.MAX_VALUE;
+        for (int blockIndex = firstBlockIndex; blockIndex < firstBlockIndex + blockCount; blockIndex++) {
+            if (blockTypes[blockIndex] != FLAT_BLOCK) {
+                min = Math.min(min, absoluteDataOffsets[blockIndex]);
+            }
+        }
+        return min == Integer.MAX_VALUE ? NO_INDEX : min;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return (o instanceof BlockOffsetIndex that)
+            && Arrays.equals(regionDataOffsets, that.regionDataOffsets)
+            && Arrays.equals(stripDataOffsets, that.stripDataOffsets)
+            && Arrays.equals(blockDataOffsets, that.blockDataOffsets)
+            && Arrays.equals(escapeDataOffsets, that.escapeDataOffsets);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Arrays.hashCode(regionDataOffsets);
+        result = 31 * result + Arrays.hashCode(stripDataOffsets);
+        result = 31 * result + Arrays.hashCode(blockDataOffsets);
+        return 31 * result + Arrays.hashCode(escapeDataOffsets);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.driver;
+
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.metrics.GeoMemoryReport;
+import ru.mosinnik.l2eve.geodriver.metrics.GeoMemoryReporter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Обертка, которая передает все запросы драйверу как есть.
+ * <p>
+ * Основа для оберток, которые что-то делают вокруг части запросов (трасса, JFR, задержки, теплокарта):
+ * наследник переопределяет только свои запросы, остальные, включая запросы по площади, тип блока
+ * и отчет о памяти, уходят в драйвер без изменений. Переводы координат не зависят от драйвера
+ * и остаются методами по умолчанию {@link IGeoDriver}.
+ */
+public abstract class ForwardingGeoDriver implements IGeoDriver, GeoMemoryReporter {
+
+    protected final IGeoDriver driver;
+
+    protected ForwardingGeoDriver(IGeoDriver driver) {
+        this.driver = driver;
+    }
+
+    public IGeoDriver getDriver() {
+        return driver;
+    }
+
+    @Override
+    public void loadRegion(Path filePath, int regionX, int regionY) throws IOException {
+        driver.loadRegion(filePath, regionX, regionY);
+    }
+
+    @Override
+    public boolean hasGeoPos(int geoX, int geoY) {
+        return driver.hasGeoPos(geoX, geoY);
+    }
+
+    @Override
+    public int getNearestZ(int geoX, int geoY, int worldZ) {
+        return driver.getNearestZ(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        return driver.getNearestLayer(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public int getNextLowerZ(int geoX, int geoY, int worldZ) {
+        return driver.getNextLowerZ(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public int getNextHigherZ(int geoX, int geoY, int worldZ) {
+        return driver.getNextHigherZ(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        return driver.getLayers(geoX, geoY, outHeights, outNswe);
+    }
+
+    @Override
+    public int getBlockType(int geoX, int geoY) {
+        return driver.getBlockType(geoX, geoY);
+    }
+
+    @Override
+    public GeoMemoryReport getMemoryReport() {
+        return GeoMemoryReporter.reportOf(driver);
+    }
+
+    @Override
+    public int getBlockMinZ(int geoX, int geoY) {
+        return driver.getBlockMinZ(geoX, geoY);
+    }
+
+    @Override
+    public int getBlockMaxZ(int geoX, int geoY) {
+        return driver.getBlockMaxZ(geoX, geoY);
+    }
+
+    @Override
+    public boolean isBlockAllOpen(int geoX, int geoY) {
+        return driver.isBlockAllOpen(geoX, geoY);
+    }
+
+    @Override
+    public boolean isBlockUniform(int geoX, int geoY) {
+        return driver.isBlockUniform(geoX, geoY);
+    }
+
+    @Override
+    public int getAreaMaxZ(int minGeoX, int minGeoY, int maxGeoX, int maxGeoY) {
+        return driver.getAreaMaxZ(minGeoX, minGeoY, maxGeoX, maxGeoY);
+    }
+
+    @Override
+    public boolean hasHeightAbove(int minGeoX, int minGeoY, int maxGeoX, int maxGeoY, int worldZ) {
+        return driver.hasHeightAbove(minGeoX, minGeoY, maxGeoX, maxGeoY, worldZ);
+    }
+
+    @Override
+    public boolean isRayAboveTerrain(int geoX, int geoY, int worldZ, int toGeoX, int toGeoY, int toWorldZ) {
+        return driver.isRayAboveTerrain(geoX, geoY, worldZ, toGeoX, toGeoY, toWorldZ);
+    }
+
+    @Override
+    public int expandNeighbours(int geoX, int geoY, int worldZ, int[] outZ, byte[] outMask) {
+        return driver.expandNeighbours(geoX, geoY, worldZ, outZ, outMask);
+    }
+
+    @Override
+    public boolean checkNearestNSWE(int geoX, int geoY, int worldZ, byte nswe) {
+        return driver.checkNearestNSWE(geoX, geoY, worldZ, nswe);
+    }
+}
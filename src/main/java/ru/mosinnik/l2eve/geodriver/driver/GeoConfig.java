@@ -39,6 +39,16 @@ public class GeoConfig {
     private boolean indexedMultilayerBlockEnabled;
     private boolean indexed32MultilayerBlockEnabled;
 
+    /**
+     * Строить при загрузке сводку min/max/all open по блокам, см. BlockSummary
+     */
+    private boolean blockSummaryEnabled;
+
+    /**
+     * Строить при загрузке пирамиду высот для запросов по площадям и лучам, см. HeightPyramid
+     */
+    private boolean heightPyramidEnabled;
+
 
     public static GeoConfig maxPerfBytes() {
         GeoConfig geoConfig = new GeoConfig();
@@ -22,9 +22,16 @@
 
 package ru.mosinnik.l2eve.geodriver.driver;
 
+import ru.mosinnik.l2eve.geodriver.Cell;
+import ru.mosinnik.l2eve.geodriver.LayerData;
+import ru.mosinnik.l2eve.geodriver.Neighbours;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
 import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+import ru.mosinnik.l2eve.geodriver.jfr.GeoRegionLoadEvent;
+import ru.mosinnik.l2eve.geodriver.metrics.GeoMemoryReport;
+import ru.mosinnik.l2eve.geodriver.metrics.GeoMemoryReporter;
+import ru.mosinnik.l2eve.geodriver.metrics.GeoMemoryReport.Storage;
 import ru.mosinnik.l2eve.geodriver.regions.NullRegion;
 import ru.mosinnik.l2eve.geodriver.regions.Region;
 
@@ -35,11 +42,16 @@ import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.util.Arrays;
 
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_CELLS_X;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_CELLS_Y;
 import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS;
 import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS_Y;
 
 
-public final class GeoDriver implements IGeoDriver {
+public final class GeoDriver implements IGeoDriver, GeoMemoryReporter {
+
+    // заголовок объекта с compressed oops, для блоков с полями-примитивами оценка занижена до 8 байт
+    private static final long OBJECT_BYTES = 16;
 
     /**
      * The regions array
@@ -48,6 +60,9 @@ public final class GeoDriver implements IGeoDriver {
 
     private final GeoConfig config;
 
+    // отчет о памяти, считается при первом запросе после загрузки региона
+    private volatile GeoMemoryReport memoryReport;
+
     public GeoDriver() {
         config = new GeoConfig();
         Arrays.fill(regions, NullRegion.INSTANCE);
@@ -71,12 +86,16 @@ public final class GeoDriver implements IGeoDriver {
     public void loadRegion(Path filePath, int regionX, int regionY) throws IOException {
         final int regionOffset = (regionX * GEO_REGIONS_Y) + regionY;
 
+        GeoRegionLoadEvent event = new GeoRegionLoadEvent();
+        event.begin();
         try (RandomAccessFile raf = new RandomAccessFile(filePath.toFile(), "r")) {
             regions[regionOffset] = new Region(
                 raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length()).order(ByteOrder.LITTLE_ENDIAN),
                 config
             );
+            GeoRegionLoadEvent.finish(event, "GeoDriver", "parse", regionX, regionY, raf.length());
         }
+        memoryReport = null;
     }
 
 
@@ -95,6 +114,11 @@ public final class GeoDriver implements IGeoDriver {
         return getRegion(geoX, geoY).getNearestZ(geoX, geoY, worldZ);
     }
 
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        return getRegion(geoX, geoY).getNearestLayer(geoX, geoY, worldZ);
+    }
+
     @Override
     public int getNextLowerZ(int geoX, int geoY, int worldZ) {
         return getRegion(geoX, geoY).getNextLowerZ(geoX, geoY, worldZ);
@@ -105,12 +129,116 @@ public final class GeoDriver implements IGeoDriver {
         return getRegion(geoX, geoY).getNextHigherZ(geoX, geoY, worldZ);
     }
 
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        return getRegion(geoX, geoY).getLayers(geoX, geoY, outHeights, outNswe);
+    }
+
+    /**
+     * Центральный блок берется один раз, для ячейки на краю блока дополнительно
+     * берутся не более 3 соседних блоков: по x, по y и угловой.
+     */
+    @Override
+    public int expandNeighbours(int geoX, int geoY, int worldZ, int[] outZ, byte[] outMask) {
+        int edgeX = edge(geoX);
+        int edgeY = edge(geoY);
+        IBlock centreBlock = getBlockInWorld(geoX, geoY);
+        IBlock xBlock = edgeX == 0 ? centreBlock : getBlockInWorld(geoX + edgeX, geoY);
+        IBlock yBlock = edgeY == 0 ? centreBlock : getBlockInWorld(geoX, geoY + edgeY);
+        IBlock cornerBlock = (edgeX == 0 || edgeY == 0) ? centreBlock : getBlockInWorld(geoX + edgeX, geoY + edgeY);
+
+        int centreLayer = centreBlock == null
+            ? LayerData.packWorldZ(worldZ, Cell.NSWE_ALL)
+            : centreBlock.getNearestLayer(geoX, geoY, worldZ);
+        int z = LayerData.height(centreLayer);
+        for (int direction = 0; direction < Neighbours.COUNT; direction++) {
+            int x = geoX + Neighbours.dx(direction);
+            int y = geoY + Neighbours.dy(direction);
+            if ((x < 0) || (x >= GEO_CELLS_X) || (y < 0) || (y >= GEO_CELLS_Y)) {
+                outZ[direction] = Neighbours.NO_LAYER;
+                continue;
+            }
+            int dx = Neighbours.dx(direction);
+            int dy = Neighbours.dy(direction);
+            boolean crossX = dx != 0 && dx == edgeX;
+            boolean crossY = dy != 0 && dy == edgeY;
+            IBlock block = crossX ? (crossY ? cornerBlock : xBlock) : (crossY ? yBlock : centreBlock);
+            outZ[direction] = block == null
+                ? LayerData.packWorldZ(z, Cell.NSWE_ALL)
+                : block.getNearestLayer(x, y, z);
+        }
+        return Neighbours.resolve(centreLayer, outZ, outMask);
+    }
+
+    private static int edge(int geoCoord) {
+        int cell = geoCoord & 0x07;
+        return cell == 0 ? -1 : (cell == 7 ? 1 : 0);
+    }
+
+    /**
+     * @return блок ячейки, null если нет геодаты или ячейка за пределами мира
+     */
+    private IBlock getBlockInWorld(int geoX, int geoY) {
+        if ((geoX < 0) || (geoX >= GEO_CELLS_X) || (geoY < 0) || (geoY >= GEO_CELLS_Y)) {
+            return null;
+        }
+        return getRegion(geoX, geoY).getBlock(geoX, geoY);
+    }
+
+    @Override
     public int getBlockType(int geoX, int geoY) {
         IBlock block = getRegion(geoX, geoY).getBlock(geoX, geoY);
+        if (block == null) {
+            return -1;
+        }
         return GeoDriverBytes.getType(block);
     }
 
     public IBlock getBlock(int geoX, int geoY) {
         return getRegion(geoX, geoY).getBlock(geoX, geoY);
     }
+
+    /**
+     * Байты оцениваются по раскладке объектов с compressed oops как в doc/Memory.md:
+     * заголовок блока 16 байт плюс массив данных размером как в bytes формате.
+     * Переиспользуемые flat блоки в payload не входят.
+     */
+    @Override
+    public GeoMemoryReport getMemoryReport() {
+        GeoMemoryReport report = memoryReport;
+        if (report == null) {
+            report = buildMemoryReport();
+            memoryReport = report;
+        }
+        return report;
+    }
+
+    private GeoMemoryReport buildMemoryReport() {
+        GeoMemoryReport.Builder builder = new GeoMemoryReport.Builder("GeoDriver")
+            .index(arrayBytes(4L * regions.length), Storage.HEAP);
+        for (int regionIndex = 0; regionIndex < GEO_REGIONS; regionIndex++) {
+            if (!(regions[regionIndex] instanceof Region region)) {
+                continue;
+            }
+            builder.region(regionIndex).index(OBJECT_BYTES + arrayBytes(4L * IRegion.REGION_BLOCKS), Storage.HEAP);
+            for (int i = 0; i < IRegion.REGION_BLOCKS; i++) {
+                IBlock block = region.getBlock(i);
+                byte blockType = GeoDriverBytes.getType(block);
+                long bytes = (blockType == GeoDriverBytesConstants.FLAT_BLOCK) && config.isReuseFlatBlockEnabled()
+                    ? 0
+                    : blockBytes(block);
+                builder.block(regionIndex, blockType, bytes).payload(bytes, Storage.HEAP);
+            }
+        }
+        return builder.build();
+    }
+
+    private static long blockBytes(IBlock block) {
+        int dataBytes = GeoDriverBytes.getBytesCount(block);
+        return OBJECT_BYTES + (dataBytes == 0 ? 0 : arrayBytes(dataBytes));
+    }
+
+    private static long arrayBytes(long dataBytes) {
+        return (16 + dataBytes + 7) & -8L;
+    }
 }
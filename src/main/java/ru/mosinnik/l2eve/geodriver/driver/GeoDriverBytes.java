@@ -24,11 +24,18 @@ package ru.mosinnik.l2eve.geodriver.driver;
 
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import ru.mosinnik.l2eve.geodriver.LayerData;
+import ru.mosinnik.l2eve.geodriver.Neighbours;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
 import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
 import ru.mosinnik.l2eve.geodriver.blocks.*;
 import ru.mosinnik.l2eve.geodriver.bytes.*;
+import ru.mosinnik.l2eve.geodriver.jfr.GeoFileEvent;
+import ru.mosinnik.l2eve.geodriver.jfr.GeoRegionLoadEvent;
+import ru.mosinnik.l2eve.geodriver.metrics.GeoMemoryReport;
+import ru.mosinnik.l2eve.geodriver.metrics.GeoMemoryReporter;
+import ru.mosinnik.l2eve.geodriver.metrics.GeoMemoryReport.Storage;
 import ru.mosinnik.l2eve.geodriver.regions.Region;
 
 import java.io.RandomAccessFile;
@@ -37,10 +44,15 @@ import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_CELLS_X;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_CELLS_Y;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS;
 import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS_X;
 import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS_Y;
 import static ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants.*;
@@ -53,12 +65,15 @@ import static ru.mosinnik.l2eve.geodriver.util.Converter.asInts;
  * хранимого в индексе регионов.
  */
 @Slf4j
-public final class GeoDriverBytes implements IGeoDriver {
+public final class GeoDriverBytes implements IGeoDriver, GeoMemoryReporter {
 
     private final GeoConfig config;
 
-    // гео данные
-    private ByteBuffer data;
+    // версия и порядок байт bin формата
+    private BinHeader header;
+
+    // гео данные, у каждого региона свой буфер, по индексу региона как regionFirstBlockIndexes
+    private final ByteBuffer[] regionData = new ByteBuffer[GEO_REGIONS];
 
     // по индексу содержится оффсет первого блока региона в blockTypes и blockDataOffsets
     // offset at `blockDataOffsets` array of first region block
@@ -66,8 +81,19 @@ public final class GeoDriverBytes implements IGeoDriver {
 
     private byte[] blockTypes;
 
-    // оффсет начала блока в data
-    private int[] blockDataOffsets;
+    // оффсеты начала блоков в данных региона, для flat блоков - высота
+    private BlockOffsetIndex blockOffsetIndex;
+    private int[] stripDataOffsets;
+    private char[] blockDataOffsets;
+    private int[] escapeDataOffsets;
+
+    // необязательная сводка по блокам, null если не строилась
+    private BlockSummary blockSummary;
+    // необязательная пирамида высот, null если не строилась
+    private HeightPyramid heightPyramid;
+
+    // отчет о памяти, считается при первом запросе после загрузки
+    private volatile GeoMemoryReport memoryReport;
 
     public GeoDriverBytes() {
         config = new GeoConfig();
@@ -98,32 +124,98 @@ public final class GeoDriverBytes implements IGeoDriver {
 
     @SneakyThrows
     public void writeToFiles(Path dataDir) {
-        Files.write(dataDir.resolve(DATA_FILE_NAME), data.array());
-        log.info("Updated data file: {}", DATA_FILE_NAME);
+        header.writeToFiles(dataDir);
+
+        // регионы пишутся подряд в порядке regionFirstBlockIndexes, базы считаются под файл,
+        // индекс загруженного драйвера не меняется
+        long[] regionDataOffsets = new long[GEO_REGIONS];
+        Integer[] regionIndexes = IntStream.range(0, GEO_REGIONS)
+            .filter(regionIndex -> regionFirstBlockIndexes[regionIndex] != NO_INDEX)
+            .boxed()
+            .sorted(Comparator.comparingInt(regionIndex -> regionFirstBlockIndexes[regionIndex]))
+            .toArray(Integer[]::new);
+        GeoFileEvent writeEvent = new GeoFileEvent();
+        writeEvent.begin();
+        try (FileChannel channel = FileChannel.open(dataDir.resolve(DATA_FILE_NAME),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int regionIndex : regionIndexes) {
+                regionDataOffsets[regionIndex] = channel.position();
+                ByteBuffer buffer = regionData[regionIndex].duplicate().clear();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            log.info("Updated data file: {}, {} bytes", DATA_FILE_NAME, channel.position());
+            GeoFileEvent.finish(writeEvent, "write", DATA_FILE_NAME, channel.position());
+        }
 
-        Files.write(dataDir.resolve(REGION_FIRST_BLOCK_INDEXES_FILE_NAME), asBytes(regionFirstBlockIndexes));
+        Files.write(dataDir.resolve(REGION_FIRST_BLOCK_INDEXES_FILE_NAME), asBytes(regionFirstBlockIndexes, header.byteOrder()));
         log.info("Updated regionFirstBlockIndexes file: {}", REGION_FIRST_BLOCK_INDEXES_FILE_NAME);
 
         Files.write(dataDir.resolve(BLOCK_TYPES_FILE_NAME), blockTypes);
         log.info("Updated blockTypes file: {}", BLOCK_TYPES_FILE_NAME);
 
-        Files.write(dataDir.resolve(BLOCK_DATA_OFFSETS_FILE_NAME), asBytes(blockDataOffsets));
-        log.info("Updated blockDataOffsets file: {}", BLOCK_DATA_OFFSETS_FILE_NAME);
+        blockOffsetIndex.writeToFiles(dataDir, header.byteOrder(), regionDataOffsets);
+
+        if (blockSummary != null) {
+            blockSummary.writeToFiles(dataDir, header.byteOrder());
+        } else {
+            Files.deleteIfExists(dataDir.resolve(BLOCK_SUMMARY_HEIGHTS_FILE_NAME));
+            Files.deleteIfExists(dataDir.resolve(BLOCK_SUMMARY_ALL_OPEN_FILE_NAME));
+        }
+
+        if (heightPyramid != null) {
+            heightPyramid.writeToFiles(dataDir);
+        } else {
+            Files.deleteIfExists(dataDir.resolve(HEIGHT_PYRAMID_FILE_NAME));
+        }
     }
 
     @SneakyThrows
     public void readFromFiles(Path dataDir) {
-        data = ByteBuffer.wrap(Files.readAllBytes(dataDir.resolve(DATA_FILE_NAME)));
-        log.info("Read {} bytes from data file: {}", data.capacity(), DATA_FILE_NAME);
+        header = BinHeader.readFromFiles(dataDir);
 
-        asInts(Files.readAllBytes(dataDir.resolve(REGION_FIRST_BLOCK_INDEXES_FILE_NAME)), regionFirstBlockIndexes);
+        asInts(Files.readAllBytes(dataDir.resolve(REGION_FIRST_BLOCK_INDEXES_FILE_NAME)), regionFirstBlockIndexes, header.byteOrder());
         log.info("Read {} ints from data file: {}", regionFirstBlockIndexes.length, REGION_FIRST_BLOCK_INDEXES_FILE_NAME);
 
         blockTypes = Files.readAllBytes(dataDir.resolve(BLOCK_TYPES_FILE_NAME));
         log.info("Read {} bytes from data file: {}", blockTypes.length, BLOCK_TYPES_FILE_NAME);
 
-        blockDataOffsets = asInts(Files.readAllBytes(dataDir.resolve(BLOCK_DATA_OFFSETS_FILE_NAME)));
-        log.info("Read {} ints from data file: {}", blockDataOffsets.length, BLOCK_DATA_OFFSETS_FILE_NAME);
+        setBlockOffsetIndex(BlockOffsetIndex.readFromFiles(dataDir, header.byteOrder(), regionFirstBlockIndexes, blockTypes));
+
+        Arrays.fill(regionData, null);
+        GeoFileEvent readEvent = new GeoFileEvent();
+        readEvent.begin();
+        try (FileChannel channel = FileChannel.open(dataDir.resolve(DATA_FILE_NAME), StandardOpenOption.READ)) {
+            long[] regionDataSizes = blockOffsetIndex.regionDataSizes(regionFirstBlockIndexes, blockTypes, channel.size());
+            for (int regionIndex = 0; regionIndex < GEO_REGIONS; regionIndex++) {
+                if (regionFirstBlockIndexes[regionIndex] == NO_INDEX) {
+                    continue;
+                }
+                ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(regionDataSizes[regionIndex])).order(header.byteOrder());
+                long position = blockOffsetIndex.getRegionDataOffset(regionIndex);
+                while (buffer.hasRemaining()) {
+                    int read = channel.read(buffer, position);
+                    if (read < 0) {
+                        throw new RuntimeException("Unexpected end of data file at " + position + " for region " + regionIndex);
+                    }
+                    position += read;
+                }
+                regionData[regionIndex] = buffer.clear();
+            }
+            log.info("Read {} bytes from data file: {}", channel.size(), DATA_FILE_NAME);
+            GeoFileEvent.finish(readEvent, "read", DATA_FILE_NAME, channel.size());
+        }
+
+        blockSummary = BlockSummary.readFromFiles(dataDir, header.byteOrder(), blockTypes.length);
+        if (blockSummary == null && config.isBlockSummaryEnabled()) {
+            blockSummary = BlockSummary.build(this, regionFirstBlockIndexes, blockTypes.length);
+        }
+        heightPyramid = HeightPyramid.readFromFiles(dataDir, header.byteOrder(), regionFirstBlockIndexes);
+        if (heightPyramid == null && config.isHeightPyramidEnabled()) {
+            heightPyramid = HeightPyramid.build(this, blockSummary, regionFirstBlockIndexes, blockTypes.length, header.byteOrder());
+        }
+        memoryReport = null;
     }
 
 
@@ -137,8 +229,15 @@ public final class GeoDriverBytes implements IGeoDriver {
         }
     }
 
-    @SneakyThrows
     public void loadFromL2J(List<Path> paths) {
+        loadFromL2J(paths, BinHeader.CURRENT);
+    }
+
+    /**
+     * @param header формат кодирования данных, {@link BinHeader#V1} нужен только для сравнения порядка байт в JMH
+     */
+    @SneakyThrows
+    public void loadFromL2J(List<Path> paths, BinHeader header) {
 
         List<RegionCoordinated> regions = new ArrayList<>();
 
@@ -148,40 +247,45 @@ public final class GeoDriverBytes implements IGeoDriver {
             int regionX = Integer.parseInt(split[0]);
             int regionY = Integer.parseInt(split[1]);
 
+            GeoRegionLoadEvent event = new GeoRegionLoadEvent();
+            event.begin();
             try (RandomAccessFile raf = new RandomAccessFile(path.toFile(), "r")) {
                 Region region = new Region(
                     raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length()).order(ByteOrder.LITTLE_ENDIAN),
                     config
                 );
                 regions.add(new RegionCoordinated(region, regionX, regionY));
+                GeoRegionLoadEvent.finish(event, "GeoDriverBytes", "parse", regionX, regionY, raf.length());
             }
         }
 
-        int dataSize = 0;
-        int totalBlockCount = 0;
-        for (RegionCoordinated regionCoordinated : regions) {
-            Region region = regionCoordinated.region();
-            for (int i = 0; i < IRegion.REGION_BLOCKS; i++) {
-                dataSize += getBytesCount(region.getBlock(i));
-                totalBlockCount++;
-            }
-        }
-        assert totalBlockCount == regions.size() * IRegion.REGION_BLOCKS;
+        int totalBlockCount = regions.size() * IRegion.REGION_BLOCKS;
 
-        data = ByteBuffer.allocate(dataSize);
+        this.header = header;
 
         blockTypes = new byte[totalBlockCount];
-        blockDataOffsets = new int[totalBlockCount];
+        // оффсеты блоков относительно начала данных региона
+        int[] blockDataOffsets = new int[totalBlockCount];
         Arrays.fill(regionFirstBlockIndexes, NO_INDEX);
+        Arrays.fill(regionData, null);
 
         int blockIndex = 0;
         for (RegionCoordinated regionCoordinated : regions) {
+            GeoRegionLoadEvent event = new GeoRegionLoadEvent();
+            event.begin();
             Region region = regionCoordinated.region();
             int regionFirstBlockIndex = blockIndex;
 
             final int regionIndex = (regionCoordinated.regionX() * GEO_REGIONS_Y) + regionCoordinated.regionY();
             regionFirstBlockIndexes[regionIndex] = regionFirstBlockIndex;
 
+            int dataSize = 0;
+            for (int i = 0; i < IRegion.REGION_BLOCKS; i++) {
+                dataSize += getBytesCount(region.getBlock(i));
+            }
+            ByteBuffer data = ByteBuffer.allocate(dataSize).order(header.byteOrder());
+            regionData[regionIndex] = data;
+
             for (int i = 0; i < IRegion.REGION_BLOCKS; i++) {
                 IBlock block = region.getBlock(i);
 
@@ -198,11 +302,22 @@ public final class GeoDriverBytes implements IGeoDriver {
 
                 blockIndex++;
             }
+            GeoRegionLoadEvent.finish(event, "GeoDriverBytes", "encode", regionCoordinated.regionX(), regionCoordinated.regionY(), dataSize);
         }
         assert totalBlockCount == blockIndex;
 
+        setBlockOffsetIndex(BlockOffsetIndex.compress(regionFirstBlockIndexes, blockTypes, blockDataOffsets));
+
+        blockSummary = config.isBlockSummaryEnabled()
+            ? BlockSummary.build(this, regionFirstBlockIndexes, totalBlockCount)
+            : null;
+        heightPyramid = config.isHeightPyramidEnabled()
+            ? HeightPyramid.build(this, blockSummary, regionFirstBlockIndexes, totalBlockCount, header.byteOrder())
+            : null;
+        memoryReport = null;
+
         // если не добавить вызов data.capacity(), то почемуто перф тесты иногда сильно деградируют
-        log.info("data size: {}", data.capacity());
+        log.info("data size: {}", getDataSize());
     }
 
     public void printStats() {
@@ -218,18 +333,25 @@ public final class GeoDriverBytes implements IGeoDriver {
         }
         Map<Byte, AtomicInteger> typesSizes = new TreeMap<>();
         Map<Integer, AtomicInteger> multilayerSizes = new TreeMap<>();
-        for (int i = 0; i < blockTypes.length; i++) {
-            byte blockType = blockTypes[i];
-            int size = getSize(blockType, blockDataOffsets[i]);
-            typesSizes.computeIfAbsent(blockType, k -> new AtomicInteger()).addAndGet(size);
-            if (blockType == MULTILAYER_BLOCK) {
-                multilayerSizes.computeIfAbsent(size, k -> new AtomicInteger()).incrementAndGet();
+        for (int regionIndex = 0; regionIndex < regionFirstBlockIndexes.length; regionIndex++) {
+            int regionFirstBlockIndex = regionFirstBlockIndexes[regionIndex];
+            if (regionFirstBlockIndex == NO_INDEX) {
+                continue;
+            }
+            for (int blockIndex = regionFirstBlockIndex; blockIndex < regionFirstBlockIndex + IRegion.REGION_BLOCKS; blockIndex++) {
+                byte blockType = blockTypes[blockIndex];
+                int size = getSize(blockType, blockOffsetIndex.getBlockDataOffset(blockType, blockIndex), regionData[regionIndex]);
+                typesSizes.computeIfAbsent(blockType, k -> new AtomicInteger()).addAndGet(size);
+                if (blockType == MULTILAYER_BLOCK) {
+                    multilayerSizes.computeIfAbsent(size, k -> new AtomicInteger()).incrementAndGet();
+                }
             }
         }
 
         log.info("Regions data size: {} (ints), with offsets: {}", regionFirstBlockIndexes.length, regionCount);
-        log.info("Data size: {} (bytes)", data.capacity());
-        log.info("Blocks offsets: {} (ints)", blockDataOffsets.length);
+        log.info("Data size: {} (bytes)", getDataSize());
+        log.info("Blocks offsets: {} (chars), strips: {} (ints), escaped strips: {}, index size: {} (bytes)",
+            blockDataOffsets.length, stripDataOffsets.length, blockOffsetIndex.escapedStripsCount(), blockOffsetIndex.sizeInBytes());
         log.info("Blocks count: {} (bytes)", blockTypes.length);
         for (Map.Entry<Byte, AtomicInteger> entry : typesCount.entrySet()) {
             int size = typesSizes.get(entry.getKey()).get();
@@ -252,7 +374,7 @@ public final class GeoDriverBytes implements IGeoDriver {
      * Used only in printStats().
      * Return block data size.
      */
-    private int getSize(byte blockType, int blockDataOffset) {
+    private int getSize(byte blockType, int blockDataOffset, ByteBuffer data) {
         switch (blockType) {
             case FLAT_BLOCK -> {
                 return FlatBlockFromOffsetBytes.getSize(blockDataOffset, data);
@@ -378,7 +500,7 @@ public final class GeoDriverBytes implements IGeoDriver {
         }
     }
 
-    private static int getBytesCount(IBlock block) {
+    static int getBytesCount(IBlock block) {
         Class<? extends IBlock> blockClass = block.getClass();
         if (blockClass.equals(FlatBlock.class)) {
             return FlatBlockFromOffsetBytes.calcBytesCount((FlatBlock) block);
@@ -410,6 +532,70 @@ public final class GeoDriverBytes implements IGeoDriver {
     record RegionCoordinated(Region region, int regionX, int regionY) {
     }
 
+    public long getDataSize() {
+        long dataSize = 0;
+        for (ByteBuffer data : regionData) {
+            if (data != null) {
+                dataSize += data.capacity();
+            }
+        }
+        return dataSize;
+    }
+
+    /**
+     * Size of region data in bytes, -1 if region is not loaded
+     */
+    public long getRegionDataSize(int regionX, int regionY) {
+        ByteBuffer data = regionData[(regionX * GEO_REGIONS_Y) + regionY];
+        return data == null ? NO_INDEX : data.capacity();
+    }
+
+    @Override
+    public GeoMemoryReport getMemoryReport() {
+        GeoMemoryReport report = memoryReport;
+        if (report == null) {
+            report = buildMemoryReport();
+            memoryReport = report;
+        }
+        return report;
+    }
+
+    private GeoMemoryReport buildMemoryReport() {
+        GeoMemoryReport.Builder builder = new GeoMemoryReport.Builder("GeoDriverBytes")
+            .index(4L * regionFirstBlockIndexes.length, Storage.HEAP);
+        if (blockTypes == null) {
+            return builder.build();
+        }
+        builder.index(blockTypes.length, Storage.HEAP)
+            .index(blockOffsetIndex.sizeInBytes(), Storage.HEAP);
+        if (blockSummary != null) {
+            builder.index(blockSummary.sizeInBytes(), Storage.HEAP);
+        }
+        if (heightPyramid != null) {
+            builder.index(heightPyramid.sizeInBytes(), Storage.OFF_HEAP);
+        }
+        for (int regionIndex = 0; regionIndex < GEO_REGIONS; regionIndex++) {
+            int regionFirstBlockIndex = regionFirstBlockIndexes[regionIndex];
+            if (regionFirstBlockIndex == NO_INDEX) {
+                continue;
+            }
+            ByteBuffer data = regionData[regionIndex];
+            builder.region(regionIndex).payload(data.capacity(), Storage.HEAP);
+            for (int blockIndex = regionFirstBlockIndex; blockIndex < regionFirstBlockIndex + IRegion.REGION_BLOCKS; blockIndex++) {
+                byte blockType = blockTypes[blockIndex];
+                builder.block(regionIndex, blockType, getSize(blockType, blockOffsetIndex.getBlockDataOffset(blockType, blockIndex), data));
+            }
+        }
+        return builder.build();
+    }
+
+    private void setBlockOffsetIndex(BlockOffsetIndex blockOffsetIndex) {
+        this.blockOffsetIndex = blockOffsetIndex;
+        stripDataOffsets = blockOffsetIndex.stripDataOffsets();
+        blockDataOffsets = blockOffsetIndex.blockDataOffsets();
+        escapeDataOffsets = blockOffsetIndex.escapeDataOffsets();
+    }
+
     @Override
     public void loadRegion(Path filePath, int regionX, int regionY) {
         throw new RuntimeException("Not implemented");
@@ -426,8 +612,7 @@ public final class GeoDriverBytes implements IGeoDriver {
         return true;
     }
 
-    public static Map<Integer, AtomicInteger> blockTypesCount = new HashMap<>();
-
+    @Override
     public int getBlockType(int geoX, int geoY) {
         int regionIndex = ((geoX >> 11) << 5) + (geoY >> 11);
         int regionFirstBlockIndex = this.regionFirstBlockIndexes[regionIndex];
@@ -456,10 +641,12 @@ public final class GeoDriverBytes implements IGeoDriver {
 
         int blockIndexInRegion = (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
 
-        byte blockType = blockTypes[regionFirstBlockIndex + blockIndexInRegion];
-        blockTypesCount.computeIfAbsent((int) blockType, k -> new AtomicInteger()).incrementAndGet();
+        int blockIndex = regionFirstBlockIndex + blockIndexInRegion;
+        byte blockType = blockTypes[blockIndex];
 
-        int blockDataOffset = blockDataOffsets[regionFirstBlockIndex + blockIndexInRegion];
+        int blockDataOffset = BlockOffsetIndex.getBlockDataOffset(blockType, blockIndex,
+            stripDataOffsets, blockDataOffsets, escapeDataOffsets);
+        ByteBuffer data = regionData[regionIndex];
         switch (blockType) {
             case FLAT_BLOCK -> {
                 return FlatBlockFromOffsetBytes.checkNearestNSWE(geoX, geoY, worldZ, nswe);
@@ -509,8 +696,11 @@ public final class GeoDriverBytes implements IGeoDriver {
 
         int blockIndexInRegion = (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
 
-        byte blockType = blockTypes[regionFirstBlockIndex + blockIndexInRegion];
-        int blockDataOffset = blockDataOffsets[regionFirstBlockIndex + blockIndexInRegion];
+        int blockIndex = regionFirstBlockIndex + blockIndexInRegion;
+        byte blockType = blockTypes[blockIndex];
+        int blockDataOffset = BlockOffsetIndex.getBlockDataOffset(blockType, blockIndex,
+            stripDataOffsets, blockDataOffsets, escapeDataOffsets);
+        ByteBuffer data = regionData[regionIndex];
         switch (blockType) {
             case FLAT_BLOCK -> {
                 return FlatBlockFromOffsetBytes.getNearestZ(geoX, geoY, worldZ, blockDataOffset, data);
@@ -549,6 +739,59 @@ public final class GeoDriverBytes implements IGeoDriver {
         }
     }
 
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        int regionIndex = ((geoX >> 11) << 5) + (geoY >> 11);
+        int regionFirstBlockIndex = this.regionFirstBlockIndexes[regionIndex];
+        if (regionFirstBlockIndex == NO_INDEX) {
+            return NullRegionBytes.getNearestLayer(geoX, geoY, worldZ);
+        }
+
+        int blockIndexInRegion = (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
+
+        int blockIndex = regionFirstBlockIndex + blockIndexInRegion;
+        byte blockType = blockTypes[blockIndex];
+        int blockDataOffset = BlockOffsetIndex.getBlockDataOffset(blockType, blockIndex,
+            stripDataOffsets, blockDataOffsets, escapeDataOffsets);
+        ByteBuffer data = regionData[regionIndex];
+        switch (blockType) {
+            case FLAT_BLOCK -> {
+                return FlatBlockFromOffsetBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case COMPLEX_BLOCK -> {
+                return ComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case MULTILAYER_BLOCK -> {
+                return MultilayerBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case ONE_HEIGHT_COMPLEX_BLOCK -> {
+                return OneHeightComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case BASE_HEIGHT_COMPLEX_BLOCK -> {
+                return BaseHeightComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case BASE_HEIGHT_ONE_NSWE_COMPLEX_BLOCK -> {
+                return BaseHeightOneNsweComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case FEW_HEIGHTS_COMPLEX_BLOCK -> {
+                return FewHeightsComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case FEW_HEIGHTS_ONE_NSWE_COMPLEX_BLOCK -> {
+                return FewHeightsOneNsweComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case NO_HOLES_MULTILAYER_BLOCK -> {
+                return NoHolesMultilayerBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case INDEXED_MULTILAYER_BLOCK -> {
+                return IndexedMultilayerBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case INDEXED_32_MULTILAYER_BLOCK -> {
+                return Indexed32MultilayerBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            default -> throw new RuntimeException("Unknown block type: " + blockType);
+        }
+    }
+
     @Override
     public int getNextLowerZ(int geoX, int geoY, int worldZ) {
         int regionIndex = ((geoX >> 11) << 5) + (geoY >> 11);
@@ -559,8 +802,11 @@ public final class GeoDriverBytes implements IGeoDriver {
 
         int blockIndexInRegion = (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
 
-        byte blockType = blockTypes[regionFirstBlockIndex + blockIndexInRegion];
-        int blockDataOffset = blockDataOffsets[regionFirstBlockIndex + blockIndexInRegion];
+        int blockIndex = regionFirstBlockIndex + blockIndexInRegion;
+        byte blockType = blockTypes[blockIndex];
+        int blockDataOffset = BlockOffsetIndex.getBlockDataOffset(blockType, blockIndex,
+            stripDataOffsets, blockDataOffsets, escapeDataOffsets);
+        ByteBuffer data = regionData[regionIndex];
         switch (blockType) {
             case FLAT_BLOCK -> {
                 return FlatBlockFromOffsetBytes.getNextLowerZ(geoX, geoY, worldZ, blockDataOffset, data);
@@ -609,8 +855,11 @@ public final class GeoDriverBytes implements IGeoDriver {
 
         int blockIndexInRegion = (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
 
-        byte blockType = blockTypes[regionFirstBlockIndex + blockIndexInRegion];
-        int blockDataOffset = blockDataOffsets[regionFirstBlockIndex + blockIndexInRegion];
+        int blockIndex = regionFirstBlockIndex + blockIndexInRegion;
+        byte blockType = blockTypes[blockIndex];
+        int blockDataOffset = BlockOffsetIndex.getBlockDataOffset(blockType, blockIndex,
+            stripDataOffsets, blockDataOffsets, escapeDataOffsets);
+        ByteBuffer data = regionData[regionIndex];
         switch (blockType) {
             case FLAT_BLOCK -> {
                 return FlatBlockFromOffsetBytes.getNextHigherZ(geoX, geoY, worldZ, blockDataOffset, data);
@@ -649,4 +898,272 @@ public final class GeoDriverBytes implements IGeoDriver {
         }
     }
 
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        int regionIndex = ((geoX >> 11) << 5) + (geoY >> 11);
+        int regionFirstBlockIndex = this.regionFirstBlockIndexes[regionIndex];
+        if (regionFirstBlockIndex == NO_INDEX) {
+            return NullRegionBytes.getLayers(geoX, geoY, outHeights, outNswe);
+        }
+
+        int blockIndexInRegion = (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
+
+        int blockIndex = regionFirstBlockIndex + blockIndexInRegion;
+        byte blockType = blockTypes[blockIndex];
+        int blockDataOffset = BlockOffsetIndex.getBlockDataOffset(blockType, blockIndex,
+            stripDataOffsets, blockDataOffsets, escapeDataOffsets);
+        ByteBuffer data = regionData[regionIndex];
+        switch (blockType) {
+            case FLAT_BLOCK -> {
+                return FlatBlockFromOffsetBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case COMPLEX_BLOCK -> {
+                return ComplexBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case MULTILAYER_BLOCK -> {
+                return MultilayerBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case ONE_HEIGHT_COMPLEX_BLOCK -> {
+                return OneHeightComplexBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case BASE_HEIGHT_COMPLEX_BLOCK -> {
+                return BaseHeightComplexBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case BASE_HEIGHT_ONE_NSWE_COMPLEX_BLOCK -> {
+                return BaseHeightOneNsweComplexBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case FEW_HEIGHTS_COMPLEX_BLOCK -> {
+                return FewHeightsComplexBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case FEW_HEIGHTS_ONE_NSWE_COMPLEX_BLOCK -> {
+                return FewHeightsOneNsweComplexBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case NO_HOLES_MULTILAYER_BLOCK -> {
+                return NoHolesMultilayerBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case INDEXED_MULTILAYER_BLOCK -> {
+                return IndexedMultilayerBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case INDEXED_32_MULTILAYER_BLOCK -> {
+                return Indexed32MultilayerBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            default -> throw new RuntimeException("Unknown block type: " + blockType);
+        }
+    }
+
+    @Override
+    public int getBlockMinZ(int geoX, int geoY) {
+        int blockIndex = getBlockIndex(geoX, geoY);
+        if (blockIndex == NO_INDEX) {
+            return Integer.MAX_VALUE;
+        }
+        if (blockSummary == null) {
+            return IGeoDriver.super.getBlockMinZ(geoX, geoY);
+        }
+        return blockSummary.getMinHeight(blockIndex);
+    }
+
+    @Override
+    public int getBlockMaxZ(int geoX, int geoY) {
+        int blockIndex = getBlockIndex(geoX, geoY);
+        if (blockIndex == NO_INDEX) {
+            return Integer.MIN_VALUE;
+        }
+        if (blockSummary == null) {
+            return IGeoDriver.super.getBlockMaxZ(geoX, geoY);
+        }
+        return blockSummary.getMaxHeight(blockIndex);
+    }
+
+    @Override
+    public boolean isBlockAllOpen(int geoX, int geoY) {
+        int blockIndex = getBlockIndex(geoX, geoY);
+        if (blockIndex == NO_INDEX) {
+            return true;
+        }
+        if (blockSummary == null) {
+            return IGeoDriver.super.isBlockAllOpen(geoX, geoY);
+        }
+        return blockSummary.isAllOpen(blockIndex);
+    }
+
+    /**
+     * Flat блок однороден по типу, для ONE_HEIGHT_COMPLEX_BLOCK нужен флаг all open из {@link BlockSummary}.
+     * Остальные типы тоже бывают однородными (тип блока при загрузке зависит от конфига), для них ответ
+     * как у {@link IGeoDriver#isBlockUniform}: по сводке если она есть, иначе декодированием блока.
+     */
+    @Override
+    public boolean isBlockUniform(int geoX, int geoY) {
+        int blockIndex = getBlockIndex(geoX, geoY);
+        if (blockIndex == NO_INDEX) {
+            return false;
+        }
+        return switch (blockTypes[blockIndex]) {
+            case FLAT_BLOCK -> true;
+            case ONE_HEIGHT_COMPLEX_BLOCK -> isBlockAllOpen(geoX, geoY);
+            default -> blockSummary == null
+                ? IGeoDriver.super.isBlockUniform(geoX, geoY)
+                : blockSummary.isUniform(blockIndex);
+        };
+    }
+
+    @Override
+    public int getAreaMaxZ(int minGeoX, int minGeoY, int maxGeoX, int maxGeoY) {
+        if (heightPyramid == null) {
+            return IGeoDriver.super.getAreaMaxZ(minGeoX, minGeoY, maxGeoX, maxGeoY);
+        }
+        return heightPyramid.getAreaMaxZ(this, minGeoX, minGeoY, maxGeoX, maxGeoY);
+    }
+
+    @Override
+    public boolean hasHeightAbove(int minGeoX, int minGeoY, int maxGeoX, int maxGeoY, int worldZ) {
+        if (heightPyramid == null) {
+            return IGeoDriver.super.hasHeightAbove(minGeoX, minGeoY, maxGeoX, maxGeoY, worldZ);
+        }
+        return heightPyramid.hasHeightAbove(this, minGeoX, minGeoY, maxGeoX, maxGeoY, worldZ);
+    }
+
+    @Override
+    public boolean isRayAboveTerrain(int geoX, int geoY, int worldZ, int toGeoX, int toGeoY, int toWorldZ) {
+        if (heightPyramid == null) {
+            return IGeoDriver.super.isRayAboveTerrain(geoX, geoY, worldZ, toGeoX, toGeoY, toWorldZ);
+        }
+        return heightPyramid.isRayAboveTerrain(this, geoX, geoY, worldZ, toGeoX, toGeoY, toWorldZ);
+    }
+
+    /**
+     * @return индекс блока как в blockTypes, NO_INDEX если нет геодаты
+     */
+    private int getBlockIndex(int geoX, int geoY) {
+        int regionIndex = ((geoX >> 11) << 5) + (geoY >> 11);
+        int regionFirstBlockIndex = this.regionFirstBlockIndexes[regionIndex];
+        if (regionFirstBlockIndex == NO_INDEX) {
+            return NO_INDEX;
+        }
+        return regionFirstBlockIndex + (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
+    }
+
+    /**
+     * Returns null if the summary was not built or read
+     */
+    public BlockSummary getBlockSummary() {
+        return blockSummary;
+    }
+
+    /**
+     * Returns null if the pyramid was not built or read
+     */
+    public HeightPyramid getHeightPyramid() {
+        return heightPyramid;
+    }
+
+    /**
+     * Центральный блок разрешается один раз, соседи внутри него читаются из него же.
+     * Для ячейки на краю блока дополнительно разрешаются не более 3 соседних блоков:
+     * по x, по y и угловой.
+     */
+    @Override
+    public int expandNeighbours(int geoX, int geoY, int worldZ, int[] outZ, byte[] outMask) {
+        int edgeX = edge(geoX);
+        int edgeY = edge(geoY);
+        long centreBlock = resolveBlock(geoX, geoY);
+        long xBlock = edgeX == 0 ? centreBlock : resolveBlock(geoX + edgeX, geoY);
+        long yBlock = edgeY == 0 ? centreBlock : resolveBlock(geoX, geoY + edgeY);
+        long cornerBlock = (edgeX == 0 || edgeY == 0) ? centreBlock : resolveBlock(geoX + edgeX, geoY + edgeY);
+
+        int centreLayer = getNearestLayer(centreBlock, geoX, geoY, worldZ);
+        int z = LayerData.height(centreLayer);
+        for (int direction = 0; direction < Neighbours.COUNT; direction++) {
+            int dx = Neighbours.dx(direction);
+            int dy = Neighbours.dy(direction);
+            boolean crossX = dx != 0 && dx == edgeX;
+            boolean crossY = dy != 0 && dy == edgeY;
+            long block = crossX ? (crossY ? cornerBlock : xBlock) : (crossY ? yBlock : centreBlock);
+            outZ[direction] = getNearestLayer(block, geoX + dx, geoY + dy, z);
+        }
+        return Neighbours.resolve(centreLayer, outZ, outMask);
+    }
+
+    /**
+     * @return -1 или 1 если ячейка на западном/северном или восточном/южном краю блока, иначе 0
+     */
+    private static int edge(int geoCoord) {
+        int cell = geoCoord & 0x07;
+        return cell == 0 ? -1 : (cell == 7 ? 1 : 0);
+    }
+
+    /**
+     * Разрешает блок ячейки в тип и оффсет данных, упакованные в long: тип в старших 32 битах.
+     */
+    private long resolveBlock(int geoX, int geoY) {
+        if ((geoX < 0) || (geoX >= GEO_CELLS_X) || (geoY < 0) || (geoY >= GEO_CELLS_Y)) {
+            return ((long) OUTSIDE_WORLD_BLOCK) << 32;
+        }
+        int regionIndex = ((geoX >> 11) << 5) + (geoY >> 11);
+        int regionFirstBlockIndex = this.regionFirstBlockIndexes[regionIndex];
+        if (regionFirstBlockIndex == NO_INDEX) {
+            return ((long) NULL_REGION_BLOCK) << 32;
+        }
+
+        int blockIndexInRegion = (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
+
+        int blockIndex = regionFirstBlockIndex + blockIndexInRegion;
+        byte blockType = blockTypes[blockIndex];
+        int blockDataOffset = BlockOffsetIndex.getBlockDataOffset(blockType, blockIndex,
+            stripDataOffsets, blockDataOffsets, escapeDataOffsets);
+        return (((long) blockType) << 32) | (blockDataOffset & 0xFFFF_FFFFL);
+    }
+
+    private int getNearestLayer(long block, int geoX, int geoY, int worldZ) {
+        byte blockType = (byte) (block >> 32);
+        int blockDataOffset = (int) block;
+        switch (blockType) {
+            case OUTSIDE_WORLD_BLOCK -> {
+                return Neighbours.NO_LAYER;
+            }
+            case NULL_REGION_BLOCK -> {
+                return NullRegionBytes.getNearestLayer(geoX, geoY, worldZ);
+            }
+            default -> {
+            }
+        }
+        ByteBuffer data = regionData[((geoX >> 11) << 5) + (geoY >> 11)];
+        switch (blockType) {
+            case FLAT_BLOCK -> {
+                return FlatBlockFromOffsetBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case COMPLEX_BLOCK -> {
+                return ComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case MULTILAYER_BLOCK -> {
+                return MultilayerBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case ONE_HEIGHT_COMPLEX_BLOCK -> {
+                return OneHeightComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case BASE_HEIGHT_COMPLEX_BLOCK -> {
+                return BaseHeightComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case BASE_HEIGHT_ONE_NSWE_COMPLEX_BLOCK -> {
+                return BaseHeightOneNsweComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case FEW_HEIGHTS_COMPLEX_BLOCK -> {
+                return FewHeightsComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case FEW_HEIGHTS_ONE_NSWE_COMPLEX_BLOCK -> {
+                return FewHeightsOneNsweComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case NO_HOLES_MULTILAYER_BLOCK -> {
+                return NoHolesMultilayerBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case INDEXED_MULTILAYER_BLOCK -> {
+                return IndexedMultilayerBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case INDEXED_32_MULTILAYER_BLOCK -> {
+                return Indexed32MultilayerBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            default -> throw new RuntimeException("Unknown block type: " + blockType);
+        }
+    }
+
 }
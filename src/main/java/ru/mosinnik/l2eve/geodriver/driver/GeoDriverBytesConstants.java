@@ -40,10 +40,28 @@ public interface GeoDriverBytesConstants {
     byte INDEXED_MULTILAYER_BLOCK = 10;
     byte INDEXED_32_MULTILAYER_BLOCK = 11;
 
+    // псевдотипы для разрешенного блока соседа в expandNeighbours, в blockTypes не пишутся
+    byte NULL_REGION_BLOCK = -1;
+    byte OUTSIDE_WORLD_BLOCK = -2;
+
+    // нет файла - первая версия формата в BIG_ENDIAN
+    String HEADER_FILE_NAME = "header.bin";
     String DATA_FILE_NAME = "data.bin";
     String REGION_FIRST_BLOCK_INDEXES_FILE_NAME = "regionFirstBlockIndexes.bin";
     String BLOCK_TYPES_FILE_NAME = "blockTypes.bin";
+    // старый формат, плоский int[] оффсетов, читается если нет файлов сжатого индекса
     String BLOCK_DATA_OFFSETS_FILE_NAME = "blockDataOffsets.bin";
+    String REGION_DATA_OFFSETS_FILE_NAME = "regionDataOffsets.bin";
+    String STRIP_DATA_OFFSETS_FILE_NAME = "stripDataOffsets.bin";
+    String BLOCK_RELATIVE_DATA_OFFSETS_FILE_NAME = "blockRelativeDataOffsets.bin";
+    String ESCAPE_DATA_OFFSETS_FILE_NAME = "escapeDataOffsets.bin";
+    // необязательная сводка по блокам, см. BlockSummary
+    String BLOCK_SUMMARY_HEIGHTS_FILE_NAME = "blockSummaryHeights.bin";
+    String BLOCK_SUMMARY_ALL_OPEN_FILE_NAME = "blockSummaryAllOpen.bin";
+    // необязательная пирамида высот, см. HeightPyramid
+    String HEIGHT_PYRAMID_FILE_NAME = "heightPyramid.bin";
+
+    String UNKNOWN_BLOCK_NAME = "UNKNOWN";
 
     static String blockTypeToName(byte blockType) {
         return switch (blockType) {
@@ -63,6 +81,14 @@ public interface GeoDriverBytesConstants {
         };
     }
 
+    /**
+     * Имя типа блока из {@link ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver#getBlockType}
+     * для отчетов и метрик, {@value #UNKNOWN_BLOCK_NAME} для -1 (нет геодаты или драйвер не знает типов блоков)
+     */
+    static String blockTypeToName(int blockType) {
+        return blockType < 0 ? UNKNOWN_BLOCK_NAME : blockTypeToName((byte) blockType);
+    }
+
     static byte blockNameToType(String blockName) {
         return switch (blockName) {
             case "NO_DATA_BLOCK" -> NO_DATA_BLOCK;
@@ -24,18 +24,31 @@ package ru.mosinnik.l2eve.geodriver.driver;
 
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import ru.mosinnik.l2eve.geodriver.LayerData;
+import ru.mosinnik.l2eve.geodriver.Neighbours;
 import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
 import ru.mosinnik.l2eve.geodriver.bytes.*;
+import ru.mosinnik.l2eve.geodriver.jfr.GeoFileEvent;
+import ru.mosinnik.l2eve.geodriver.metrics.GeoMemoryReport;
+import ru.mosinnik.l2eve.geodriver.metrics.GeoMemoryReporter;
+import ru.mosinnik.l2eve.geodriver.metrics.GeoMemoryReport.Storage;
+import ru.mosinnik.l2eve.geodriver.util.NativeMemory;
 
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_CELLS_X;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_CELLS_Y;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS;
 import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS_X;
 import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS_Y;
 import static ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants.*;
@@ -47,10 +60,13 @@ import static ru.mosinnik.l2eve.geodriver.util.Converter.asInts;
  * хранимого в индексе регионов.
  */
 @Slf4j
-public final class GeoDriverBytesMmap implements IGeoDriver {
+public final class GeoDriverBytesMmap implements IGeoDriver, GeoMemoryReporter {
 
-    // гео данные
-    private ByteBuffer data;
+    // версия и порядок байт bin формата
+    private BinHeader header;
+
+    // гео данные, у каждого региона свой маппинг, по индексу региона как regionFirstBlockIndexes
+    private final ByteBuffer[] regionData = new ByteBuffer[GEO_REGIONS];
 
     // по индексу содержится оффсет первого блока региона в blockTypes и blockDataOffsets
     // offset at `blockDataOffsets` array of first region block
@@ -60,8 +76,19 @@ public final class GeoDriverBytesMmap implements IGeoDriver {
     //TODO: байта много для 10 типов, можно компактить
     private byte[] blockTypes;
 
-    // оффсет начала блока в data
-    private int[] blockDataOffsets;
+    // оффсеты начала блоков в данных региона, для flat блоков - высота
+    private BlockOffsetIndex blockOffsetIndex;
+    private int[] stripDataOffsets;
+    private char[] blockDataOffsets;
+    private int[] escapeDataOffsets;
+
+    // необязательная сводка по блокам, null если не строилась
+    private BlockSummary blockSummary;
+    // необязательная пирамида высот, null если не строилась
+    private HeightPyramid heightPyramid;
+
+    // отчет о памяти без resident страниц, считается при первом запросе после загрузки
+    private volatile GeoMemoryReport memoryReport;
 
     public GeoDriverBytesMmap() {
     }
@@ -79,19 +106,36 @@ public final class GeoDriverBytesMmap implements IGeoDriver {
 
     @SneakyThrows
     public void readFromFiles(Path dataDir) {
-        asInts(Files.readAllBytes(dataDir.resolve(REGION_FIRST_BLOCK_INDEXES_FILE_NAME)), regionFirstBlockIndexes);
+        header = BinHeader.readFromFiles(dataDir);
+
+        asInts(Files.readAllBytes(dataDir.resolve(REGION_FIRST_BLOCK_INDEXES_FILE_NAME)), regionFirstBlockIndexes, header.byteOrder());
         log.info("Read {} ints from data file: {}", regionFirstBlockIndexes.length, REGION_FIRST_BLOCK_INDEXES_FILE_NAME);
 
         blockTypes = Files.readAllBytes(dataDir.resolve(BLOCK_TYPES_FILE_NAME));
         log.info("Read {} bytes from data file: {}", blockTypes.length, BLOCK_TYPES_FILE_NAME);
 
-        blockDataOffsets = asInts(Files.readAllBytes(dataDir.resolve(BLOCK_DATA_OFFSETS_FILE_NAME)));
-        log.info("Read {} ints from data file: {}", blockDataOffsets.length, BLOCK_DATA_OFFSETS_FILE_NAME);
+        setBlockOffsetIndex(BlockOffsetIndex.readFromFiles(dataDir, header.byteOrder(), regionFirstBlockIndexes, blockTypes));
+
+        // маппинг живет и после закрытия канала
+        Arrays.fill(regionData, null);
+        GeoFileEvent mapEvent = new GeoFileEvent();
+        mapEvent.begin();
+        try (FileChannel channel = FileChannel.open(dataDir.resolve(DATA_FILE_NAME), StandardOpenOption.READ)) {
+            long[] regionDataSizes = blockOffsetIndex.regionDataSizes(regionFirstBlockIndexes, blockTypes, channel.size());
+            for (int regionIndex = 0; regionIndex < GEO_REGIONS; regionIndex++) {
+                if (regionFirstBlockIndexes[regionIndex] == NO_INDEX) {
+                    continue;
+                }
+                regionData[regionIndex] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    blockOffsetIndex.getRegionDataOffset(regionIndex), regionDataSizes[regionIndex]).order(header.byteOrder());
+            }
+            log.info("Mapped {} bytes from data file: {}", channel.size(), DATA_FILE_NAME);
+            GeoFileEvent.finish(mapEvent, "map", DATA_FILE_NAME, channel.size());
+        }
 
-        RandomAccessFile file = new RandomAccessFile(dataDir.resolve(DATA_FILE_NAME).toFile(), "r");
-        FileChannel channel = file.getChannel();
-        data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
-        log.info("Read {} bytes from data file: {}", data.capacity(), DATA_FILE_NAME);
+        blockSummary = BlockSummary.readFromFiles(dataDir, header.byteOrder(), blockTypes.length);
+        heightPyramid = HeightPyramid.mapFromFiles(dataDir, header.byteOrder(), regionFirstBlockIndexes);
+        memoryReport = null;
     }
 
 
@@ -108,18 +152,25 @@ public final class GeoDriverBytesMmap implements IGeoDriver {
         }
         Map<Byte, AtomicInteger> typesSizes = new TreeMap<>();
         Map<Integer, AtomicInteger> multilayerSizes = new TreeMap<>();
-        for (int i = 0; i < blockTypes.length; i++) {
-            byte blockType = blockTypes[i];
-            int size = getSize(blockType, blockDataOffsets[i]);
-            typesSizes.computeIfAbsent(blockType, k -> new AtomicInteger()).addAndGet(size);
-            if (blockType == MULTILAYER_BLOCK) {
-                multilayerSizes.computeIfAbsent(size, k -> new AtomicInteger()).incrementAndGet();
+        for (int regionIndex = 0; regionIndex < regionFirstBlockIndexes.length; regionIndex++) {
+            int regionFirstBlockIndex = regionFirstBlockIndexes[regionIndex];
+            if (regionFirstBlockIndex == NO_INDEX) {
+                continue;
+            }
+            for (int blockIndex = regionFirstBlockIndex; blockIndex < regionFirstBlockIndex + IRegion.REGION_BLOCKS; blockIndex++) {
+                byte blockType = blockTypes[blockIndex];
+                int size = getSize(blockType, blockOffsetIndex.getBlockDataOffset(blockType, blockIndex), regionData[regionIndex]);
+                typesSizes.computeIfAbsent(blockType, k -> new AtomicInteger()).addAndGet(size);
+                if (blockType == MULTILAYER_BLOCK) {
+                    multilayerSizes.computeIfAbsent(size, k -> new AtomicInteger()).incrementAndGet();
+                }
             }
         }
 
         log.info("Regions data size: {} (ints), with offsets: {}", regionFirstBlockIndexes.length, regionCount);
-        log.info("Data size: {} (bytes)", data.capacity());
-        log.info("Blocks offsets: {} (ints)", blockDataOffsets.length);
+        log.info("Data size: {} (bytes)", getDataSize());
+        log.info("Blocks offsets: {} (chars), strips: {} (ints), escaped strips: {}, index size: {} (bytes)",
+            blockDataOffsets.length, stripDataOffsets.length, blockOffsetIndex.escapedStripsCount(), blockOffsetIndex.sizeInBytes());
         log.info("Blocks count: {} (bytes)", blockTypes.length);
         for (Map.Entry<Byte, AtomicInteger> entry : typesCount.entrySet()) {
             int size = typesSizes.get(entry.getKey()).get();
@@ -137,7 +188,7 @@ public final class GeoDriverBytesMmap implements IGeoDriver {
         }
     }
 
-    private int getSize(byte blockType, int blockDataOffset) {
+    private int getSize(byte blockType, int blockDataOffset, ByteBuffer data) {
         switch (blockType) {
             case FLAT_BLOCK -> {
                 return FlatBlockFromOffsetBytes.getSize(blockDataOffset, data);
@@ -177,6 +228,159 @@ public final class GeoDriverBytesMmap implements IGeoDriver {
     }
 
 
+    public long getDataSize() {
+        long dataSize = 0;
+        for (ByteBuffer data : regionData) {
+            if (data != null) {
+                dataSize += data.capacity();
+            }
+        }
+        return dataSize;
+    }
+
+    /**
+     * Size of region data in bytes, -1 if region is not loaded
+     */
+    public long getRegionDataSize(int regionX, int regionY) {
+        ByteBuffer data = regionData[(regionX * GEO_REGIONS_Y) + regionY];
+        return data == null ? NO_INDEX : data.capacity();
+    }
+
+    /**
+     * Размеры данных считаются один раз после загрузки, resident страницы - mincore по регионам при каждом вызове
+     */
+    @Override
+    public GeoMemoryReport getMemoryReport() {
+        GeoMemoryReport report = memoryReport;
+        if (report == null) {
+            report = buildMemoryReport();
+            memoryReport = report;
+        }
+        long[] regionResidentBytes = new long[GEO_REGIONS];
+        for (int regionIndex = 0; regionIndex < GEO_REGIONS; regionIndex++) {
+            ByteBuffer data = regionData[regionIndex];
+            regionResidentBytes[regionIndex] = data == null ? NO_INDEX : NativeMemory.residentBytes(data);
+        }
+        HeightPyramid pyramid = heightPyramid;
+        long pyramidResidentBytes = (pyramid == null || pyramid.data() == null) ? NO_INDEX : NativeMemory.residentBytes(pyramid.data());
+        return report.withResidentBytes(regionResidentBytes, pyramidResidentBytes);
+    }
+
+    private GeoMemoryReport buildMemoryReport() {
+        GeoMemoryReport.Builder builder = new GeoMemoryReport.Builder("GeoDriverBytesMmap")
+            .index(4L * regionFirstBlockIndexes.length, Storage.HEAP);
+        if (blockTypes == null) {
+            return builder.build();
+        }
+        builder.index(blockTypes.length, Storage.HEAP)
+            .index(blockOffsetIndex.sizeInBytes(), Storage.HEAP);
+        if (blockSummary != null) {
+            builder.index(blockSummary.sizeInBytes(), Storage.HEAP);
+        }
+        if (heightPyramid != null) {
+            builder.index(heightPyramid.sizeInBytes(), Storage.MAPPED);
+        }
+        for (int regionIndex = 0; regionIndex < GEO_REGIONS; regionIndex++) {
+            int regionFirstBlockIndex = regionFirstBlockIndexes[regionIndex];
+            if (regionFirstBlockIndex == NO_INDEX) {
+                continue;
+            }
+            ByteBuffer data = regionData[regionIndex];
+            builder.region(regionIndex).payload(data.capacity(), Storage.MAPPED);
+            for (int blockIndex = regionFirstBlockIndex; blockIndex < regionFirstBlockIndex + IRegion.REGION_BLOCKS; blockIndex++) {
+                byte blockType = blockTypes[blockIndex];
+                builder.block(regionIndex, blockType, getSize(blockType, blockOffsetIndex.getBlockDataOffset(blockType, blockIndex), data));
+            }
+        }
+        return builder.build();
+    }
+
+    //--------------------------------------------------------------- page control
+
+    /**
+     * madvise for all mapped regions, e.g. MADV_RANDOM after load to disable readahead.
+     *
+     * @return count of regions with failed madvise
+     */
+    public int adviseRegions(int advice) {
+        int failed = 0;
+        for (int regionIndex = 0; regionIndex < GEO_REGIONS; regionIndex++) {
+            ByteBuffer data = regionData[regionIndex];
+            if (data != null && NativeMemory.madvise(data, advice) != 0) {
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            log.warn("madvise {} failed for {} regions", advice, failed);
+        }
+        return failed;
+    }
+
+    /**
+     * @return 0, errno or NativeMemory.NOT_SUPPORTED, NO_INDEX if region is not loaded
+     */
+    public int adviseRegion(int regionX, int regionY, int advice) {
+        ByteBuffer data = regionData[(regionX * GEO_REGIONS_Y) + regionY];
+        return data == null ? NO_INDEX : NativeMemory.madvise(data, advice);
+    }
+
+    /**
+     * Locks region pages in memory, needs RLIMIT_MEMLOCK (ulimit -l) not less than region size.
+     *
+     * @return 0, errno or NativeMemory.NOT_SUPPORTED, NO_INDEX if region is not loaded
+     */
+    public int lockRegion(int regionX, int regionY) {
+        ByteBuffer data = regionData[(regionX * GEO_REGIONS_Y) + regionY];
+        return data == null ? NO_INDEX : NativeMemory.mlock(data);
+    }
+
+    public int unlockRegion(int regionX, int regionY) {
+        ByteBuffer data = regionData[(regionX * GEO_REGIONS_Y) + regionY];
+        return data == null ? NO_INDEX : NativeMemory.munlock(data);
+    }
+
+    /**
+     * Loads region pages to physical memory with MappedByteBuffer.load(), blocks until done.
+     */
+    public void preloadRegion(int regionX, int regionY) {
+        ByteBuffer data = regionData[(regionX * GEO_REGIONS_Y) + regionY];
+        if (data instanceof MappedByteBuffer mappedData) {
+            mappedData.load();
+        }
+    }
+
+    /**
+     * Reads one byte of each page of region, cheaper than load() for already resident pages.
+     *
+     * @return touched pages count
+     */
+    public int touchRegion(int regionX, int regionY) {
+        ByteBuffer data = regionData[(regionX * GEO_REGIONS_Y) + regionY];
+        if (data == null) {
+            return 0;
+        }
+        int pageSize = (int) NativeMemory.getPageSize();
+        int pages = 0;
+        byte sum = 0;
+        for (int offset = 0; offset < data.capacity(); offset += pageSize) {
+            sum += data.get(offset);
+            pages++;
+        }
+        touchSink = sum;
+        return pages;
+    }
+
+    // чтобы JIT не выкинул чтение страниц в touchRegion
+    @SuppressWarnings("unused")
+    private volatile byte touchSink;
+
+    private void setBlockOffsetIndex(BlockOffsetIndex blockOffsetIndex) {
+        this.blockOffsetIndex = blockOffsetIndex;
+        stripDataOffsets = blockOffsetIndex.stripDataOffsets();
+        blockDataOffsets = blockOffsetIndex.blockDataOffsets();
+        escapeDataOffsets = blockOffsetIndex.escapeDataOffsets();
+    }
+
     @Override
     public void loadRegion(Path filePath, int regionX, int regionY) {
         throw new RuntimeException("Not implemented");
@@ -193,6 +397,19 @@ public final class GeoDriverBytesMmap implements IGeoDriver {
         return true;
     }
 
+    @Override
+    public int getBlockType(int geoX, int geoY) {
+        int regionIndex = ((geoX >> 11) << 5) + (geoY >> 11);
+        int regionFirstBlockIndex = this.regionFirstBlockIndexes[regionIndex];
+        if (regionFirstBlockIndex == NO_INDEX) {
+            return -1;
+        }
+
+        int blockIndexInRegion = (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
+
+        return blockTypes[regionFirstBlockIndex + blockIndexInRegion];
+    }
+
     @Override
     public boolean checkNearestNSWE(int geoX, int geoY, int worldZ, byte nswe) {
         // 1. get block type by geo x/y
@@ -209,8 +426,11 @@ public final class GeoDriverBytesMmap implements IGeoDriver {
 
         int blockIndexInRegion = (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
 
-        byte blockType = blockTypes[regionFirstBlockIndex + blockIndexInRegion];
-        int blockDataOffset = blockDataOffsets[regionFirstBlockIndex + blockIndexInRegion];
+        int blockIndex = regionFirstBlockIndex + blockIndexInRegion;
+        byte blockType = blockTypes[blockIndex];
+        int blockDataOffset = BlockOffsetIndex.getBlockDataOffset(blockType, blockIndex,
+            stripDataOffsets, blockDataOffsets, escapeDataOffsets);
+        ByteBuffer data = regionData[regionIndex];
         switch (blockType) {
             case FLAT_BLOCK -> {
                 return FlatBlockFromOffsetBytes.checkNearestNSWE(geoX, geoY, worldZ, nswe);
@@ -260,8 +480,11 @@ public final class GeoDriverBytesMmap implements IGeoDriver {
 
         int blockIndexInRegion = (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
 
-        byte blockType = blockTypes[regionFirstBlockIndex + blockIndexInRegion];
-        int blockDataOffset = blockDataOffsets[regionFirstBlockIndex + blockIndexInRegion];
+        int blockIndex = regionFirstBlockIndex + blockIndexInRegion;
+        byte blockType = blockTypes[blockIndex];
+        int blockDataOffset = BlockOffsetIndex.getBlockDataOffset(blockType, blockIndex,
+            stripDataOffsets, blockDataOffsets, escapeDataOffsets);
+        ByteBuffer data = regionData[regionIndex];
         switch (blockType) {
             case FLAT_BLOCK -> {
                 return FlatBlockFromOffsetBytes.getNearestZ(geoX, geoY, worldZ, blockDataOffset, data);
@@ -300,6 +523,59 @@ public final class GeoDriverBytesMmap implements IGeoDriver {
         }
     }
 
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        int regionIndex = ((geoX >> 11) << 5) + (geoY >> 11);
+        int regionFirstBlockIndex = this.regionFirstBlockIndexes[regionIndex];
+        if (regionFirstBlockIndex == NO_INDEX) {
+            return NullRegionBytes.getNearestLayer(geoX, geoY, worldZ);
+        }
+
+        int blockIndexInRegion = (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
+
+        int blockIndex = regionFirstBlockIndex + blockIndexInRegion;
+        byte blockType = blockTypes[blockIndex];
+        int blockDataOffset = BlockOffsetIndex.getBlockDataOffset(blockType, blockIndex,
+            stripDataOffsets, blockDataOffsets, escapeDataOffsets);
+        ByteBuffer data = regionData[regionIndex];
+        switch (blockType) {
+            case FLAT_BLOCK -> {
+                return FlatBlockFromOffsetBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case COMPLEX_BLOCK -> {
+                return ComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case MULTILAYER_BLOCK -> {
+                return MultilayerBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case ONE_HEIGHT_COMPLEX_BLOCK -> {
+                return OneHeightComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case BASE_HEIGHT_COMPLEX_BLOCK -> {
+                return BaseHeightComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case BASE_HEIGHT_ONE_NSWE_COMPLEX_BLOCK -> {
+                return BaseHeightOneNsweComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case FEW_HEIGHTS_COMPLEX_BLOCK -> {
+                return FewHeightsComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case FEW_HEIGHTS_ONE_NSWE_COMPLEX_BLOCK -> {
+                return FewHeightsOneNsweComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case NO_HOLES_MULTILAYER_BLOCK -> {
+                return NoHolesMultilayerBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case INDEXED_MULTILAYER_BLOCK -> {
+                return IndexedMultilayerBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case INDEXED_32_MULTILAYER_BLOCK -> {
+                return Indexed32MultilayerBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            default -> throw new RuntimeException("Unknown block type: " + blockType);
+        }
+    }
+
     @Override
     public int getNextLowerZ(int geoX, int geoY, int worldZ) {
         int regionIndex = ((geoX >> 11) << 5) + (geoY >> 11);
@@ -310,8 +586,11 @@ public final class GeoDriverBytesMmap implements IGeoDriver {
 
         int blockIndexInRegion = (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
 
-        byte blockType = blockTypes[regionFirstBlockIndex + blockIndexInRegion];
-        int blockDataOffset = blockDataOffsets[regionFirstBlockIndex + blockIndexInRegion];
+        int blockIndex = regionFirstBlockIndex + blockIndexInRegion;
+        byte blockType = blockTypes[blockIndex];
+        int blockDataOffset = BlockOffsetIndex.getBlockDataOffset(blockType, blockIndex,
+            stripDataOffsets, blockDataOffsets, escapeDataOffsets);
+        ByteBuffer data = regionData[regionIndex];
         switch (blockType) {
             case FLAT_BLOCK -> {
                 return FlatBlockFromOffsetBytes.getNextLowerZ(geoX, geoY, worldZ, blockDataOffset, data);
@@ -360,8 +639,11 @@ public final class GeoDriverBytesMmap implements IGeoDriver {
 
         int blockIndexInRegion = (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
 
-        byte blockType = blockTypes[regionFirstBlockIndex + blockIndexInRegion];
-        int blockDataOffset = blockDataOffsets[regionFirstBlockIndex + blockIndexInRegion];
+        int blockIndex = regionFirstBlockIndex + blockIndexInRegion;
+        byte blockType = blockTypes[blockIndex];
+        int blockDataOffset = BlockOffsetIndex.getBlockDataOffset(blockType, blockIndex,
+            stripDataOffsets, blockDataOffsets, escapeDataOffsets);
+        ByteBuffer data = regionData[regionIndex];
         switch (blockType) {
             case FLAT_BLOCK -> {
                 return FlatBlockFromOffsetBytes.getNextHigherZ(geoX, geoY, worldZ, blockDataOffset, data);
@@ -400,4 +682,272 @@ public final class GeoDriverBytesMmap implements IGeoDriver {
         }
     }
 
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        int regionIndex = ((geoX >> 11) << 5) + (geoY >> 11);
+        int regionFirstBlockIndex = this.regionFirstBlockIndexes[regionIndex];
+        if (regionFirstBlockIndex == NO_INDEX) {
+            return NullRegionBytes.getLayers(geoX, geoY, outHeights, outNswe);
+        }
+
+        int blockIndexInRegion = (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
+
+        int blockIndex = regionFirstBlockIndex + blockIndexInRegion;
+        byte blockType = blockTypes[blockIndex];
+        int blockDataOffset = BlockOffsetIndex.getBlockDataOffset(blockType, blockIndex,
+            stripDataOffsets, blockDataOffsets, escapeDataOffsets);
+        ByteBuffer data = regionData[regionIndex];
+        switch (blockType) {
+            case FLAT_BLOCK -> {
+                return FlatBlockFromOffsetBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case COMPLEX_BLOCK -> {
+                return ComplexBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case MULTILAYER_BLOCK -> {
+                return MultilayerBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case ONE_HEIGHT_COMPLEX_BLOCK -> {
+                return OneHeightComplexBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case BASE_HEIGHT_COMPLEX_BLOCK -> {
+                return BaseHeightComplexBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case BASE_HEIGHT_ONE_NSWE_COMPLEX_BLOCK -> {
+                return BaseHeightOneNsweComplexBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case FEW_HEIGHTS_COMPLEX_BLOCK -> {
+                return FewHeightsComplexBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case FEW_HEIGHTS_ONE_NSWE_COMPLEX_BLOCK -> {
+                return FewHeightsOneNsweComplexBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case NO_HOLES_MULTILAYER_BLOCK -> {
+                return NoHolesMultilayerBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case INDEXED_MULTILAYER_BLOCK -> {
+                return IndexedMultilayerBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            case INDEXED_32_MULTILAYER_BLOCK -> {
+                return Indexed32MultilayerBlockBytes.getLayers(geoX, geoY, outHeights, outNswe, blockDataOffset, data);
+            }
+            default -> throw new RuntimeException("Unknown block type: " + blockType);
+        }
+    }
+
+    @Override
+    public int getBlockMinZ(int geoX, int geoY) {
+        int blockIndex = getBlockIndex(geoX, geoY);
+        if (blockIndex == NO_INDEX) {
+            return Integer.MAX_VALUE;
+        }
+        if (blockSummary == null) {
+            return IGeoDriver.super.getBlockMinZ(geoX, geoY);
+        }
+        return blockSummary.getMinHeight(blockIndex);
+    }
+
+    @Override
+    public int getBlockMaxZ(int geoX, int geoY) {
+        int blockIndex = getBlockIndex(geoX, geoY);
+        if (blockIndex == NO_INDEX) {
+            return Integer.MIN_VALUE;
+        }
+        if (blockSummary == null) {
+            return IGeoDriver.super.getBlockMaxZ(geoX, geoY);
+        }
+        return blockSummary.getMaxHeight(blockIndex);
+    }
+
+    @Override
+    public boolean isBlockAllOpen(int geoX, int geoY) {
+        int blockIndex = getBlockIndex(geoX, geoY);
+        if (blockIndex == NO_INDEX) {
+            return true;
+        }
+        if (blockSummary == null) {
+            return IGeoDriver.super.isBlockAllOpen(geoX, geoY);
+        }
+        return blockSummary.isAllOpen(blockIndex);
+    }
+
+    /**
+     * Flat блок однороден по типу, для ONE_HEIGHT_COMPLEX_BLOCK нужен флаг all open из {@link BlockSummary}.
+     * Остальные типы тоже бывают однородными (тип блока при загрузке зависит от конфига), для них ответ
+     * как у {@link IGeoDriver#isBlockUniform}: по сводке если она есть, иначе декодированием блока.
+     */
+    @Override
+    public boolean isBlockUniform(int geoX, int geoY) {
+        int blockIndex = getBlockIndex(geoX, geoY);
+        if (blockIndex == NO_INDEX) {
+            return false;
+        }
+        return switch (blockTypes[blockIndex]) {
+            case FLAT_BLOCK -> true;
+            case ONE_HEIGHT_COMPLEX_BLOCK -> isBlockAllOpen(geoX, geoY);
+            default -> blockSummary == null
+                ? IGeoDriver.super.isBlockUniform(geoX, geoY)
+                : blockSummary.isUniform(blockIndex);
+        };
+    }
+
+    @Override
+    public int getAreaMaxZ(int minGeoX, int minGeoY, int maxGeoX, int maxGeoY) {
+        if (heightPyramid == null) {
+            return IGeoDriver.super.getAreaMaxZ(minGeoX, minGeoY, maxGeoX, maxGeoY);
+        }
+        return heightPyramid.getAreaMaxZ(this, minGeoX, minGeoY, maxGeoX, maxGeoY);
+    }
+
+    @Override
+    public boolean hasHeightAbove(int minGeoX, int minGeoY, int maxGeoX, int maxGeoY, int worldZ) {
+        if (heightPyramid == null) {
+            return IGeoDriver.super.hasHeightAbove(minGeoX, minGeoY, maxGeoX, maxGeoY, worldZ);
+        }
+        return heightPyramid.hasHeightAbove(this, minGeoX, minGeoY, maxGeoX, maxGeoY, worldZ);
+    }
+
+    @Override
+    public boolean isRayAboveTerrain(int geoX, int geoY, int worldZ, int toGeoX, int toGeoY, int toWorldZ) {
+        if (heightPyramid == null) {
+            return IGeoDriver.super.isRayAboveTerrain(geoX, geoY, worldZ, toGeoX, toGeoY, toWorldZ);
+        }
+        return heightPyramid.isRayAboveTerrain(this, geoX, geoY, worldZ, toGeoX, toGeoY, toWorldZ);
+    }
+
+    /**
+     * @return индекс блока как в blockTypes, NO_INDEX если нет геодаты
+     */
+    private int getBlockIndex(int geoX, int geoY) {
+        int regionIndex = ((geoX >> 11) << 5) + (geoY >> 11);
+        int regionFirstBlockIndex = this.regionFirstBlockIndexes[regionIndex];
+        if (regionFirstBlockIndex == NO_INDEX) {
+            return NO_INDEX;
+        }
+        return regionFirstBlockIndex + (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
+    }
+
+    /**
+     * Returns null if the summary was not built or read
+     */
+    public BlockSummary getBlockSummary() {
+        return blockSummary;
+    }
+
+    /**
+     * Returns null if the pyramid was not built or read
+     */
+    public HeightPyramid getHeightPyramid() {
+        return heightPyramid;
+    }
+
+    /**
+     * Центральный блок разрешается один раз, соседи внутри него читаются из него же.
+     * Для ячейки на краю блока дополнительно разрешаются не более 3 соседних блоков:
+     * по x, по y и угловой.
+     */
+    @Override
+    public int expandNeighbours(int geoX, int geoY, int worldZ, int[] outZ, byte[] outMask) {
+        int edgeX = edge(geoX);
+        int edgeY = edge(geoY);
+        long centreBlock = resolveBlock(geoX, geoY);
+        long xBlock = edgeX == 0 ? centreBlock : resolveBlock(geoX + edgeX, geoY);
+        long yBlock = edgeY == 0 ? centreBlock : resolveBlock(geoX, geoY + edgeY);
+        long cornerBlock = (edgeX == 0 || edgeY == 0) ? centreBlock : resolveBlock(geoX + edgeX, geoY + edgeY);
+
+        int centreLayer = getNearestLayer(centreBlock, geoX, geoY, worldZ);
+        int z = LayerData.height(centreLayer);
+        for (int direction = 0; direction < Neighbours.COUNT; direction++) {
+            int dx = Neighbours.dx(direction);
+            int dy = Neighbours.dy(direction);
+            boolean crossX = dx != 0 && dx == edgeX;
+            boolean crossY = dy != 0 && dy == edgeY;
+            long block = crossX ? (crossY ? cornerBlock : xBlock) : (crossY ? yBlock : centreBlock);
+            outZ[direction] = getNearestLayer(block, geoX + dx, geoY + dy, z);
+        }
+        return Neighbours.resolve(centreLayer, outZ, outMask);
+    }
+
+    /**
+     * @return -1 или 1 если ячейка на западном/северном или восточном/южном краю блока, иначе 0
+     */
+    private static int edge(int geoCoord) {
+        int cell = geoCoord & 0x07;
+        return cell == 0 ? -1 : (cell == 7 ? 1 : 0);
+    }
+
+    /**
+     * Разрешает блок ячейки в тип и оффсет данных, упакованные в long: тип в старших 32 битах.
+     */
+    private long resolveBlock(int geoX, int geoY) {
+        if ((geoX < 0) || (geoX >= GEO_CELLS_X) || (geoY < 0) || (geoY >= GEO_CELLS_Y)) {
+            return ((long) OUTSIDE_WORLD_BLOCK) << 32;
+        }
+        int regionIndex = ((geoX >> 11) << 5) + (geoY >> 11);
+        int regionFirstBlockIndex = this.regionFirstBlockIndexes[regionIndex];
+        if (regionFirstBlockIndex == NO_INDEX) {
+            return ((long) NULL_REGION_BLOCK) << 32;
+        }
+
+        int blockIndexInRegion = (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
+
+        int blockIndex = regionFirstBlockIndex + blockIndexInRegion;
+        byte blockType = blockTypes[blockIndex];
+        int blockDataOffset = BlockOffsetIndex.getBlockDataOffset(blockType, blockIndex,
+            stripDataOffsets, blockDataOffsets, escapeDataOffsets);
+        return (((long) blockType) << 32) | (blockDataOffset & 0xFFFF_FFFFL);
+    }
+
+    private int getNearestLayer(long block, int geoX, int geoY, int worldZ) {
+        byte blockType = (byte) (block >> 32);
+        int blockDataOffset = (int) block;
+        switch (blockType) {
+            case OUTSIDE_WORLD_BLOCK -> {
+                return Neighbours.NO_LAYER;
+            }
+            case NULL_REGION_BLOCK -> {
+                return NullRegionBytes.getNearestLayer(geoX, geoY, worldZ);
+            }
+            default -> {
+            }
+        }
+        ByteBuffer data = regionData[((geoX >> 11) << 5) + (geoY >> 11)];
+        switch (blockType) {
+            case FLAT_BLOCK -> {
+                return FlatBlockFromOffsetBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case COMPLEX_BLOCK -> {
+                return ComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case MULTILAYER_BLOCK -> {
+                return MultilayerBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case ONE_HEIGHT_COMPLEX_BLOCK -> {
+                return OneHeightComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case BASE_HEIGHT_COMPLEX_BLOCK -> {
+                return BaseHeightComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case BASE_HEIGHT_ONE_NSWE_COMPLEX_BLOCK -> {
+                return BaseHeightOneNsweComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case FEW_HEIGHTS_COMPLEX_BLOCK -> {
+                return FewHeightsComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case FEW_HEIGHTS_ONE_NSWE_COMPLEX_BLOCK -> {
+                return FewHeightsOneNsweComplexBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case NO_HOLES_MULTILAYER_BLOCK -> {
+                return NoHolesMultilayerBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case INDEXED_MULTILAYER_BLOCK -> {
+                return IndexedMultilayerBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            case INDEXED_32_MULTILAYER_BLOCK -> {
+                return Indexed32MultilayerBlockBytes.getNearestLayer(geoX, geoY, worldZ, blockDataOffset, data);
+            }
+            default -> throw new RuntimeException("Unknown block type: " + blockType);
+        }
+    }
+
 }
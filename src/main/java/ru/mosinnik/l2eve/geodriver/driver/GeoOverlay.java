@@ -0,0 +1,461 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.driver;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.mosinnik.l2eve.geodriver.Cell;
+import ru.mosinnik.l2eve.geodriver.LayerData;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+import ru.mosinnik.l2eve.geodriver.jfr.GeoOverlayEvent;
+import ru.mosinnik.l2eve.geodriver.metrics.GeoMemoryReport;
+import ru.mosinnik.l2eve.geodriver.metrics.GeoMemoryReporter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.*;
+
+/**
+ * Слой динамических препятствий (двери, осадные стены, заборы) поверх статической геодаты.
+ * <p>
+ * Препятствие задается прямоугольником в geo координатах (границы включительно) и диапазоном высот:
+ * у слоев ячеек внутри прямоугольника в этом диапазоне закрываются все направления, у соседних снаружи
+ * ячеек закрывается направление внутрь, так что препятствие нельзя ни пройти, ни войти в него.
+ * Высоты не меняются, поэтому все запросы высот идут в драйвер напрямую.
+ * <p>
+ * Для затронутых блоков строятся копии с измененными NSWE (copy-on-write), остальные блоки не копируются.
+ * На каждый регион с препятствиями есть массив копий по индексу блока в регионе, запрос к блоку стоит
+ * двух чтений массивов, копия блока - один плоский int[].
+ * Изменения публикуются заменой всего состояния целиком с последующим увеличением epoch,
+ * читатели работают без блокировок, кеши вызывающего кода можно ключевать по {@link #getEpoch()}.
+ * <p>
+ * {@link #loadRegion} пересобирает копии блоков региона по новой геодате. Если регион загружен в драйвер
+ * в обход оверлея, копии его блоков устаревают.
+ */
+@Slf4j
+public class GeoOverlay implements IGeoDriver, GeoMemoryReporter {
+
+    private final IGeoDriver driver;
+    private final AtomicLong epoch = new AtomicLong();
+    private volatile State state = new State(new OverlayBlock[GEO_REGIONS][], 0);
+
+    // изменяются только под synchronized
+    private final Map<Integer, Obstacle> obstacles = new LinkedHashMap<>();
+    private int nextObstacleId;
+
+    public GeoOverlay(IGeoDriver driver) {
+        this.driver = driver;
+    }
+
+    public record Obstacle(int minGeoX, int minGeoY, int maxGeoX, int maxGeoY, int minZ, int maxZ) {
+
+        /**
+         * Пересекает ли препятствие вместе с рамкой соседних ячеек блок
+         */
+        boolean touchesBlock(int blockGeoX, int blockGeoY) {
+            return (minGeoX - 1 < blockGeoX + IBlock.BLOCK_CELLS_X) && (maxGeoX + 1 >= blockGeoX)
+                && (minGeoY - 1 < blockGeoY + IBlock.BLOCK_CELLS_Y) && (maxGeoY + 1 >= blockGeoY);
+        }
+
+        /**
+         * @return направления, которые препятствие закрывает у ячейки, 0 если не затрагивает
+         */
+        byte closedNswe(int geoX, int geoY) {
+            boolean insideX = (geoX >= minGeoX) && (geoX <= maxGeoX);
+            boolean insideY = (geoY >= minGeoY) && (geoY <= maxGeoY);
+            if (insideX && insideY) {
+                return Cell.NSWE_ALL;
+            }
+            if (insideY) {
+                if (geoX == minGeoX - 1) {
+                    return Cell.NSWE_EAST;
+                }
+                if (geoX == maxGeoX + 1) {
+                    return Cell.NSWE_WEST;
+                }
+            }
+            if (insideX) {
+                if (geoY == minGeoY - 1) {
+                    return Cell.NSWE_SOUTH;
+                }
+                if (geoY == maxGeoY + 1) {
+                    return Cell.NSWE_NORTH;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Все что читают запросы, заменяется целиком.
+     *
+     * @param regionBlocks по регионам копии блоков по индексу блока в регионе, null если в регионе нет копий
+     * @param blockCount   всего копий блоков
+     */
+    private record State(OverlayBlock[][] regionBlocks, int blockCount) {
+    }
+
+    /**
+     * Копия блока одним массивом: первые BLOCK_CELLS + 1 int'ов - начала слоев ячеек в порядке хранения,
+     * дальше упакованные {@link LayerData} слои
+     */
+    private record OverlayBlock(int[] data, boolean allOpen) {
+
+        private static final int LAYERS_OFFSET = IBlock.BLOCK_CELLS + 1;
+
+        int getNearestLayer(int geoX, int geoY, int worldZ) {
+            int cell = ((geoX & 0x07) << 3) + (geoY & 0x07);
+            int from = data[cell];
+            int to = data[cell + 1];
+            int nearest = data[from];
+            int nearestDZ = Math.abs(LayerData.height(nearest) - worldZ);
+            for (int i = from + 1; i < to; i++) {
+                int layerDZ = Math.abs(LayerData.height(data[i]) - worldZ);
+                if (layerDZ < nearestDZ) {
+                    nearestDZ = layerDZ;
+                    nearest = data[i];
+                }
+            }
+            return nearest;
+        }
+
+        int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+            int cell = ((geoX & 0x07) << 3) + (geoY & 0x07);
+            int from = data[cell];
+            int layers = data[cell + 1] - from;
+            for (int i = 0; i < layers; i++) {
+                outHeights[i] = LayerData.height(data[from + i]);
+                outNswe[i] = LayerData.nswe(data[from + i]);
+            }
+            return layers;
+        }
+    }
+
+    public IGeoDriver getDriver() {
+        return driver;
+    }
+
+    /**
+     * Номер версии препятствий, растет на каждое изменение после его публикации
+     */
+    public long getEpoch() {
+        return epoch.get();
+    }
+
+    /**
+     * @return id препятствия для {@link #removeObstacle(int)}
+     */
+    public synchronized int addObstacle(int minGeoX, int minGeoY, int maxGeoX, int maxGeoY, int minZ, int maxZ) {
+        if ((minGeoX > maxGeoX) || (minGeoY > maxGeoY) || (minZ > maxZ)) {
+            throw new IllegalArgumentException("Invalid obstacle bounds: " + minGeoX + ", " + minGeoY + ", " + maxGeoX + ", " + maxGeoY
+                + ", z " + minZ + ".." + maxZ);
+        }
+        GeoOverlayEvent event = new GeoOverlayEvent();
+        event.begin();
+        Obstacle obstacle = new Obstacle(minGeoX, minGeoY, maxGeoX, maxGeoY, minZ, maxZ);
+        int id = nextObstacleId++;
+        obstacles.put(id, obstacle);
+        publish(List.of(obstacle), 0, 0, GEO_CELLS_X - 1, GEO_CELLS_Y - 1);
+        commit(event, "add", id);
+        return id;
+    }
+
+    /**
+     * @return false если препятствия с таким id нет
+     */
+    public synchronized boolean removeObstacle(int id) {
+        GeoOverlayEvent event = new GeoOverlayEvent();
+        event.begin();
+        Obstacle obstacle = obstacles.remove(id);
+        if (obstacle == null) {
+            return false;
+        }
+        publish(List.of(obstacle), 0, 0, GEO_CELLS_X - 1, GEO_CELLS_Y - 1);
+        commit(event, "remove", id);
+        return true;
+    }
+
+    private void commit(GeoOverlayEvent event, String operation, int id) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.obstacleId = id;
+            event.obstacles = obstacles.size();
+            event.blocks = state.blockCount();
+            event.epoch = epoch.get();
+            event.commit();
+        }
+    }
+
+    public synchronized int getObstacleCount() {
+        return obstacles.size();
+    }
+
+    /**
+     * Пересобирает блоки внутри области (границы включительно), затронутые препятствиями, и публикует новое состояние
+     */
+    private void publish(Collection<Obstacle> changed, int minGeoX, int minGeoY, int maxGeoX, int maxGeoY) {
+        State current = state;
+        OverlayBlock[][] regionBlocks = current.regionBlocks().clone();
+        int blockCount = current.blockCount();
+        int[] layerHeights = new int[IBlock.MAX_CELL_LAYERS];
+        byte[] layerNswe = new byte[IBlock.MAX_CELL_LAYERS];
+
+        for (Obstacle obstacle : changed) {
+            int fromX = Math.max(minGeoX, obstacle.minGeoX() - 1) & ~0x07;
+            int toX = Math.min(maxGeoX, obstacle.maxGeoX() + 1);
+            int fromY = Math.max(minGeoY, obstacle.minGeoY() - 1) & ~0x07;
+            int toY = Math.min(maxGeoY, obstacle.maxGeoY() + 1);
+            for (int blockGeoX = fromX; blockGeoX <= toX; blockGeoX += IBlock.BLOCK_CELLS_X) {
+                for (int blockGeoY = fromY; blockGeoY <= toY; blockGeoY += IBlock.BLOCK_CELLS_Y) {
+                    int regionIndex = ((blockGeoX >> 11) << 5) + (blockGeoY >> 11);
+                    int blockIndexInRegion = (((blockGeoX >> 3) & 0xFF) << 8) + ((blockGeoY >> 3) & 0xFF);
+                    OverlayBlock block = buildBlock(blockGeoX, blockGeoY, layerHeights, layerNswe);
+                    OverlayBlock[] blocks = regionBlocks[regionIndex];
+                    OverlayBlock previous = blocks == null ? null : blocks[blockIndexInRegion];
+                    if ((block == null) && (previous == null)) {
+                        continue;
+                    }
+                    getWritableBlocks(regionBlocks, current, regionIndex)[blockIndexInRegion] = block;
+                    blockCount += (block == null ? 0 : 1) - (previous == null ? 0 : 1);
+                }
+            }
+        }
+        for (int regionIndex = 0; regionIndex < GEO_REGIONS; regionIndex++) {
+            OverlayBlock[] blocks = regionBlocks[regionIndex];
+            if ((blocks != null) && (blocks != current.regionBlocks()[regionIndex]) && Arrays.stream(blocks).allMatch(Objects::isNull)) {
+                regionBlocks[regionIndex] = null;
+            }
+        }
+
+        state = new State(regionBlocks, blockCount);
+        long newEpoch = epoch.incrementAndGet();
+        log.debug("Published geo overlay epoch {}: {} obstacles, {} blocks", newEpoch, obstacles.size(), blockCount);
+    }
+
+    /**
+     * Копии блоков региона для изменения: опубликованный массив копируется один раз за публикацию
+     */
+    private static OverlayBlock[] getWritableBlocks(OverlayBlock[][] regionBlocks, State current, int regionIndex) {
+        OverlayBlock[] blocks = regionBlocks[regionIndex];
+        if (blocks == null) {
+            blocks = new OverlayBlock[IRegion.REGION_BLOCKS];
+            regionBlocks[regionIndex] = blocks;
+        } else if (blocks == current.regionBlocks()[regionIndex]) {
+            blocks = blocks.clone();
+            regionBlocks[regionIndex] = blocks;
+        }
+        return blocks;
+    }
+
+    /**
+     * Копия блока с примененными препятствиями, null если препятствия блок не меняют или геодаты нет
+     */
+    private OverlayBlock buildBlock(int blockGeoX, int blockGeoY, int[] layerHeights, byte[] layerNswe) {
+        if (!driver.hasGeoPos(blockGeoX, blockGeoY)) {
+            return null;
+        }
+        Obstacle[] touching = obstacles.values().stream()
+            .filter(obstacle -> obstacle.touchesBlock(blockGeoX, blockGeoY))
+            .toArray(Obstacle[]::new);
+        if (touching.length == 0) {
+            return null;
+        }
+        int[] data = new int[OverlayBlock.LAYERS_OFFSET + IBlock.BLOCK_CELLS];
+        int next = OverlayBlock.LAYERS_OFFSET;
+        boolean changed = false;
+        boolean allOpen = true;
+        for (int x = blockGeoX; x < blockGeoX + IBlock.BLOCK_CELLS_X; x++) {
+            for (int y = blockGeoY; y < blockGeoY + IBlock.BLOCK_CELLS_Y; y++) {
+                int layers = driver.getLayers(x, y, layerHeights, layerNswe);
+                int cell = ((x & 0x07) << 3) + (y & 0x07);
+                data[cell] = next;
+                if (next + layers > data.length) {
+                    data = Arrays.copyOf(data, Math.max(data.length * 2, next + layers));
+                }
+                for (int i = 0; i < layers; i++) {
+                    int nswe = layerNswe[i];
+                    for (Obstacle obstacle : touching) {
+                        if ((layerHeights[i] >= obstacle.minZ()) && (layerHeights[i] <= obstacle.maxZ())) {
+                            nswe &= ~obstacle.closedNswe(x, y);
+                        }
+                    }
+                    changed |= nswe != layerNswe[i];
+                    allOpen &= nswe == Cell.NSWE_ALL;
+                    data[next++] = LayerData.pack(layerHeights[i], nswe);
+                }
+            }
+        }
+        data[IBlock.BLOCK_CELLS] = next;
+        return changed ? new OverlayBlock(Arrays.copyOf(data, next), allOpen) : null;
+    }
+
+    /**
+     * @return копия блока или null если блок не затронут препятствиями
+     */
+    private OverlayBlock getOverlayBlock(int geoX, int geoY) {
+        OverlayBlock[] blocks = state.regionBlocks()[((geoX >> 11) << 5) + (geoY >> 11)];
+        if (blocks == null) {
+            return null;
+        }
+        return blocks[(((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF)];
+    }
+
+    private boolean isOverlaid(int geoX, int geoY) {
+        if ((geoX < 0) || (geoX >= GEO_CELLS_X) || (geoY < 0) || (geoY >= GEO_CELLS_Y)) {
+            return false;
+        }
+        return getOverlayBlock(geoX, geoY) != null;
+    }
+
+    /**
+     * Копии блоков региона были собраны по старой геодате и пересобираются по новой
+     */
+    @Override
+    public synchronized void loadRegion(Path filePath, int regionX, int regionY) throws IOException {
+        driver.loadRegion(filePath, regionX, regionY);
+        int regionGeoX = regionX * IRegion.REGION_CELLS_X;
+        int regionGeoY = regionY * IRegion.REGION_CELLS_Y;
+        publish(obstacles.values(), regionGeoX, regionGeoY,
+            regionGeoX + IRegion.REGION_CELLS_X - 1, regionGeoY + IRegion.REGION_CELLS_Y - 1);
+    }
+
+    @Override
+    public boolean hasGeoPos(int geoX, int geoY) {
+        return driver.hasGeoPos(geoX, geoY);
+    }
+
+    @Override
+    public int getNearestZ(int geoX, int geoY, int worldZ) {
+        return driver.getNearestZ(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        OverlayBlock block = getOverlayBlock(geoX, geoY);
+        if (block == null) {
+            return driver.getNearestLayer(geoX, geoY, worldZ);
+        }
+        return block.getNearestLayer(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public int getNextLowerZ(int geoX, int geoY, int worldZ) {
+        return driver.getNextLowerZ(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public int getNextHigherZ(int geoX, int geoY, int worldZ) {
+        return driver.getNextHigherZ(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        OverlayBlock block = getOverlayBlock(geoX, geoY);
+        if (block == null) {
+            return driver.getLayers(geoX, geoY, outHeights, outNswe);
+        }
+        return block.getLayers(geoX, geoY, outHeights, outNswe);
+    }
+
+    @Override
+    public int getBlockType(int geoX, int geoY) {
+        return driver.getBlockType(geoX, geoY);
+    }
+
+    @Override
+    public GeoMemoryReport getMemoryReport() {
+        return GeoMemoryReporter.reportOf(driver);
+    }
+
+    @Override
+    public int getBlockMinZ(int geoX, int geoY) {
+        return driver.getBlockMinZ(geoX, geoY);
+    }
+
+    @Override
+    public int getBlockMaxZ(int geoX, int geoY) {
+        return driver.getBlockMaxZ(geoX, geoY);
+    }
+
+    @Override
+    public boolean isBlockAllOpen(int geoX, int geoY) {
+        OverlayBlock block = getOverlayBlock(geoX, geoY);
+        if (block == null) {
+            return driver.isBlockAllOpen(geoX, geoY);
+        }
+        return block.allOpen();
+    }
+
+    @Override
+    public boolean isBlockUniform(int geoX, int geoY) {
+        OverlayBlock block = getOverlayBlock(geoX, geoY);
+        return ((block == null) || block.allOpen()) && driver.isBlockUniform(geoX, geoY);
+    }
+
+    @Override
+    public int getAreaMaxZ(int minGeoX, int minGeoY, int maxGeoX, int maxGeoY) {
+        return driver.getAreaMaxZ(minGeoX, minGeoY, maxGeoX, maxGeoY);
+    }
+
+    @Override
+    public boolean hasHeightAbove(int minGeoX, int minGeoY, int maxGeoX, int maxGeoY, int worldZ) {
+        return driver.hasHeightAbove(minGeoX, minGeoY, maxGeoX, maxGeoY, worldZ);
+    }
+
+    @Override
+    public boolean isRayAboveTerrain(int geoX, int geoY, int worldZ, int toGeoX, int toGeoY, int toWorldZ) {
+        return driver.isRayAboveTerrain(geoX, geoY, worldZ, toGeoX, toGeoY, toWorldZ);
+    }
+
+    /**
+     * Если ни один из блоков вокруг ячейки не затронут, раскрытие целиком уходит в драйвер.
+     * Углы окрестности 3x3 покрывают все блоки, в которые она попадает.
+     */
+    @Override
+    public int expandNeighbours(int geoX, int geoY, int worldZ, int[] outZ, byte[] outMask) {
+        if (isOverlaid(geoX - 1, geoY - 1) || isOverlaid(geoX + 1, geoY - 1)
+            || isOverlaid(geoX - 1, geoY + 1) || isOverlaid(geoX + 1, geoY + 1)) {
+            return IGeoDriver.super.expandNeighbours(geoX, geoY, worldZ, outZ, outMask);
+        }
+        return driver.expandNeighbours(geoX, geoY, worldZ, outZ, outMask);
+    }
+
+    @Override
+    public boolean checkNearestNSWE(int geoX, int geoY, int worldZ, byte nswe) {
+        OverlayBlock block = getOverlayBlock(geoX, geoY);
+        if (block == null) {
+            return driver.checkNearestNSWE(geoX, geoY, worldZ, nswe);
+        }
+        return LayerData.checkNswe(block.getNearestLayer(geoX, geoY, worldZ), nswe);
+    }
+}
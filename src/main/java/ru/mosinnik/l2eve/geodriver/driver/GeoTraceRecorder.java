@@ -0,0 +1,374 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.driver;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Запись трассы запросов к драйверу на живом сервере, чтобы потом проигрывать ее на любом драйвере.
+ * <p>
+ * Обертка над драйвером, каждый точечный запрос пишется в кольцевой буфер одним long:
+ * op (8 бит), nswe (8 бит), z (16 бит, обрезается до short), geoY (16 бит), geoX (16 бит).
+ * Пока запись выключена, запрос стоит одного volatile чтения сверх вызова драйвера. Включенная запись
+ * идет в кусок буфера потока: поток берет у общего курсора сразу {@link #getChunkSize()} мест одним getAndAdd
+ * и заполняет их без атомиков, так что потоки не делят ни курсор, ни кэш-линии буфера. В снимке записи
+ * одного потока идут по порядку, записи разных потоков - в порядке взятия кусков, недописанные места
+ * кусков пропускаются. При переполнении буфера старые записи затираются.
+ * Запросы по площади ({@link #getAreaMaxZ}, {@link #hasHeightAbove}, {@link #isRayAboveTerrain})
+ * в одну запись не укладываются и не пишутся.
+ * <p>
+ * Файл трассы: magic (int), version (int), count (int), дальше count записей long, все в LITTLE_ENDIAN.
+ */
+@Slf4j
+public class GeoTraceRecorder extends ForwardingGeoDriver {
+
+    public static final int MAGIC = 0x4C324754; // L2GT
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 4 + 4 + 4;
+
+    public static final byte OP_HAS_GEO_POS = 0;
+    public static final byte OP_GET_NEAREST_Z = 1;
+    public static final byte OP_GET_NEAREST_LAYER = 2;
+    public static final byte OP_GET_NEXT_LOWER_Z = 3;
+    public static final byte OP_GET_NEXT_HIGHER_Z = 4;
+    public static final byte OP_GET_LAYERS = 5;
+    public static final byte OP_CHECK_NEAREST_NSWE = 6;
+    public static final byte OP_EXPAND_NEIGHBOURS = 7;
+    public static final byte OP_GET_BLOCK_MIN_Z = 8;
+    public static final byte OP_GET_BLOCK_MAX_Z = 9;
+    public static final byte OP_IS_BLOCK_ALL_OPEN = 10;
+    public static final byte OP_IS_BLOCK_UNIFORM = 11;
+    public static final int OP_COUNT = 12;
+
+    // кусок потока на маленьком буфере вырождается в одну запись, чтобы переполнение оставляло последние записи
+    private static final int MAX_CHUNK_SIZE = 64;
+    private static final int MIN_CHUNKS = 64;
+    // место куска, еще не записанное потоком, у настоящих записей op < OP_COUNT
+    private static final long EMPTY = -1L;
+
+    private final long[] ring;
+    private final int mask;
+    private final int chunkSize;
+    private final AtomicLong cursor = new AtomicLong();
+    private final ThreadLocal<Chunk> chunks = ThreadLocal.withInitial(Chunk::new);
+    private volatile boolean recording;
+    // clear() меняет поколение, куски прошлых поколений потоки бросают
+    private volatile int generation;
+
+    private static final class Chunk {
+        long next;
+        long end;
+        int generation;
+    }
+
+    /**
+     * @param capacity размер кольцевого буфера в записях, округляется вверх до степени двойки
+     */
+    public GeoTraceRecorder(IGeoDriver driver, int capacity) {
+        super(driver);
+        this.ring = new long[ringSize(capacity)];
+        this.mask = ring.length - 1;
+        this.chunkSize = Math.clamp(ring.length / MIN_CHUNKS, 1, MAX_CHUNK_SIZE);
+    }
+
+    private static int ringSize(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Wrong trace capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        return size < capacity ? size << 1 : size;
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    /**
+     * @return сколько мест буфера поток берет за раз
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void start() {
+        recording = true;
+        log.info("Trace recording started, capacity {} records", ring.length);
+    }
+
+    public void stop() {
+        recording = false;
+        log.info("Trace recording stopped, {} records", getRecordedCount());
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * @return сколько записей сейчас в буфере, не больше емкости. Считается проходом по буферу.
+     */
+    public int getRecordedCount() {
+        long end = cursor.get();
+        int count = (int) Math.min(end, ring.length);
+        int recorded = 0;
+        for (long i = end - count; i < end; i++) {
+            if (ring[(int) (i & mask)] != EMPTY) {
+                recorded++;
+            }
+        }
+        return recorded;
+    }
+
+    /**
+     * Записи, которые потоки пишут во время очистки, могут потеряться.
+     */
+    public synchronized void clear() {
+        generation++;
+        cursor.set(0);
+    }
+
+    /**
+     * Копия буфера от старых записей к новым. Во время записи последние записи могут быть еще не дописаны,
+     * для точной копии запись надо остановить.
+     */
+    public long[] snapshot() {
+        long end = cursor.get();
+        int count = (int) Math.min(end, ring.length);
+        long[] records = new long[count];
+        int recorded = 0;
+        for (long i = end - count; i < end; i++) {
+            long record = ring[(int) (i & mask)];
+            if (record != EMPTY) {
+                records[recorded++] = record;
+            }
+        }
+        return recorded == count ? records : Arrays.copyOf(records, recorded);
+    }
+
+    @SneakyThrows
+    public void writeToFile(Path path) {
+        writeToFile(path, snapshot());
+    }
+
+    @SneakyThrows
+    public static void writeToFile(Path path, long[] records) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + records.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(records.length);
+        buffer.asLongBuffer().put(records);
+        Files.write(path, buffer.array());
+        log.info("Wrote {} trace records to {}", records.length, path);
+    }
+
+    @SneakyThrows
+    public static long[] readFromFile(Path path) {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_SIZE) {
+            throw new IllegalArgumentException("Wrong trace file size: " + buffer.remaining());
+        }
+        int magic = buffer.getInt();
+        if (magic != MAGIC) {
+            throw new IllegalArgumentException("Wrong trace magic: " + Integer.toHexString(magic));
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported trace version: " + version);
+        }
+        int count = buffer.getInt();
+        if (count < 0 || buffer.remaining() != count * (long) Long.BYTES) {
+            throw new IllegalArgumentException("Wrong trace records count: " + count);
+        }
+        long[] records = new long[count];
+        buffer.asLongBuffer().get(records);
+        return records;
+    }
+
+    public static long pack(byte op, int geoX, int geoY, int worldZ, byte nswe) {
+        int z = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, worldZ));
+        return ((long) (op & 0xFF) << 56)
+            | ((long) (nswe & 0xFF) << 48)
+            | ((long) (z & 0xFFFF) << 32)
+            | ((long) (geoY & 0xFFFF) << 16)
+            | (geoX & 0xFFFF);
+    }
+
+    public static byte op(long record) {
+        return (byte) (record >>> 56);
+    }
+
+    public static byte nswe(long record) {
+        return (byte) (record >>> 48);
+    }
+
+    public static int z(long record) {
+        return (short) (record >>> 32);
+    }
+
+    public static int geoY(long record) {
+        return (int) (record >>> 16) & 0xFFFF;
+    }
+
+    public static int geoX(long record) {
+        return (int) record & 0xFFFF;
+    }
+
+    /**
+     * Проигрывает записи [from, to) на драйвере.
+     *
+     * @return сумма результатов, чтобы JIT не выкинул вызовы и чтобы сравнивать драйверы между собой
+     */
+    public static long replay(IGeoDriver driver, long[] records, int from, int to) {
+        int[] heights = new int[IBlock.MAX_CELL_LAYERS];
+        byte[] nswes = new byte[IBlock.MAX_CELL_LAYERS];
+        int[] outZ = new int[8];
+        byte[] outMask = new byte[8];
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            long record = records[i];
+            int geoX = geoX(record);
+            int geoY = geoY(record);
+            int z = z(record);
+            sum = sum * 31 + switch (op(record)) {
+                case OP_HAS_GEO_POS -> driver.hasGeoPos(geoX, geoY) ? 1 : 0;
+                case OP_GET_NEAREST_Z -> driver.getNearestZ(geoX, geoY, z);
+                case OP_GET_NEAREST_LAYER -> driver.getNearestLayer(geoX, geoY, z);
+                case OP_GET_NEXT_LOWER_Z -> driver.getNextLowerZ(geoX, geoY, z);
+                case OP_GET_NEXT_HIGHER_Z -> driver.getNextHigherZ(geoX, geoY, z);
+                case OP_GET_LAYERS -> driver.getLayers(geoX, geoY, heights, nswes);
+                case OP_CHECK_NEAREST_NSWE -> driver.checkNearestNSWE(geoX, geoY, z, nswe(record)) ? 1 : 0;
+                case OP_EXPAND_NEIGHBOURS -> driver.expandNeighbours(geoX, geoY, z, outZ, outMask);
+                case OP_GET_BLOCK_MIN_Z -> driver.getBlockMinZ(geoX, geoY);
+                case OP_GET_BLOCK_MAX_Z -> driver.getBlockMaxZ(geoX, geoY);
+                case OP_IS_BLOCK_ALL_OPEN -> driver.isBlockAllOpen(geoX, geoY) ? 1 : 0;
+                case OP_IS_BLOCK_UNIFORM -> driver.isBlockUniform(geoX, geoY) ? 1 : 0;
+                default -> throw new IllegalArgumentException("Unknown trace op " + op(record) + " at " + i);
+            };
+        }
+        return sum;
+    }
+
+    private void record(byte op, int geoX, int geoY, int worldZ, byte nswe) {
+        if (recording) {
+            Chunk chunk = chunks.get();
+            if ((chunk.next == chunk.end) || (chunk.generation != generation)) {
+                claim(chunk);
+            }
+            ring[(int) (chunk.next++ & mask)] = pack(op, geoX, geoY, worldZ, nswe);
+        }
+    }
+
+    /**
+     * Новый кусок для потока. Куски выровнены по chunkSize и не переходят через конец буфера.
+     */
+    private void claim(Chunk chunk) {
+        chunk.generation = generation;
+        long start = cursor.getAndAdd(chunkSize);
+        int from = (int) (start & mask);
+        Arrays.fill(ring, from, from + chunkSize, EMPTY);
+        chunk.next = start;
+        chunk.end = start + chunkSize;
+    }
+
+    @Override
+    public boolean hasGeoPos(int geoX, int geoY) {
+        record(OP_HAS_GEO_POS, geoX, geoY, 0, (byte) 0);
+        return driver.hasGeoPos(geoX, geoY);
+    }
+
+    @Override
+    public int getNearestZ(int geoX, int geoY, int worldZ) {
+        record(OP_GET_NEAREST_Z, geoX, geoY, worldZ, (byte) 0);
+        return driver.getNearestZ(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        record(OP_GET_NEAREST_LAYER, geoX, geoY, worldZ, (byte) 0);
+        return driver.getNearestLayer(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public int getNextLowerZ(int geoX, int geoY, int worldZ) {
+        record(OP_GET_NEXT_LOWER_Z, geoX, geoY, worldZ, (byte) 0);
+        return driver.getNextLowerZ(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public int getNextHigherZ(int geoX, int geoY, int worldZ) {
+        record(OP_GET_NEXT_HIGHER_Z, geoX, geoY, worldZ, (byte) 0);
+        return driver.getNextHigherZ(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        record(OP_GET_LAYERS, geoX, geoY, 0, (byte) 0);
+        return driver.getLayers(geoX, geoY, outHeights, outNswe);
+    }
+
+    @Override
+    public int getBlockMinZ(int geoX, int geoY) {
+        record(OP_GET_BLOCK_MIN_Z, geoX, geoY, 0, (byte) 0);
+        return driver.getBlockMinZ(geoX, geoY);
+    }
+
+    @Override
+    public int getBlockMaxZ(int geoX, int geoY) {
+        record(OP_GET_BLOCK_MAX_Z, geoX, geoY, 0, (byte) 0);
+        return driver.getBlockMaxZ(geoX, geoY);
+    }
+
+    @Override
+    public boolean isBlockAllOpen(int geoX, int geoY) {
+        record(OP_IS_BLOCK_ALL_OPEN, geoX, geoY, 0, (byte) 0);
+        return driver.isBlockAllOpen(geoX, geoY);
+    }
+
+    @Override
+    public boolean isBlockUniform(int geoX, int geoY) {
+        record(OP_IS_BLOCK_UNIFORM, geoX, geoY, 0, (byte) 0);
+        return driver.isBlockUniform(geoX, geoY);
+    }
+
+    @Override
+    public int expandNeighbours(int geoX, int geoY, int worldZ, int[] outZ, byte[] outMask) {
+        record(OP_EXPAND_NEIGHBOURS, geoX, geoY, worldZ, (byte) 0);
+        return driver.expandNeighbours(geoX, geoY, worldZ, outZ, outMask);
+    }
+
+    @Override
+    public boolean checkNearestNSWE(int geoX, int geoY, int worldZ, byte nswe) {
+        record(OP_CHECK_NEAREST_NSWE, geoX, geoY, worldZ, nswe);
+        return driver.checkNearestNSWE(geoX, geoY, worldZ, nswe);
+    }
+}
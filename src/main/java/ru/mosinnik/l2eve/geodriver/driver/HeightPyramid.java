@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.driver;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.GeoScans;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.abstraction.IHeightLevels;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.*;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants.HEIGHT_PYRAMID_FILE_NAME;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants.NO_INDEX;
+
+/**
+ * Пирамида высот для запросов от грубого к точному по большим площадям и длинным лучам.
+ * <p>
+ * На каждый загруженный регион хранятся min/max высоты (упакованы как в BlockSummary) трех уровней:
+ * - блок, 256x256 на регион
+ * - группа 4x4 блока (32x32 ячейки), 64x64 на регион
+ * - весь регион
+ * <p>
+ * Данные лежат вне кучи (direct буфер или отображенный файл), регион занимает REGION_STRIDE int'ов
+ * со смещения regionFirstBlockIndex / REGION_BLOCKS * REGION_STRIDE, ~272Кб на регион.
+ * <p>
+ * Запросы спускаются по уровням: узел, целиком лежащий ниже луча или заданной высоты, отбрасывается
+ * без спуска, так что длинный луч над открытой местностью проверяется по регионам и группам, а не по ячейкам.
+ * Ячейки читаются через драйвер только там, где грубые уровни не дали ответа, сам спуск в {@link GeoScans}.
+ * <p>
+ * Файл начинается с заголовка в BIG_ENDIAN: MAGIC, VERSION и число регионов, за ним данные в порядке байт bin формата.
+ * Файл другой версии не читается и пирамида строится заново, файл другого набора регионов отвергается.
+ */
+@Slf4j
+public final class HeightPyramid implements IHeightLevels {
+
+    public static final int MAGIC = 0x4C32475A; // L2GZ
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 4 + 4 + 4;
+
+    public static final int GROUP_BLOCKS = 4;
+    public static final int REGION_GROUPS_X = IRegion.REGION_BLOCKS_X / GROUP_BLOCKS;
+    public static final int REGION_GROUPS_Y = IRegion.REGION_BLOCKS_Y / GROUP_BLOCKS;
+
+    // смещения уровней внутри региона в int'ах
+    private static final int BLOCKS_OFFSET = 0;
+    private static final int GROUPS_OFFSET = BLOCKS_OFFSET + IRegion.REGION_BLOCKS;
+    private static final int REGION_OFFSET = GROUPS_OFFSET + REGION_GROUPS_X * REGION_GROUPS_Y;
+    public static final int REGION_STRIDE = REGION_OFFSET + 1;
+
+    // уровни: регион, группа, блок
+    private static final int LEVEL_REGION = 0;
+    // log2 стороны узла уровня в ячейках
+    private static final int[] LEVEL_SHIFTS = {11, 5, 3};
+    private static final int[] LEVEL_OFFSETS = {REGION_OFFSET, GROUPS_OFFSET, BLOCKS_OFFSET};
+
+    private final int[] regionFirstBlockIndexes;
+    private final ByteBuffer data;
+
+    private HeightPyramid(int[] regionFirstBlockIndexes, ByteBuffer data) {
+        this.regionFirstBlockIndexes = regionFirstBlockIndexes;
+        this.data = data;
+    }
+
+    @Override
+    public int levelCount() {
+        return LEVEL_SHIFTS.length;
+    }
+
+    @Override
+    public int levelShift(int level) {
+        return LEVEL_SHIFTS[level];
+    }
+
+    /**
+     * Max высота узла уровня или NO_HEIGHT если геодаты нет
+     */
+    @Override
+    public int getMaxHeight(int level, int nodeX, int nodeY) {
+        int bits = LEVEL_SHIFTS[LEVEL_REGION] - LEVEL_SHIFTS[level];
+        int regionFirstBlockIndex = regionFirstBlockIndexes[((nodeX >> bits) * GEO_REGIONS_Y) + (nodeY >> bits)];
+        if (regionFirstBlockIndex == NO_INDEX) {
+            return GeoScans.NO_HEIGHT;
+        }
+        int mask = (1 << bits) - 1;
+        int index = (regionFirstBlockIndex / IRegion.REGION_BLOCKS) * REGION_STRIDE + LEVEL_OFFSETS[level]
+            + ((nodeX & mask) << bits) + (nodeY & mask);
+        return GeoScans.maxHeight(data.getInt(index * Integer.BYTES));
+    }
+
+    /**
+     * Max высота всех слоев в прямоугольнике (границы включительно) или Integer.MIN_VALUE если геодаты нет
+     */
+    public int getAreaMaxZ(IGeoDriver driver, int minGeoX, int minGeoY, int maxGeoX, int maxGeoY) {
+        return GeoScans.getAreaMaxZ(driver, this, minGeoX, minGeoY, maxGeoX, maxGeoY);
+    }
+
+    /**
+     * Есть ли в прямоугольнике (границы включительно) слой выше worldZ, спуск прекращается на первом найденном
+     */
+    public boolean hasHeightAbove(IGeoDriver driver, int minGeoX, int minGeoY, int maxGeoX, int maxGeoY, int worldZ) {
+        return GeoScans.hasHeightAbove(driver, this, minGeoX, minGeoY, maxGeoX, maxGeoY, worldZ);
+    }
+
+    /**
+     * Проходит ли луч между центрами ячеек выше всех слоев всех ячеек на своем пути.
+     * <p>
+     * Проверка консервативная: луч под мостом или в пещере считается заблокированным,
+     * true дает быстрый ответ для открытой местности, на false нужна точная проверка видимости.
+     */
+    public boolean isRayAboveTerrain(IGeoDriver driver, int geoX, int geoY, int worldZ, int toGeoX, int toGeoY, int toWorldZ) {
+        return GeoScans.isRayAboveTerrain(driver, this, geoX, geoY, worldZ, toGeoX, toGeoY, toWorldZ);
+    }
+
+    public long sizeInBytes() {
+        return data.capacity();
+    }
+
+    /**
+     * Буфер данных без заголовка, только для отчета о памяти драйверов
+     */
+    ByteBuffer data() {
+        return data;
+    }
+
+    /**
+     * Строит пирамиду по регионам параллельно. Уровень блоков берется из blockSummary если она есть,
+     * иначе блоки декодируются через драйвер.
+     */
+    public static HeightPyramid build(IGeoDriver driver, BlockSummary blockSummary, int[] regionFirstBlockIndexes,
+                                      int blockCount, ByteOrder order) {
+        int regionCount = blockCount / IRegion.REGION_BLOCKS;
+        ByteBuffer data = ByteBuffer.allocateDirect(Math.multiplyExact(regionCount * REGION_STRIDE, Integer.BYTES)).order(order);
+        IntStream.range(0, GEO_REGIONS)
+            .filter(regionIndex -> regionFirstBlockIndexes[regionIndex] != NO_INDEX)
+            .parallel()
+            .forEach(regionIndex -> buildRegion(driver, blockSummary, regionIndex, regionFirstBlockIndexes[regionIndex], data));
+        log.info("Built height pyramid for {} regions: {} bytes", regionCount, data.capacity());
+        return new HeightPyramid(regionFirstBlockIndexes, data);
+    }
+
+    private static void buildRegion(IGeoDriver driver, BlockSummary blockSummary, int regionIndex, int regionFirstBlockIndex,
+                                    ByteBuffer data) {
+        int base = (regionFirstBlockIndex / IRegion.REGION_BLOCKS) * REGION_STRIDE;
+        int regionGeoX = (regionIndex / GEO_REGIONS_Y) * IRegion.REGION_CELLS_X;
+        int regionGeoY = (regionIndex % GEO_REGIONS_Y) * IRegion.REGION_CELLS_Y;
+        int[] layerHeights = new int[IBlock.MAX_CELL_LAYERS];
+        byte[] layerNswe = new byte[IBlock.MAX_CELL_LAYERS];
+        for (int blockIndexInRegion = 0; blockIndexInRegion < IRegion.REGION_BLOCKS; blockIndexInRegion++) {
+            int packed;
+            if (blockSummary != null) {
+                packed = blockSummary.getHeights(regionFirstBlockIndex + blockIndexInRegion);
+            } else {
+                int geoX = regionGeoX + (blockIndexInRegion >> 8) * IBlock.BLOCK_CELLS_X;
+                int geoY = regionGeoY + (blockIndexInRegion & 0xFF) * IBlock.BLOCK_CELLS_Y;
+                packed = (int) GeoScans.summarizeBlock(driver, geoX, geoY, layerHeights, layerNswe);
+            }
+            data.putInt((base + BLOCKS_OFFSET + blockIndexInRegion) * Integer.BYTES, packed);
+        }
+
+        int regionMin = Integer.MAX_VALUE;
+        int regionMax = Integer.MIN_VALUE;
+        for (int groupX = 0; groupX < REGION_GROUPS_X; groupX++) {
+            for (int groupY = 0; groupY < REGION_GROUPS_Y; groupY++) {
+                int min = Integer.MAX_VALUE;
+                int max = Integer.MIN_VALUE;
+                for (int blockX = groupX * GROUP_BLOCKS; blockX < (groupX + 1) * GROUP_BLOCKS; blockX++) {
+                    for (int blockY = groupY * GROUP_BLOCKS; blockY < (groupY + 1) * GROUP_BLOCKS; blockY++) {
+                        int packed = data.getInt((base + BLOCKS_OFFSET + (blockX << 8) + blockY) * Integer.BYTES);
+                        min = Math.min(min, GeoScans.minHeight(packed));
+                        max = Math.max(max, GeoScans.maxHeight(packed));
+                    }
+                }
+                data.putInt((base + GROUPS_OFFSET + groupX * REGION_GROUPS_Y + groupY) * Integer.BYTES, GeoScans.pack(min, max));
+                regionMin = Math.min(regionMin, min);
+                regionMax = Math.max(regionMax, max);
+            }
+        }
+        data.putInt((base + REGION_OFFSET) * Integer.BYTES, GeoScans.pack(regionMin, regionMax));
+    }
+
+    @SneakyThrows
+    public void writeToFiles(Path dataDir) {
+        try (FileChannel channel = FileChannel.open(dataDir.resolve(HEIGHT_PYRAMID_FILE_NAME),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(data.capacity() / (REGION_STRIDE * Integer.BYTES))
+                .flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            ByteBuffer buffer = data.duplicate().clear();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            log.info("Updated heightPyramid file: {}, {} bytes", HEIGHT_PYRAMID_FILE_NAME, channel.position());
+        }
+    }
+
+    /**
+     * Проверяет заголовок и размер файла. Файл от другой геодаты читался бы по чужим смещениям,
+     * поэтому число регионов и размер должны точно совпадать с загруженными регионами.
+     *
+     * @return false если файл другой версии
+     */
+    private static boolean checkHeader(FileChannel channel, Path path, int[] regionFirstBlockIndexes) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+            throw new IllegalArgumentException("Height pyramid file is too short: " + size + " bytes");
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new RuntimeException("Unexpected end of height pyramid header at " + header.position());
+            }
+        }
+        header.flip();
+        int magic = header.getInt();
+        if (magic != MAGIC) {
+            throw new IllegalArgumentException("Wrong height pyramid magic: " + Integer.toHexString(magic));
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            log.info("Height pyramid file {} has version {} instead of {}, ignored", path, version, VERSION);
+            return false;
+        }
+        int fileRegionCount = header.getInt();
+        long regionCount = Arrays.stream(regionFirstBlockIndexes).filter(index -> index != NO_INDEX).count();
+        long expectedSize = HEADER_SIZE + regionCount * REGION_STRIDE * Integer.BYTES;
+        if (fileRegionCount != regionCount || size != expectedSize) {
+            throw new IllegalArgumentException("Height pyramid file does not match loaded regions: " + fileRegionCount
+                + " regions, " + size + " bytes, expected " + expectedSize + " for " + regionCount + " regions");
+        }
+        return true;
+    }
+
+    /**
+     * Читает файл в direct буфер, returns null if there is no pyramid file or it has other version
+     *
+     * @throws IllegalArgumentException если это не файл пирамиды или он не совпадает с загруженными регионами
+     */
+    @SneakyThrows
+    public static HeightPyramid readFromFiles(Path dataDir, ByteOrder order, int[] regionFirstBlockIndexes) {
+        Path path = dataDir.resolve(HEIGHT_PYRAMID_FILE_NAME);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (!checkHeader(channel, path, regionFirstBlockIndexes)) {
+                return null;
+            }
+            ByteBuffer data = ByteBuffer.allocateDirect(Math.toIntExact(channel.size() - HEADER_SIZE)).order(order);
+            channel.position(HEADER_SIZE);
+            while (data.hasRemaining()) {
+                if (channel.read(data) < 0) {
+                    throw new RuntimeException("Unexpected end of height pyramid file at " + data.position());
+                }
+            }
+            log.info("Read {} bytes from data file: {}", data.capacity(), HEIGHT_PYRAMID_FILE_NAME);
+            return new HeightPyramid(regionFirstBlockIndexes, data.clear());
+        }
+    }
+
+    /**
+     * Отображает данные файла в память как есть, returns null if there is no pyramid file or it has other version
+     *
+     * @throws IllegalArgumentException если это не файл пирамиды или он не совпадает с загруженными регионами
+     */
+    @SneakyThrows
+    public static HeightPyramid mapFromFiles(Path dataDir, ByteOrder order, int[] regionFirstBlockIndexes) {
+        Path path = dataDir.resolve(HEIGHT_PYRAMID_FILE_NAME);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (!checkHeader(channel, path, regionFirstBlockIndexes)) {
+                return null;
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, channel.size() - HEADER_SIZE).order(order);
+            log.info("Mapped {} bytes from data file: {}", data.capacity(), HEIGHT_PYRAMID_FILE_NAME);
+            return new HeightPyramid(regionFirstBlockIndexes, data);
+        }
+    }
+}
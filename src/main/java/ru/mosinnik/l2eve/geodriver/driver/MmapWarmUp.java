@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.driver;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.mosinnik.l2eve.geodriver.util.PageFaults;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS_X;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS_Y;
+
+/**
+ * Фоновый прогрев страниц mmap драйвера вокруг онлайн игроков.
+ * <p>
+ * После простоя или под давлением памяти от соседних JVM ядро выкидывает страницы data.bin,
+ * и первые действия игроков ловят major page fault. Поток периодически читает по байту с каждой
+ * страницы регионов в радиусе от переданных позиций, чтобы страницы были в памяти до запроса.
+ * <p>
+ * Позиции передаются как плоский массив geo координат: [geoX0, geoY0, geoX1, geoY1, ...].
+ */
+@Slf4j
+public final class MmapWarmUp implements AutoCloseable {
+
+    private final GeoDriverBytesMmap driver;
+    private final Supplier<int[]> geoPositions;
+    private final int regionRadius;
+    private final long periodMillis;
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    /**
+     * @param driver       driver to warm up
+     * @param geoPositions positions of online players as [geoX0, geoY0, geoX1, geoY1, ...]
+     * @param regionRadius radius in regions around each position, 0 - only region with position
+     * @param period       delay between warm up passes
+     */
+    public MmapWarmUp(GeoDriverBytesMmap driver, Supplier<int[]> geoPositions, int regionRadius, Duration period) {
+        this.driver = driver;
+        this.geoPositions = geoPositions;
+        this.regionRadius = regionRadius;
+        this.periodMillis = period.toMillis();
+        this.thread = Thread.ofPlatform()
+            .name("geo-mmap-warm-up")
+            .daemon(true)
+            .priority(Thread.MIN_PRIORITY)
+            .unstarted(this::run);
+    }
+
+    public MmapWarmUp start() {
+        thread.start();
+        return this;
+    }
+
+    /**
+     * One warm up pass, can be called without starting thread.
+     *
+     * @return touched pages count
+     */
+    public int warmUp() {
+        int[] positions = geoPositions.get();
+        boolean[] touched = new boolean[GEO_REGIONS_X * GEO_REGIONS_Y];
+        int pages = 0;
+        for (int i = 0; i + 1 < positions.length; i += 2) {
+            int regionX = positions[i] >> 11;
+            int regionY = positions[i + 1] >> 11;
+            for (int x = Math.max(0, regionX - regionRadius); x <= Math.min(GEO_REGIONS_X - 1, regionX + regionRadius); x++) {
+                for (int y = Math.max(0, regionY - regionRadius); y <= Math.min(GEO_REGIONS_Y - 1, regionY + regionRadius); y++) {
+                    int regionIndex = (x * GEO_REGIONS_Y) + y;
+                    if (!touched[regionIndex]) {
+                        touched[regionIndex] = true;
+                        pages += driver.touchRegion(x, y);
+                    }
+                }
+            }
+        }
+        return pages;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                PageFaults before = PageFaults.current();
+                int pages = warmUp();
+                PageFaults faults = PageFaults.current().minus(before);
+                log.debug("Warmed up {} pages, page faults: {}", pages, faults);
+                Thread.sleep(periodMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Warm up failed", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+    }
+}
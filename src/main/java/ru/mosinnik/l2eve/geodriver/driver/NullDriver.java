@@ -23,6 +23,8 @@
 package ru.mosinnik.l2eve.geodriver.driver;
 
 import lombok.extern.slf4j.Slf4j;
+import ru.mosinnik.l2eve.geodriver.Cell;
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
 
 import java.nio.file.Path;
@@ -45,6 +47,11 @@ public final class NullDriver implements IGeoDriver {
         return worldZ;
     }
 
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        return LayerData.packWorldZ(worldZ, Cell.NSWE_ALL);
+    }
+
     @Override
     public int getNextLowerZ(int geoX, int geoY, int worldZ) {
         return worldZ;
@@ -55,6 +62,11 @@ public final class NullDriver implements IGeoDriver {
         return worldZ;
     }
 
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        return 0;
+    }
+
 
     @Override
     public void loadRegion(Path filePath, int regionX, int regionY) {
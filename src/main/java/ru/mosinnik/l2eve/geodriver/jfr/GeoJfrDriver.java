@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jfr;
+
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.driver.ForwardingGeoDriver;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Обертка над драйвером, которая пишет {@link GeoQueryEvent} для выборки запросов.
+ * <p>
+ * В выборку попадает в среднем один запрос из sampleEvery (степень двойки), остальные идут в драйвер
+ * после одной проверки случайного числа потока, без общих счетчиков между потоками. Событие создается только
+ * для попавших в выборку запросов, дальше порог длительности и включение события задаются настройками JFR
+ * (по умолчанию порог 0). При sampleEvery = 0 события не пишутся совсем и запрос стоит одной проверки поля,
+ * а если обертку не ставить, драйвер не платит ничего. Частота выборки задается при создании обертки,
+ * для смены создается новая обертка.
+ * <p>
+ * Тип блока события берется из {@link IGeoDriver#getBlockType(int, int)} обернутого драйвера уже после порога
+ * длительности, поэтому отброшенные события его не запрашивают. Обертки пробрасывают тип блока, так что
+ * событие видит настоящий тип при любом порядке оберток.
+ * <p>
+ * Запросы по площади идут в драйвер без событий.
+ */
+public class GeoJfrDriver extends ForwardingGeoDriver {
+
+    // -1 если выборка выключена
+    private final int sampleMask;
+
+    /**
+     * @param sampleEvery один из скольких запросов пишется, степень двойки, 0 - не писать
+     */
+    public GeoJfrDriver(IGeoDriver driver, int sampleEvery) {
+        super(driver);
+        if ((sampleEvery < 0) || (Integer.bitCount(sampleEvery) > 1)) {
+            throw new IllegalArgumentException("Sample rate should be 0 or power of two: " + sampleEvery);
+        }
+        this.sampleMask = sampleEvery - 1;
+    }
+
+    public int getSampleEvery() {
+        return sampleMask + 1;
+    }
+
+    private boolean sample() {
+        return (sampleMask >= 0) && ((ThreadLocalRandom.current().nextInt() & sampleMask) == 0);
+    }
+
+    private static GeoQueryEvent begin() {
+        GeoQueryEvent event = new GeoQueryEvent();
+        event.begin();
+        return event;
+    }
+
+    private void commit(GeoQueryEvent event, String operation, int geoX, int geoY, int worldZ) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.geoX = geoX;
+            event.geoY = geoY;
+            event.worldZ = worldZ;
+            event.blockType = driver.getBlockType(geoX, geoY);
+            event.commit();
+        }
+    }
+
+    @Override
+    public int getNearestZ(int geoX, int geoY, int worldZ) {
+        if (!sample()) {
+            return driver.getNearestZ(geoX, geoY, worldZ);
+        }
+        GeoQueryEvent event = begin();
+        int result = driver.getNearestZ(geoX, geoY, worldZ);
+        commit(event, "getNearestZ", geoX, geoY, worldZ);
+        return result;
+    }
+
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        if (!sample()) {
+            return driver.getNearestLayer(geoX, geoY, worldZ);
+        }
+        GeoQueryEvent event = begin();
+        int result = driver.getNearestLayer(geoX, geoY, worldZ);
+        commit(event, "getNearestLayer", geoX, geoY, worldZ);
+        return result;
+    }
+
+    @Override
+    public int getNextLowerZ(int geoX, int geoY, int worldZ) {
+        if (!sample()) {
+            return driver.getNextLowerZ(geoX, geoY, worldZ);
+        }
+        GeoQueryEvent event = begin();
+        int result = driver.getNextLowerZ(geoX, geoY, worldZ);
+        commit(event, "getNextLowerZ", geoX, geoY, worldZ);
+        return result;
+    }
+
+    @Override
+    public int getNextHigherZ(int geoX, int geoY, int worldZ) {
+        if (!sample()) {
+            return driver.getNextHigherZ(geoX, geoY, worldZ);
+        }
+        GeoQueryEvent event = begin();
+        int result = driver.getNextHigherZ(geoX, geoY, worldZ);
+        commit(event, "getNextHigherZ", geoX, geoY, worldZ);
+        return result;
+    }
+
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        if (!sample()) {
+            return driver.getLayers(geoX, geoY, outHeights, outNswe);
+        }
+        GeoQueryEvent event = begin();
+        int result = driver.getLayers(geoX, geoY, outHeights, outNswe);
+        commit(event, "getLayers", geoX, geoY, 0);
+        return result;
+    }
+
+    @Override
+    public int expandNeighbours(int geoX, int geoY, int worldZ, int[] outZ, byte[] outMask) {
+        if (!sample()) {
+            return driver.expandNeighbours(geoX, geoY, worldZ, outZ, outMask);
+        }
+        GeoQueryEvent event = begin();
+        int result = driver.expandNeighbours(geoX, geoY, worldZ, outZ, outMask);
+        commit(event, "expandNeighbours", geoX, geoY, worldZ);
+        return result;
+    }
+
+    @Override
+    public boolean checkNearestNSWE(int geoX, int geoY, int worldZ, byte nswe) {
+        if (!sample()) {
+            return driver.checkNearestNSWE(geoX, geoY, worldZ, nswe);
+        }
+        GeoQueryEvent event = begin();
+        boolean result = driver.checkNearestNSWE(geoX, geoY, worldZ, nswe);
+        commit(event, "checkNearestNSWE", geoX, geoY, worldZ);
+        return result;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Добавление или удаление препятствия в {@link ru.mosinnik.l2eve.geodriver.driver.GeoOverlay}
+ * вместе с пересборкой затронутых блоков
+ */
+@Name("ru.mosinnik.l2eve.geodriver.GeoOverlay")
+@Label("Geo Overlay Change")
+@Description("Dynamic obstacle added or removed")
+@Category({"L2 Geo", "Overlay"})
+public class GeoOverlayEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Obstacle Id")
+    public int obstacleId;
+
+    @Label("Obstacles")
+    public int obstacles;
+
+    @Label("Overlay Blocks")
+    public int blocks;
+
+    @Label("Epoch")
+    public long epoch;
+}
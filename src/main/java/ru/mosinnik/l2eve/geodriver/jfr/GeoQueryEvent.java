@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Один запрос к драйверу, пишется только для выборки запросов, см. {@link GeoJfrDriver}
+ */
+@Name("ru.mosinnik.l2eve.geodriver.GeoQuery")
+@Label("Geo Query")
+@Description("Sampled geodata driver query")
+@Category({"L2 Geo", "Query"})
+@StackTrace(false)
+@Threshold("0 ns")
+public class GeoQueryEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Geo X")
+    public int geoX;
+
+    @Label("Geo Y")
+    public int geoY;
+
+    @Label("World Z")
+    public int worldZ;
+
+    @Label("Block Type")
+    @Description("Block type from IGeoDriver.getBlockType, see GeoDriverBytesConstants, -1 if unknown")
+    public int blockType;
+}
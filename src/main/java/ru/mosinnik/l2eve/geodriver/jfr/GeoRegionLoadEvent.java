@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Фаза загрузки одного региона: parse - разбор .l2j в блоки, encode - упаковка блоков в байтовый формат
+ */
+@Name("ru.mosinnik.l2eve.geodriver.GeoRegionLoad")
+@Label("Geo Region Load")
+@Description("Geodata region load phase")
+@Category({"L2 Geo", "Load"})
+@StackTrace(false)
+public class GeoRegionLoadEvent extends Event {
+
+    @Label("Driver")
+    public String driver;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Region X")
+    public int regionX;
+
+    @Label("Region Y")
+    public int regionY;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    /**
+     * Закрывает событие, начатое через begin(), поля заполняются только если событие будет записано
+     */
+    public static void finish(GeoRegionLoadEvent event, String driver, String phase, int regionX, int regionY, long bytes) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.driver = driver;
+            event.phase = phase;
+            event.regionX = regionX;
+            event.regionY = regionY;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.metrics;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS_Y;
+
+/**
+ * Снимок счетчиков {@link GeoHeatmapDriver}: по региону из regionIndexes 65536 счетчиков и типов блоков
+ * в порядке блоков региона ({@code (blockX << 8) + blockY}), тип -1 если драйвер его не знает.
+ * <p>
+ * Файл: magic (int), version (int), regions (int), индексы регионов (int), счетчики, типы блоков,
+ * все в LITTLE_ENDIAN.
+ * <p>
+ * Массивы наружу не отдаются, сравнение по содержимому.
+ */
+@Slf4j
+public final class GeoHeatmap {
+
+    public static final int MAGIC = 0x4C324748; // L2GH
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 4 + 4 + 4;
+
+    private static final int BLOCK_TYPES = GeoDriverBytesConstants.E.values().length;
+
+    private final int[] regionIndexes;
+    private final byte[] counters;
+    private final byte[] blockTypes;
+
+    /**
+     * Массивы переходят во владение снимка
+     */
+    GeoHeatmap(int[] regionIndexes, byte[] counters, byte[] blockTypes) {
+        if ((counters.length != regionIndexes.length * IRegion.REGION_BLOCKS) || (blockTypes.length != counters.length)) {
+            throw new IllegalArgumentException("Wrong heatmap size: " + regionIndexes.length + " regions, "
+                + counters.length + " counters, " + blockTypes.length + " block types");
+        }
+        this.regionIndexes = regionIndexes;
+        this.counters = counters;
+        this.blockTypes = blockTypes;
+    }
+
+    public int getRegionCount() {
+        return regionIndexes.length;
+    }
+
+    /**
+     * Индексы регионов снимка, копия
+     */
+    public int[] getRegionIndexes() {
+        return regionIndexes.clone();
+    }
+
+    @SneakyThrows
+    public void writeToFile(Path path) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + regionIndexes.length * Integer.BYTES + counters.length * 2)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(regionIndexes.length);
+        for (int regionIndex : regionIndexes) {
+            buffer.putInt(regionIndex);
+        }
+        buffer.put(counters);
+        buffer.put(blockTypes);
+        Files.write(path, buffer.array());
+        log.info("Wrote heatmap of {} regions to {}", regionIndexes.length, path);
+    }
+
+    @SneakyThrows
+    public static GeoHeatmap readFromFile(Path path) {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_SIZE) {
+            throw new IllegalArgumentException("Wrong heatmap file size: " + buffer.remaining());
+        }
+        int magic = buffer.getInt();
+        if (magic != MAGIC) {
+            throw new IllegalArgumentException("Wrong heatmap magic: " + Integer.toHexString(magic));
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported heatmap version: " + version);
+        }
+        int regions = buffer.getInt();
+        if (regions < 0 || regions > GEO_REGIONS
+            || buffer.remaining() != regions * ((long) Integer.BYTES + 2L * IRegion.REGION_BLOCKS)) {
+            throw new IllegalArgumentException("Wrong heatmap regions count: " + regions);
+        }
+        int[] regionIndexes = new int[regions];
+        for (int i = 0; i < regions; i++) {
+            regionIndexes[i] = buffer.getInt();
+        }
+        byte[] counters = new byte[regions * IRegion.REGION_BLOCKS];
+        byte[] blockTypes = new byte[counters.length];
+        buffer.get(counters);
+        buffer.get(blockTypes);
+        return new GeoHeatmap(regionIndexes, counters, blockTypes);
+    }
+
+    /**
+     * Нагрев блоков одного типа
+     *
+     * @param blocks        всего блоков типа
+     * @param touchedBlocks блоков с ненулевым счетчиком
+     * @param hotBlocks     блоков со счетчиком не меньше порога
+     * @param heat          сумма счетчиков
+     */
+    public record BlockTypeHeat(long blocks, long touchedBlocks, long hotBlocks, long heat) {
+    }
+
+    /**
+     * Нагрев по имени типа блока, UNKNOWN - блоки без известного типа, только встреченные типы
+     *
+     * @param hotThreshold с какого значения счетчика блок считается горячим
+     */
+    public Map<String, BlockTypeHeat> summarizeByBlockType(int hotThreshold) {
+        long[] blocks = new long[BLOCK_TYPES + 1];
+        long[] touched = new long[BLOCK_TYPES + 1];
+        long[] hot = new long[BLOCK_TYPES + 1];
+        long[] heat = new long[BLOCK_TYPES + 1];
+        for (int i = 0; i < counters.length; i++) {
+            int blockType = blockTypes[i];
+            int slot = (blockType >= 0) && (blockType < BLOCK_TYPES) ? blockType + 1 : 0;
+            int counter = counters[i] & 0xFF;
+            blocks[slot]++;
+            heat[slot] += counter;
+            if (counter != 0) {
+                touched[slot]++;
+            }
+            if (counter >= hotThreshold) {
+                hot[slot]++;
+            }
+        }
+        Map<String, BlockTypeHeat> result = new LinkedHashMap<>();
+        for (int slot = 0; slot <= BLOCK_TYPES; slot++) {
+            if (blocks[slot] > 0) {
+                String name = GeoDriverBytesConstants.blockTypeToName(slot - 1);
+                result.put(name, new BlockTypeHeat(blocks[slot], touched[slot], hot[slot], heat[slot]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Сумма счетчиков по региону {@code X_Y}, от горячих к холодным
+     */
+    public Map<String, Long> regionHeat() {
+        List<long[]> heats = new ArrayList<>();
+        for (int slot = 0; slot < regionIndexes.length; slot++) {
+            long heat = 0;
+            for (int block = 0; block < IRegion.REGION_BLOCKS; block++) {
+                heat += counters[(slot << 16) + block] & 0xFF;
+            }
+            heats.add(new long[]{regionIndexes[slot], heat});
+        }
+        heats.sort((a, b) -> Long.compare(b[1], a[1]));
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (long[] regionHeat : heats) {
+            int regionIndex = (int) regionHeat[0];
+            result.put((regionIndex / GEO_REGIONS_Y) + "_" + (regionIndex % GEO_REGIONS_Y), regionHeat[1]);
+        }
+        return result;
+    }
+
+    /**
+     * Счетчик блока, 0 если региона нет в снимке
+     */
+    public int getCounter(int regionIndex, int blockIndexInRegion) {
+        int slot = slotOf(regionIndex);
+        return slot < 0 ? 0 : counters[(slot << 16) + blockIndexInRegion] & 0xFF;
+    }
+
+    /**
+     * Тип блока, -1 если драйвер его не знает или региона нет в снимке
+     */
+    public int getBlockType(int regionIndex, int blockIndexInRegion) {
+        int slot = slotOf(regionIndex);
+        return slot < 0 ? -1 : blockTypes[(slot << 16) + blockIndexInRegion];
+    }
+
+    private int slotOf(int regionIndex) {
+        for (int slot = 0; slot < regionIndexes.length; slot++) {
+            if (regionIndexes[slot] == regionIndex) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return (o instanceof GeoHeatmap that)
+            && Arrays.equals(regionIndexes, that.regionIndexes)
+            && Arrays.equals(counters, that.counters)
+            && Arrays.equals(blockTypes, that.blockTypes);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(regionIndexes) + Arrays.hashCode(counters)) + Arrays.hashCode(blockTypes);
+    }
+}
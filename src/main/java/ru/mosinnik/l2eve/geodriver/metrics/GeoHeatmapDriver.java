@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+import ru.mosinnik.l2eve.geodriver.driver.ForwardingGeoDriver;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS_Y;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants.NO_INDEX;
+
+/**
+ * Обертка над драйвером, которая считает обращения к блокам: по байту на блок загруженных регионов
+ * в одном direct буфере, регионы без геодаты не занимают места.
+ * <p>
+ * Счетчик насыщается на 255 и увеличивается обычными get/put без атомиков и барьеров: при гонке потоков
+ * часть инкрементов теряется, для тепловой карты это не важно. {@link #decay()} делит все счетчики пополам,
+ * его вызывают периодически ({@link #scheduleDecay}), чтобы карта отражала недавнюю нагрузку,
+ * а не насыщалась за первые минуты.
+ * <p>
+ * Считаются точечные запросы, {@link #getLayers} и центральная ячейка {@link #expandNeighbours}. Запросы по площади
+ * и сводки блоков идут в драйвер напрямую. Набор регионов фиксируется при создании, драйвер должен быть уже загружен.
+ * Без обертки драйвер ничего не платит, обернутый - индекс блока, чтение и запись байта на запрос.
+ */
+@Slf4j
+public class GeoHeatmapDriver extends ForwardingGeoDriver {
+
+    public static final int MAX_COUNTER = 0xFF;
+    // половина каждого байта long без переноса из соседнего байта
+    private static final long DECAY_MASK = 0x7F7F_7F7F_7F7F_7F7FL;
+
+    // по индексу региона - номер региона в counters, NO_INDEX если геодаты нет
+    private final int[] regionSlots = new int[GEO_REGIONS];
+    private final int[] regionIndexes;
+    private final ByteBuffer counters;
+
+    public GeoHeatmapDriver(IGeoDriver driver) {
+        super(driver);
+        Arrays.fill(regionSlots, NO_INDEX);
+        int regions = 0;
+        for (int regionIndex = 0; regionIndex < GEO_REGIONS; regionIndex++) {
+            if (driver.hasGeoPos((regionIndex / GEO_REGIONS_Y) * IRegion.REGION_CELLS_X, (regionIndex % GEO_REGIONS_Y) * IRegion.REGION_CELLS_Y)) {
+                regionSlots[regionIndex] = regions++;
+            }
+        }
+        this.regionIndexes = new int[regions];
+        for (int regionIndex = 0; regionIndex < GEO_REGIONS; regionIndex++) {
+            if (regionSlots[regionIndex] != NO_INDEX) {
+                regionIndexes[regionSlots[regionIndex]] = regionIndex;
+            }
+        }
+        this.counters = ByteBuffer.allocateDirect(regions * IRegion.REGION_BLOCKS).order(ByteOrder.nativeOrder());
+        log.info("Block heatmap for {} regions, {} bytes off-heap", regions, counters.capacity());
+    }
+
+    /**
+     * @return индекс счетчика блока, NO_INDEX если у региона нет геодаты
+     */
+    private int counterIndex(int geoX, int geoY) {
+        int regionSlot = regionSlots[((geoX >> 11) << 5) + (geoY >> 11)];
+        if (regionSlot == NO_INDEX) {
+            return NO_INDEX;
+        }
+        return (regionSlot << 16) + (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
+    }
+
+    private void touch(int geoX, int geoY) {
+        int index = counterIndex(geoX, geoY);
+        if (index == NO_INDEX) {
+            return;
+        }
+        int counter = counters.get(index) & 0xFF;
+        if (counter != MAX_COUNTER) {
+            counters.put(index, (byte) (counter + 1));
+        }
+    }
+
+    /**
+     * @return счетчик блока ячейки, 0 для регионов без геодаты
+     */
+    public int getCounter(int geoX, int geoY) {
+        int index = counterIndex(geoX, geoY);
+        return index == NO_INDEX ? 0 : counters.get(index) & 0xFF;
+    }
+
+    /**
+     * Делит все счетчики пополам, по 8 счетчиков за одну операцию с long.
+     * Идет параллельно с запросами без синхронизации, инкременты во время деления могут потеряться.
+     */
+    public void decay() {
+        for (int i = 0; i < counters.capacity(); i += Long.BYTES) {
+            counters.putLong(i, (counters.getLong(i) >>> 1) & DECAY_MASK);
+        }
+    }
+
+    /**
+     * Периодический {@link #decay()} на переданном планировщике, остановка - cancel у результата
+     */
+    public ScheduledFuture<?> scheduleDecay(ScheduledExecutorService executor, long period, TimeUnit unit) {
+        return executor.scheduleAtFixedRate(this::decay, period, period, unit);
+    }
+
+    /**
+     * Обнуляет все счетчики
+     */
+    public void clear() {
+        for (int i = 0; i < counters.capacity(); i += Long.BYTES) {
+            counters.putLong(i, 0L);
+        }
+    }
+
+    /**
+     * Копия счетчиков с типами блоков драйвера на момент вызова
+     */
+    public GeoHeatmap snapshot() {
+        byte[] counterCopy = new byte[counters.capacity()];
+        counters.get(0, counterCopy);
+        byte[] blockTypes = new byte[counterCopy.length];
+        for (int slot = 0; slot < regionIndexes.length; slot++) {
+            int regionGeoX = (regionIndexes[slot] / GEO_REGIONS_Y) * IRegion.REGION_CELLS_X;
+            int regionGeoY = (regionIndexes[slot] % GEO_REGIONS_Y) * IRegion.REGION_CELLS_Y;
+            for (int block = 0; block < IRegion.REGION_BLOCKS; block++) {
+                int geoX = regionGeoX + (block >> 8) * IBlock.BLOCK_CELLS_X;
+                int geoY = regionGeoY + (block & 0xFF) * IBlock.BLOCK_CELLS_Y;
+                blockTypes[(slot << 16) + block] = (byte) driver.getBlockType(geoX, geoY);
+            }
+        }
+        return new GeoHeatmap(regionIndexes.clone(), counterCopy, blockTypes);
+    }
+
+    /**
+     * Снимок в файл, формат см. {@link GeoHeatmap}
+     */
+    public void writeToFile(Path path) {
+        snapshot().writeToFile(path);
+    }
+
+    @Override
+    public int getNearestZ(int geoX, int geoY, int worldZ) {
+        touch(geoX, geoY);
+        return driver.getNearestZ(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        touch(geoX, geoY);
+        return driver.getNearestLayer(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public int getNextLowerZ(int geoX, int geoY, int worldZ) {
+        touch(geoX, geoY);
+        return driver.getNextLowerZ(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public int getNextHigherZ(int geoX, int geoY, int worldZ) {
+        touch(geoX, geoY);
+        return driver.getNextHigherZ(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        touch(geoX, geoY);
+        return driver.getLayers(geoX, geoY, outHeights, outNswe);
+    }
+
+    @Override
+    public boolean checkNearestNSWE(int geoX, int geoY, int worldZ, byte nswe) {
+        touch(geoX, geoY);
+        return driver.checkNearestNSWE(geoX, geoY, worldZ, nswe);
+    }
+
+    @Override
+    public int expandNeighbours(int geoX, int geoY, int worldZ, int[] outZ, byte[] outMask) {
+        touch(geoX, geoY);
+        return driver.expandNeighbours(geoX, geoY, worldZ, outZ, outMask);
+    }
+}
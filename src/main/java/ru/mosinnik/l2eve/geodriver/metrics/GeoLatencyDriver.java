@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.metrics;
+
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.driver.ForwardingGeoDriver;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants;
+import ru.mosinnik.l2eve.geodriver.util.LatencyHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Обертка над драйвером, которая пишет задержки getNearestZ, checkNearestNSWE, getNextLowerZ и getNextHigherZ
+ * в гистограммы по операции и типу блока.
+ * <p>
+ * Замеряется в среднем один запрос из sampleEvery (степень двойки): выбор по случайному числу потока,
+ * без общих счетчиков между потоками, остальные запросы идут в драйвер напрямую. Тип блока для выбранного
+ * запроса берется из {@link IGeoDriver#getBlockType(int, int)} уже после замера. Частота выборки задается
+ * при создании, 0 - не замерять.
+ * <p>
+ * Снимки доступны через {@link #snapshot()} и через JMX, см. {@link GeoLatencyMonitor}.
+ */
+public class GeoLatencyDriver extends ForwardingGeoDriver {
+
+    public static final int OP_GET_NEAREST_Z = 0;
+    public static final int OP_CHECK_NEAREST_NSWE = 1;
+    public static final int OP_GET_NEXT_LOWER_Z = 2;
+    public static final int OP_GET_NEXT_HIGHER_Z = 3;
+    private static final String[] OP_NAMES = {"getNearestZ", "checkNearestNSWE", "getNextLowerZ", "getNextHigherZ"};
+
+    // тип блока -1 (нет геодаты или тип неизвестен) идет в индекс 0
+    private static final int BLOCK_TYPE_SLOTS = GeoDriverBytesConstants.INDEXED_32_MULTILAYER_BLOCK + 2;
+
+    private final String name;
+    // -1 если выборка выключена
+    private final int sampleMask;
+    private final LatencyHistogram[][] histograms = new LatencyHistogram[OP_NAMES.length][BLOCK_TYPE_SLOTS];
+
+    /**
+     * @param name        имя драйвера для JMX и снимков
+     * @param sampleEvery один из скольких запросов замеряется, степень двойки, 0 - не замерять
+     */
+    public GeoLatencyDriver(IGeoDriver driver, String name, int sampleEvery) {
+        super(driver);
+        if ((sampleEvery < 0) || (Integer.bitCount(sampleEvery) > 1)) {
+            throw new IllegalArgumentException("Sample rate should be 0 or power of two: " + sampleEvery);
+        }
+        this.name = name;
+        this.sampleMask = sampleEvery - 1;
+        for (LatencyHistogram[] opHistograms : histograms) {
+            for (int i = 0; i < opHistograms.length; i++) {
+                opHistograms[i] = new LatencyHistogram();
+            }
+        }
+    }
+
+    private boolean sample() {
+        return (sampleMask >= 0) && ((ThreadLocalRandom.current().nextInt() & sampleMask) == 0);
+    }
+
+    private void record(int op, int geoX, int geoY, long start) {
+        long elapsed = System.nanoTime() - start;
+        histograms[op][slot(driver.getBlockType(geoX, geoY))].record(elapsed);
+    }
+
+    private static int slot(int blockType) {
+        return (blockType >= 0) && (blockType < BLOCK_TYPE_SLOTS - 1) ? blockType + 1 : 0;
+    }
+
+    /**
+     * Снимок одной гистограммы
+     *
+     * @param blockType тип блока из {@link GeoDriverBytesConstants}, -1 и неизвестные типы - гистограмма блоков без типа
+     */
+    public LatencyHistogram.Snapshot snapshot(int op, int blockType) {
+        return histograms[op][slot(blockType)].snapshot();
+    }
+
+    /**
+     * Снимки непустых гистограмм: сначала по операции по всем типам блоков,
+     * потом по операции и типу блока, ключи как в {@link GeoLatencyMXBean}
+     */
+    public Map<String, LatencyHistogram.Snapshot> snapshot() {
+        Map<String, LatencyHistogram.Snapshot> total = new LinkedHashMap<>();
+        Map<String, LatencyHistogram.Snapshot> byBlockType = new LinkedHashMap<>();
+        for (int op = 0; op < OP_NAMES.length; op++) {
+            LatencyHistogram.Snapshot opSnapshot = null;
+            for (int slot = 0; slot < BLOCK_TYPE_SLOTS; slot++) {
+                LatencyHistogram.Snapshot snapshot = histograms[op][slot].snapshot();
+                if (snapshot.getTotalCount() == 0) {
+                    continue;
+                }
+                String blockTypeName = GeoDriverBytesConstants.blockTypeToName(slot - 1);
+                byBlockType.put(OP_NAMES[op] + "/" + blockTypeName, snapshot);
+                opSnapshot = opSnapshot == null ? snapshot : opSnapshot.merge(snapshot);
+            }
+            if (opSnapshot != null) {
+                total.put(OP_NAMES[op], opSnapshot);
+            }
+        }
+        total.putAll(byBlockType);
+        return total;
+    }
+
+    public void reset() {
+        for (LatencyHistogram[] opHistograms : histograms) {
+            for (LatencyHistogram histogram : opHistograms) {
+                histogram.reset();
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSampleEvery() {
+        return sampleMask + 1;
+    }
+
+    @Override
+    public int getNearestZ(int geoX, int geoY, int worldZ) {
+        if (!sample()) {
+            return driver.getNearestZ(geoX, geoY, worldZ);
+        }
+        long start = System.nanoTime();
+        int result = driver.getNearestZ(geoX, geoY, worldZ);
+        record(OP_GET_NEAREST_Z, geoX, geoY, start);
+        return result;
+    }
+
+    @Override
+    public int getNextLowerZ(int geoX, int geoY, int worldZ) {
+        if (!sample()) {
+            return driver.getNextLowerZ(geoX, geoY, worldZ);
+        }
+        long start = System.nanoTime();
+        int result = driver.getNextLowerZ(geoX, geoY, worldZ);
+        record(OP_GET_NEXT_LOWER_Z, geoX, geoY, start);
+        return result;
+    }
+
+    @Override
+    public int getNextHigherZ(int geoX, int geoY, int worldZ) {
+        if (!sample()) {
+            return driver.getNextHigherZ(geoX, geoY, worldZ);
+        }
+        long start = System.nanoTime();
+        int result = driver.getNextHigherZ(geoX, geoY, worldZ);
+        record(OP_GET_NEXT_HIGHER_Z, geoX, geoY, start);
+        return result;
+    }
+
+    @Override
+    public boolean checkNearestNSWE(int geoX, int geoY, int worldZ, byte nswe) {
+        if (!sample()) {
+            return driver.checkNearestNSWE(geoX, geoY, worldZ, nswe);
+        }
+        long start = System.nanoTime();
+        boolean result = driver.checkNearestNSWE(geoX, geoY, worldZ, nswe);
+        record(OP_CHECK_NEAREST_NSWE, geoX, geoY, start);
+        return result;
+    }
+}
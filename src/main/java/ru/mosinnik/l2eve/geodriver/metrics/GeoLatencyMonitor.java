@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.metrics;
+
+import ru.mosinnik.l2eve.geodriver.util.LatencyHistogram;
+
+import javax.management.ObjectName;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Публикует гистограммы {@link GeoLatencyDriver} через JMX.
+ * <p>
+ * Каждый атрибут считается по свежему снимку гистограмм драйвера, сброс через JMX сбрасывает сам драйвер.
+ */
+public class GeoLatencyMonitor implements GeoLatencyMXBean {
+
+    private final GeoLatencyDriver driver;
+    private final GeoMBeanRegistration registration;
+
+    public GeoLatencyMonitor(GeoLatencyDriver driver) {
+        this.driver = driver;
+        this.registration = new GeoMBeanRegistration("GeoLatency", driver.getName());
+    }
+
+    @Override
+    public String getName() {
+        return driver.getName();
+    }
+
+    @Override
+    public int getSampleEvery() {
+        return driver.getSampleEvery();
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        return table(LatencyHistogram.Snapshot::getTotalCount);
+    }
+
+    @Override
+    public Map<String, Long> getP50Nanos() {
+        return table(snapshot -> snapshot.getValueAtPercentile(50));
+    }
+
+    @Override
+    public Map<String, Long> getP99Nanos() {
+        return table(snapshot -> snapshot.getValueAtPercentile(99));
+    }
+
+    @Override
+    public Map<String, Long> getP999Nanos() {
+        return table(snapshot -> snapshot.getValueAtPercentile(99.9));
+    }
+
+    @Override
+    public Map<String, Long> getMaxNanos() {
+        return table(LatencyHistogram.Snapshot::getMaxValue);
+    }
+
+    @Override
+    public void reset() {
+        driver.reset();
+    }
+
+    private Map<String, Long> table(ToLongFunction<LatencyHistogram.Snapshot> value) {
+        Map<String, Long> table = new LinkedHashMap<>();
+        driver.snapshot().forEach((key, snapshot) -> table.put(key, value.applyAsLong(snapshot)));
+        return table;
+    }
+
+    /**
+     * Регистрирует MBean {@code ru.mosinnik.l2eve.geodriver:type=GeoLatency,name=<name>} в platform MBeanServer
+     */
+    public void registerMBean() {
+        registration.register(this);
+    }
+
+    public void unregisterMBean() {
+        registration.unregister();
+    }
+
+    public ObjectName getObjectName() {
+        return registration.getObjectName();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.metrics;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Регистрация одного MBean в platform MBeanServer под именем {@code ru.mosinnik.l2eve.geodriver:type=<type>,name=<name>}.
+ * Повторная регистрация и снятие незарегистрированного MBean ничего не делают.
+ */
+@Slf4j
+final class GeoMBeanRegistration {
+
+    static final String DOMAIN = "ru.mosinnik.l2eve.geodriver";
+
+    private final String type;
+    private final String name;
+    private ObjectName objectName;
+
+    GeoMBeanRegistration(String type, String name) {
+        this.type = type;
+        this.name = name;
+    }
+
+    @SneakyThrows
+    synchronized void register(Object mbean) {
+        if (objectName != null) {
+            return;
+        }
+        ObjectName newName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, newName);
+        objectName = newName;
+        log.info("Registered MBean {}", objectName);
+    }
+
+    @SneakyThrows
+    synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+        objectName = null;
+    }
+
+    /**
+     * @return имя зарегистрированного MBean, null если не зарегистрирован
+     */
+    synchronized ObjectName getObjectName() {
+        return objectName;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX представление {@link GeoMemoryReport} драйвера, см. {@link GeoMemoryMonitor}.
+ * Ключи таблиц - имя типа блока ({@code COMPLEX_BLOCK}) и регион ({@code 22_16}).
+ */
+public interface GeoMemoryMXBean {
+
+    String getName();
+
+    String getDriverName();
+
+    long getIndexBytes();
+
+    long getPayloadBytes();
+
+    long getHeapBytes();
+
+    long getOffHeapBytes();
+
+    long getMappedBytes();
+
+    long getResidentBytes();
+
+    Map<String, Long> getBlockCounts();
+
+    Map<String, Long> getBlockBytes();
+
+    Map<String, Long> getRegionBytes();
+
+    Map<String, Long> getRegionResidentBytes();
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.metrics;
+
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+
+import javax.management.ObjectName;
+import java.util.Map;
+
+/**
+ * Публикует {@link GeoMemoryReporter#getMemoryReport()} через JMX.
+ * <p>
+ * Клиент читает атрибуты по одному, поэтому отчет переиспользуется в течение maxAgeMillis,
+ * чтобы один опрос всех атрибутов не обходил mapped регионы через mincore на каждый атрибут.
+ */
+public class GeoMemoryMonitor implements GeoMemoryMXBean {
+
+    public static final long DEFAULT_MAX_AGE_MILLIS = 1000;
+
+    private final IGeoDriver driver;
+    private final String name;
+    private final long maxAgeNanos;
+    private final GeoMBeanRegistration registration;
+    private GeoMemoryReport report;
+    private long reportTime;
+
+    public GeoMemoryMonitor(IGeoDriver driver, String name) {
+        this(driver, name, DEFAULT_MAX_AGE_MILLIS);
+    }
+
+    /**
+     * @param maxAgeMillis сколько переиспользуется снятый отчет, 0 - снимать на каждый запрос
+     */
+    public GeoMemoryMonitor(IGeoDriver driver, String name, long maxAgeMillis) {
+        if (maxAgeMillis < 0) {
+            throw new IllegalArgumentException("Max age should not be negative: " + maxAgeMillis);
+        }
+        this.driver = driver;
+        this.name = name;
+        this.maxAgeNanos = maxAgeMillis * 1_000_000;
+        this.registration = new GeoMBeanRegistration("GeoMemory", name);
+    }
+
+    public synchronized GeoMemoryReport report() {
+        long now = System.nanoTime();
+        if (report == null || now - reportTime >= maxAgeNanos) {
+            report = GeoMemoryReporter.reportOf(driver);
+            reportTime = now;
+        }
+        return report;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getDriverName() {
+        return report().driver();
+    }
+
+    @Override
+    public long getIndexBytes() {
+        return report().indexBytes();
+    }
+
+    @Override
+    public long getPayloadBytes() {
+        return report().payloadBytes();
+    }
+
+    @Override
+    public long getHeapBytes() {
+        return report().heapBytes();
+    }
+
+    @Override
+    public long getOffHeapBytes() {
+        return report().offHeapBytes();
+    }
+
+    @Override
+    public long getMappedBytes() {
+        return report().mappedBytes();
+    }
+
+    @Override
+    public long getResidentBytes() {
+        return report().residentBytes();
+    }
+
+    @Override
+    public Map<String, Long> getBlockCounts() {
+        return report().blockCountsByType();
+    }
+
+    @Override
+    public Map<String, Long> getBlockBytes() {
+        return report().blockBytesByType();
+    }
+
+    @Override
+    public Map<String, Long> getRegionBytes() {
+        return report().regionBytesByRegion();
+    }
+
+    @Override
+    public Map<String, Long> getRegionResidentBytes() {
+        return report().regionResidentBytesByRegion();
+    }
+
+    /**
+     * Регистрирует MBean {@code ru.mosinnik.l2eve.geodriver:type=GeoMemory,name=<name>} в platform MBeanServer
+     */
+    public void registerMBean() {
+        registration.register(this);
+    }
+
+    public void unregisterMBean() {
+        registration.unregister();
+    }
+
+    public ObjectName getObjectName() {
+        return registration.getObjectName();
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.metrics;
+
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS_Y;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants.NO_INDEX;
+
+/**
+ * Снимок памяти, занятой геодатой драйвера.
+ * <p>
+ * Payload - данные блоков, index - все остальное: индексы регионов и блоков, сводки, пирамида высот.
+ * Те же байты отдельно делятся по месту хранения: heap, off-heap (direct буферы) и mapped (mmap файлов),
+ * heapBytes + offHeapBytes + mappedBytes == indexBytes + payloadBytes.
+ * <p>
+ * Массивы по типу блока индексируются типом из {@link GeoDriverBytesConstants} (ordinal {@link GeoDriverBytesConstants.E}),
+ * по региону - индексом региона как в драйверах, NO_INDEX если регион не загружен.
+ * residentBytes - страницы mapped данных в физической памяти по mincore, NO_INDEX если неизвестно.
+ * <p>
+ * Для объектного GeoDriver байты оценочные, по раскладке объектов с compressed oops.
+ */
+public record GeoMemoryReport(String driver,
+                              long[] blockCounts,
+                              long[] blockBytes,
+                              long[] regionBytes,
+                              long[] regionResidentBytes,
+                              long indexBytes,
+                              long payloadBytes,
+                              long heapBytes,
+                              long offHeapBytes,
+                              long mappedBytes,
+                              long residentBytes) {
+
+    private static final int BLOCK_TYPES = GeoDriverBytesConstants.E.values().length;
+
+    public static final GeoMemoryReport EMPTY = new Builder("none").build();
+
+    public long totalBytes() {
+        return indexBytes + payloadBytes;
+    }
+
+    /**
+     * Копия с resident страницами регионов, поле residentBytes считается суммой известных значений и otherResidentBytes
+     *
+     * @param regionResidentBytes по индексу региона, NO_INDEX если неизвестно
+     * @param otherResidentBytes  resident байты mapped данных вне регионов, например пирамиды высот
+     */
+    public GeoMemoryReport withResidentBytes(long[] regionResidentBytes, long otherResidentBytes) {
+        long resident = otherResidentBytes;
+        for (long regionResident : regionResidentBytes) {
+            if (regionResident != NO_INDEX) {
+                resident = resident == NO_INDEX ? regionResident : resident + regionResident;
+            }
+        }
+        return new GeoMemoryReport(driver, blockCounts, blockBytes, regionBytes, regionResidentBytes,
+            indexBytes, payloadBytes, heapBytes, offHeapBytes, mappedBytes, resident);
+    }
+
+    /**
+     * Количество блоков по имени типа, только встречающиеся типы
+     */
+    public Map<String, Long> blockCountsByType() {
+        return byBlockType(blockCounts);
+    }
+
+    /**
+     * Payload байты по имени типа, только встречающиеся типы
+     */
+    public Map<String, Long> blockBytesByType() {
+        return byBlockType(blockBytes);
+    }
+
+    /**
+     * Payload байты по региону {@code X_Y}, только загруженные регионы
+     */
+    public Map<String, Long> regionBytesByRegion() {
+        return byRegion(regionBytes);
+    }
+
+    /**
+     * Resident байты по региону {@code X_Y}, только регионы с известным значением
+     */
+    public Map<String, Long> regionResidentBytesByRegion() {
+        return byRegion(regionResidentBytes);
+    }
+
+    private Map<String, Long> byBlockType(long[] values) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int blockType = 0; blockType < BLOCK_TYPES; blockType++) {
+            if (blockCounts[blockType] > 0) {
+                result.put(GeoDriverBytesConstants.blockTypeToName(blockType), values[blockType]);
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Long> byRegion(long[] values) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int regionIndex = 0; regionIndex < values.length; regionIndex++) {
+            if (values[regionIndex] != NO_INDEX) {
+                result.put((regionIndex / GEO_REGIONS_Y) + "_" + (regionIndex % GEO_REGIONS_Y), values[regionIndex]);
+            }
+        }
+        return result;
+    }
+
+    public enum Storage {
+        HEAP,
+        OFF_HEAP,
+        MAPPED,
+    }
+
+    /**
+     * Собирает отчет при обходе данных драйвера
+     */
+    public static final class Builder {
+        private final String driver;
+        private final long[] blockCounts = new long[BLOCK_TYPES];
+        private final long[] blockBytes = new long[BLOCK_TYPES];
+        private final long[] regionBytes = new long[GEO_REGIONS];
+        private long indexBytes;
+        private long payloadBytes;
+        private long heapBytes;
+        private long offHeapBytes;
+        private long mappedBytes;
+
+        public Builder(String driver) {
+            this.driver = driver;
+            Arrays.fill(regionBytes, NO_INDEX);
+        }
+
+        /**
+         * Блок региона, байты блока учитываются только по типу и региону, хранение задается через {@link #payload(long, Storage)}
+         */
+        public Builder block(int regionIndex, int blockType, long bytes) {
+            blockCounts[blockType]++;
+            blockBytes[blockType] += bytes;
+            regionBytes[regionIndex] = Math.max(regionBytes[regionIndex], 0) + bytes;
+            return this;
+        }
+
+        public Builder region(int regionIndex) {
+            regionBytes[regionIndex] = Math.max(regionBytes[regionIndex], 0);
+            return this;
+        }
+
+        public Builder payload(long bytes, Storage storage) {
+            payloadBytes += bytes;
+            return storage(bytes, storage);
+        }
+
+        public Builder index(long bytes, Storage storage) {
+            indexBytes += bytes;
+            return storage(bytes, storage);
+        }
+
+        private Builder storage(long bytes, Storage storage) {
+            switch (storage) {
+                case HEAP -> heapBytes += bytes;
+                case OFF_HEAP -> offHeapBytes += bytes;
+                case MAPPED -> mappedBytes += bytes;
+            }
+            return this;
+        }
+
+        public GeoMemoryReport build() {
+            long[] regionResidentBytes = new long[GEO_REGIONS];
+            Arrays.fill(regionResidentBytes, NO_INDEX);
+            return new GeoMemoryReport(driver, blockCounts.clone(), blockBytes.clone(), regionBytes.clone(), regionResidentBytes,
+                indexBytes, payloadBytes, heapBytes, offHeapBytes, mappedBytes, NO_INDEX);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.metrics;
+
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+
+/**
+ * Драйвер, который считает занятую геодатой память: байты по типам блоков и регионам,
+ * индексы против данных, куча против off-heap и отображенных файлов, резидентные страницы.
+ * Отчет должен быть достаточно дешевым для периодического опроса, например через JMX.
+ */
+public interface GeoMemoryReporter {
+
+    GeoMemoryReport getMemoryReport();
+
+    /**
+     * Отчет драйвера или пустой отчет если драйвер память не считает
+     */
+    static GeoMemoryReport reportOf(IGeoDriver driver) {
+        return driver instanceof GeoMemoryReporter reporter ? reporter.getMemoryReport() : GeoMemoryReport.EMPTY;
+    }
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.pathfinding;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import ru.mosinnik.l2eve.geodriver.Neighbours;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+import ru.mosinnik.l2eve.geodriver.util.IntList;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.*;
+import static ru.mosinnik.l2eve.geodriver.util.DataStreams.*;
+
+/**
+ * Компоненты связности проходимых слоев для мгновенного отказа в поиске пути к недостижимой цели.
+ * <p>
+ * Узел графа - слой ячейки, ребра - переходы из {@link IGeoDriver#expandNeighbours(int, int, int, int[], byte[])},
+ * т.е. по тем же NSWE правилам что и при движении. Направление ребер не учитывается, так что компоненты
+ * слабо связные: разные компоненты значат что пути точно нет, одинаковые - что он может быть.
+ * <p>
+ * Строится по регионам параллельно, в каждом регионе свои локальные id, затем ребра через границы регионов
+ * объединяют локальные id в глобальные. Хранение на регион:
+ * - blockIds: на блок один локальный id, если все слои всех ячеек блока в одной компоненте
+ * - escape: для смешанных блоков по ячейке число слоев и пары (высота, локальный id)
+ * - localToGlobal: локальный id -> глобальный
+ * <p>
+ * Строится по статической геодате, двери из GeoOverlay только закрывают проходы, так что ответ "одна компонента"
+ * при закрытой двери остается консервативным.
+ * <p>
+ * Файл начинается с MAGIC, VERSION и {@link GeoFingerprint} геодаты, по которой индекс построен:
+ * файл от другой геодаты не читается.
+ */
+@Slf4j
+public final class ConnectivityIndex {
+
+    public static final int NO_COMPONENT = 0;
+
+    public static final int MAGIC = 0x4C324743; // L2GC
+    public static final int VERSION = 2;
+
+    private static final int REGION_CELLS = IRegion.REGION_CELLS_X * IRegion.REGION_CELLS_Y;
+
+    private final RegionComponents[] regions;
+    private final long fingerprint;
+
+    private ConnectivityIndex(RegionComponents[] regions, long fingerprint) {
+        this.regions = regions;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * @param blockIds      по блокам региона: >= 0 локальный id всего блока, < 0 - -(offset + 1) блока в escape
+     * @param escape        смешанные блоки: 64 начала ячеек, по ячейке число слоев и пары (высота, локальный id)
+     * @param localToGlobal локальный id -> глобальный, 0 -> NO_COMPONENT
+     */
+    private record RegionComponents(int[] blockIds, int[] escape, int[] localToGlobal) {
+
+        int getLocalId(int geoX, int geoY, int worldZ) {
+            int blockId = blockIds[(((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF)];
+            if (blockId >= 0) {
+                return blockId;
+            }
+            int cellStart = escape[-blockId - 1 + ((geoX & 0x07) << 3) + (geoY & 0x07)];
+            int layers = escape[cellStart];
+            if (layers == 0) {
+                return NO_COMPONENT;
+            }
+            // ближайший слой как в блоках и FlowField: при равенстве первый в порядке хранения
+            int nearestId = escape[cellStart + 2];
+            int nearestDZ = Math.abs(escape[cellStart + 1] - worldZ);
+            for (int i = 1; i < layers; i++) {
+                int layerDZ = Math.abs(escape[cellStart + 1 + 2 * i] - worldZ);
+                if (layerDZ < nearestDZ) {
+                    nearestDZ = layerDZ;
+                    nearestId = escape[cellStart + 2 + 2 * i];
+                }
+            }
+            return nearestId;
+        }
+
+        long sizeInBytes() {
+            return 4L * (blockIds.length + escape.length + localToGlobal.length);
+        }
+    }
+
+    /**
+     * Результат построения региона до объединения регионов
+     *
+     * @param crossEdges четверки (локальный id, x, y, z соседа в другом регионе)
+     */
+    private record RegionBuild(int regionIndex, RegionComponents components, int localCount, int[] crossEdges) {
+    }
+
+    /**
+     * Глобальный id компоненты ближайшего к worldZ слоя ячейки или NO_COMPONENT если геодаты нет
+     */
+    public int getComponent(int geoX, int geoY, int worldZ) {
+        if ((geoX < 0) || (geoX >= GEO_CELLS_X) || (geoY < 0) || (geoY >= GEO_CELLS_Y)) {
+            return NO_COMPONENT;
+        }
+        RegionComponents region = regions[((geoX >> 11) << 5) + (geoY >> 11)];
+        if (region == null) {
+            return NO_COMPONENT;
+        }
+        return region.localToGlobal()[region.getLocalId(geoX, geoY, worldZ)];
+    }
+
+    /**
+     * false только если пути между точками точно нет. Без геодаты в одной из точек отказать нельзя, возвращается true.
+     */
+    public boolean sameComponent(int geoX, int geoY, int worldZ, int toGeoX, int toGeoY, int toWorldZ) {
+        int component = getComponent(geoX, geoY, worldZ);
+        int toComponent = getComponent(toGeoX, toGeoY, toWorldZ);
+        return (component == NO_COMPONENT) || (toComponent == NO_COMPONENT) || (component == toComponent);
+    }
+
+    public long sizeInBytes() {
+        long size = 0;
+        for (RegionComponents region : regions) {
+            if (region != null) {
+                size += region.sizeInBytes();
+            }
+        }
+        return size;
+    }
+
+    public static ConnectivityIndex build(IGeoDriver driver) {
+        List<RegionBuild> builds = IntStream.range(0, GEO_REGIONS)
+            .filter(regionIndex -> driver.hasGeoPos((regionIndex / GEO_REGIONS_Y) * IRegion.REGION_CELLS_X,
+                (regionIndex % GEO_REGIONS_Y) * IRegion.REGION_CELLS_Y))
+            .parallel()
+            .mapToObj(regionIndex -> buildRegion(driver, regionIndex))
+            .toList();
+
+        RegionComponents[] regions = new RegionComponents[GEO_REGIONS];
+        int[] bases = new int[GEO_REGIONS];
+        int total = 1;
+        for (RegionBuild build : builds) {
+            regions[build.regionIndex()] = build.components();
+            bases[build.regionIndex()] = total - 1;
+            total += build.localCount();
+        }
+
+        // глобальные узлы: base региона + локальный id, 0 - нет компоненты
+        int[] parent = IntStream.range(0, total).toArray();
+        for (RegionBuild build : builds) {
+            int[] crossEdges = build.crossEdges();
+            for (int i = 0; i < crossEdges.length; i += 4) {
+                int geoX = crossEdges[i + 1];
+                int geoY = crossEdges[i + 2];
+                int toRegionIndex = ((geoX >> 11) << 5) + (geoY >> 11);
+                RegionComponents toRegion = regions[toRegionIndex];
+                if (toRegion == null) {
+                    continue;
+                }
+                int toLocalId = toRegion.getLocalId(geoX, geoY, crossEdges[i + 3]);
+                if (toLocalId != NO_COMPONENT) {
+                    union(parent, bases[build.regionIndex()] + crossEdges[i], bases[toRegionIndex] + toLocalId);
+                }
+            }
+        }
+
+        int[] globalIds = new int[total];
+        int globalCount = 0;
+        for (RegionBuild build : builds) {
+            int[] localToGlobal = build.components().localToGlobal();
+            int base = bases[build.regionIndex()];
+            for (int localId = 1; localId < localToGlobal.length; localId++) {
+                int root = find(parent, base + localId);
+                if (globalIds[root] == NO_COMPONENT) {
+                    globalIds[root] = ++globalCount;
+                }
+                localToGlobal[localId] = globalIds[root];
+            }
+        }
+
+        ConnectivityIndex index = new ConnectivityIndex(regions, GeoFingerprint.of(driver));
+        log.info("Built connectivity index for {} regions: {} components, {} bytes", builds.size(), globalCount, index.sizeInBytes());
+        return index;
+    }
+
+    private static RegionBuild buildRegion(IGeoDriver driver, int regionIndex) {
+        int regionGeoX = (regionIndex / GEO_REGIONS_Y) * IRegion.REGION_CELLS_X;
+        int regionGeoY = (regionIndex % GEO_REGIONS_Y) * IRegion.REGION_CELLS_Y;
+
+        // узлы: слои ячеек региона подряд, ячейка региона = (localX << 11) + localY
+        int[] cellNodeStart = new int[REGION_CELLS + 1];
+        IntList nodeHeights = new IntList(REGION_CELLS);
+        int[] layerHeights = new int[IBlock.MAX_CELL_LAYERS];
+        byte[] layerNswe = new byte[IBlock.MAX_CELL_LAYERS];
+        for (int cell = 0; cell < REGION_CELLS; cell++) {
+            cellNodeStart[cell] = nodeHeights.size();
+            int layers = driver.getLayers(regionGeoX + (cell >> 11), regionGeoY + (cell & 0x7FF), layerHeights, layerNswe);
+            for (int i = 0; i < layers; i++) {
+                nodeHeights.add(layerHeights[i]);
+            }
+        }
+        cellNodeStart[REGION_CELLS] = nodeHeights.size();
+        int nodeCount = nodeHeights.size();
+
+        int[] parent = IntStream.range(0, nodeCount).toArray();
+        IntList crossEdges = new IntList();
+        int[] outZ = new int[Neighbours.COUNT];
+        byte[] outMask = new byte[Neighbours.COUNT];
+        for (int cell = 0; cell < REGION_CELLS; cell++) {
+            int geoX = regionGeoX + (cell >> 11);
+            int geoY = regionGeoY + (cell & 0x7FF);
+            for (int node = cellNodeStart[cell]; node < cellNodeStart[cell + 1]; node++) {
+                int mask = driver.expandNeighbours(geoX, geoY, nodeHeights.get(node), outZ, outMask);
+                for (int direction = 0; direction < Neighbours.COUNT; direction++) {
+                    if (!Neighbours.isReachable(mask, direction)) {
+                        continue;
+                    }
+                    int x = geoX + Neighbours.dx(direction);
+                    int y = geoY + Neighbours.dy(direction);
+                    if (((x - regionGeoX) >>> 11) != 0 || ((y - regionGeoY) >>> 11) != 0) {
+                        crossEdges.add(node);
+                        crossEdges.add(x);
+                        crossEdges.add(y);
+                        crossEdges.add(outZ[direction]);
+                        continue;
+                    }
+                    int toNode = findNode(cellNodeStart, nodeHeights, ((x - regionGeoX) << 11) + (y - regionGeoY), outZ[direction]);
+                    if (toNode >= 0) {
+                        union(parent, node, toNode);
+                    }
+                }
+            }
+        }
+
+        // компактные локальные id с 1
+        int[] localIds = new int[nodeCount];
+        int[] rootIds = new int[nodeCount];
+        int localCount = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            int root = find(parent, node);
+            if (rootIds[root] == 0) {
+                rootIds[root] = ++localCount;
+            }
+            localIds[node] = rootIds[root];
+        }
+        int[] edges = crossEdges.toArray();
+        for (int i = 0; i < edges.length; i += 4) {
+            edges[i] = localIds[edges[i]];
+        }
+
+        int[] blockIds = new int[IRegion.REGION_BLOCKS];
+        IntList escape = new IntList();
+        for (int blockIndex = 0; blockIndex < IRegion.REGION_BLOCKS; blockIndex++) {
+            int cellX = (blockIndex >> 8) * IBlock.BLOCK_CELLS_X;
+            int cellY = (blockIndex & 0xFF) * IBlock.BLOCK_CELLS_Y;
+            int blockId = -1;
+            boolean uniform = true;
+            for (int x = cellX; x < cellX + IBlock.BLOCK_CELLS_X && uniform; x++) {
+                for (int y = cellY; y < cellY + IBlock.BLOCK_CELLS_Y && uniform; y++) {
+                    int cell = (x << 11) + y;
+                    uniform = cellNodeStart[cell] < cellNodeStart[cell + 1];
+                    for (int node = cellNodeStart[cell]; node < cellNodeStart[cell + 1] && uniform; node++) {
+                        if (blockId == -1) {
+                            blockId = localIds[node];
+                        }
+                        uniform = localIds[node] == blockId;
+                    }
+                }
+            }
+            if (uniform) {
+                blockIds[blockIndex] = blockId;
+                continue;
+            }
+            int offset = escape.size();
+            blockIds[blockIndex] = -(offset + 1);
+            for (int i = 0; i < IBlock.BLOCK_CELLS; i++) {
+                escape.add(0);
+            }
+            for (int x = cellX; x < cellX + IBlock.BLOCK_CELLS_X; x++) {
+                for (int y = cellY; y < cellY + IBlock.BLOCK_CELLS_Y; y++) {
+                    int cell = (x << 11) + y;
+                    escape.set(offset + ((x & 0x07) << 3) + (y & 0x07), escape.size());
+                    escape.add(cellNodeStart[cell + 1] - cellNodeStart[cell]);
+                    for (int node = cellNodeStart[cell]; node < cellNodeStart[cell + 1]; node++) {
+                        escape.add(nodeHeights.get(node));
+                        escape.add(localIds[node]);
+                    }
+                }
+            }
+        }
+
+        RegionComponents components = new RegionComponents(blockIds, escape.toArray(), new int[localCount + 1]);
+        return new RegionBuild(regionIndex, components, localCount, edges);
+    }
+
+    private static int findNode(int[] cellNodeStart, IntList nodeHeights, int cell, int height) {
+        for (int node = cellNodeStart[cell]; node < cellNodeStart[cell + 1]; node++) {
+            if (nodeHeights.get(node) == height) {
+                return node;
+            }
+        }
+        return -1;
+    }
+
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            // меньший корень остается корнем, чтобы нумерация не зависела от порядка объединений
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    @SneakyThrows
+    public void writeToFile(Path path) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fingerprint);
+            for (int regionIndex = 0; regionIndex < GEO_REGIONS; regionIndex++) {
+                RegionComponents region = regions[regionIndex];
+                if (region == null) {
+                    continue;
+                }
+                out.writeInt(regionIndex);
+                writeInts(out, region.blockIds());
+                writeInts(out, region.escape());
+                writeInts(out, region.localToGlobal());
+            }
+            out.writeInt(-1);
+            log.info("Updated connectivity index file: {}, {} bytes", path, out.size());
+        }
+    }
+
+    /**
+     * Returns null if there is no file or it was built for other geodata or format version
+     *
+     * @param driver геодата, для которой нужен индекс
+     * @throws IllegalArgumentException если это не файл индекса связности
+     */
+    @SneakyThrows
+    public static ConnectivityIndex readFromFile(Path path, IGeoDriver driver) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        RegionComponents[] regions = new RegionComponents[GEO_REGIONS];
+        long fingerprint;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            int magic = in.readInt();
+            if (magic != MAGIC) {
+                throw new IllegalArgumentException("Wrong connectivity index magic: " + Integer.toHexString(magic));
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                log.info("Connectivity index file {} has version {} instead of {}, ignored", path, version, VERSION);
+                return null;
+            }
+            fingerprint = in.readLong();
+            if (fingerprint != GeoFingerprint.of(driver)) {
+                log.info("Connectivity index file {} was built for other geodata, ignored", path);
+                return null;
+            }
+            for (int regionIndex = in.readInt(); regionIndex != -1; regionIndex = in.readInt()) {
+                regions[regionIndex] = new RegionComponents(readInts(in), readInts(in), readInts(in));
+            }
+        }
+        ConnectivityIndex index = new ConnectivityIndex(regions, fingerprint);
+        log.info("Read connectivity index file: {}, {} bytes", path, index.sizeInBytes());
+        return index;
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.pathfinding;
+
+import ru.mosinnik.l2eve.geodriver.Neighbours;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_CELLS_X;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_CELLS_Y;
+
+/**
+ * Поле потока к одной цели: Дейкстра от цели по обратным ребрам в окне вокруг нее, для каждого слоя ячейки
+ * хранится стоимость пути до цели и направление первого шага. Сотни агентов с общей целью читают
+ * следующий шаг за O(1) вместо своего A*.
+ * <p>
+ * Узлы поля - слои ячеек окна, все на примитивных массивах. Проходы берутся из
+ * {@link IGeoDriver#expandNeighbours(int, int, int, int[], byte[])} и бывают односторонними, поэтому
+ * волна от цели идет по ребрам в обратную сторону. С parallel опросом геодаты (слои и соседи) занимаются
+ * все ядра, это основная часть времени построения, сама волна однопоточная.
+ * <p>
+ * Поле неизменяемо после построения и читается из любых потоков, кэш полей - {@link FlowFieldCache}.
+ */
+public final class FlowField {
+
+    public static final int NO_DIRECTION = -1;
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final int[] OPPOSITE = {
+        Neighbours.WEST, Neighbours.EAST, Neighbours.NORTH, Neighbours.SOUTH,
+        Neighbours.SOUTH_WEST, Neighbours.SOUTH_EAST, Neighbours.NORTH_WEST, Neighbours.NORTH_EAST
+    };
+
+    private final long target;
+    private final int minGeoX;
+    private final int minGeoY;
+    private final int width;
+    private final int height;
+    // узлы ячейки cell: [cellStarts[cell], cellStarts[cell + 1])
+    private final int[] cellStarts;
+    private final short[] heights;
+    private final int[] costs;
+    private final byte[] directions;
+
+    private FlowField(long target, int minGeoX, int minGeoY, int width, int height,
+                      int[] cellStarts, short[] heights, int[] costs, byte[] directions) {
+        this.target = target;
+        this.minGeoX = minGeoX;
+        this.minGeoY = minGeoY;
+        this.width = width;
+        this.height = height;
+        this.cellStarts = cellStarts;
+        this.heights = heights;
+        this.costs = costs;
+        this.directions = directions;
+    }
+
+    /**
+     * @param target   узел цели, см. {@link PathNode#key(int, int, int)}
+     * @param radius   окно поля - квадрат со стороной 2 * radius + 1 вокруг цели, обрезанный по краю мира
+     * @param parallel опрашивать геодату параллельно
+     */
+    public static FlowField build(IGeoDriver driver, long target, int radius, boolean parallel) {
+        if (radius <= 0) {
+            throw new IllegalArgumentException("Flow field radius must be positive: " + radius);
+        }
+        int minGeoX = Math.max(0, PathNode.geoX(target) - radius);
+        int minGeoY = Math.max(0, PathNode.geoY(target) - radius);
+        int width = Math.min(GEO_CELLS_X - 1, PathNode.geoX(target) + radius) - minGeoX + 1;
+        int height = Math.min(GEO_CELLS_Y - 1, PathNode.geoY(target) + radius) - minGeoY + 1;
+
+        // слои ячеек за один опрос геодаты: высоты колонки во временный массив, число слоев в cellStarts
+        int[] cellStarts = new int[width * height + 1];
+        short[][] columnHeights = new short[width][];
+        columns(width, parallel).forEach(column -> {
+            int[] layerHeights = new int[IBlock.MAX_CELL_LAYERS];
+            byte[] layerNswe = new byte[IBlock.MAX_CELL_LAYERS];
+            short[] buffer = new short[height];
+            int count = 0;
+            for (int row = 0; row < height; row++) {
+                int layers = driver.getLayers(minGeoX + column, minGeoY + row, layerHeights, layerNswe);
+                if (count + layers > buffer.length) {
+                    buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + layers));
+                }
+                for (int layer = 0; layer < layers; layer++) {
+                    buffer[count++] = (short) layerHeights[layer];
+                }
+                cellStarts[column * height + row + 1] = layers;
+            }
+            columnHeights[column] = buffer;
+        });
+        Arrays.parallelPrefix(cellStarts, Integer::sum);
+        int nodeCount = cellStarts[cellStarts.length - 1];
+        short[] heights = new short[nodeCount];
+        int[] nodeCells = new int[nodeCount];
+        columns(width, parallel).forEach(column -> {
+            int first = cellStarts[column * height];
+            System.arraycopy(columnHeights[column], 0, heights, first, cellStarts[(column + 1) * height] - first);
+            columnHeights[column] = null;
+            for (int cell = column * height; cell < (column + 1) * height; cell++) {
+                Arrays.fill(nodeCells, cellStarts[cell], cellStarts[cell + 1], cell);
+            }
+        });
+
+        // прямые ребра: узел соседа по каждому направлению или -1
+        int[] edges = new int[nodeCount * Neighbours.COUNT];
+        columns(width, parallel).forEach(column -> {
+            int[] outZ = new int[Neighbours.COUNT];
+            byte[] outMask = new byte[Neighbours.COUNT];
+            for (int node = cellStarts[column * height]; node < cellStarts[(column + 1) * height]; node++) {
+                int cell = nodeCells[node];
+                int geoX = minGeoX + cell / height;
+                int geoY = minGeoY + cell % height;
+                int mask = driver.expandNeighbours(geoX, geoY, heights[node], outZ, outMask);
+                for (int direction = 0; direction < Neighbours.COUNT; direction++) {
+                    int next = -1;
+                    if (Neighbours.isReachable(mask, direction)) {
+                        int x = geoX + Neighbours.dx(direction) - minGeoX;
+                        int y = geoY + Neighbours.dy(direction) - minGeoY;
+                        if ((x >= 0) && (x < width) && (y >= 0) && (y < height)) {
+                            next = findLayer(cellStarts, heights, x * height + y, outZ[direction]);
+                        }
+                    }
+                    edges[node * Neighbours.COUNT + direction] = next;
+                }
+            }
+        });
+
+        int[] costs = new int[nodeCount];
+        Arrays.fill(costs, UNREACHABLE);
+        byte[] directions = new byte[nodeCount];
+        Arrays.fill(directions, (byte) NO_DIRECTION);
+        int targetX = PathNode.geoX(target) - minGeoX;
+        int targetY = PathNode.geoY(target) - minGeoY;
+        int targetNode = findLayer(cellStarts, heights, targetX * height + targetY, PathNode.z(target));
+        if (targetNode < 0) {
+            return new FlowField(target, minGeoX, minGeoY, width, height, cellStarts, heights, costs, directions);
+        }
+
+        // волна от цели: в узел v ведут ребра узлов u соседних ячеек, у которых ребро в обратном направлении указывает на v
+        OpenList open = new OpenList(4 * (width + height));
+        costs[targetNode] = 0;
+        open.push(0, targetNode);
+        while (!open.isEmpty()) {
+            int node = (int) open.pop();
+            int cost = open.lastPriority();
+            if (cost > costs[node]) {
+                continue;
+            }
+            int cell = nodeCells[node];
+            int x = cell / height;
+            int y = cell % height;
+            for (int direction = 0; direction < Neighbours.COUNT; direction++) {
+                int fromX = x + Neighbours.dx(direction);
+                int fromY = y + Neighbours.dy(direction);
+                if ((fromX < 0) || (fromX >= width) || (fromY < 0) || (fromY >= height)) {
+                    continue;
+                }
+                int back = OPPOSITE[direction];
+                int fromCost = cost + PathNode.cost(back);
+                int fromCell = fromX * height + fromY;
+                for (int from = cellStarts[fromCell]; from < cellStarts[fromCell + 1]; from++) {
+                    if ((edges[from * Neighbours.COUNT + back] == node) && (fromCost < costs[from])) {
+                        costs[from] = fromCost;
+                        directions[from] = (byte) back;
+                        open.push(fromCost, from);
+                    }
+                }
+            }
+        }
+        return new FlowField(target, minGeoX, minGeoY, width, height, cellStarts, heights, costs, directions);
+    }
+
+    private static IntStream columns(int width, boolean parallel) {
+        IntStream columns = IntStream.range(0, width);
+        return parallel ? columns.parallel() : columns;
+    }
+
+    /**
+     * Ближайший к z слой ячейки окна, -1 если слоев нет.
+     * При равенстве первый в порядке хранения, как в блоках драйвера и в {@link ConnectivityIndex}.
+     */
+    private static int findLayer(int[] cellStarts, short[] heights, int cell, int z) {
+        int nearest = -1;
+        int nearestDz = Integer.MAX_VALUE;
+        for (int node = cellStarts[cell]; node < cellStarts[cell + 1]; node++) {
+            int dz = Math.abs(heights[node] - z);
+            if (dz < nearestDz) {
+                nearest = node;
+                nearestDz = dz;
+            }
+        }
+        return nearest;
+    }
+
+    private int findNode(int geoX, int geoY, int worldZ) {
+        int x = geoX - minGeoX;
+        int y = geoY - minGeoY;
+        if ((x < 0) || (x >= width) || (y < 0) || (y >= height)) {
+            return -1;
+        }
+        return findLayer(cellStarts, heights, x * height + y, worldZ);
+    }
+
+    /**
+     * Направление первого шага к цели из ближайшего к worldZ слоя ячейки, см. {@link Neighbours}
+     *
+     * @return направление или NO_DIRECTION если ячейка вне окна, цель из нее недостижима или это сама цель
+     */
+    public int getDirection(int geoX, int geoY, int worldZ) {
+        int node = findNode(geoX, geoY, worldZ);
+        return node < 0 ? NO_DIRECTION : directions[node];
+    }
+
+    /**
+     * @return стоимость пути до цели (шаг 10, по диагонали 14) или UNREACHABLE
+     */
+    public int getCost(int geoX, int geoY, int worldZ) {
+        int node = findNode(geoX, geoY, worldZ);
+        return node < 0 ? UNREACHABLE : costs[node];
+    }
+
+    public boolean contains(int geoX, int geoY) {
+        return (geoX >= minGeoX) && (geoX < minGeoX + width) && (geoY >= minGeoY) && (geoY < minGeoY + height);
+    }
+
+    public long getTarget() {
+        return target;
+    }
+
+    public int getNodeCount() {
+        return heights.length;
+    }
+
+    public long sizeInBytes() {
+        return 4L * cellStarts.length + 2L * heights.length + 4L * costs.length + directions.length;
+    }
+}
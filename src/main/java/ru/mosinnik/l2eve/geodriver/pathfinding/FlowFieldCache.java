@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.pathfinding;
+
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.jfr.GeoCacheEvent;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Кэш полей потока по id цели (игрок, ворота). Поле перестраивается когда истек его срок жизни
+ * или цель сместилась больше чем на moveThreshold клеток от точки, для которой поле строилось.
+ * <p>
+ * Потокобезопасен, поле одной цели строится одним потоком, остальные ждут его и получают готовое.
+ * Поле строится вне блокировок map: в map сразу публикуется запись с незавершенным future,
+ * так что построение не держит бакет ConcurrentHashMap и не мешает запросам к другим целям.
+ */
+public final class FlowFieldCache {
+
+    private record Entry(long target, CompletableFuture<FlowField> field, long expiresAt) {
+    }
+
+    private final IGeoDriver driver;
+    private final int radius;
+    private final long ttlMillis;
+    private final int moveThreshold;
+    private final boolean parallel;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param radius        радиус окна поля в клетках, см. {@link FlowField#build(IGeoDriver, long, int, boolean)}
+     * @param ttlMillis     срок жизни поля
+     * @param moveThreshold смещение цели в клетках, после которого поле строится заново
+     * @param parallel      строить поля с параллельным опросом геодаты
+     */
+    public FlowFieldCache(IGeoDriver driver, int radius, long ttlMillis, int moveThreshold, boolean parallel) {
+        if ((radius <= 0) || (ttlMillis < 0) || (moveThreshold < 0)) {
+            throw new IllegalArgumentException("Invalid flow field cache settings: radius " + radius
+                + ", ttl " + ttlMillis + ", move threshold " + moveThreshold);
+        }
+        this.driver = driver;
+        this.radius = radius;
+        this.ttlMillis = ttlMillis;
+        this.moveThreshold = moveThreshold;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Поле к цели в текущей позиции: из кэша или построенное заново
+     */
+    public FlowField get(int targetId, int geoX, int geoY, int worldZ) {
+        long now = System.currentTimeMillis();
+        while (true) {
+            Entry entry = entries.get(targetId);
+            if ((entry != null) && (entry.expiresAt() > now) && !isMoved(entry.target(), geoX, geoY)) {
+                return entry.field().join();
+            }
+            long target = PathNode.key(geoX, geoY, driver.getNearestZ(geoX, geoY, worldZ));
+            Entry created = new Entry(target, new CompletableFuture<>(), now + ttlMillis);
+            boolean published = entry == null
+                ? entries.putIfAbsent(targetId, created) == null
+                : entries.replace(targetId, entry, created);
+            if (published) {
+                return build(targetId, created);
+            }
+            // запись заменил другой поток, его поле скорее всего подойдет
+        }
+    }
+
+    private FlowField build(int targetId, Entry entry) {
+        GeoCacheEvent event = new GeoCacheEvent();
+        event.begin();
+        FlowField field;
+        try {
+            field = FlowField.build(driver, entry.target(), radius, parallel);
+        } catch (RuntimeException | Error e) {
+            entries.remove(targetId, entry);
+            entry.field().completeExceptionally(e);
+            throw e;
+        }
+        entry.field().complete(field);
+        event.end();
+        if (event.shouldCommit()) {
+            event.cache = "FlowFieldCache";
+            event.key = targetId;
+            event.nodes = field.getNodeCount();
+            event.commit();
+        }
+        return field;
+    }
+
+    private boolean isMoved(long target, int geoX, int geoY) {
+        return Math.max(Math.abs(PathNode.geoX(target) - geoX), Math.abs(PathNode.geoY(target) - geoY)) > moveThreshold;
+    }
+
+    public void invalidate(int targetId) {
+        entries.remove(targetId);
+    }
+
+    /**
+     * Удаляет поля с истекшим сроком жизни, их цели могли пропасть
+     */
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long sizeInBytes() {
+        return entries.values().stream()
+            .map(entry -> entry.field().getNow(null))
+            .filter(Objects::nonNull)
+            .mapToLong(FlowField::sizeInBytes)
+            .sum();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.pathfinding;
+
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+
+import java.util.stream.IntStream;
+
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS_Y;
+
+/**
+ * Отпечаток загруженной геодаты для файлов индексов, построенных по ней: контрольная сумма содержимого
+ * каждого загруженного региона (все слои всех ячеек: число слоев, высота и NSWE) и суммы регионов вместе.
+ * Файл от другой геодаты, другого набора регионов или после правки высот и проходов с ним не совпадет.
+ * <p>
+ * Ячейки читаются через {@link IGeoDriver#getLayers}, так что отпечаток не зависит от кодирования блоков
+ * и одинаков у всех драйверов одной геодаты. Регионы считаются параллельно, 4М ячеек на регион,
+ * ~50 мс на регион на одно ядро у bytes драйвера.
+ */
+final class GeoFingerprint {
+
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private GeoFingerprint() {
+    }
+
+    static long of(IGeoDriver driver) {
+        long[] regionChecksums = IntStream.range(0, GEO_REGIONS)
+            .parallel()
+            .mapToLong(regionIndex -> regionChecksum(driver, regionIndex))
+            .toArray();
+        long hash = FNV_OFFSET;
+        for (long regionChecksum : regionChecksums) {
+            hash = (hash ^ regionChecksum) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * 0 если регион не загружен
+     */
+    private static long regionChecksum(IGeoDriver driver, int regionIndex) {
+        int regionGeoX = (regionIndex / GEO_REGIONS_Y) * IRegion.REGION_CELLS_X;
+        int regionGeoY = (regionIndex % GEO_REGIONS_Y) * IRegion.REGION_CELLS_Y;
+        if (!driver.hasGeoPos(regionGeoX, regionGeoY)) {
+            return 0;
+        }
+        int[] layerHeights = new int[IBlock.MAX_CELL_LAYERS];
+        byte[] layerNswe = new byte[IBlock.MAX_CELL_LAYERS];
+        long hash = (FNV_OFFSET ^ regionIndex) * FNV_PRIME;
+        for (int x = regionGeoX; x < regionGeoX + IRegion.REGION_CELLS_X; x++) {
+            for (int y = regionGeoY; y < regionGeoY + IRegion.REGION_CELLS_Y; y++) {
+                int layers = driver.getLayers(x, y, layerHeights, layerNswe);
+                hash = (hash ^ layers) * FNV_PRIME;
+                for (int i = 0; i < layers; i++) {
+                    hash = (hash ^ ((layerHeights[i] << 4) | layerNswe[i])) * FNV_PRIME;
+                }
+            }
+        }
+        return hash;
+    }
+}
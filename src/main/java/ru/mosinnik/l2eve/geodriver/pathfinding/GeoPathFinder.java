@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.pathfinding;
+
+import lombok.Getter;
+import lombok.Setter;
+import ru.mosinnik.l2eve.geodriver.Neighbours;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.util.LongList;
+
+import java.util.Arrays;
+
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_CELLS_X;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_CELLS_Y;
+
+/**
+ * A* по слоям ячеек, соседи и правила прохода берутся из
+ * {@link IGeoDriver#expandNeighbours(int, int, int, int[], byte[])}.
+ * <p>
+ * Все структуры поиска примитивные и переиспользуются между вызовами, экземпляр не потокобезопасен -
+ * по одному на поток поиска. Поиск можно ограничить прямоугольником (границы включительно),
+ * например кластером HPA*, и числом раскрытых узлов.
+ * <p>
+ * Режим {@link #setJumpUniformBlocks(boolean)} - вариант jump point search для открытой местности:
+ * из клетки однородного блока ({@link IGeoDriver#isBlockUniform(int, int)}) сразу раскрывается весь
+ * периметр блока с октильной стоимостью, внутренние клетки блока не раскрываются. В однородном блоке
+ * октильный путь между любыми клетками свободен, поэтому стоимость пути не меняется, а в сложных и
+ * многослойных блоках поиск идет как обычно.
+ */
+public final class GeoPathFinder {
+
+    public static final int NO_PATH = -1;
+
+    private final IGeoDriver driver;
+    private final NodeTable nodes = new NodeTable(4096);
+    private final OpenList open = new OpenList(1024);
+    private final int[] outZ = new int[Neighbours.COUNT];
+    private final byte[] outMask = new byte[Neighbours.COUNT];
+
+    /**
+     * Предел раскрытых узлов на один поиск, после него поиск считается неудачным
+     */
+    @Getter
+    @Setter
+    private int maxExpandedNodes = 200_000;
+
+    @Getter
+    @Setter
+    private boolean jumpUniformBlocks;
+
+    /**
+     * Число раскрытых узлов последнего поиска
+     */
+    @Getter
+    private int lastExpandedNodes;
+
+    private final LongList jumpPath = new LongList();
+    // последний проверенный на однородность блок, сбрасывается перед каждым поиском
+    private int lastBlockX;
+    private int lastBlockY;
+    private boolean lastBlockUniform;
+
+    public GeoPathFinder(IGeoDriver driver) {
+        this.driver = driver;
+    }
+
+    public IGeoDriver getDriver() {
+        return driver;
+    }
+
+    /**
+     * Узел ближайшего к worldZ слоя ячейки
+     */
+    public long node(int geoX, int geoY, int worldZ) {
+        return PathNode.key(geoX, geoY, driver.getNearestZ(geoX, geoY, worldZ));
+    }
+
+    /**
+     * Поиск по всему миру
+     *
+     * @param outPath получает узлы пути от старта до цели включительно
+     * @return стоимость пути или NO_PATH
+     */
+    public int findPath(int geoX, int geoY, int worldZ, int toGeoX, int toGeoY, int toWorldZ, LongList outPath) {
+        return findPath(node(geoX, geoY, worldZ), node(toGeoX, toGeoY, toWorldZ), 0, 0, GEO_CELLS_X - 1, GEO_CELLS_Y - 1, outPath);
+    }
+
+    /**
+     * Поиск внутри прямоугольника
+     *
+     * @param outPath получает узлы пути от старта до цели включительно, может быть null если нужна только стоимость
+     * @return стоимость пути или NO_PATH
+     */
+    public int findPath(long start, long goal, int minGeoX, int minGeoY, int maxGeoX, int maxGeoY, LongList outPath) {
+        if (outPath != null) {
+            outPath.clear();
+        }
+        reset();
+        nodes.setCost(nodes.insert(start), 0);
+        open.push(PathNode.heuristic(start, goal), start);
+        int expanded = 0;
+        while (!open.isEmpty()) {
+            long key = open.pop();
+            int slot = nodes.find(key);
+            if (nodes.isClosed(slot)) {
+                continue;
+            }
+            nodes.close(slot);
+            int cost = nodes.cost(slot);
+            if (key == goal) {
+                lastExpandedNodes = expanded;
+                if (outPath != null) {
+                    for (long node = goal; node != PathNode.NONE; node = nodes.parent(nodes.find(node))) {
+                        outPath.add(node);
+                    }
+                    outPath.reverse();
+                    if (jumpUniformBlocks) {
+                        fillJumps(outPath);
+                    }
+                }
+                return cost;
+            }
+            if (++expanded > maxExpandedNodes) {
+                break;
+            }
+            expand(key, cost, goal, null, minGeoX, minGeoY, maxGeoX, maxGeoY);
+        }
+        lastExpandedNodes = expanded;
+        return NO_PATH;
+    }
+
+    private void reset() {
+        nodes.clear();
+        open.clear();
+        lastBlockX = Integer.MIN_VALUE;
+    }
+
+    /**
+     * @param targets цели поиска стоимостей, в однородном блоке до них тоже прыгаем
+     */
+    private void expand(long key, int cost, long goal, long[] targets, int minGeoX, int minGeoY, int maxGeoX, int maxGeoY) {
+        int geoX = PathNode.geoX(key);
+        int geoY = PathNode.geoY(key);
+        int blockX = geoX & ~(IBlock.BLOCK_CELLS_X - 1);
+        int blockY = geoY & ~(IBlock.BLOCK_CELLS_Y - 1);
+        boolean jump = jumpUniformBlocks && isBlockUniform(blockX, blockY);
+        if (jump) {
+            int z = PathNode.z(key);
+            for (int x = Math.max(blockX, minGeoX); x <= Math.min(blockX + IBlock.BLOCK_CELLS_X - 1, maxGeoX); x++) {
+                boolean edgeX = (x == blockX) || (x == blockX + IBlock.BLOCK_CELLS_X - 1);
+                for (int y = Math.max(blockY, minGeoY); y <= Math.min(blockY + IBlock.BLOCK_CELLS_Y - 1, maxGeoY); y++) {
+                    if (edgeX || (y == blockY) || (y == blockY + IBlock.BLOCK_CELLS_Y - 1)) {
+                        jumpTo(key, cost, PathNode.key(x, y, z), goal);
+                    }
+                }
+            }
+            if ((goal != PathNode.NONE) && isInBlock(goal, blockX, blockY, z)) {
+                jumpTo(key, cost, goal, goal);
+            }
+            if (targets != null) {
+                for (long target : targets) {
+                    if (isInBlock(target, blockX, blockY, z)) {
+                        jumpTo(key, cost, target, goal);
+                    }
+                }
+            }
+            if ((geoX != blockX) && (geoX != blockX + IBlock.BLOCK_CELLS_X - 1)
+                && (geoY != blockY) && (geoY != blockY + IBlock.BLOCK_CELLS_Y - 1)) {
+                // из внутренней клетки наружу блока не шагнуть
+                return;
+            }
+        }
+
+        int mask = driver.expandNeighbours(geoX, geoY, PathNode.z(key), outZ, outMask);
+        for (int direction = 0; direction < Neighbours.COUNT; direction++) {
+            if (!Neighbours.isReachable(mask, direction)) {
+                continue;
+            }
+            int x = geoX + Neighbours.dx(direction);
+            int y = geoY + Neighbours.dy(direction);
+            if ((x < minGeoX) || (x > maxGeoX) || (y < minGeoY) || (y > maxGeoY)) {
+                continue;
+            }
+            if (jump && ((x & ~(IBlock.BLOCK_CELLS_X - 1)) == blockX) && ((y & ~(IBlock.BLOCK_CELLS_Y - 1)) == blockY)) {
+                // соседи внутри блока уже получены прыжком
+                continue;
+            }
+            relax(key, cost + PathNode.cost(direction), PathNode.key(x, y, outZ[direction]), goal);
+        }
+    }
+
+    private void jumpTo(long key, int cost, long to, long goal) {
+        if (to != key) {
+            relax(key, cost + PathNode.heuristic(key, to), to, goal);
+        }
+    }
+
+    private void relax(long key, int neighbourCost, long neighbour, long goal) {
+        int slot = nodes.insert(neighbour);
+        if (nodes.isClosed(slot) || (neighbourCost >= nodes.cost(slot))) {
+            return;
+        }
+        nodes.setCost(slot, neighbourCost);
+        nodes.setParent(slot, key);
+        open.push(neighbourCost + (goal == PathNode.NONE ? 0 : PathNode.heuristic(neighbour, goal)), neighbour);
+    }
+
+    private boolean isBlockUniform(int blockX, int blockY) {
+        if ((blockX != lastBlockX) || (blockY != lastBlockY)) {
+            lastBlockX = blockX;
+            lastBlockY = blockY;
+            lastBlockUniform = driver.isBlockUniform(blockX, blockY);
+        }
+        return lastBlockUniform;
+    }
+
+    private static boolean isInBlock(long key, int blockX, int blockY, int z) {
+        return ((PathNode.geoX(key) & ~(IBlock.BLOCK_CELLS_X - 1)) == blockX)
+            && ((PathNode.geoY(key) & ~(IBlock.BLOCK_CELLS_Y - 1)) == blockY)
+            && (PathNode.z(key) == z);
+    }
+
+    /**
+     * Прыжки пути раскладываются на клетки: сначала по диагонали, потом прямо, как считалась октильная стоимость
+     */
+    private void fillJumps(LongList path) {
+        jumpPath.clear();
+        for (int i = 0; i < path.size(); i++) {
+            long to = path.get(i);
+            if (i > 0) {
+                long from = path.get(i - 1);
+                int x = PathNode.geoX(from);
+                int y = PathNode.geoY(from);
+                int toX = PathNode.geoX(to);
+                int toY = PathNode.geoY(to);
+                while (Math.max(Math.abs(toX - x), Math.abs(toY - y)) > 1) {
+                    x += Integer.signum(toX - x);
+                    y += Integer.signum(toY - y);
+                    jumpPath.add(PathNode.key(x, y, PathNode.z(from)));
+                }
+            }
+            jumpPath.add(to);
+        }
+        path.clear();
+        for (int i = 0; i < jumpPath.size(); i++) {
+            path.add(jumpPath.get(i));
+        }
+    }
+
+    /**
+     * Дейкстра от старта внутри прямоугольника до набора целей, останавливается когда все цели достигнуты
+     *
+     * @param outCosts получает стоимость до каждой цели или NO_PATH
+     */
+    public void findCosts(long start, int minGeoX, int minGeoY, int maxGeoX, int maxGeoY, long[] targets, int[] outCosts) {
+        Arrays.fill(outCosts, 0, targets.length, NO_PATH);
+        reset();
+        nodes.setCost(nodes.insert(start), 0);
+        open.push(0, start);
+        int remaining = targets.length;
+        int expanded = 0;
+        while (!open.isEmpty() && (remaining > 0)) {
+            long key = open.pop();
+            int slot = nodes.find(key);
+            if (nodes.isClosed(slot)) {
+                continue;
+            }
+            nodes.close(slot);
+            int cost = nodes.cost(slot);
+            for (int i = 0; i < targets.length; i++) {
+                if ((targets[i] == key) && (outCosts[i] == NO_PATH)) {
+                    outCosts[i] = cost;
+                    remaining--;
+                }
+            }
+            if (++expanded > maxExpandedNodes) {
+                break;
+            }
+            expand(key, cost, PathNode.NONE, targets, minGeoX, minGeoY, maxGeoX, maxGeoY);
+        }
+        lastExpandedNodes = expanded;
+    }
+}
@@ -0,0 +1,580 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.pathfinding;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import ru.mosinnik.l2eve.geodriver.Neighbours;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+import ru.mosinnik.l2eve.geodriver.util.IntList;
+import ru.mosinnik.l2eve.geodriver.util.LongList;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_CELLS_X;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_CELLS_Y;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS_Y;
+import static ru.mosinnik.l2eve.geodriver.util.DataStreams.readInts;
+import static ru.mosinnik.l2eve.geodriver.util.DataStreams.readLongs;
+import static ru.mosinnik.l2eve.geodriver.util.DataStreams.writeInts;
+import static ru.mosinnik.l2eve.geodriver.util.DataStreams.writeLongs;
+
+/**
+ * Абстрактный граф HPA*: мир режется на кластеры N x N блоков, на общих границах соседних кластеров
+ * ищутся входы, внутри кластера между входами считаются стоимости поиском по ячейкам.
+ * <p>
+ * Вход - пара соседних слоев по разные стороны границы с проходом хотя бы в одну сторону.
+ * Подряд идущие вдоль границы проходы с плавной высотой объединяются, на узкий участок ставится один вход
+ * посередине, на широкий - по входу на концах. Узлы кластера - его стороны всех входов на 4 границах,
+ * ребра кластера направленные (NSWE проходы бывают односторонними).
+ * <p>
+ * Строится параллельно по кластерам, при перезагрузке региона пересчитываются только его кластеры и
+ * соседние с ним через границу ({@link #rebuildRegion(int, int)}). Кластеры и границы хранятся по регионам
+ * в массивах по индексу кластера в регионе, память тратится только на регионы с геодатой.
+ * <p>
+ * Граф можно сохранить рядом с bin геодатой, файл начинается с MAGIC, VERSION, размера кластера
+ * и {@link GeoFingerprint} геодаты (контрольной суммы содержимого ячеек): файл от другой геодаты
+ * или после правки высот и проходов не читается.
+ * Поиск по графу и уточнение пути - {@link HpaPathFinder}.
+ */
+@Slf4j
+public final class HpaGraph {
+
+    public static final String HPA_GRAPH_FILE_NAME = "hpaGraph.bin";
+    public static final int DEFAULT_CLUSTER_BLOCKS = 8;
+
+    public static final int MAGIC = 0x4C324750; // L2GP
+    public static final int VERSION = 2;
+
+    static final int EAST_BORDER = 0;
+    static final int SOUTH_BORDER = 1;
+    // направления прохода через вход: из кластера A (запад/север) в B и обратно
+    static final int A_TO_B = 1;
+    static final int B_TO_A = 2;
+
+    // участок границы шире этого получает два входа на концах
+    private static final int MAX_ENTRANCE_WIDTH = 6;
+    // проходы соседних клеток границы с большей разницей высот - разные участки (например мост над дорогой)
+    private static final int MAX_ENTRANCE_DZ = 32;
+
+    private final IGeoDriver driver;
+    private final int clusterBlocks;
+    private final int clusterShift;
+    private final int clustersY;
+    // log2 стороны региона в кластерах
+    private final int regionClusterShift;
+
+    private final RegionGraph[] regions = new RegionGraph[GEO_REGIONS];
+
+    /**
+     * Кластеры региона по индексу кластера в регионе (x << regionClusterShift | y)
+     *
+     * @param borders по индексу кластера в регионе << 1 | border тройки (узел A, узел B, направления)
+     */
+    private record RegionGraph(AtomicReferenceArray<Cluster> clusters, AtomicReferenceArray<long[]> borders) {
+    }
+
+    /**
+     * @param nodes узлы кластера
+     * @param edges тройки (индекс откуда, индекс куда, стоимость), отсортированы по индексу откуда
+     */
+    record Cluster(long[] nodes, int[] edges) {
+
+        int indexOf(long node) {
+            for (int i = 0; i < nodes.length; i++) {
+                if (nodes[i] == node) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private HpaGraph(IGeoDriver driver, int clusterBlocks) {
+        if ((clusterBlocks <= 0) || (clusterBlocks > IRegion.REGION_BLOCKS_X) || (Integer.bitCount(clusterBlocks) != 1)) {
+            throw new IllegalArgumentException("Cluster blocks must be a power of two up to " + IRegion.REGION_BLOCKS_X + ": " + clusterBlocks);
+        }
+        this.driver = driver;
+        this.clusterBlocks = clusterBlocks;
+        this.clusterShift = Integer.numberOfTrailingZeros(clusterBlocks * IBlock.BLOCK_CELLS_X);
+        this.clustersY = GEO_CELLS_Y >> clusterShift;
+        this.regionClusterShift = Integer.numberOfTrailingZeros(IRegion.REGION_BLOCKS_X / clusterBlocks);
+    }
+
+    public static HpaGraph build(IGeoDriver driver) {
+        return build(driver, DEFAULT_CLUSTER_BLOCKS);
+    }
+
+    public static HpaGraph build(IGeoDriver driver, int clusterBlocks) {
+        HpaGraph graph = new HpaGraph(driver, clusterBlocks);
+        int[] clusterIds = IntStream.range(0, (GEO_CELLS_X >> graph.clusterShift) * graph.clustersY)
+            .filter(clusterId -> driver.hasGeoPos(graph.clusterMinGeoX(clusterId), graph.clusterMinGeoY(clusterId)))
+            .toArray();
+        graph.rebuildClusters(clusterIds);
+        log.info("Built HPA graph: {} clusters, {} nodes, {} edges", graph.getClusterCount(), graph.getNodeCount(), graph.getEdgeCount());
+        return graph;
+    }
+
+    /**
+     * Пересчет после перезагрузки региона в драйвере: кластеры региона и соседние с ним через границу
+     */
+    public void rebuildRegion(int regionX, int regionY) {
+        int regionClusters = IRegion.REGION_BLOCKS_X / clusterBlocks;
+        int fromX = regionX * regionClusters;
+        int fromY = regionY * regionClusters;
+        int[] clusterIds = new int[regionClusters * regionClusters];
+        int i = 0;
+        for (int clusterX = fromX; clusterX < fromX + regionClusters; clusterX++) {
+            for (int clusterY = fromY; clusterY < fromY + regionClusters; clusterY++) {
+                clusterIds[i++] = clusterX * clustersY + clusterY;
+            }
+        }
+        rebuildClusters(clusterIds);
+        log.info("Rebuilt HPA graph for region {}_{}: {} clusters", regionX, regionY, clusterIds.length);
+    }
+
+    private synchronized void rebuildClusters(int[] clusterIds) {
+        IntList keys = new IntList();
+        for (int clusterId : clusterIds) {
+            int clusterX = clusterId / clustersY;
+            int clusterY = clusterId % clustersY;
+            keys.add(borderKey(clusterId, EAST_BORDER));
+            keys.add(borderKey(clusterId, SOUTH_BORDER));
+            if (clusterX > 0) {
+                keys.add(borderKey(clusterId - clustersY, EAST_BORDER));
+            }
+            if (clusterY > 0) {
+                keys.add(borderKey(clusterId - 1, SOUTH_BORDER));
+            }
+        }
+        int[] borderKeys = Arrays.stream(keys.toArray()).distinct().toArray();
+        long[][] entrances = Arrays.stream(borderKeys)
+            .parallel()
+            .mapToObj(borderKey -> scanBorder(borderKey >> 1, borderKey & 1))
+            .toArray(long[][]::new);
+        for (int i = 0; i < borderKeys.length; i++) {
+            setBorder(borderKeys[i] >> 1, borderKeys[i] & 1, entrances[i].length == 0 ? null : entrances[i]);
+        }
+
+        IntList affectedIds = new IntList();
+        for (int borderKey : borderKeys) {
+            int clusterId = borderKey >> 1;
+            affectedIds.add(clusterId);
+            int other = getOtherCluster(clusterId, borderKey & 1);
+            if (other >= 0) {
+                affectedIds.add(other);
+            }
+        }
+        int[] affected = Arrays.stream(affectedIds.toArray()).distinct().toArray();
+        ThreadLocal<GeoPathFinder> finders = ThreadLocal.withInitial(() -> new GeoPathFinder(driver));
+        Cluster[] built = Arrays.stream(affected)
+            .parallel()
+            .mapToObj(clusterId -> buildCluster(clusterId, finders.get()))
+            .toArray(Cluster[]::new);
+        for (int i = 0; i < affected.length; i++) {
+            setCluster(affected[i], built[i]);
+        }
+    }
+
+    private int regionIndexOf(int clusterId) {
+        return ((clusterId / clustersY) >> regionClusterShift) * GEO_REGIONS_Y + ((clusterId % clustersY) >> regionClusterShift);
+    }
+
+    private int indexInRegion(int clusterId) {
+        int mask = (1 << regionClusterShift) - 1;
+        return (((clusterId / clustersY) & mask) << regionClusterShift) | ((clusterId % clustersY) & mask);
+    }
+
+    /**
+     * Регион создается при первой записи, пишет только один поток (под synchronized или при чтении файла)
+     */
+    private RegionGraph getOrCreateRegion(int regionIndex) {
+        RegionGraph region = regions[regionIndex];
+        if (region == null) {
+            int regionClusters = 1 << (2 * regionClusterShift);
+            region = new RegionGraph(new AtomicReferenceArray<>(regionClusters), new AtomicReferenceArray<>(regionClusters << 1));
+            regions[regionIndex] = region;
+        }
+        return region;
+    }
+
+    private void setCluster(int clusterId, Cluster cluster) {
+        int regionIndex = regionIndexOf(clusterId);
+        if ((cluster != null) || (regions[regionIndex] != null)) {
+            getOrCreateRegion(regionIndex).clusters().set(indexInRegion(clusterId), cluster);
+        }
+    }
+
+    private void setBorder(int clusterId, int border, long[] entrances) {
+        int regionIndex = regionIndexOf(clusterId);
+        if ((entrances != null) || (regions[regionIndex] != null)) {
+            getOrCreateRegion(regionIndex).borders().set(borderKey(indexInRegion(clusterId), border), entrances);
+        }
+    }
+
+    private int getOtherCluster(int clusterId, int border) {
+        if (border == EAST_BORDER) {
+            return clusterId / clustersY + 1 < (GEO_CELLS_X >> clusterShift) ? clusterId + clustersY : -1;
+        }
+        return clusterId % clustersY + 1 < clustersY ? clusterId + 1 : -1;
+    }
+
+    /**
+     * Входы на восточной или южной границе кластера
+     */
+    private long[] scanBorder(int clusterId, int border) {
+        int clusterCells = 1 << clusterShift;
+        int dx = border == EAST_BORDER ? 1 : 0;
+        int dy = border == SOUTH_BORDER ? 1 : 0;
+        int forward = border == EAST_BORDER ? Neighbours.EAST : Neighbours.SOUTH;
+        int backward = border == EAST_BORDER ? Neighbours.WEST : Neighbours.NORTH;
+        // первая клетка кластера A вдоль границы
+        int geoX = clusterMinGeoX(clusterId) + dx * (clusterCells - 1);
+        int geoY = clusterMinGeoY(clusterId) + dy * (clusterCells - 1);
+        if ((geoX + dx >= GEO_CELLS_X) || (geoY + dy >= GEO_CELLS_Y)) {
+            return new long[0];
+        }
+
+        int[] layerHeights = new int[IBlock.MAX_CELL_LAYERS];
+        byte[] layerNswe = new byte[IBlock.MAX_CELL_LAYERS];
+        int[] outZ = new int[Neighbours.COUNT];
+        byte[] outMask = new byte[Neighbours.COUNT];
+        LongList entrances = new LongList();
+        List<LongList> runs = new ArrayList<>();
+        for (int i = 0; i <= clusterCells; i++) {
+            // проходы в этой клетке границы: тройки (A, B, направления)
+            LongList transitions = new LongList();
+            if (i < clusterCells) {
+                int aX = geoX + dy * i;
+                int aY = geoY + dx * i;
+                int bX = aX + dx;
+                int bY = aY + dy;
+                if (driver.hasGeoPos(aX, aY) && driver.hasGeoPos(bX, bY)) {
+                    int layers = driver.getLayers(aX, aY, layerHeights, layerNswe);
+                    for (int layer = 0; layer < layers; layer++) {
+                        int mask = driver.expandNeighbours(aX, aY, layerHeights[layer], outZ, outMask);
+                        if (Neighbours.isReachable(mask, forward)) {
+                            addTransition(transitions, PathNode.key(aX, aY, layerHeights[layer]), PathNode.key(bX, bY, outZ[forward]), A_TO_B);
+                        }
+                    }
+                    layers = driver.getLayers(bX, bY, layerHeights, layerNswe);
+                    for (int layer = 0; layer < layers; layer++) {
+                        int mask = driver.expandNeighbours(bX, bY, layerHeights[layer], outZ, outMask);
+                        if (Neighbours.isReachable(mask, backward)) {
+                            addTransition(transitions, PathNode.key(aX, aY, outZ[backward]), PathNode.key(bX, bY, layerHeights[layer]), B_TO_A);
+                        }
+                    }
+                }
+            }
+
+            // продолжаем участки прошлой клетки, незатронутые закрываются
+            List<LongList> nextRuns = new ArrayList<>();
+            for (int t = 0; t < transitions.size(); t += 3) {
+                LongList run = null;
+                for (LongList candidate : runs) {
+                    int last = candidate.size() - 3;
+                    if ((candidate.get(last + 2) == transitions.get(t + 2))
+                        && (Math.abs(PathNode.z(candidate.get(last)) - PathNode.z(transitions.get(t))) <= MAX_ENTRANCE_DZ)
+                        && (Math.abs(PathNode.z(candidate.get(last + 1)) - PathNode.z(transitions.get(t + 1))) <= MAX_ENTRANCE_DZ)) {
+                        run = candidate;
+                        break;
+                    }
+                }
+                if (run != null) {
+                    runs.remove(run);
+                } else {
+                    run = new LongList();
+                }
+                run.add(transitions.get(t));
+                run.add(transitions.get(t + 1));
+                run.add(transitions.get(t + 2));
+                nextRuns.add(run);
+            }
+            for (LongList run : runs) {
+                addEntrances(entrances, run);
+            }
+            runs = nextRuns;
+        }
+        return entrances.toArray();
+    }
+
+    private static void addTransition(LongList transitions, long a, long b, int direction) {
+        for (int t = 0; t < transitions.size(); t += 3) {
+            if ((transitions.get(t) == a) && (transitions.get(t + 1) == b)) {
+                transitions.set(t + 2, transitions.get(t + 2) | direction);
+                return;
+            }
+        }
+        transitions.add(a);
+        transitions.add(b);
+        transitions.add(direction);
+    }
+
+    private static void addEntrances(LongList entrances, LongList run) {
+        int count = run.size() / 3;
+        if (count <= MAX_ENTRANCE_WIDTH) {
+            addEntrance(entrances, run, count / 2);
+        } else {
+            addEntrance(entrances, run, 0);
+            addEntrance(entrances, run, count - 1);
+        }
+    }
+
+    private static void addEntrance(LongList entrances, LongList run, int index) {
+        entrances.add(run.get(index * 3));
+        entrances.add(run.get(index * 3 + 1));
+        entrances.add(run.get(index * 3 + 2));
+    }
+
+    /**
+     * Узлы кластера со всех 4 границ и стоимости между ними, null если геодаты в кластере нет
+     */
+    private Cluster buildCluster(int clusterId, GeoPathFinder finder) {
+        int minGeoX = clusterMinGeoX(clusterId);
+        int minGeoY = clusterMinGeoY(clusterId);
+        if (!driver.hasGeoPos(minGeoX, minGeoY)) {
+            return null;
+        }
+        LongList nodes = new LongList();
+        addBorderNodes(nodes, getBorder(clusterId, EAST_BORDER), 0);
+        addBorderNodes(nodes, getBorder(clusterId, SOUTH_BORDER), 0);
+        if (clusterId / clustersY > 0) {
+            addBorderNodes(nodes, getBorder(clusterId - clustersY, EAST_BORDER), 1);
+        }
+        if (clusterId % clustersY > 0) {
+            addBorderNodes(nodes, getBorder(clusterId - 1, SOUTH_BORDER), 1);
+        }
+        long[] clusterNodes = nodes.toArray();
+
+        int maxGeoX = minGeoX + (1 << clusterShift) - 1;
+        int maxGeoY = minGeoY + (1 << clusterShift) - 1;
+        IntList edges = new IntList();
+        int[] costs = new int[clusterNodes.length];
+        for (int from = 0; from < clusterNodes.length; from++) {
+            finder.findCosts(clusterNodes[from], minGeoX, minGeoY, maxGeoX, maxGeoY, clusterNodes, costs);
+            for (int to = 0; to < clusterNodes.length; to++) {
+                if ((to != from) && (costs[to] != GeoPathFinder.NO_PATH)) {
+                    edges.add(from);
+                    edges.add(to);
+                    edges.add(costs[to]);
+                }
+            }
+        }
+        return new Cluster(clusterNodes, edges.toArray());
+    }
+
+    /**
+     * @param side 0 - узлы A, 1 - узлы B
+     */
+    private static void addBorderNodes(LongList nodes, long[] entrances, int side) {
+        if (entrances == null) {
+            return;
+        }
+        outer:
+        for (int t = 0; t < entrances.length; t += 3) {
+            long node = entrances[t + side];
+            for (int i = 0; i < nodes.size(); i++) {
+                if (nodes.get(i) == node) {
+                    continue outer;
+                }
+            }
+            nodes.add(node);
+        }
+    }
+
+    static int borderKey(int clusterId, int border) {
+        return (clusterId << 1) | border;
+    }
+
+    int getClusterId(int geoX, int geoY) {
+        return (geoX >> clusterShift) * clustersY + (geoY >> clusterShift);
+    }
+
+    int clusterMinGeoX(int clusterId) {
+        return (clusterId / clustersY) << clusterShift;
+    }
+
+    int clusterMinGeoY(int clusterId) {
+        return (clusterId % clustersY) << clusterShift;
+    }
+
+    int getClusterCells() {
+        return 1 << clusterShift;
+    }
+
+    int getClustersY() {
+        return clustersY;
+    }
+
+    Cluster getCluster(int clusterId) {
+        RegionGraph region = regions[regionIndexOf(clusterId)];
+        return region == null ? null : region.clusters().get(indexInRegion(clusterId));
+    }
+
+    long[] getBorder(int clusterId, int border) {
+        RegionGraph region = regions[regionIndexOf(clusterId)];
+        return region == null ? null : region.borders().get(borderKey(indexInRegion(clusterId), border));
+    }
+
+    public IGeoDriver getDriver() {
+        return driver;
+    }
+
+    public int getClusterBlocks() {
+        return clusterBlocks;
+    }
+
+    public int getClusterCount() {
+        return (int) Arrays.stream(getRegionClusterIds()).filter(clusterId -> getCluster(clusterId) != null).count();
+    }
+
+    public long getNodeCount() {
+        long nodes = 0;
+        for (int clusterId : getRegionClusterIds()) {
+            Cluster cluster = getCluster(clusterId);
+            nodes += cluster == null ? 0 : cluster.nodes().length;
+        }
+        return nodes;
+    }
+
+    public long getEdgeCount() {
+        long edges = 0;
+        for (int clusterId : getRegionClusterIds()) {
+            Cluster cluster = getCluster(clusterId);
+            edges += cluster == null ? 0 : cluster.edges().length / 3;
+            for (int border = EAST_BORDER; border <= SOUTH_BORDER; border++) {
+                long[] entrances = getBorder(clusterId, border);
+                edges += entrances == null ? 0 : entrances.length / 3;
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * id всех кластеров регионов, под которые в графе выделено место
+     */
+    private int[] getRegionClusterIds() {
+        IntList clusterIds = new IntList();
+        int regionClusters = 1 << regionClusterShift;
+        for (int regionIndex = 0; regionIndex < GEO_REGIONS; regionIndex++) {
+            if (regions[regionIndex] == null) {
+                continue;
+            }
+            int fromX = (regionIndex / GEO_REGIONS_Y) * regionClusters;
+            int fromY = (regionIndex % GEO_REGIONS_Y) * regionClusters;
+            for (int clusterX = fromX; clusterX < fromX + regionClusters; clusterX++) {
+                for (int clusterY = fromY; clusterY < fromY + regionClusters; clusterY++) {
+                    clusterIds.add(clusterX * clustersY + clusterY);
+                }
+            }
+        }
+        return clusterIds.toArray();
+    }
+
+    @SneakyThrows
+    public void writeToFiles(Path dataDir) {
+        Path path = dataDir.resolve(HPA_GRAPH_FILE_NAME);
+        int[] clusterIds = getRegionClusterIds();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(clusterBlocks);
+            out.writeLong(GeoFingerprint.of(driver));
+            for (int clusterId : clusterIds) {
+                Cluster cluster = getCluster(clusterId);
+                if (cluster != null) {
+                    out.writeInt(clusterId);
+                    writeLongs(out, cluster.nodes());
+                    writeInts(out, cluster.edges());
+                }
+            }
+            out.writeInt(-1);
+            for (int clusterId : clusterIds) {
+                for (int border = EAST_BORDER; border <= SOUTH_BORDER; border++) {
+                    long[] entrances = getBorder(clusterId, border);
+                    if (entrances != null) {
+                        out.writeInt(borderKey(clusterId, border));
+                        writeLongs(out, entrances);
+                    }
+                }
+            }
+            out.writeInt(-1);
+            log.info("Updated HPA graph file: {}, {} bytes", HPA_GRAPH_FILE_NAME, out.size());
+        }
+    }
+
+    /**
+     * Returns null if there is no graph file or it was built with other cluster size, format version or geodata
+     *
+     * @throws IllegalArgumentException если это не файл графа
+     */
+    @SneakyThrows
+    public static HpaGraph readFromFiles(Path dataDir, IGeoDriver driver, int clusterBlocks) {
+        Path path = dataDir.resolve(HPA_GRAPH_FILE_NAME);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            int magic = in.readInt();
+            if (magic != MAGIC) {
+                throw new IllegalArgumentException("Wrong HPA graph magic: " + Integer.toHexString(magic));
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                log.info("HPA graph file {} has version {} instead of {}, ignored", HPA_GRAPH_FILE_NAME, version, VERSION);
+                return null;
+            }
+            int fileClusterBlocks = in.readInt();
+            if (fileClusterBlocks != clusterBlocks) {
+                log.info("HPA graph file {} has cluster blocks {} instead of {}, ignored", HPA_GRAPH_FILE_NAME, fileClusterBlocks, clusterBlocks);
+                return null;
+            }
+            if (in.readLong() != GeoFingerprint.of(driver)) {
+                log.info("HPA graph file {} was built for other geodata, ignored", HPA_GRAPH_FILE_NAME);
+                return null;
+            }
+            HpaGraph graph = new HpaGraph(driver, clusterBlocks);
+            for (int clusterId = in.readInt(); clusterId != -1; clusterId = in.readInt()) {
+                graph.setCluster(clusterId, new Cluster(readLongs(in), readInts(in)));
+            }
+            for (int borderKey = in.readInt(); borderKey != -1; borderKey = in.readInt()) {
+                graph.setBorder(borderKey >> 1, borderKey & 1, readLongs(in));
+            }
+            log.info("Read HPA graph file: {}, {} clusters", HPA_GRAPH_FILE_NAME, graph.getClusterCount());
+            return graph;
+        }
+    }
+}
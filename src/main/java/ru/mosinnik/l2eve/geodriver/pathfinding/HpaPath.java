@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.pathfinding;
+
+import ru.mosinnik.l2eve.geodriver.util.LongList;
+
+/**
+ * Путь по абстрактному графу HPA*: точки пути, отрезки между ними уточняются до ячеек лениво по мере движения.
+ * <p>
+ * Уточнение идет поиском того {@link HpaPathFinder}, что построил путь, поэтому пользоваться путем можно
+ * только в его потоке и до следующего поиска.
+ */
+public final class HpaPath {
+
+    private final HpaPathFinder pathFinder;
+    private final long[] waypoints;
+    private int segment;
+
+    HpaPath(HpaPathFinder pathFinder, long[] waypoints) {
+        this.pathFinder = pathFinder;
+        this.waypoints = waypoints;
+    }
+
+    /**
+     * Точки пути от старта до цели включительно, ключи {@link PathNode}
+     */
+    public long[] getWaypoints() {
+        return waypoints.clone();
+    }
+
+    public boolean hasNext() {
+        return segment < waypoints.length - 1;
+    }
+
+    /**
+     * Уточняет следующий отрезок пути
+     *
+     * @param outPath получает узлы отрезка от его начала до конца включительно
+     * @return стоимость отрезка или {@link GeoPathFinder#NO_PATH}, если геодата изменилась после построения графа
+     */
+    public int refineNext(LongList outPath) {
+        if (!hasNext()) {
+            throw new IllegalStateException("Path is already refined");
+        }
+        long from = waypoints[segment];
+        long to = waypoints[segment + 1];
+        segment++;
+        return pathFinder.refine(from, to, outPath);
+    }
+}
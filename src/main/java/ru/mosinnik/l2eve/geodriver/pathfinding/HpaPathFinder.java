@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.pathfinding;
+
+import ru.mosinnik.l2eve.geodriver.util.LongList;
+
+import static ru.mosinnik.l2eve.geodriver.pathfinding.HpaGraph.A_TO_B;
+import static ru.mosinnik.l2eve.geodriver.pathfinding.HpaGraph.B_TO_A;
+import static ru.mosinnik.l2eve.geodriver.pathfinding.HpaGraph.EAST_BORDER;
+import static ru.mosinnik.l2eve.geodriver.pathfinding.HpaGraph.SOUTH_BORDER;
+
+/**
+ * Поиск по {@link HpaGraph}: старт и цель подключаются к узлам своих кластеров, дальше A* по абстрактному графу.
+ * Если старт и цель в одном кластере, сначала пробуется прямой поиск внутри кластера.
+ * <p>
+ * Экземпляр не потокобезопасен - по одному на поток поиска, граф общий.
+ */
+public final class HpaPathFinder {
+
+    private final HpaGraph graph;
+    private final GeoPathFinder finder;
+    private final NodeTable nodes = new NodeTable(1024);
+    private final OpenList open = new OpenList(256);
+    private final LongList goalNodes = new LongList();
+    private final LongList goalCosts = new LongList();
+    private int[] startCosts = new int[16];
+
+    public HpaPathFinder(HpaGraph graph) {
+        this.graph = graph;
+        this.finder = new GeoPathFinder(graph.getDriver());
+    }
+
+    public HpaGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return путь или null если цель недостижима
+     */
+    public HpaPath findPath(int geoX, int geoY, int worldZ, int toGeoX, int toGeoY, int toWorldZ) {
+        return findPath(finder.node(geoX, geoY, worldZ), finder.node(toGeoX, toGeoY, toWorldZ));
+    }
+
+    public HpaPath findPath(long start, long goal) {
+        int startCluster = graph.getClusterId(PathNode.geoX(start), PathNode.geoY(start));
+        int goalCluster = graph.getClusterId(PathNode.geoX(goal), PathNode.geoY(goal));
+        if ((startCluster == goalCluster) && (refine(start, goal, null) != GeoPathFinder.NO_PATH)) {
+            return new HpaPath(this, new long[]{start, goal});
+        }
+
+        HpaGraph.Cluster startNodes = graph.getCluster(startCluster);
+        HpaGraph.Cluster goalNodesCluster = graph.getCluster(goalCluster);
+        if ((startNodes == null) || (goalNodesCluster == null)) {
+            return null;
+        }
+
+        // виртуальные ребра от узлов кластера цели к цели
+        goalNodes.clear();
+        goalCosts.clear();
+        for (long node : goalNodesCluster.nodes()) {
+            int cost = refine(node, goal, null);
+            if (cost != GeoPathFinder.NO_PATH) {
+                goalNodes.add(node);
+                goalCosts.add(cost);
+            }
+        }
+        if (goalNodes.isEmpty()) {
+            return null;
+        }
+
+        // виртуальные ребра от старта к узлам его кластера
+        long[] clusterNodes = startNodes.nodes();
+        if (startCosts.length < clusterNodes.length) {
+            startCosts = new int[clusterNodes.length];
+        }
+        finder.findCosts(start, graph.clusterMinGeoX(startCluster), graph.clusterMinGeoY(startCluster),
+            graph.clusterMinGeoX(startCluster) + graph.getClusterCells() - 1, graph.clusterMinGeoY(startCluster) + graph.getClusterCells() - 1,
+            clusterNodes, startCosts);
+
+        nodes.clear();
+        open.clear();
+        nodes.setCost(nodes.insert(start), 0);
+        open.push(PathNode.heuristic(start, goal), start);
+        while (!open.isEmpty()) {
+            long key = open.pop();
+            int slot = nodes.find(key);
+            if (nodes.isClosed(slot)) {
+                continue;
+            }
+            nodes.close(slot);
+            int cost = nodes.cost(slot);
+            if (key == goal) {
+                LongList waypoints = new LongList();
+                for (long node = goal; node != PathNode.NONE; node = nodes.parent(nodes.find(node))) {
+                    waypoints.add(node);
+                }
+                waypoints.reverse();
+                return new HpaPath(this, waypoints.toArray());
+            }
+            if (key == start) {
+                for (int i = 0; i < clusterNodes.length; i++) {
+                    if (startCosts[i] != GeoPathFinder.NO_PATH) {
+                        relax(start, clusterNodes[i], startCosts[i], goal);
+                    }
+                }
+            }
+            expand(key, cost, goal);
+        }
+        return null;
+    }
+
+    private void expand(long key, int cost, long goal) {
+        for (int i = 0; i < goalNodes.size(); i++) {
+            if (goalNodes.get(i) == key) {
+                relax(key, goal, cost + (int) goalCosts.get(i), goal);
+            }
+        }
+
+        int clusterId = graph.getClusterId(PathNode.geoX(key), PathNode.geoY(key));
+        HpaGraph.Cluster cluster = graph.getCluster(clusterId);
+        if (cluster == null) {
+            return;
+        }
+        int index = cluster.indexOf(key);
+        if (index < 0) {
+            return;
+        }
+        int[] edges = cluster.edges();
+        for (int e = 0; e < edges.length; e += 3) {
+            if (edges[e] == index) {
+                relax(key, cluster.nodes()[edges[e + 1]], cost + edges[e + 2], goal);
+            }
+        }
+
+        int interCost = cost + PathNode.STRAIGHT_COST;
+        relaxBorder(key, graph.getBorder(clusterId, EAST_BORDER), 0, A_TO_B, interCost, goal);
+        relaxBorder(key, graph.getBorder(clusterId, SOUTH_BORDER), 0, A_TO_B, interCost, goal);
+        if (clusterId / graph.getClustersY() > 0) {
+            relaxBorder(key, graph.getBorder(clusterId - graph.getClustersY(), EAST_BORDER), 1, B_TO_A, interCost, goal);
+        }
+        if (clusterId % graph.getClustersY() > 0) {
+            relaxBorder(key, graph.getBorder(clusterId - 1, SOUTH_BORDER), 1, B_TO_A, interCost, goal);
+        }
+    }
+
+    private void relaxBorder(long key, long[] entrances, int side, int direction, int cost, long goal) {
+        if (entrances == null) {
+            return;
+        }
+        for (int t = 0; t < entrances.length; t += 3) {
+            if ((entrances[t + side] == key) && ((entrances[t + 2] & direction) != 0)) {
+                relax(key, entrances[t + 1 - side], cost, goal);
+            }
+        }
+    }
+
+    private void relax(long from, long to, int cost, long goal) {
+        int slot = nodes.insert(to);
+        if (nodes.isClosed(slot) || (cost >= nodes.cost(slot))) {
+            return;
+        }
+        nodes.setCost(slot, cost);
+        nodes.setParent(slot, from);
+        open.push(cost + PathNode.heuristic(to, goal), to);
+    }
+
+    /**
+     * Поиск по ячейкам между соседними точками пути внутри их кластеров
+     */
+    int refine(long from, long to, LongList outPath) {
+        int fromCluster = graph.getClusterId(PathNode.geoX(from), PathNode.geoY(from));
+        int toCluster = graph.getClusterId(PathNode.geoX(to), PathNode.geoY(to));
+        int minGeoX = Math.min(graph.clusterMinGeoX(fromCluster), graph.clusterMinGeoX(toCluster));
+        int minGeoY = Math.min(graph.clusterMinGeoY(fromCluster), graph.clusterMinGeoY(toCluster));
+        int maxGeoX = Math.max(graph.clusterMinGeoX(fromCluster), graph.clusterMinGeoX(toCluster)) + graph.getClusterCells() - 1;
+        int maxGeoY = Math.max(graph.clusterMinGeoY(fromCluster), graph.clusterMinGeoY(toCluster)) + graph.getClusterCells() - 1;
+        return finder.findPath(from, to, minGeoX, minGeoY, maxGeoX, maxGeoY, outPath);
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.pathfinding;
+
+import lombok.Getter;
+import ru.mosinnik.l2eve.geodriver.Neighbours;
+import ru.mosinnik.l2eve.geodriver.driver.GeoOverlay;
+import ru.mosinnik.l2eve.geodriver.util.LongList;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_CELLS_X;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_CELLS_Y;
+
+/**
+ * Инкрементальное перепланирование для погони за движущейся целью: путь агента хранится между вызовами
+ * и чинится локально вместо полного A* каждые несколько тиков.
+ * <ul>
+ *     <li>агент прошел часть пути - путь сдвигается без поиска;</li>
+ *     <li>цель сместилась на несколько клеток - конец пути перестраивается от точки чуть раньше старой цели;</li>
+ *     <li>сменилась эпоха {@link GeoOverlay} - остаток пути проверяется по шагам, разорванный участок
+ *     обходится поиском от последней целой точки до точки пути за разрывом.</li>
+ * </ul>
+ * Локальные поиски ограничены прямоугольником вокруг участка. Если починка не удалась, агент сошел с пути,
+ * цель ушла далеко или починок подряд слишком много, путь строится заново, так ошибка от склеек не копится.
+ * <p>
+ * Состояние агентов - пути на примитивных списках, общее число агентов ограничено, давно не обновлявшиеся
+ * вытесняются, их списки переиспользуются. Экземпляр не потокобезопасен - по одному на поток ИИ.
+ */
+public final class IncrementalPlanner {
+
+    public static final int DEFAULT_MAX_AGENTS = 1024;
+
+    // цель дальше - полный поиск
+    private static final int MAX_GOAL_SHIFT = 16;
+    // на сколько шагов вперед по пути ищется текущая позиция агента
+    private static final int START_LOOKAHEAD = 8;
+    // на сколько шагов назад от конца пути начинается перестройка под новую цель сверх смещения цели
+    private static final int SPLICE_BACK = 4;
+    // через сколько шагов за разрывом путь переподключается
+    private static final int REJOIN_STEPS = 8;
+    private static final int SEARCH_MARGIN = 16;
+    private static final int MAX_REPAIRS = 8;
+
+    private static final class AgentPlan {
+        LongList path = new LongList();
+        int index;
+        long goal;
+        long epoch;
+        int repairs;
+    }
+
+    private final GeoPathFinder finder;
+    private final Map<Integer, AgentPlan> plans;
+    private final ArrayDeque<AgentPlan> pool = new ArrayDeque<>();
+    private final LongList segment = new LongList();
+    private LongList spliced = new LongList();
+    private final int[] outZ = new int[Neighbours.COUNT];
+    private final byte[] outMask = new byte[Neighbours.COUNT];
+
+    /**
+     * Суммарное число раскрытых узлов всех поисков
+     */
+    @Getter
+    private long expandedNodes;
+    @Getter
+    private long fullPlans;
+    @Getter
+    private long repairs;
+
+    public IncrementalPlanner(GeoPathFinder finder) {
+        this(finder, DEFAULT_MAX_AGENTS);
+    }
+
+    public IncrementalPlanner(GeoPathFinder finder, int maxAgents) {
+        if (maxAgents <= 0) {
+            throw new IllegalArgumentException("Max agents must be positive: " + maxAgents);
+        }
+        this.finder = finder;
+        this.plans = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, AgentPlan> eldest) {
+                if (size() > maxAgents) {
+                    pool.push(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Путь агента от его текущего узла до цели
+     *
+     * @param outPath получает узлы пути от start до goal включительно
+     * @return false если пути нет
+     */
+    public boolean plan(int agentId, long start, long goal, LongList outPath) {
+        outPath.clear();
+        AgentPlan plan = plans.get(agentId);
+        if (plan == null) {
+            plan = pool.isEmpty() ? new AgentPlan() : pool.pop();
+            plan.path.clear();
+            plans.put(agentId, plan);
+        }
+        if (!update(plan, start, goal) && !replan(plan, start, goal)) {
+            return false;
+        }
+        for (int i = plan.index; i < plan.path.size(); i++) {
+            outPath.add(plan.path.get(i));
+        }
+        return true;
+    }
+
+    /**
+     * Забыть путь агента, например после его смерти
+     */
+    public void release(int agentId) {
+        AgentPlan plan = plans.remove(agentId);
+        if (plan != null) {
+            pool.push(plan);
+        }
+    }
+
+    public int getAgentCount() {
+        return plans.size();
+    }
+
+    private boolean replan(AgentPlan plan, long start, long goal) {
+        fullPlans++;
+        int cost = finder.findPath(start, goal, 0, 0, GEO_CELLS_X - 1, GEO_CELLS_Y - 1, plan.path);
+        expandedNodes += finder.getLastExpandedNodes();
+        plan.index = 0;
+        plan.goal = goal;
+        plan.epoch = getEpoch();
+        plan.repairs = 0;
+        if (cost == GeoPathFinder.NO_PATH) {
+            plan.path.clear();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean update(AgentPlan plan, long start, long goal) {
+        LongList path = plan.path;
+        if (path.isEmpty()) {
+            return false;
+        }
+        int index = -1;
+        for (int i = plan.index; i < Math.min(path.size(), plan.index + START_LOOKAHEAD); i++) {
+            if (path.get(i) == start) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            return false;
+        }
+        plan.index = index;
+
+        long epoch = getEpoch();
+        if (epoch != plan.epoch) {
+            for (int broken = findBrokenStep(plan); broken >= 0; broken = findBrokenStep(plan)) {
+                int rejoin = Math.min(path.size() - 1, broken + 1 + REJOIN_STEPS);
+                if ((plan.repairs >= MAX_REPAIRS) || !splice(plan, broken, path.get(rejoin), rejoin + 1)) {
+                    return false;
+                }
+                path = plan.path;
+            }
+            plan.epoch = epoch;
+        }
+
+        if (goal != plan.goal) {
+            int shift = Math.max(Math.abs(PathNode.geoX(goal) - PathNode.geoX(plan.goal)), Math.abs(PathNode.geoY(goal) - PathNode.geoY(plan.goal)));
+            if ((shift > MAX_GOAL_SHIFT) || (plan.repairs >= MAX_REPAIRS)) {
+                return false;
+            }
+            int from = Math.max(plan.index, path.size() - 1 - shift - SPLICE_BACK);
+            if (!splice(plan, from, goal, path.size())) {
+                return false;
+            }
+            plan.goal = goal;
+        }
+        return true;
+    }
+
+    /**
+     * Заменяет участок пути (from, to) поиском от узла from до target, хвост пути с индекса tail сохраняется.
+     * Путь при этом обрезается до текущей позиции агента.
+     */
+    private boolean splice(AgentPlan plan, int from, long target, int tail) {
+        LongList path = plan.path;
+        long source = path.get(from);
+        int minGeoX = Math.min(PathNode.geoX(source), PathNode.geoX(target)) - SEARCH_MARGIN;
+        int minGeoY = Math.min(PathNode.geoY(source), PathNode.geoY(target)) - SEARCH_MARGIN;
+        int maxGeoX = Math.max(PathNode.geoX(source), PathNode.geoX(target)) + SEARCH_MARGIN;
+        int maxGeoY = Math.max(PathNode.geoY(source), PathNode.geoY(target)) + SEARCH_MARGIN;
+        int cost = finder.findPath(source, target, minGeoX, minGeoY, maxGeoX, maxGeoY, segment);
+        expandedNodes += finder.getLastExpandedNodes();
+        repairs++;
+        plan.repairs++;
+        if (cost == GeoPathFinder.NO_PATH) {
+            return false;
+        }
+
+        spliced.clear();
+        for (int i = plan.index; i < from; i++) {
+            spliced.add(path.get(i));
+        }
+        for (int i = 0; i < segment.size(); i++) {
+            spliced.add(segment.get(i));
+        }
+        for (int i = tail; i < path.size(); i++) {
+            spliced.add(path.get(i));
+        }
+        plan.path = spliced;
+        plan.index = 0;
+        spliced = path;
+        return true;
+    }
+
+    /**
+     * @return индекс узла, из которого следующий шаг пути больше невозможен, или -1
+     */
+    private int findBrokenStep(AgentPlan plan) {
+        LongList path = plan.path;
+        for (int i = plan.index; i < path.size() - 1; i++) {
+            long from = path.get(i);
+            long to = path.get(i + 1);
+            int dx = PathNode.geoX(to) - PathNode.geoX(from);
+            int dy = PathNode.geoY(to) - PathNode.geoY(from);
+            int mask = finder.getDriver().expandNeighbours(PathNode.geoX(from), PathNode.geoY(from), PathNode.z(from), outZ, outMask);
+            boolean reachable = false;
+            for (int direction = 0; direction < Neighbours.COUNT; direction++) {
+                if ((Neighbours.dx(direction) == dx) && (Neighbours.dy(direction) == dy)) {
+                    reachable = Neighbours.isReachable(mask, direction) && (outZ[direction] == PathNode.z(to));
+                    break;
+                }
+            }
+            if (!reachable) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private long getEpoch() {
+        return finder.getDriver() instanceof GeoOverlay overlay ? overlay.getEpoch() : 0L;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * Открытая адресация узел -> (стоимость, родитель, закрыт) для поиска пути.
+ * Переиспользуется между поисками: clear() только увеличивает поколение, массивы не чистятся.
+ * Слоты меняются при росте таблицы, поэтому слот действителен только до следующего insert.
+ */
+final class NodeTable {
+    private long[] keys;
+    private int[] costs;
+    private long[] parents;
+    private boolean[] closed;
+    private int[] generations;
+    private int generation = 1;
+    private int size;
+    private int mask;
+
+    NodeTable(int capacity) {
+        allocate(Integer.highestOneBit(Math.max(16, capacity - 1) << 1));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        costs = new int[capacity];
+        parents = new long[capacity];
+        closed = new boolean[capacity];
+        generations = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    void clear() {
+        size = 0;
+        if (++generation == 0) {
+            Arrays.fill(generations, 0);
+            generation = 1;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return слот узла или -1
+     */
+    int find(long key) {
+        for (int slot = hash(key) & mask; generations[slot] == generation; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return слот узла, новый узел со стоимостью Integer.MAX_VALUE без родителя
+     */
+    int insert(long key) {
+        if ((size + 1) << 1 > keys.length) {
+            grow();
+        }
+        int slot = hash(key) & mask;
+        for (; generations[slot] == generation; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        generations[slot] = generation;
+        keys[slot] = key;
+        costs[slot] = Integer.MAX_VALUE;
+        parents[slot] = PathNode.NONE;
+        closed[slot] = false;
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCosts = costs;
+        long[] oldParents = parents;
+        boolean[] oldClosed = closed;
+        int[] oldGenerations = generations;
+        int oldGeneration = generation;
+        allocate(oldKeys.length << 1);
+        generation = 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldGenerations[i] != oldGeneration) {
+                continue;
+            }
+            int slot = hash(oldKeys[i]) & mask;
+            while (generations[slot] == generation) {
+                slot = (slot + 1) & mask;
+            }
+            generations[slot] = generation;
+            keys[slot] = oldKeys[i];
+            costs[slot] = oldCosts[i];
+            parents[slot] = oldParents[i];
+            closed[slot] = oldClosed[i];
+        }
+    }
+
+    long key(int slot) {
+        return keys[slot];
+    }
+
+    int cost(int slot) {
+        return costs[slot];
+    }
+
+    void setCost(int slot, int cost) {
+        costs[slot] = cost;
+    }
+
+    long parent(int slot) {
+        return parents[slot];
+    }
+
+    void setParent(int slot, long parent) {
+        parents[slot] = parent;
+    }
+
+    boolean isClosed(int slot) {
+        return closed[slot];
+    }
+
+    void close(int slot) {
+        closed[slot] = true;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * Двоичная куча (приоритет, узел) на примитивных массивах. Уменьшения приоритета нет:
+ * узел кладется повторно, устаревшие записи пропускает вызывающий код по закрытым узлам.
+ */
+final class OpenList {
+    private int[] priorities;
+    private long[] keys;
+    private int size;
+    private int lastPriority;
+
+    OpenList(int capacity) {
+        priorities = new int[Math.max(16, capacity)];
+        keys = new long[priorities.length];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void push(int priority, long key) {
+        if (size == keys.length) {
+            priorities = Arrays.copyOf(priorities, size << 1);
+            keys = Arrays.copyOf(keys, size << 1);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            priorities[i] = priorities[parent];
+            keys[i] = keys[parent];
+            i = parent;
+        }
+        priorities[i] = priority;
+        keys[i] = key;
+    }
+
+    /**
+     * Снимает узел с минимальным приоритетом, приоритет доступен через {@link #lastPriority()}
+     */
+    long pop() {
+        long result = keys[0];
+        lastPriority = priorities[0];
+        int priority = priorities[--size];
+        long key = keys[size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = (i << 1) + 1;
+            if ((child + 1 < size) && (priorities[child + 1] < priorities[child])) {
+                child++;
+            }
+            if (priority <= priorities[child]) {
+                break;
+            }
+            priorities[i] = priorities[child];
+            keys[i] = keys[child];
+            i = child;
+        }
+        priorities[i] = priority;
+        keys[i] = key;
+        return result;
+    }
+
+    int lastPriority() {
+        return lastPriority;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.pathfinding;
+
+import ru.mosinnik.l2eve.geodriver.Neighbours;
+
+/**
+ * Узел поиска пути - слой ячейки, упакованный в long: {@code (geoX << 32) | (geoY << 16) | (z & 0xFFFF)}.
+ * geo координаты мира влезают в 16 бит, высота геодаты - в short.
+ * <p>
+ * Стоимости шагов целые: 10 по прямой, 14 по диагонали, эвристика октильная.
+ */
+public final class PathNode {
+
+    public static final long NONE = -1L;
+
+    public static final int STRAIGHT_COST = 10;
+    public static final int DIAGONAL_COST = 14;
+
+    private PathNode() {
+    }
+
+    public static long key(int geoX, int geoY, int z) {
+        return ((long) geoX << 32) | ((long) (geoY & 0xFFFF) << 16) | (z & 0xFFFF);
+    }
+
+    public static int geoX(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static int geoY(long key) {
+        return (int) (key >>> 16) & 0xFFFF;
+    }
+
+    public static int z(long key) {
+        return (short) key;
+    }
+
+    /**
+     * Стоимость шага в направлении {@link Neighbours}
+     */
+    public static int cost(int direction) {
+        return direction < Neighbours.NORTH_EAST ? STRAIGHT_COST : DIAGONAL_COST;
+    }
+
+    public static int heuristic(long from, long to) {
+        int dx = Math.abs(geoX(from) - geoX(to));
+        int dy = Math.abs(geoY(from) - geoY(to));
+        return STRAIGHT_COST * Math.max(dx, dy) + (DIAGONAL_COST - STRAIGHT_COST) * Math.min(dx, dy);
+    }
+
+    public static String toString(long key) {
+        return "(" + geoX(key) + ", " + geoY(key) + ", " + z(key) + ")";
+    }
+}
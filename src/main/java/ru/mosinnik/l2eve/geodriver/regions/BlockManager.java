@@ -164,7 +164,7 @@ public class BlockManager {
 
         for (int blockCellOffset = 0; blockCellOffset < IBlock.BLOCK_CELLS; blockCellOffset++) {
             byte nLayers = bb.get();
-            if ((nLayers <= 0) || (nLayers > 125)) {
+            if ((nLayers <= 0) || (nLayers > IBlock.MAX_CELL_LAYERS)) {
                 throw new RuntimeException("L2JGeoDriver: Geo file corrupted! Invalid layers count!");
             }
 
@@ -19,6 +19,8 @@
 package ru.mosinnik.l2eve.geodriver.regions;
 
 
+import ru.mosinnik.l2eve.geodriver.Cell;
+import ru.mosinnik.l2eve.geodriver.LayerData;
 import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
 import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
 
@@ -43,6 +45,11 @@ public final class NullRegion implements IRegion {
         return worldZ;
     }
 
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        return LayerData.packWorldZ(worldZ, Cell.NSWE_ALL);
+    }
+
     @Override
     public int getNextLowerZ(int geoX, int geoY, int worldZ) {
         return worldZ;
@@ -53,6 +60,11 @@ public final class NullRegion implements IRegion {
         return worldZ;
     }
 
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        return 0;
+    }
+
     @Override
     public boolean hasGeo() {
         return false;
@@ -73,6 +73,11 @@ public final class Region implements IRegion {
         return getBlock(geoX, geoY).getNearestZ(geoX, geoY, worldZ);
     }
 
+    @Override
+    public int getNearestLayer(int geoX, int geoY, int worldZ) {
+        return getBlock(geoX, geoY).getNearestLayer(geoX, geoY, worldZ);
+    }
+
     @Override
     public int getNextLowerZ(int geoX, int geoY, int worldZ) {
         return getBlock(geoX, geoY).getNextLowerZ(geoX, geoY, worldZ);
@@ -83,6 +88,11 @@ public final class Region implements IRegion {
         return getBlock(geoX, geoY).getNextHigherZ(geoX, geoY, worldZ);
     }
 
+    @Override
+    public int getLayers(int geoX, int geoY, int[] outHeights, byte[] outNswe) {
+        return getBlock(geoX, geoY).getLayers(geoX, geoY, outHeights, outNswe);
+    }
+
     @Override
     public boolean hasGeo() {
         return true;
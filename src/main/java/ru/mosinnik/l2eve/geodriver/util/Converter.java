@@ -23,40 +23,75 @@
 package ru.mosinnik.l2eve.geodriver.util;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
-
+/**
+ * Конвертация индексов в байты bin файлов и обратно.
+ * Порядок байт берется из заголовка bin формата, без порядка - BIG_ENDIAN как в первой версии формата.
+ */
 public interface Converter {
 
     static byte[] asBytes(int[] intArray) {
-        ByteBuffer buffer = ByteBuffer.allocate(intArray.length * 4);
-        for (int value : intArray) {
-            buffer.putInt(value);
-        }
+        return asBytes(intArray, ByteOrder.BIG_ENDIAN);
+    }
+
+    static byte[] asBytes(int[] intArray, ByteOrder order) {
+        ByteBuffer buffer = ByteBuffer.allocate(intArray.length * 4).order(order);
+        buffer.asIntBuffer().put(intArray);
         return buffer.array();
     }
 
     static void asInts(byte[] bytes, int[] destination) {
-        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        asInts(bytes, destination, ByteOrder.BIG_ENDIAN);
+    }
+
+    static void asInts(byte[] bytes, int[] destination, ByteOrder order) {
         int length = bytes.length / 4;
         if (bytes.length % 4 != 0 || length != destination.length) {
             throw new IllegalArgumentException("Length does not match from file: " + length + ", in dest: " + destination.length + " or not divided by 4 evenly: " + bytes.length);
         }
-        for (int i = 0; i < length; i++) {
-            destination[i] = buffer.getInt();
-        }
+        ByteBuffer.wrap(bytes).order(order).asIntBuffer().get(destination);
     }
 
     static int[] asInts(byte[] bytes) {
-        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return asInts(bytes, ByteOrder.BIG_ENDIAN);
+    }
+
+    static int[] asInts(byte[] bytes, ByteOrder order) {
         if (bytes.length % 4 != 0) {
             throw new IllegalArgumentException("Input file length not divided by 4 evenly: " + bytes.length);
         }
-        int length = bytes.length / 4;
-        int[] intArray = new int[length];
-        for (int i = 0; i < length; i++) {
-            intArray[i] = buffer.getInt();
-        }
+        int[] intArray = new int[bytes.length / 4];
+        ByteBuffer.wrap(bytes).order(order).asIntBuffer().get(intArray);
         return intArray;
     }
 
+    static byte[] asBytes(long[] longArray, ByteOrder order) {
+        ByteBuffer buffer = ByteBuffer.allocate(longArray.length * 8).order(order);
+        buffer.asLongBuffer().put(longArray);
+        return buffer.array();
+    }
+
+    static byte[] asBytes(char[] charArray, ByteOrder order) {
+        ByteBuffer buffer = ByteBuffer.allocate(charArray.length * 2).order(order);
+        buffer.asCharBuffer().put(charArray);
+        return buffer.array();
+    }
+
+    static void asLongs(byte[] bytes, long[] destination, ByteOrder order) {
+        int length = bytes.length / 8;
+        if (bytes.length % 8 != 0 || length != destination.length) {
+            throw new IllegalArgumentException("Length does not match from file: " + length + ", in dest: " + destination.length + " or not divided by 8 evenly: " + bytes.length);
+        }
+        ByteBuffer.wrap(bytes).order(order).asLongBuffer().get(destination);
+    }
+
+    static char[] asChars(byte[] bytes, ByteOrder order) {
+        if (bytes.length % 2 != 0) {
+            throw new IllegalArgumentException("Input file length not divided by 2 evenly: " + bytes.length);
+        }
+        char[] charArray = new char[bytes.length / 2];
+        ByteBuffer.wrap(bytes).order(order).asCharBuffer().get(charArray);
+        return charArray;
+    }
 }
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.util;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.foreign.*;
+import java.lang.invoke.MethodHandle;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+import static java.lang.foreign.ValueLayout.*;
+
+/**
+ * Управление страницами mmap буферов через FFM (только linux): madvise, mlock/munlock, mincore.
+ * <p>
+ * Адрес буфера выравнивается вниз до страницы, т.к. регионы в data.bin лежат не по границам страниц.
+ * Все методы возвращают 0 при успехе, errno при ошибке ядра или NOT_SUPPORTED, если платформа
+ * или буфер (не direct) не поддерживаются - вызывающий код решает сам, падать ли.
+ */
+@Slf4j
+public final class NativeMemory {
+
+    public static final int NOT_SUPPORTED = -1;
+
+    // linux asm-generic/mman-common.h
+    public static final int MADV_NORMAL = 0;
+    public static final int MADV_RANDOM = 1;
+    public static final int MADV_SEQUENTIAL = 2;
+    public static final int MADV_WILLNEED = 3;
+    public static final int MADV_DONTNEED = 4;
+    public static final int MADV_HUGEPAGE = 14;
+    public static final int MADV_NOHUGEPAGE = 15;
+
+    private static final boolean LINUX = System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("linux");
+
+    private static final Linker LINKER = Linker.nativeLinker();
+    private static final StructLayout CAPTURE_STATE_LAYOUT = Linker.Option.captureStateLayout();
+    private static final long ERRNO_OFFSET = CAPTURE_STATE_LAYOUT.byteOffset(MemoryLayout.PathElement.groupElement("errno"));
+
+    private static final MethodHandle MADVISE = downcall("madvise", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_LONG, JAVA_INT));
+    private static final MethodHandle MLOCK = downcall("mlock", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_LONG));
+    private static final MethodHandle MUNLOCK = downcall("munlock", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_LONG));
+    private static final MethodHandle MINCORE = downcall("mincore", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_LONG, ADDRESS));
+
+    private static final long PAGE_SIZE = pageSize();
+
+    private NativeMemory() {
+    }
+
+    public static boolean isSupported() {
+        return MADVISE != null && MLOCK != null && MUNLOCK != null;
+    }
+
+    public static long getPageSize() {
+        return PAGE_SIZE;
+    }
+
+    @SneakyThrows
+    public static int madvise(ByteBuffer buffer, int advice) {
+        if (MADVISE == null || !buffer.isDirect()) {
+            return NOT_SUPPORTED;
+        }
+        if (buffer.capacity() == 0) {
+            return 0;
+        }
+        MemorySegment pages = pages(buffer);
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment captureState = arena.allocate(CAPTURE_STATE_LAYOUT);
+            int result = (int) MADVISE.invokeExact(captureState, pages, pages.byteSize(), advice);
+            return errno(result, captureState);
+        }
+    }
+
+    public static int mlock(ByteBuffer buffer) {
+        return lock(MLOCK, buffer);
+    }
+
+    public static int munlock(ByteBuffer buffer) {
+        return lock(MUNLOCK, buffer);
+    }
+
+    /**
+     * Размер страниц буфера, находящихся в физической памяти, по mincore. Считаются целые страницы,
+     * включая захваченные выравниванием края буфера.
+     *
+     * @return байты или NOT_SUPPORTED, в том числе при ошибке ядра
+     */
+    @SneakyThrows
+    public static long residentBytes(ByteBuffer buffer) {
+        if (MINCORE == null || !buffer.isDirect()) {
+            return NOT_SUPPORTED;
+        }
+        if (buffer.capacity() == 0) {
+            return 0;
+        }
+        MemorySegment pages = pages(buffer);
+        long pageCount = (pages.byteSize() + PAGE_SIZE - 1) / PAGE_SIZE;
+
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment captureState = arena.allocate(CAPTURE_STATE_LAYOUT);
+            MemorySegment vec = arena.allocate(pageCount);
+            int result = (int) MINCORE.invokeExact(captureState, pages, pages.byteSize(), vec);
+            if (result != 0) {
+                log.warn("mincore failed, errno {}", captureState.get(JAVA_INT, ERRNO_OFFSET));
+                return NOT_SUPPORTED;
+            }
+            long resident = 0;
+            for (long page = 0; page < pageCount; page++) {
+                resident += vec.get(JAVA_BYTE, page) & 1;
+            }
+            return resident * PAGE_SIZE;
+        }
+    }
+
+    /**
+     * mlock/munlock(addr, len)
+     */
+    @SneakyThrows
+    private static int lock(MethodHandle handle, ByteBuffer buffer) {
+        if (handle == null || !buffer.isDirect()) {
+            return NOT_SUPPORTED;
+        }
+        if (buffer.capacity() == 0) {
+            return 0;
+        }
+        MemorySegment pages = pages(buffer);
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment captureState = arena.allocate(CAPTURE_STATE_LAYOUT);
+            int result = (int) handle.invokeExact(captureState, pages, pages.byteSize());
+            return errno(result, captureState);
+        }
+    }
+
+    /**
+     * Страницы буфера: адрес выровнен вниз до страницы, размер включает захваченное выравниванием начало
+     */
+    private static MemorySegment pages(ByteBuffer buffer) {
+        MemorySegment segment = MemorySegment.ofBuffer(buffer.duplicate().clear());
+        long address = segment.address();
+        long alignedAddress = address & -PAGE_SIZE;
+        return MemorySegment.ofAddress(alignedAddress).reinterpret(segment.byteSize() + (address - alignedAddress));
+    }
+
+    private static int errno(int result, MemorySegment captureState) {
+        return result == 0 ? 0 : captureState.get(JAVA_INT, ERRNO_OFFSET);
+    }
+
+    private static MethodHandle downcall(String name, FunctionDescriptor descriptor) {
+        if (!LINUX) {
+            return null;
+        }
+        try {
+            return LINKER.defaultLookup().find(name)
+                .map(symbol -> LINKER.downcallHandle(symbol, descriptor, Linker.Option.captureCallState("errno")))
+                .orElse(null);
+        } catch (RuntimeException e) {
+            log.warn("Native function {} is not available: {}", name, e.toString());
+            return null;
+        }
+    }
+
+    @SneakyThrows
+    private static long pageSize() {
+        MethodHandle getPageSize = LINUX
+            ? LINKER.defaultLookup().find("getpagesize")
+                .map(symbol -> LINKER.downcallHandle(symbol, FunctionDescriptor.of(JAVA_INT)))
+                .orElse(null)
+            : null;
+        return getPageSize == null ? 4096 : (int) getPageSize.invokeExact();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Счетчики page fault процесса из /proc/self/stat (только linux), нужны чтобы проверять
+ * эффект madvise/mlock/прогрева на mmap драйвере.
+ * <p>
+ * minor - страница была в page cache, major - пришлось читать с диска.
+ *
+ * @param minor minflt, 10 поле /proc/self/stat
+ * @param major majflt, 12 поле /proc/self/stat
+ */
+public record PageFaults(long minor, long major) {
+
+    public static final PageFaults UNKNOWN = new PageFaults(-1, -1);
+
+    private static final Path PROC_SELF_STAT = Path.of("/proc/self/stat");
+
+    public static PageFaults current() {
+        try {
+            return parse(Files.readString(PROC_SELF_STAT));
+        } catch (IOException | RuntimeException e) {
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * Format: pid (comm) state ppid ..., comm can contain spaces and brackets so fields are counted after last ')'.
+     */
+    static PageFaults parse(String stat) {
+        String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+        // fields[0] is state (3rd field)
+        return new PageFaults(Long.parseLong(fields[10 - 3]), Long.parseLong(fields[12 - 3]));
+    }
+
+    public boolean isKnown() {
+        return this != UNKNOWN && minor >= 0;
+    }
+
+    public PageFaults minus(PageFaults before) {
+        if (!isKnown() || !before.isKnown()) {
+            return UNKNOWN;
+        }
+        return new PageFaults(minor - before.minor, major - before.major);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LayerDataTest {
+
+    @Test
+    public void shouldPackHeightAndNswe() {
+        for (int height = -16384; height < 16384; height += 8) {
+            for (int nswe = 0; nswe < 16; nswe++) {
+                int layer = LayerData.pack(height, nswe);
+                assertEquals(height, LayerData.height(layer));
+                assertEquals(nswe, LayerData.nswe(layer));
+            }
+        }
+    }
+
+    @Test
+    public void shouldClampWorldZ() {
+        assertEquals(LayerData.MAX_HEIGHT, LayerData.height(LayerData.packWorldZ(Integer.MAX_VALUE, Cell.NSWE_ALL)));
+        assertEquals(LayerData.MIN_HEIGHT, LayerData.height(LayerData.packWorldZ(Integer.MIN_VALUE, Cell.NSWE_ALL)));
+        assertEquals(Cell.NSWE_ALL, LayerData.nswe(LayerData.packWorldZ(1 << 27, Cell.NSWE_ALL)));
+        assertEquals(-3000, LayerData.height(LayerData.packWorldZ(-3000, Cell.NSWE_ALL)));
+    }
+
+    @Test
+    public void shouldDecodeL2jLayer() {
+        for (int raw = Short.MIN_VALUE; raw <= Short.MAX_VALUE; raw++) {
+            short layer = (short) raw;
+            int packed = LayerData.fromLayer(layer);
+            assertEquals(((short) (layer & 0x0fff0)) >> 1, LayerData.height(packed));
+            assertEquals(layer & 0x0F, LayerData.nswe(packed));
+        }
+    }
+
+    @Test
+    public void shouldCheckNswe() {
+        int layer = LayerData.pack(-1200, Cell.NSWE_NORTH_EAST);
+        assertTrue(LayerData.checkNswe(layer, Cell.NSWE_NORTH));
+        assertTrue(LayerData.checkNswe(layer, Cell.NSWE_NORTH_EAST));
+        assertFalse(LayerData.checkNswe(layer, Cell.NSWE_SOUTH));
+        assertFalse(LayerData.checkNswe(layer, Cell.NSWE_ALL));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver;
+
+import org.junit.Test;
+import ru.mosinnik.l2eve.geodriver.driver.NullDriver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NeighboursTest {
+
+    private final int[] outZ = new int[Neighbours.COUNT];
+    private final byte[] outMask = new byte[Neighbours.COUNT];
+
+    private void fill(int height, int nswe) {
+        for (int direction = 0; direction < Neighbours.COUNT; direction++) {
+            outZ[direction] = LayerData.pack(height + direction, nswe);
+        }
+    }
+
+    @Test
+    public void shouldReachAllWhenOpen() {
+        fill(100, Cell.NSWE_ALL);
+        int mask = Neighbours.resolve(LayerData.pack(100, Cell.NSWE_ALL), outZ, outMask);
+        assertEquals(0xFF, mask);
+        for (int direction = 0; direction < Neighbours.COUNT; direction++) {
+            assertEquals(100 + direction, outZ[direction]);
+            assertEquals(Cell.NSWE_ALL, outMask[direction]);
+        }
+    }
+
+    @Test
+    public void shouldNotReachThroughClosedCentre() {
+        fill(0, Cell.NSWE_ALL);
+        int mask = Neighbours.resolve(LayerData.pack(0, Cell.NSWE_ALL & ~Cell.NSWE_EAST), outZ, outMask);
+        assertFalse(Neighbours.isReachable(mask, Neighbours.EAST));
+        assertFalse(Neighbours.isReachable(mask, Neighbours.NORTH_EAST));
+        assertFalse(Neighbours.isReachable(mask, Neighbours.SOUTH_EAST));
+        assertTrue(Neighbours.isReachable(mask, Neighbours.NORTH));
+        assertTrue(Neighbours.isReachable(mask, Neighbours.SOUTH_WEST));
+    }
+
+    @Test
+    public void shouldNotCutCorners() {
+        fill(0, Cell.NSWE_ALL);
+        outZ[Neighbours.EAST] = LayerData.pack(0, Cell.NSWE_ALL & ~Cell.NSWE_NORTH);
+        int mask = Neighbours.resolve(LayerData.pack(0, Cell.NSWE_ALL), outZ, outMask);
+        assertTrue(Neighbours.isReachable(mask, Neighbours.EAST));
+        assertTrue(Neighbours.isReachable(mask, Neighbours.NORTH));
+        assertFalse(Neighbours.isReachable(mask, Neighbours.NORTH_EAST));
+        assertTrue(Neighbours.isReachable(mask, Neighbours.SOUTH_EAST));
+    }
+
+    @Test
+    public void shouldNotReachOutsideWorld() {
+        int mask = new NullDriver().expandNeighbours(0, 0, 500, outZ, outMask);
+        assertEquals(Neighbours.bit(Neighbours.EAST) | Neighbours.bit(Neighbours.SOUTH) | Neighbours.bit(Neighbours.SOUTH_EAST), mask);
+        assertEquals(500, outZ[Neighbours.SOUTH_EAST]);
+    }
+}
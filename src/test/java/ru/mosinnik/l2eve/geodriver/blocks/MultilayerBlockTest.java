@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.blocks;
+
+import org.junit.Test;
+import ru.mosinnik.l2eve.geodriver.LayerData;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class MultilayerBlockTest {
+
+    @Test
+    public void shouldEnumerateLayers() {
+        Random r = new Random(0);
+        int[][] heights = new int[IBlock.BLOCK_CELLS][];
+        byte[][] nswes = new byte[IBlock.BLOCK_CELLS][];
+        ByteBuffer bb = ByteBuffer.allocate(IBlock.BLOCK_CELLS * (1 + 2 * 4)).order(ByteOrder.LITTLE_ENDIAN);
+        for (int cell = 0; cell < IBlock.BLOCK_CELLS; cell++) {
+            int nLayers = 1 + r.nextInt(4);
+            heights[cell] = new int[nLayers];
+            nswes[cell] = new byte[nLayers];
+            bb.put((byte) nLayers);
+            int height = 8 * (r.nextInt(1000) - 200);
+            for (int i = 0; i < nLayers; i++) {
+                heights[cell][i] = height;
+                nswes[cell][i] = (byte) r.nextInt(16);
+                bb.putShort((short) (((height << 1) & 0xFFF0) | nswes[cell][i]));
+                height -= 8 * (1 + r.nextInt(100));
+            }
+        }
+        byte[] data = new byte[bb.position()];
+        bb.flip().get(data);
+
+        IBlock[] blocks = {
+            new MultilayerBlock(ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN)),
+            new IndexedMultilayerBlock(ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN)),
+            new Indexed32MultilayerBlock(data),
+        };
+        int[] outHeights = new int[IBlock.MAX_CELL_LAYERS];
+        byte[] outNswe = new byte[IBlock.MAX_CELL_LAYERS];
+        for (IBlock block : blocks) {
+            for (int geoX = 0; geoX < IBlock.BLOCK_CELLS_X; geoX++) {
+                for (int geoY = 0; geoY < IBlock.BLOCK_CELLS_Y; geoY++) {
+                    int cell = (geoX << 3) + geoY;
+                    int count = block.getLayers(geoX, geoY, outHeights, outNswe);
+                    assertEquals(heights[cell].length, count);
+                    for (int i = 0; i < count; i++) {
+                        assertEquals(heights[cell][i], outHeights[i]);
+                        assertEquals(nswes[cell][i], outNswe[i]);
+                    }
+                    for (int worldZ = -2000; worldZ < 8000; worldZ += 37) {
+                        int layer = block.getNearestLayer(geoX, geoY, worldZ);
+                        assertEquals(block.getNearestZ(geoX, geoY, worldZ), LayerData.height(layer));
+                    }
+                }
+            }
+        }
+    }
+}
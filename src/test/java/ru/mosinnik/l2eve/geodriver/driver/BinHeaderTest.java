@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.driver;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+import ru.mosinnik.l2eve.geodriver.synthetic.SyntheticGeoGenerator;
+import ru.mosinnik.l2eve.geodriver.synthetic.SyntheticGeoProfile;
+
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants.HEADER_FILE_NAME;
+
+public class BinHeaderTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void shouldReadV1WithoutHeader() throws Exception {
+        Path dir = Files.createTempDirectory("bin-header");
+        try {
+            assertEquals(BinHeader.V1, BinHeader.readFromFiles(dir));
+        } finally {
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    public void shouldReadWrittenHeader() throws Exception {
+        Path dir = Files.createTempDirectory("bin-header");
+        try {
+            BinHeader.V2.writeToFiles(dir);
+            BinHeader header = BinHeader.readFromFiles(dir);
+            assertEquals(BinHeader.V2, header);
+            assertEquals(ByteOrder.LITTLE_ENDIAN, header.byteOrder());
+        } finally {
+            Files.deleteIfExists(dir.resolve(HEADER_FILE_NAME));
+            Files.delete(dir);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailOnWrongMagic() throws Exception {
+        Path dir = Files.createTempDirectory("bin-header");
+        try {
+            Files.write(dir.resolve(HEADER_FILE_NAME), new byte[BinHeader.HEADER_SIZE]);
+            BinHeader.readFromFiles(dir);
+        } finally {
+            Files.deleteIfExists(dir.resolve(HEADER_FILE_NAME));
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    public void shouldDecodeV1AndV2Equally() throws Exception {
+        List<Path> paths = new SyntheticGeoGenerator(SyntheticGeoProfile.interlude()).generateWorld(temp.newFolder("l2j").toPath(), 1);
+        int[] region = SyntheticGeoGenerator.worldRegions(1).get(0);
+        GeoConfig config = GeoConfig.lowMemory();
+        config.setIndexedMultilayerBlockEnabled(true);
+        config.setIndexed32MultilayerBlockEnabled(true);
+
+        GeoDriverBytes v1 = new GeoDriverBytes(config);
+        v1.loadFromL2J(paths, BinHeader.V1);
+        Path binDir = temp.newFolder("v1").toPath();
+        v1.writeToFiles(binDir);
+        assertEquals(BinHeader.V1, BinHeader.readFromFiles(binDir));
+        GeoDriverBytesMmap v1Mmap = new GeoDriverBytesMmap();
+        v1Mmap.loadBin(binDir);
+        GeoDriverBytes v2 = new GeoDriverBytes(config);
+        v2.loadFromL2J(paths);
+
+        Random random = new Random(3);
+        int[] expected = new int[IBlock.MAX_CELL_LAYERS];
+        byte[] expectedNswe = new byte[IBlock.MAX_CELL_LAYERS];
+        int[] actual = new int[IBlock.MAX_CELL_LAYERS];
+        byte[] actualNswe = new byte[IBlock.MAX_CELL_LAYERS];
+        for (int i = 0; i < 100_000; i++) {
+            int geoX = region[0] * IRegion.REGION_CELLS_X + random.nextInt(IRegion.REGION_CELLS_X);
+            int geoY = region[1] * IRegion.REGION_CELLS_Y + random.nextInt(IRegion.REGION_CELLS_Y);
+            int layers = v2.getLayers(geoX, geoY, expected, expectedNswe);
+            for (IGeoDriver candidate : List.<IGeoDriver>of(v1, v1Mmap)) {
+                assertEquals(layers, candidate.getLayers(geoX, geoY, actual, actualNswe));
+                assertArrayEquals(Arrays.copyOf(expected, layers), Arrays.copyOf(actual, layers));
+                assertArrayEquals(Arrays.copyOf(expectedNswe, layers), Arrays.copyOf(actualNswe, layers));
+                assertEquals(v2.getNearestZ(geoX, geoY, 0), candidate.getNearestZ(geoX, geoY, 0));
+            }
+        }
+    }
+}
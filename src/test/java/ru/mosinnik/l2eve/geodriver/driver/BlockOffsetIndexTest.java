@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.driver;
+
+import org.junit.Test;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants.*;
+import static ru.mosinnik.l2eve.geodriver.util.Converter.asBytes;
+
+public class BlockOffsetIndexTest {
+
+    @Test
+    public void shouldRestoreAbsoluteOffsets() {
+        int[] regionFirstBlockIndexes = new int[GeoConstants.GEO_REGIONS];
+        Arrays.fill(regionFirstBlockIndexes, NO_INDEX);
+        regionFirstBlockIndexes[5] = 0;
+        regionFirstBlockIndexes[700] = IRegion.REGION_BLOCKS;
+
+        byte[] blockTypes = new byte[2 * IRegion.REGION_BLOCKS];
+        int[] absoluteDataOffsets = new int[blockTypes.length];
+        int dataSize = fillBlocks(new Random(0), blockTypes, absoluteDataOffsets);
+
+        BlockOffsetIndex index = BlockOffsetIndex.compress(regionFirstBlockIndexes, blockTypes, absoluteDataOffsets);
+        assertIndex(index, regionFirstBlockIndexes, blockTypes, absoluteDataOffsets);
+
+        long[] regionDataSizes = index.regionDataSizes(regionFirstBlockIndexes, blockTypes, dataSize);
+        assertEquals(index.getRegionDataOffset(700), regionDataSizes[5]);
+        assertEquals(dataSize - index.getRegionDataOffset(700), regionDataSizes[700]);
+    }
+
+    @Test
+    public void shouldEscapeBigStrips() {
+        int[] regionFirstBlockIndexes = new int[GeoConstants.GEO_REGIONS];
+        Arrays.fill(regionFirstBlockIndexes, NO_INDEX);
+        regionFirstBlockIndexes[0] = 0;
+
+        byte[] blockTypes = new byte[IRegion.REGION_BLOCKS];
+        int[] absoluteDataOffsets = new int[blockTypes.length];
+        fillBlocks(new Random(1), blockTypes, absoluteDataOffsets);
+        // multilayer блоки по 1кб в первой полосе не влезают в char
+        int offset = absoluteDataOffsets[absoluteDataOffsets.length - 1];
+        for (int blockIndex = 0; blockIndex < BlockOffsetIndex.STRIP_BLOCKS; blockIndex++) {
+            blockTypes[blockIndex] = MULTILAYER_BLOCK;
+            absoluteDataOffsets[blockIndex] = offset;
+            offset += 1024;
+        }
+
+        BlockOffsetIndex index = BlockOffsetIndex.compress(regionFirstBlockIndexes, blockTypes, absoluteDataOffsets);
+        assertEquals(1, index.escapedStripsCount());
+        assertIndex(index, regionFirstBlockIndexes, blockTypes, absoluteDataOffsets);
+    }
+
+    @Test
+    public void shouldReadOldFormat() throws Exception {
+        int[] regionFirstBlockIndexes = new int[GeoConstants.GEO_REGIONS];
+        Arrays.fill(regionFirstBlockIndexes, NO_INDEX);
+        regionFirstBlockIndexes[1] = 0;
+
+        byte[] blockTypes = new byte[IRegion.REGION_BLOCKS];
+        int[] absoluteDataOffsets = new int[blockTypes.length];
+        fillBlocks(new Random(2), blockTypes, absoluteDataOffsets);
+
+        Path dir = Files.createTempDirectory("block-offset-index");
+        try {
+            Files.write(dir.resolve(BLOCK_DATA_OFFSETS_FILE_NAME), asBytes(absoluteDataOffsets));
+            BlockOffsetIndex oldFormat = BlockOffsetIndex.readFromFiles(dir, ByteOrder.BIG_ENDIAN, regionFirstBlockIndexes, blockTypes);
+            assertIndex(oldFormat, regionFirstBlockIndexes, blockTypes, absoluteDataOffsets);
+
+            oldFormat.writeToFiles(dir, ByteOrder.LITTLE_ENDIAN);
+            BlockOffsetIndex newFormat = BlockOffsetIndex.readFromFiles(dir, ByteOrder.LITTLE_ENDIAN, regionFirstBlockIndexes, blockTypes);
+            assertIndex(newFormat, regionFirstBlockIndexes, blockTypes, absoluteDataOffsets);
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Flat блоки с высотой в оффсете вперемешку с complex блоками по 128 байт
+     */
+    private static int fillBlocks(Random random, byte[] blockTypes, int[] absoluteDataOffsets) {
+        int offset = 0;
+        for (int blockIndex = 0; blockIndex < blockTypes.length; blockIndex++) {
+            if (random.nextInt(3) == 0) {
+                blockTypes[blockIndex] = FLAT_BLOCK;
+                absoluteDataOffsets[blockIndex] = random.nextInt(32000) - 16000;
+            } else {
+                blockTypes[blockIndex] = COMPLEX_BLOCK;
+                absoluteDataOffsets[blockIndex] = offset;
+                offset += 128;
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Offsets in index are relative to region data
+     */
+    private static void assertIndex(BlockOffsetIndex index, int[] regionFirstBlockIndexes, byte[] blockTypes, int[] absoluteDataOffsets) {
+        for (int regionIndex = 0; regionIndex < regionFirstBlockIndexes.length; regionIndex++) {
+            int regionFirstBlockIndex = regionFirstBlockIndexes[regionIndex];
+            if (regionFirstBlockIndex == NO_INDEX) {
+                continue;
+            }
+            for (int blockIndex = regionFirstBlockIndex; blockIndex < regionFirstBlockIndex + IRegion.REGION_BLOCKS; blockIndex++) {
+                int expected = blockTypes[blockIndex] == FLAT_BLOCK
+                    ? absoluteDataOffsets[blockIndex]
+                    : absoluteDataOffsets[blockIndex] - (int) index.getRegionDataOffset(regionIndex);
+                assertEquals(expected, index.getBlockDataOffset(blockTypes[blockIndex], blockIndex));
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.driver;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.mosinnik.l2eve.geodriver.Cell;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static ru.mosinnik.l2eve.geodriver.synthetic.TestRegions.*;
+
+public class BlockSummaryTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void shouldPackHeights() {
+        for (int min = -16384; min < 16384; min += 376) {
+            for (int max = min; max < 16384; max += 520) {
+                int packed = BlockSummary.pack(min, max);
+                assertEquals(min, BlockSummary.minHeight(packed));
+                assertEquals(max, BlockSummary.maxHeight(packed));
+            }
+        }
+    }
+
+    @Test
+    public void shouldSummarizeBlocks() throws Exception {
+        Path dir = temp.getRoot().toPath();
+        Path l2j = write(dir, REGION_X, REGION_Y, generateRegion());
+
+        GeoConfig config = GeoConfig.maxPerfBytes();
+        config.setBlockSummaryEnabled(true);
+        GeoDriverBytes driverBytes = new GeoDriverBytes(config);
+        driverBytes.loadFromL2J(List.of(l2j));
+        assertNotNull(driverBytes.getBlockSummary());
+
+        Path bin = temp.newFolder("bin").toPath();
+        driverBytes.writeToFiles(bin);
+        GeoDriverBytesMmap driverBytesMmap = new GeoDriverBytesMmap();
+        driverBytesMmap.loadBin(bin);
+        assertNotNull(driverBytesMmap.getBlockSummary());
+
+        GeoDriver driver = new GeoDriver(config);
+        driver.loadRegion(l2j, REGION_X, REGION_Y);
+
+        for (IGeoDriver d : new IGeoDriver[]{driver, driverBytes, driverBytesMmap}) {
+            // flat
+            assertEquals(-200, d.getBlockMinZ(GEO_X + 3, GEO_Y + 3));
+            assertEquals(-200, d.getBlockMaxZ(GEO_X + 3, GEO_Y + 3));
+            assertTrue(d.isBlockAllOpen(GEO_X + 3, GEO_Y + 3));
+            // complex with one closed cell
+            assertEquals(96, d.getBlockMinZ(GEO_X + 1, GEO_Y + 42));
+            assertEquals(96 + 63 * 8, d.getBlockMaxZ(GEO_X + 1, GEO_Y + 42));
+            assertFalse(d.isBlockAllOpen(GEO_X + 1, GEO_Y + 42));
+            // multilayer
+            assertEquals(104, d.getBlockMinZ(GEO_X + 7, GEO_Y + 63));
+            assertEquals(400, d.getBlockMaxZ(GEO_X + 7, GEO_Y + 63));
+            assertTrue(d.isBlockAllOpen(GEO_X + 7, GEO_Y + 63));
+            // no geodata
+            assertEquals(Integer.MAX_VALUE, d.getBlockMinZ(GEO_X - 1, GEO_Y));
+            assertEquals(Integer.MIN_VALUE, d.getBlockMaxZ(GEO_X - 1, GEO_Y));
+            assertTrue(d.isBlockAllOpen(GEO_X - 1, GEO_Y));
+        }
+    }
+
+    @Test
+    public void shouldReadSummaryOnlyWithBothFiles() throws Exception {
+        Path dir = temp.getRoot().toPath();
+        Path l2j = write(dir, REGION_X, REGION_Y, generateRegion());
+
+        GeoConfig config = GeoConfig.maxPerfBytes();
+        config.setBlockSummaryEnabled(true);
+        GeoDriverBytes driverBytes = new GeoDriverBytes(config);
+        driverBytes.loadFromL2J(List.of(l2j));
+        Path bin = temp.newFolder("bin").toPath();
+        driverBytes.writeToFiles(bin);
+
+        GeoDriverBytesMmap driverBytesMmap = new GeoDriverBytesMmap();
+        driverBytesMmap.loadBin(bin);
+        assertEquals(driverBytes.getBlockSummary(), driverBytesMmap.getBlockSummary());
+        assertEquals(driverBytes.getBlockSummary().hashCode(), driverBytesMmap.getBlockSummary().hashCode());
+
+        Files.delete(bin.resolve(GeoDriverBytesConstants.BLOCK_SUMMARY_ALL_OPEN_FILE_NAME));
+        driverBytesMmap = new GeoDriverBytesMmap();
+        driverBytesMmap.loadBin(bin);
+        assertNull(driverBytesMmap.getBlockSummary());
+    }
+
+    /**
+     * All blocks are flat except complex block (0, 5) and multilayer block (0, 7)
+     */
+    private static byte[] generateRegion() {
+        return region((blockX, blockY) -> blockX != 0 ? IBlock.TYPE_FLAT
+            : blockY == 5 ? IBlock.TYPE_COMPLEX : blockY == 7 ? IBlock.TYPE_MULTILAYER : IBlock.TYPE_FLAT, (x, y, heights, nswe) -> {
+            int cell = ((x & 7) << 3) | (y & 7);
+            if (y >> 3 == 5) {
+                heights[0] = 96 + cell * 8;
+                nswe[0] = cell == 10 ? 0 : Cell.NSWE_ALL;
+                return 1;
+            }
+            if (y >> 3 == 7) {
+                heights[0] = 400;
+                heights[1] = 104;
+                nswe[0] = nswe[1] = Cell.NSWE_ALL;
+                return 2;
+            }
+            heights[0] = -200;
+            return 1;
+        });
+    }
+}
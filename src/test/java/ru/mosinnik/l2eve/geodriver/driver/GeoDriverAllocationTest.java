@@ -0,0 +1,395 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.driver;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ru.mosinnik.l2eve.geodriver.Neighbours;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+import ru.mosinnik.l2eve.geodriver.jfr.GeoJfrDriver;
+import ru.mosinnik.l2eve.geodriver.metrics.GeoHeatmapDriver;
+import ru.mosinnik.l2eve.geodriver.metrics.GeoLatencyDriver;
+import ru.mosinnik.l2eve.geodriver.pathfinding.ConnectivityIndex;
+import ru.mosinnik.l2eve.geodriver.pathfinding.FlowField;
+import ru.mosinnik.l2eve.geodriver.pathfinding.FlowFieldCache;
+import ru.mosinnik.l2eve.geodriver.pathfinding.GeoPathFinder;
+import ru.mosinnik.l2eve.geodriver.pathfinding.IncrementalPlanner;
+import ru.mosinnik.l2eve.geodriver.pathfinding.PathNode;
+import ru.mosinnik.l2eve.geodriver.synthetic.SyntheticGeoGenerator;
+import ru.mosinnik.l2eve.geodriver.synthetic.SyntheticGeoProfile;
+import ru.mosinnik.l2eve.geodriver.util.LongList;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Запросы к драйверам и поиску пути не должны аллоцировать: после прогрева {@code getCurrentThreadAllocatedBytes}
+ * на серию вызовов должен быть нулевым хотя бы в одном раунде замера.
+ * <p>
+ * Драйверы проверяются для каждой операции и типа блока, в том числе обертки (трассировка, JFR, задержки, тепловая карта)
+ * с замером каждого запроса. Типы блоков берутся из двух синтетических миров (lowMemory и maxPerfBytes),
+ * плюс ячейки без геодаты. Поиск пути проверяется на запросах с выходом в переданные списки и массивы,
+ * {@link ru.mosinnik.l2eve.geodriver.pathfinding.HpaPathFinder} возвращает новый путь на каждый запрос и не проверяется.
+ * <p>
+ * То же под JMH с {@code -prof gc}: {@link ru.mosinnik.l2eve.geodriver.jmh.GeoDriverAllocationBench}.
+ */
+public class GeoDriverAllocationTest {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final int CELLS_PER_TYPE = 64;
+    private static final int WARMUP_ROUNDS = 6;
+    private static final int MEASURE_ROUNDS = 3;
+    private static final int CALLS_PER_ROUND = 5_000;
+    private static final int PATH_CALLS_PER_ROUND = 500;
+
+    // ячейка без геодаты: тип блока -1
+    private static final int NO_DATA = -1;
+
+    // пары для поиска пути: старт и цель не дальше PATH_DISTANCE клеток, поиск в прямоугольнике с запасом PATH_MARGIN
+    private static final int PATH_PAIRS = 32;
+    private static final int PATH_DISTANCE = 24;
+    private static final int PATH_MARGIN = 16;
+    private static final int FLOW_RADIUS = 48;
+
+    private static Path dir;
+    private static final Map<String, IGeoDriver> drivers = new LinkedHashMap<>();
+    private static GeoDriverBytes pathDriver;
+    private static int[] region;
+
+    @BeforeClass
+    public static void load() throws Exception {
+        dir = Files.createTempDirectory("allocation");
+        List<Path> paths = new SyntheticGeoGenerator(SyntheticGeoProfile.interlude()).generateWorld(dir, 1);
+        region = SyntheticGeoGenerator.worldRegions(1).get(0);
+
+        GeoConfig lowMemory = GeoConfig.lowMemory();
+        GeoConfig maxPerf = GeoConfig.maxPerfBytes();
+        maxPerf.setBlockSummaryEnabled(true);
+        maxPerf.setHeightPyramidEnabled(true);
+
+        GeoDriver oldLowMemory = new GeoDriver(lowMemory);
+        oldLowMemory.loadRegion(paths.get(0), region[0], region[1]);
+        GeoDriver oldMaxPerf = new GeoDriver(maxPerf);
+        oldMaxPerf.loadRegion(paths.get(0), region[0], region[1]);
+        GeoDriverBytes bytesLowMemory = new GeoDriverBytes(lowMemory);
+        bytesLowMemory.loadFromL2J(paths);
+        GeoDriverBytes bytesMaxPerf = new GeoDriverBytes(maxPerf);
+        bytesMaxPerf.loadFromL2J(paths);
+
+        Path binDir = Files.createDirectory(dir.resolve("bin"));
+        bytesMaxPerf.writeToFiles(binDir);
+        GeoDriverBytesMmap mmap = new GeoDriverBytesMmap();
+        mmap.loadBin(binDir);
+
+        GeoOverlay overlay = new GeoOverlay(bytesMaxPerf);
+        int geoX = region[0] * IRegion.REGION_CELLS_X;
+        int geoY = region[1] * IRegion.REGION_CELLS_Y;
+        overlay.addObstacle(geoX + 100, geoY + 100, geoX + 120, geoY + 120, Short.MIN_VALUE, Short.MAX_VALUE);
+
+        drivers.put("GeoDriver/lowMemory", oldLowMemory);
+        drivers.put("GeoDriver/maxPerf", oldMaxPerf);
+        drivers.put("GeoDriverBytes/lowMemory", bytesLowMemory);
+        drivers.put("GeoDriverBytes/maxPerf", bytesMaxPerf);
+        drivers.put("GeoDriverBytesMmap", mmap);
+        drivers.put("GeoOverlay", overlay);
+        // обертки замеряют каждый запрос
+        drivers.put("GeoTraceRecorder", new GeoTraceRecorder(bytesMaxPerf, 1 << 16));
+        drivers.put("GeoJfrDriver", new GeoJfrDriver(bytesMaxPerf, 1));
+        drivers.put("GeoLatencyDriver", new GeoLatencyDriver(bytesMaxPerf, "allocation", 1));
+        drivers.put("GeoHeatmapDriver", new GeoHeatmapDriver(bytesMaxPerf));
+        pathDriver = bytesMaxPerf;
+    }
+
+    @AfterClass
+    public static void cleanup() throws Exception {
+        drivers.clear();
+        pathDriver = null;
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void shouldNotAllocateOnQueries() {
+        assumeTrue(THREADS.isThreadAllocatedMemorySupported());
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        List<String> failures = new ArrayList<>();
+        int combinations = 0;
+        for (Map.Entry<String, IGeoDriver> entry : drivers.entrySet()) {
+            IGeoDriver driver = entry.getValue();
+            Map<Integer, int[]> cellsByType = cellsByBlockType(driver);
+            // первый проход только прогревает драйвер на всех операциях и типах блоков, чтобы замер не застал интерпретатор
+            for (int pass = 0; pass < 2; pass++) {
+                for (Map.Entry<Integer, int[]> cells : cellsByType.entrySet()) {
+                    int[] triples = cells.getValue();
+                    int count = triples.length / 3;
+                    for (Op op : Op.values()) {
+                        Buffers buffers = new Buffers();
+                        long allocated = measure(i -> {
+                            int cell = (i % count) * 3;
+                            return call(driver, op, triples[cell], triples[cell + 1], triples[cell + 2], buffers);
+                        }, CALLS_PER_ROUND);
+                        if (pass == 0) {
+                            continue;
+                        }
+                        combinations++;
+                        if (allocated > 0) {
+                            failures.add(entry.getKey() + " " + op + " " + GeoDriverBytesConstants.blockTypeToName(cells.getKey()) + ": " + allocated + " bytes");
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(combinations > 0);
+        assertTrue("Allocating queries:\n" + String.join("\n", failures), failures.isEmpty());
+    }
+
+    @Test
+    public void shouldNotAllocateOnPathQueries() {
+        assumeTrue(THREADS.isThreadAllocatedMemorySupported());
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        GeoPathFinder finder = new GeoPathFinder(pathDriver);
+        IncrementalPlanner planner = new IncrementalPlanner(new GeoPathFinder(pathDriver));
+        ConnectivityIndex connectivity = ConnectivityIndex.build(pathDriver);
+        long[] pairs = pathPairs(finder);
+        long center = pairs[0];
+        FlowField field = FlowField.build(pathDriver, center, FLOW_RADIUS, false);
+        FlowFieldCache cache = new FlowFieldCache(pathDriver, FLOW_RADIUS, Long.MAX_VALUE / 2, 0, false);
+        for (int targetId = 0; targetId < PATH_PAIRS; targetId++) {
+            long target = pairs[targetId * 2 + 1];
+            cache.get(targetId, PathNode.geoX(target), PathNode.geoY(target), PathNode.z(target));
+        }
+
+        LongList path = new LongList();
+        long[] targets = new long[4];
+        int[] costs = new int[targets.length];
+        Map<String, IntUnaryOperator> queries = new LinkedHashMap<>();
+        queries.put("GeoPathFinder.findPath", i -> {
+            long start = pairs[(i % PATH_PAIRS) * 2];
+            long goal = pairs[(i % PATH_PAIRS) * 2 + 1];
+            return finder.findPath(start, goal, minX(start, goal), minY(start, goal), maxX(start, goal), maxY(start, goal), path);
+        });
+        queries.put("GeoPathFinder.findCosts", i -> {
+            long start = pairs[(i % PATH_PAIRS) * 2];
+            for (int t = 0; t < targets.length; t++) {
+                targets[t] = pairs[((i + t) % PATH_PAIRS) * 2 + 1];
+            }
+            finder.findCosts(start, PathNode.geoX(start) - PATH_DISTANCE - PATH_MARGIN, PathNode.geoY(start) - PATH_DISTANCE - PATH_MARGIN,
+                PathNode.geoX(start) + PATH_DISTANCE + PATH_MARGIN, PathNode.geoY(start) + PATH_DISTANCE + PATH_MARGIN, targets, costs);
+            return costs[0];
+        });
+        queries.put("IncrementalPlanner.plan", i -> {
+            // цель агента сдвигается на клетку раз в круг по агентам, путь чинится локально
+            int agent = i % PATH_PAIRS;
+            long start = pairs[agent * 2];
+            long goal = pairs[agent * 2 + 1];
+            long shifted = finder.node(PathNode.geoX(goal) + ((i / PATH_PAIRS) & 1), PathNode.geoY(goal), PathNode.z(goal));
+            return planner.plan(agent, start, shifted, path) ? path.size() : 0;
+        });
+        queries.put("ConnectivityIndex.sameComponent", i -> {
+            long start = pairs[(i % PATH_PAIRS) * 2];
+            long goal = pairs[(i % PATH_PAIRS) * 2 + 1];
+            return connectivity.sameComponent(PathNode.geoX(start), PathNode.geoY(start), PathNode.z(start),
+                PathNode.geoX(goal), PathNode.geoY(goal), PathNode.z(goal)) ? 1 : 0;
+        });
+        queries.put("FlowField.getDirection", i -> field.getDirection(PathNode.geoX(center) + (i % 64) - 32,
+            PathNode.geoY(center) + ((i / 64) % 64) - 32, PathNode.z(center)));
+        queries.put("FlowField.getCost", i -> field.getCost(PathNode.geoX(center) + (i % 64) - 32,
+            PathNode.geoY(center) + ((i / 64) % 64) - 32, PathNode.z(center)));
+        queries.put("FlowFieldCache.get", i -> {
+            int targetId = i % PATH_PAIRS;
+            long target = pairs[targetId * 2 + 1];
+            return cache.get(targetId, PathNode.geoX(target), PathNode.geoY(target), PathNode.z(target)).getNodeCount();
+        });
+
+        List<String> failures = new ArrayList<>();
+        queries.forEach((name, query) -> {
+            long allocated = measure(query, PATH_CALLS_PER_ROUND);
+            if (allocated > 0) {
+                failures.add(name + ": " + allocated + " bytes");
+            }
+        });
+        assertTrue("Allocating path queries:\n" + String.join("\n", failures), failures.isEmpty());
+    }
+
+    /**
+     * @return минимум по раундам замера, байт на calls вызовов
+     */
+    private static long measure(IntUnaryOperator call, int calls) {
+        int[] sink = new int[1];
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            run(call, calls, sink);
+        }
+        long minAllocated = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURE_ROUNDS; round++) {
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            run(call, calls, sink);
+            minAllocated = Math.min(minAllocated, THREADS.getCurrentThreadAllocatedBytes() - before);
+        }
+        return minAllocated;
+    }
+
+    private static void run(IntUnaryOperator call, int calls, int[] sink) {
+        int sum = 0;
+        for (int i = 0; i < calls; i++) {
+            sum += call.applyAsInt(i);
+        }
+        sink[0] += sum;
+    }
+
+    private static int call(IGeoDriver driver, Op op, int geoX, int geoY, int worldZ, Buffers buffers) {
+        return switch (op) {
+            case HAS_GEO_POS -> driver.hasGeoPos(geoX, geoY) ? 1 : 0;
+            case GET_NEAREST_Z -> driver.getNearestZ(geoX, geoY, worldZ);
+            case GET_NEAREST_LAYER -> driver.getNearestLayer(geoX, geoY, worldZ);
+            case GET_NEXT_LOWER_Z -> driver.getNextLowerZ(geoX, geoY, worldZ);
+            case GET_NEXT_HIGHER_Z -> driver.getNextHigherZ(geoX, geoY, worldZ);
+            case CHECK_NEAREST_NSWE -> driver.checkNearestNSWE(geoX, geoY, worldZ, (byte) (geoX & 0x0F)) ? 1 : 0;
+            case GET_LAYERS -> driver.getLayers(geoX, geoY, buffers.heights, buffers.nswe);
+            case GET_BLOCK_TYPE -> driver.getBlockType(geoX, geoY);
+            case GET_BLOCK_MIN_Z -> driver.getBlockMinZ(geoX, geoY);
+            case GET_BLOCK_MAX_Z -> driver.getBlockMaxZ(geoX, geoY);
+            case IS_BLOCK_ALL_OPEN -> driver.isBlockAllOpen(geoX, geoY) ? 1 : 0;
+            case IS_BLOCK_UNIFORM -> driver.isBlockUniform(geoX, geoY) ? 1 : 0;
+            case GET_AREA_MAX_Z -> driver.getAreaMaxZ(geoX - 4, geoY - 4, geoX + 4, geoY + 4);
+            case HAS_HEIGHT_ABOVE -> driver.hasHeightAbove(geoX - 4, geoY - 4, geoX + 4, geoY + 4, worldZ) ? 1 : 0;
+            case IS_RAY_ABOVE_TERRAIN -> driver.isRayAboveTerrain(geoX, geoY, worldZ + 64, geoX + 30, geoY - 20, worldZ + 64) ? 1 : 0;
+            case EXPAND_NEIGHBOURS -> driver.expandNeighbours(geoX, geoY, worldZ, buffers.neighbourZ, buffers.neighbourMask);
+        };
+    }
+
+    /**
+     * Ячейки по типу блока, тройками geoX, geoY, worldZ. Ячейки берутся в том числе с краев блоков
+     * для expandNeighbours, z - высота одного из слоев ячейки.
+     */
+    private static Map<Integer, int[]> cellsByBlockType(IGeoDriver driver) {
+        Map<Integer, List<int[]>> byType = new LinkedHashMap<>();
+        Random random = new Random(region[0] * 31 + region[1]);
+        int[] heights = new int[IBlock.MAX_CELL_LAYERS];
+        byte[] nswe = new byte[IBlock.MAX_CELL_LAYERS];
+        int regionGeoX = region[0] * IRegion.REGION_CELLS_X;
+        int regionGeoY = region[1] * IRegion.REGION_CELLS_Y;
+        for (int block = 0; block < IRegion.REGION_BLOCKS; block++) {
+            int geoX = regionGeoX + (block >> 8) * IBlock.BLOCK_CELLS_X + random.nextInt(IBlock.BLOCK_CELLS_X);
+            int geoY = regionGeoY + (block & 0xFF) * IBlock.BLOCK_CELLS_Y + random.nextInt(IBlock.BLOCK_CELLS_Y);
+            List<int[]> cells = byType.computeIfAbsent(driver.getBlockType(geoX, geoY), k -> new ArrayList<>());
+            if (cells.size() < CELLS_PER_TYPE) {
+                int layers = driver.getLayers(geoX, geoY, heights, nswe);
+                cells.add(new int[]{geoX, geoY, heights[random.nextInt(layers)]});
+            }
+        }
+        // соседний регион без геодаты
+        List<int[]> noData = byType.computeIfAbsent(NO_DATA, k -> new ArrayList<>());
+        for (int i = 0; i < CELLS_PER_TYPE; i++) {
+            noData.add(new int[]{regionGeoX + IRegion.REGION_CELLS_X + random.nextInt(IRegion.REGION_CELLS_X),
+                regionGeoY + random.nextInt(IRegion.REGION_CELLS_Y), 0});
+        }
+
+        Map<Integer, int[]> result = new LinkedHashMap<>();
+        for (Map.Entry<Integer, List<int[]>> entry : byType.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().stream().flatMapToInt(Arrays::stream).toArray());
+        }
+        return result;
+    }
+
+    private static int minX(long start, long goal) {
+        return Math.min(PathNode.geoX(start), PathNode.geoX(goal)) - PATH_MARGIN;
+    }
+
+    private static int minY(long start, long goal) {
+        return Math.min(PathNode.geoY(start), PathNode.geoY(goal)) - PATH_MARGIN;
+    }
+
+    private static int maxX(long start, long goal) {
+        return Math.max(PathNode.geoX(start), PathNode.geoX(goal)) + PATH_MARGIN;
+    }
+
+    private static int maxY(long start, long goal) {
+        return Math.max(PathNode.geoY(start), PathNode.geoY(goal)) + PATH_MARGIN;
+    }
+
+    /**
+     * Пары узлов старт, цель внутри региона, между ними не больше PATH_DISTANCE клеток по каждой оси
+     */
+    private static long[] pathPairs(GeoPathFinder finder) {
+        Random random = new Random(region[0] * 17 + region[1]);
+        int regionGeoX = region[0] * IRegion.REGION_CELLS_X + 256;
+        int regionGeoY = region[1] * IRegion.REGION_CELLS_Y + 256;
+        long[] pairs = new long[PATH_PAIRS * 2];
+        for (int i = 0; i < PATH_PAIRS; i++) {
+            int geoX = regionGeoX + random.nextInt(IRegion.REGION_CELLS_X - 512);
+            int geoY = regionGeoY + random.nextInt(IRegion.REGION_CELLS_Y - 512);
+            pairs[i * 2] = finder.node(geoX, geoY, 0);
+            pairs[i * 2 + 1] = finder.node(geoX + random.nextInt(2 * PATH_DISTANCE + 1) - PATH_DISTANCE,
+                geoY + random.nextInt(2 * PATH_DISTANCE + 1) - PATH_DISTANCE, 0);
+        }
+        return pairs;
+    }
+
+    private enum Op {
+        HAS_GEO_POS,
+        GET_NEAREST_Z,
+        GET_NEAREST_LAYER,
+        GET_NEXT_LOWER_Z,
+        GET_NEXT_HIGHER_Z,
+        CHECK_NEAREST_NSWE,
+        GET_LAYERS,
+        GET_BLOCK_TYPE,
+        GET_BLOCK_MIN_Z,
+        GET_BLOCK_MAX_Z,
+        IS_BLOCK_ALL_OPEN,
+        IS_BLOCK_UNIFORM,
+        GET_AREA_MAX_Z,
+        HAS_HEIGHT_ABOVE,
+        IS_RAY_ABOVE_TERRAIN,
+        EXPAND_NEIGHBOURS,
+    }
+
+    private static final class Buffers {
+        final int[] heights = new int[IBlock.MAX_CELL_LAYERS];
+        final byte[] nswe = new byte[IBlock.MAX_CELL_LAYERS];
+        final int[] neighbourZ = new int[Neighbours.COUNT];
+        final byte[] neighbourMask = new byte[Neighbours.COUNT];
+    }
+}
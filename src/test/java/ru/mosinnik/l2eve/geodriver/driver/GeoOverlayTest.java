@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.driver;
+
+import org.junit.Test;
+import ru.mosinnik.l2eve.geodriver.Cell;
+import ru.mosinnik.l2eve.geodriver.LayerData;
+import ru.mosinnik.l2eve.geodriver.Neighbours;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class GeoOverlayTest {
+
+    private static final int REGION_X = 20;
+    private static final int REGION_Y = 18;
+    private static final int GEO_X = REGION_X * IRegion.REGION_CELLS_X;
+    private static final int GEO_Y = REGION_Y * IRegion.REGION_CELLS_Y;
+
+    // дверь 2x11 ячеек через границу блоков по y
+    private static final int MIN_X = GEO_X + 100;
+    private static final int MAX_X = GEO_X + 101;
+    private static final int MIN_Y = GEO_Y + 50;
+    private static final int MAX_Y = GEO_Y + 60;
+
+    @Test
+    public void shouldCloseAndReopenObstacle() throws Exception {
+        Path dir = Files.createTempDirectory("geo-overlay");
+        try {
+            Path l2j = dir.resolve(REGION_X + "_" + REGION_Y + ".l2j");
+            Files.write(l2j, generateFlatRegion());
+            GeoDriverBytes driver = new GeoDriverBytes(GeoConfig.maxPerfBytes());
+            driver.loadFromL2J(List.of(l2j));
+
+            GeoOverlay overlay = new GeoOverlay(driver);
+            assertEquals(0, overlay.getEpoch());
+            assertTrue(overlay.checkNearestNSWE(MIN_X, MIN_Y, -200, Cell.NSWE_ALL));
+
+            int door = overlay.addObstacle(MIN_X, MIN_Y, MAX_X, MAX_Y, -300, 0);
+            assertEquals(1, overlay.getEpoch());
+
+            // внутри закрыто все
+            assertFalse(overlay.checkNearestNSWE(MIN_X, MIN_Y, -200, Cell.NSWE_EAST));
+            assertFalse(overlay.checkNearestNSWE(MAX_X, MAX_Y, -200, Cell.NSWE_NORTH));
+            int[] heights = new int[IBlock.MAX_CELL_LAYERS];
+            byte[] nswe = new byte[IBlock.MAX_CELL_LAYERS];
+            assertEquals(1, overlay.getLayers(MIN_X, MIN_Y + 5, heights, nswe));
+            assertEquals(-200, heights[0]);
+            assertEquals(0, nswe[0]);
+            assertEquals(-200, overlay.getNearestZ(MIN_X, MIN_Y, 0));
+
+            // снаружи закрыто только направление внутрь
+            assertFalse(overlay.checkNearestNSWE(MIN_X - 1, MIN_Y, -200, Cell.NSWE_EAST));
+            assertTrue(overlay.checkNearestNSWE(MIN_X - 1, MIN_Y, -200, (byte) (Cell.NSWE_ALL & ~Cell.NSWE_EAST)));
+            assertFalse(overlay.checkNearestNSWE(MAX_X + 1, MAX_Y, -200, Cell.NSWE_WEST));
+            assertFalse(overlay.checkNearestNSWE(MIN_X, MIN_Y - 1, -200, Cell.NSWE_SOUTH));
+            assertFalse(overlay.checkNearestNSWE(MAX_X, MAX_Y + 1, -200, Cell.NSWE_NORTH));
+            assertTrue(overlay.checkNearestNSWE(MIN_X - 1, MIN_Y - 1, -200, Cell.NSWE_ALL));
+            assertTrue(overlay.checkNearestNSWE(MIN_X - 2, MIN_Y, -200, Cell.NSWE_ALL));
+
+            assertFalse(overlay.isBlockAllOpen(MIN_X, MIN_Y));
+            assertTrue(overlay.isBlockAllOpen(MIN_X + 40, MIN_Y));
+
+            int[] outZ = new int[Neighbours.COUNT];
+            byte[] outMask = new byte[Neighbours.COUNT];
+            int mask = overlay.expandNeighbours(MIN_X - 1, MIN_Y + 5, -200, outZ, outMask);
+            assertFalse(Neighbours.isReachable(mask, Neighbours.EAST));
+            assertTrue(Neighbours.isReachable(mask, Neighbours.WEST));
+            mask = overlay.expandNeighbours(MIN_X - 1, MIN_Y - 1, -200, outZ, outMask);
+            assertTrue(Neighbours.isReachable(mask, Neighbours.EAST));
+            assertFalse(Neighbours.isReachable(mask, Neighbours.SOUTH_EAST));
+            mask = overlay.expandNeighbours(MIN_X + 40, MIN_Y, -200, outZ, outMask);
+            assertEquals(0xFF, mask);
+
+            // препятствие выше земли ничего не закрывает
+            int roof = overlay.addObstacle(MIN_X - 20, MIN_Y - 20, MIN_X - 10, MIN_Y - 10, 500, 600);
+            assertEquals(2, overlay.getEpoch());
+            assertTrue(overlay.checkNearestNSWE(MIN_X - 15, MIN_Y - 15, -200, Cell.NSWE_ALL));
+            assertTrue(overlay.isBlockAllOpen(MIN_X - 15, MIN_Y - 15));
+
+            assertTrue(overlay.removeObstacle(door));
+            assertTrue(overlay.removeObstacle(roof));
+            assertFalse(overlay.removeObstacle(door));
+            assertEquals(4, overlay.getEpoch());
+            assertEquals(0, overlay.getObstacleCount());
+            for (int x = MIN_X - 10; x <= MAX_X + 10; x++) {
+                for (int y = MIN_Y - 10; y <= MAX_Y + 10; y++) {
+                    assertEquals(driver.getNearestLayer(x, y, -200), overlay.getNearestLayer(x, y, -200));
+                }
+            }
+            assertTrue(overlay.isBlockAllOpen(MIN_X, MIN_Y));
+        } finally {
+            try (Stream<Path> paths = Files.walk(dir)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    /**
+     * После перезагрузки региона копии блоков должны собираться по новой геодате
+     */
+    @Test
+    public void shouldRebuildBlocksOnLoadRegion() throws Exception {
+        Path dir = Files.createTempDirectory("geo-overlay");
+        try {
+            Path low = dir.resolve("low.l2j");
+            Path high = dir.resolve("high.l2j");
+            Files.write(low, generateFlatRegion(-200));
+            Files.write(high, generateFlatRegion(100));
+            GeoDriver driver = new GeoDriver(GeoConfig.lowMemory());
+            GeoOverlay overlay = new GeoOverlay(driver);
+            overlay.loadRegion(low, REGION_X, REGION_Y);
+            overlay.addObstacle(MIN_X, MIN_Y, MAX_X, MAX_Y, -300, 300);
+            assertEquals(-200, LayerData.height(overlay.getNearestLayer(MIN_X, MIN_Y, 0)));
+
+            long epoch = overlay.getEpoch();
+            overlay.loadRegion(high, REGION_X, REGION_Y);
+            assertTrue(overlay.getEpoch() > epoch);
+            int layer = overlay.getNearestLayer(MIN_X, MIN_Y, 0);
+            assertEquals(100, LayerData.height(layer));
+            assertEquals(0, LayerData.nswe(layer));
+            assertFalse(overlay.checkNearestNSWE(MIN_X - 1, MIN_Y, 100, Cell.NSWE_EAST));
+            assertEquals(driver.getNearestLayer(MIN_X - 2, MIN_Y, 0), overlay.getNearestLayer(MIN_X - 2, MIN_Y, 0));
+        } finally {
+            try (Stream<Path> paths = Files.walk(dir)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidBounds() {
+        new GeoOverlay(new NullDriver()).addObstacle(10, 10, 5, 20, 0, 100);
+    }
+
+    private static byte[] generateFlatRegion() {
+        return generateFlatRegion(-200);
+    }
+
+    private static byte[] generateFlatRegion(int height) {
+        ByteBuffer bb = ByteBuffer.allocate(IRegion.REGION_BLOCKS * 3).order(ByteOrder.LITTLE_ENDIAN);
+        for (int blockIndex = 0; blockIndex < IRegion.REGION_BLOCKS; blockIndex++) {
+            bb.put((byte) IBlock.TYPE_FLAT);
+            bb.putShort((short) height);
+        }
+        return bb.array();
+    }
+}
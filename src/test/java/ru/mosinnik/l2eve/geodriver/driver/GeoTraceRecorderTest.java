@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.driver;
+
+import org.junit.Test;
+import ru.mosinnik.l2eve.geodriver.Cell;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class GeoTraceRecorderTest {
+
+    @Test
+    public void shouldPackRecord() {
+        long record = GeoTraceRecorder.pack(GeoTraceRecorder.OP_CHECK_NEAREST_NSWE, 65535, 12345, -4321, Cell.NSWE_NORTH);
+        assertEquals(GeoTraceRecorder.OP_CHECK_NEAREST_NSWE, GeoTraceRecorder.op(record));
+        assertEquals(65535, GeoTraceRecorder.geoX(record));
+        assertEquals(12345, GeoTraceRecorder.geoY(record));
+        assertEquals(-4321, GeoTraceRecorder.z(record));
+        assertEquals(Cell.NSWE_NORTH, GeoTraceRecorder.nswe(record));
+
+        // z за пределами short обрезается
+        assertEquals(Short.MAX_VALUE, GeoTraceRecorder.z(GeoTraceRecorder.pack(GeoTraceRecorder.OP_GET_NEAREST_Z, 0, 0, Integer.MAX_VALUE, (byte) 0)));
+    }
+
+    @Test
+    public void shouldRecordOnlyWhenStarted() {
+        GeoTraceRecorder recorder = new GeoTraceRecorder(new NullDriver(), 10);
+        assertEquals(16, recorder.getCapacity());
+
+        recorder.getNearestZ(1, 2, 3);
+        assertEquals(0, recorder.getRecordedCount());
+
+        recorder.start();
+        recorder.getNearestZ(1, 2, 3);
+        recorder.checkNearestNSWE(4, 5, 6, Cell.NSWE_EAST);
+        recorder.stop();
+        recorder.getNextLowerZ(7, 8, 9);
+
+        assertArrayEquals(new long[]{
+            GeoTraceRecorder.pack(GeoTraceRecorder.OP_GET_NEAREST_Z, 1, 2, 3, (byte) 0),
+            GeoTraceRecorder.pack(GeoTraceRecorder.OP_CHECK_NEAREST_NSWE, 4, 5, 6, Cell.NSWE_EAST),
+        }, recorder.snapshot());
+    }
+
+    @Test
+    public void shouldKeepLastRecordsOnOverflow() {
+        GeoTraceRecorder recorder = new GeoTraceRecorder(new NullDriver(), 4);
+        recorder.start();
+        for (int i = 0; i < 10; i++) {
+            recorder.getNearestZ(i, i, i);
+        }
+
+        long[] records = recorder.snapshot();
+        assertEquals(4, records.length);
+        for (int i = 0; i < records.length; i++) {
+            assertEquals(6 + i, GeoTraceRecorder.geoX(records[i]));
+        }
+    }
+
+    @Test
+    public void shouldKeepOrderOfEachThread() throws Exception {
+        GeoTraceRecorder recorder = new GeoTraceRecorder(new NullDriver(), 1 << 16);
+        assertEquals(64, recorder.getChunkSize());
+        recorder.start();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    recorder.getNearestZ(thread, i, 0);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        recorder.stop();
+
+        // недописанные хвосты кусков пропущены, записи каждого потока идут по порядку
+        long[] records = recorder.snapshot();
+        assertEquals(4000, records.length);
+        assertEquals(4000, recorder.getRecordedCount());
+        int[] next = new int[threads.length];
+        for (long record : records) {
+            assertEquals(next[GeoTraceRecorder.geoX(record)]++, GeoTraceRecorder.geoY(record));
+        }
+
+        recorder.clear();
+        recorder.start();
+        recorder.getNearestZ(7, 7, 7);
+        assertArrayEquals(new long[]{GeoTraceRecorder.pack(GeoTraceRecorder.OP_GET_NEAREST_Z, 7, 7, 7, (byte) 0)}, recorder.snapshot());
+    }
+
+    @Test
+    public void shouldWriteAndReplayTrace() throws Exception {
+        GeoTraceRecorder recorder = new GeoTraceRecorder(new NullDriver(), 64);
+        recorder.start();
+        recorder.hasGeoPos(10, 20);
+        recorder.getNearestLayer(11, 21, 100);
+        recorder.getNextHigherZ(12, 22, -100);
+        recorder.getLayers(13, 23, new int[4], new byte[4]);
+        recorder.expandNeighbours(14, 24, 200, new int[8], new byte[8]);
+        recorder.isBlockUniform(15, 25);
+        recorder.stop();
+
+        Path file = Files.createTempFile("geo-trace", ".bin");
+        try {
+            recorder.writeToFile(file);
+            long[] trace = GeoTraceRecorder.readFromFile(file);
+            assertArrayEquals(recorder.snapshot(), trace);
+
+            // проигрывание через второй рекордер дает ту же трассу
+            GeoTraceRecorder replayed = new GeoTraceRecorder(new NullDriver(), 64);
+            replayed.start();
+            GeoTraceRecorder.replay(replayed, trace, 0, trace.length);
+            assertArrayEquals(trace, replayed.snapshot());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
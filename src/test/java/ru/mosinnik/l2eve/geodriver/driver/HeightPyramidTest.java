@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.driver;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.mosinnik.l2eve.geodriver.Cell;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+import ru.mosinnik.l2eve.geodriver.pathfinding.HpaGraph;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static ru.mosinnik.l2eve.geodriver.synthetic.TestRegions.*;
+
+public class HeightPyramidTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * Пирамида должна отвечать так же как обход всех ячеек (GeoDriver без пирамиды)
+     */
+    @Test
+    public void shouldMatchCells() throws Exception {
+        Path dir = temp.getRoot().toPath();
+        Random random = new Random(1);
+        Path first = write(dir, REGION_X, REGION_Y, generateRegion(random));
+        Path second = write(dir, REGION_X, REGION_Y + 1, generateRegion(random));
+
+        GeoConfig config = GeoConfig.maxPerfBytes();
+        config.setHeightPyramidEnabled(true);
+        GeoDriverBytes driverBytes = new GeoDriverBytes(config);
+        driverBytes.loadFromL2J(List.of(first, second));
+        assertNotNull(driverBytes.getHeightPyramid());
+
+        Path bin = temp.newFolder("bin").toPath();
+        driverBytes.writeToFiles(bin);
+        GeoDriverBytesMmap driverBytesMmap = new GeoDriverBytesMmap();
+        driverBytesMmap.loadBin(bin);
+        assertNotNull(driverBytesMmap.getHeightPyramid());
+
+        GeoDriver driver = new GeoDriver(config);
+        driver.loadRegion(first, REGION_X, REGION_Y);
+        driver.loadRegion(second, REGION_X, REGION_Y + 1);
+
+        // луч вдоль региона над всем рельефом и сквозь гору
+        assertTrue(driverBytes.isRayAboveTerrain(GEO_X, GEO_Y, 3000, GEO_X + 2047, GEO_Y + 4095, 3000));
+        assertFalse(driverBytes.isRayAboveTerrain(GEO_X, GEO_Y, 0, GEO_X + 2047, GEO_Y + 4095, 0));
+        assertEquals(Integer.MIN_VALUE, driverBytes.getAreaMaxZ(GEO_X - 100, GEO_Y, GEO_X - 1, GEO_Y + 100));
+
+        for (int i = 0; i < 200; i++) {
+            int x = GEO_X - 50 + random.nextInt(2148);
+            int y = GEO_Y - 50 + random.nextInt(4196);
+            int toX = x + random.nextInt(1200) - 600;
+            int toY = y + random.nextInt(1200) - 600;
+            int z = random.nextInt(3000) - 1000;
+            int toZ = i % 4 == 0 ? z : random.nextInt(3000) - 1000;
+            if (i % 8 == 1) {
+                // через углы ячеек
+                toY = y + (toX - x) * (random.nextBoolean() ? 1 : -1);
+            }
+            boolean expected = driver.isRayAboveTerrain(x, y, z, toX, toY, toZ);
+            assertEquals(expected, driverBytes.isRayAboveTerrain(x, y, z, toX, toY, toZ));
+            assertEquals(expected, driverBytesMmap.isRayAboveTerrain(x, y, z, toX, toY, toZ));
+
+            int maxX = x + random.nextInt(300);
+            int maxY = y + random.nextInt(300);
+            int maxZ = driver.getAreaMaxZ(x, y, maxX, maxY);
+            assertEquals(maxZ, driverBytes.getAreaMaxZ(x, y, maxX, maxY));
+            assertEquals(maxZ, driverBytesMmap.getAreaMaxZ(x, y, maxX, maxY));
+            boolean above = driver.hasHeightAbove(x, y, maxX, maxY, z);
+            assertEquals(maxZ > z, above);
+            assertEquals(above, driverBytes.hasHeightAbove(x, y, maxX, maxY, z));
+            assertEquals(above, driverBytesMmap.hasHeightAbove(x, y, maxX, maxY, z));
+        }
+    }
+
+    /**
+     * Файл пирамиды от другого набора регионов не должен читаться по чужим смещениям
+     */
+    @Test
+    public void shouldRejectFileOfOtherRegions() throws Exception {
+        Path dir = temp.getRoot().toPath();
+        int[] regionFirstBlockIndexes = new int[GeoConstants.GEO_REGIONS];
+        Arrays.fill(regionFirstBlockIndexes, GeoDriverBytesConstants.NO_INDEX);
+        regionFirstBlockIndexes[0] = 0;
+        regionFirstBlockIndexes[1] = IRegion.REGION_BLOCKS;
+        // пирамида одного региона
+        writePyramid(dir, HeightPyramid.MAGIC, HeightPyramid.VERSION, 1);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> HeightPyramid.readFromFiles(dir, ByteOrder.LITTLE_ENDIAN, regionFirstBlockIndexes));
+        assertThrows(IllegalArgumentException.class,
+            () -> HeightPyramid.mapFromFiles(dir, ByteOrder.LITTLE_ENDIAN, regionFirstBlockIndexes));
+
+        regionFirstBlockIndexes[1] = GeoDriverBytesConstants.NO_INDEX;
+        assertNotNull(HeightPyramid.readFromFiles(dir, ByteOrder.LITTLE_ENDIAN, regionFirstBlockIndexes));
+    }
+
+    @Test
+    public void shouldCheckHeader() throws Exception {
+        Path dir = temp.getRoot().toPath();
+        int[] regionFirstBlockIndexes = new int[GeoConstants.GEO_REGIONS];
+        Arrays.fill(regionFirstBlockIndexes, GeoDriverBytesConstants.NO_INDEX);
+        regionFirstBlockIndexes[0] = 0;
+
+        // другая версия не читается, пирамида строится заново
+        writePyramid(dir, HeightPyramid.MAGIC, HeightPyramid.VERSION + 1, 1);
+        assertNull(HeightPyramid.readFromFiles(dir, ByteOrder.LITTLE_ENDIAN, regionFirstBlockIndexes));
+        assertNull(HeightPyramid.mapFromFiles(dir, ByteOrder.LITTLE_ENDIAN, regionFirstBlockIndexes));
+
+        // файл без заголовка и файл графа HPA
+        Files.write(dir.resolve(GeoDriverBytesConstants.HEIGHT_PYRAMID_FILE_NAME),
+            new byte[HeightPyramid.REGION_STRIDE * Integer.BYTES]);
+        assertThrows(IllegalArgumentException.class,
+            () -> HeightPyramid.readFromFiles(dir, ByteOrder.LITTLE_ENDIAN, regionFirstBlockIndexes));
+        writePyramid(dir, HpaGraph.MAGIC, HeightPyramid.VERSION, 1);
+        assertThrows(IllegalArgumentException.class,
+            () -> HeightPyramid.readFromFiles(dir, ByteOrder.LITTLE_ENDIAN, regionFirstBlockIndexes));
+
+        // число регионов в заголовке не совпадает с данными
+        writePyramid(dir, HeightPyramid.MAGIC, HeightPyramid.VERSION, 2);
+        assertThrows(IllegalArgumentException.class,
+            () -> HeightPyramid.mapFromFiles(dir, ByteOrder.LITTLE_ENDIAN, regionFirstBlockIndexes));
+    }
+
+    /**
+     * Заголовок и нулевые данные одного региона
+     */
+    private static void writePyramid(Path dir, int magic, int version, int regionCount) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(HeightPyramid.HEADER_SIZE + HeightPyramid.REGION_STRIDE * Integer.BYTES)
+            .putInt(magic)
+            .putInt(version)
+            .putInt(regionCount);
+        Files.write(dir.resolve(GeoDriverBytesConstants.HEIGHT_PYRAMID_FILE_NAME), buffer.array());
+    }
+
+    /**
+     * Равнина со случайными flat/complex/multilayer блоками и горой высотой до 2000 в центре региона
+     */
+    private static byte[] generateRegion(Random random) {
+        // регион обходится блок за блоком, тип текущего блока нужен ячейкам
+        int[] blockType = new int[1];
+        return region((blockX, blockY) -> {
+            int type = random.nextInt(10);
+            blockType[0] = type < 7 ? IBlock.TYPE_FLAT : type < 9 ? IBlock.TYPE_COMPLEX : IBlock.TYPE_MULTILAYER;
+            return blockType[0];
+        }, (x, y, heights, nswe) -> {
+            int distance = Math.max(Math.abs((x >> 3) - 128), Math.abs((y >> 3) - 128));
+            int base = Math.max(0, 2000 - distance * 100) - 200;
+            nswe[0] = nswe[1] = Cell.NSWE_ALL;
+            switch (blockType[0]) {
+                case IBlock.TYPE_FLAT -> heights[0] = base + random.nextInt(100);
+                case IBlock.TYPE_COMPLEX -> heights[0] = base + random.nextInt(200);
+                default -> {
+                    heights[0] = base + 300 + random.nextInt(200);
+                    heights[1] = base + random.nextInt(200);
+                    return 2;
+                }
+            }
+            return 1;
+        });
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jfr;
+
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants;
+import ru.mosinnik.l2eve.geodriver.driver.GeoOverlay;
+import ru.mosinnik.l2eve.geodriver.driver.GeoTraceRecorder;
+import ru.mosinnik.l2eve.geodriver.driver.NullDriver;
+import ru.mosinnik.l2eve.geodriver.synthetic.TestRegions;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class GeoJfrDriverTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void shouldWriteSampledQueryEvents() throws Exception {
+        GeoJfrDriver driver = new GeoJfrDriver(new NullDriver(), 1);
+        GeoJfrDriver disabled = new GeoJfrDriver(new NullDriver(), 0);
+        List<RecordedEvent> events = record(GeoQueryEvent.class, () -> {
+            driver.getNearestZ(1, 2, 3);
+            driver.checkNearestNSWE(4, 5, 6, (byte) 1);
+            disabled.getNearestZ(7, 8, 9);
+        });
+
+        assertEquals(2, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals("getNearestZ", event.getString("operation"));
+        assertEquals(1, event.getInt("geoX"));
+        assertEquals(2, event.getInt("geoY"));
+        assertEquals(3, event.getInt("worldZ"));
+        assertEquals(-1, event.getInt("blockType"));
+        assertEquals("checkNearestNSWE", events.get(1).getString("operation"));
+    }
+
+    @Test
+    public void shouldTakeBlockTypeThroughWrappers() throws Exception {
+        GeoDriverBytes bytes = TestRegions.load(GeoConfig.maxPerfBytes(), temp.getRoot().toPath(), TestRegions.flatRegion(100));
+        GeoJfrDriver driver = new GeoJfrDriver(new GeoTraceRecorder(bytes, 16), 1);
+        List<RecordedEvent> events = record(GeoQueryEvent.class, () -> driver.getNearestZ(TestRegions.GEO_X + 5, TestRegions.GEO_Y + 5, 0));
+
+        assertEquals(1, events.size());
+        assertEquals(GeoDriverBytesConstants.FLAT_BLOCK, events.get(0).getInt("blockType"));
+        assertEquals("FLAT_BLOCK", GeoDriverBytesConstants.blockTypeToName(driver.getBlockType(TestRegions.GEO_X, TestRegions.GEO_Y)));
+        assertEquals(GeoDriverBytesConstants.UNKNOWN_BLOCK_NAME, GeoDriverBytesConstants.blockTypeToName(driver.getBlockType(0, 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNotPowerOfTwoSampleRate() {
+        new GeoJfrDriver(new NullDriver(), 3);
+    }
+
+    @Test
+    public void shouldWriteOverlayEvents() throws Exception {
+        GeoOverlay overlay = new GeoOverlay(new NullDriver());
+        List<RecordedEvent> events = record(GeoOverlayEvent.class, () -> {
+            int id = overlay.addObstacle(10, 10, 20, 20, 0, 100);
+            overlay.removeObstacle(id);
+        });
+
+        assertEquals(2, events.size());
+        assertEquals("add", events.get(0).getString("operation"));
+        assertEquals(1, events.get(0).getInt("obstacles"));
+        assertEquals("remove", events.get(1).getString("operation"));
+        assertEquals(2L, events.get(1).getLong("epoch"));
+    }
+
+    private static List<RecordedEvent> record(Class<? extends Event> eventClass, Runnable action) throws Exception {
+        Path file = Files.createTempFile("geo-jfr", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(eventClass).withThreshold(Duration.ZERO);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jmh;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Path;
+
+/**
+ * Регион для JMH тестов: по умолчанию тестовый регион из ресурсов, {@code -Dbench.region=path/X_Y.l2j} подменяет его
+ * любым .l2j файлом, например синтетическим из {@code geodata/synthetic}. Координаты региона берутся из имени файла.
+ */
+public record BenchRegion(Path path, int regionX, int regionY) {
+
+    public static final String PROPERTY = "bench.region";
+
+    public static BenchRegion resolve(String defaultResource) {
+        String property = System.getProperty(PROPERTY);
+        Path path;
+        if (property != null) {
+            path = Path.of(property);
+        } else {
+            URL resource = BenchRegion.class.getClassLoader().getResource(defaultResource);
+            if (resource == null) {
+                throw new IllegalStateException("No test region in resources: " + defaultResource + ", set -D" + PROPERTY);
+            }
+            path = new File(resource.getFile()).toPath();
+        }
+        String[] split = path.getFileName().toString().split("[_.]");
+        return new BenchRegion(path, Integer.parseInt(split[0]), Integer.parseInt(split[1]));
+    }
+
+    public int geoX() {
+        return regionX * 2048;
+    }
+
+    public int geoY() {
+        return regionY * 2048;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jmh;
+
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+import ru.mosinnik.l2eve.geodriver.driver.BinHeader;
+import ru.mosinnik.l2eve.geodriver.driver.BlockOffsetIndex;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants.GEODATA_BIN_DIR;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS_Y;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants.*;
+import static ru.mosinnik.l2eve.geodriver.util.Converter.asInts;
+
+/**
+ * Цена адресации блока без логики самого блока: от geoX/geoY до первого байта данных блока.
+ * <p>
+ * {@code flatOffsets} - исходная схема: абсолютное смещение блока в int[] на каждый блок и один буфер.
+ * {@code singleBuffer} - сжатый {@link BlockOffsetIndex} и все регионы в одном буфере: к смещению блока
+ * прибавляется база региона в data.bin. {@code regionBuffers} - сжатый индекс и буфер региона по индексу региона,
+ * как в {@link GeoDriverBytes} сейчас.
+ * <p>
+ * Точки случайные по всем загруженным регионам, так что индекс и данные не помещаются в L1/L2.
+ */
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Timeout(time = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BlockAddressingBench {
+    private static final int checkPointCount = 1 << 16;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BlockAddressingBench.class.getSimpleName())
+                .build()
+        ).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class MyState {
+
+        @Param({
+                "synthetic:16",
+        })
+        String world;
+
+        int[] regionFirstBlockIndexes = new int[GEO_REGIONS];
+        byte[] blockTypes;
+        BlockOffsetIndex blockOffsetIndex;
+        // абсолютное смещение блока в data.bin, для flat блоков высота
+        int[] absoluteDataOffsets;
+
+        ByteBuffer singleData;
+        int[] regionBases = new int[GEO_REGIONS];
+        ByteBuffer[] regionData = new ByteBuffer[GEO_REGIONS];
+
+        int[] geoX = new int[checkPointCount];
+        int[] geoY = new int[checkPointCount];
+        int index;
+
+        @SneakyThrows
+        @Setup(Level.Trial)
+        public void setup() {
+            Path binDir = Path.of(GEODATA_BIN_DIR + "_addressing", world.replace(':', '_'));
+            Files.createDirectories(binDir);
+            GeoDriverBytes driverBytes = new GeoDriverBytes(new GeoConfig());
+            driverBytes.loadFromL2J(GeoDriverLoadBench.resolveL2J(world));
+            driverBytes.writeToFiles(binDir);
+
+            ByteOrder order = BinHeader.readFromFiles(binDir).byteOrder();
+            asInts(Files.readAllBytes(binDir.resolve(REGION_FIRST_BLOCK_INDEXES_FILE_NAME)), regionFirstBlockIndexes, order);
+            blockTypes = Files.readAllBytes(binDir.resolve(BLOCK_TYPES_FILE_NAME));
+            blockOffsetIndex = BlockOffsetIndex.readFromFiles(binDir, order, regionFirstBlockIndexes, blockTypes);
+            absoluteDataOffsets = new int[blockTypes.length];
+
+            byte[] data = Files.readAllBytes(binDir.resolve(DATA_FILE_NAME));
+            singleData = ByteBuffer.wrap(data).order(order);
+            long[] regionDataSizes = blockOffsetIndex.regionDataSizes(regionFirstBlockIndexes, blockTypes, data.length);
+            List<Integer> regions = new ArrayList<>();
+            for (int regionIndex = 0; regionIndex < GEO_REGIONS; regionIndex++) {
+                if (regionFirstBlockIndexes[regionIndex] == NO_INDEX) {
+                    continue;
+                }
+                regions.add(regionIndex);
+                int base = Math.toIntExact(blockOffsetIndex.getRegionDataOffset(regionIndex));
+                regionBases[regionIndex] = base;
+                for (int blockIndex = regionFirstBlockIndexes[regionIndex];
+                     blockIndex < regionFirstBlockIndexes[regionIndex] + IRegion.REGION_BLOCKS;
+                     blockIndex++) {
+                    int blockDataOffset = blockOffsetIndex.getBlockDataOffset(blockTypes[blockIndex], blockIndex);
+                    absoluteDataOffsets[blockIndex] = blockTypes[blockIndex] == FLAT_BLOCK ? blockDataOffset : base + blockDataOffset;
+                }
+                // у каждого региона свой массив, как при чтении в GeoDriverBytes
+                regionData[regionIndex] = ByteBuffer.wrap(Arrays.copyOfRange(data, base, base + Math.toIntExact(regionDataSizes[regionIndex])))
+                        .order(order);
+            }
+
+            Random r = new Random(1);
+            for (int i = 0; i < checkPointCount; i++) {
+                int regionIndex = regions.get(r.nextInt(regions.size()));
+                geoX[i] = (regionIndex / GEO_REGIONS_Y) * IRegion.REGION_CELLS_X + r.nextInt(IRegion.REGION_CELLS_X);
+                geoY[i] = (regionIndex % GEO_REGIONS_Y) * IRegion.REGION_CELLS_Y + r.nextInt(IRegion.REGION_CELLS_Y);
+            }
+        }
+
+        int next() {
+            int i = index;
+            index = (i + 1) & (checkPointCount - 1);
+            return i;
+        }
+    }
+
+    @Benchmark
+    public int flatOffsets(MyState state) {
+        int i = state.next();
+        int geoX = state.geoX[i];
+        int geoY = state.geoY[i];
+        int regionIndex = ((geoX >> 11) << 5) + (geoY >> 11);
+        int blockIndex = state.regionFirstBlockIndexes[regionIndex] + (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
+        byte blockType = state.blockTypes[blockIndex];
+        int blockDataOffset = state.absoluteDataOffsets[blockIndex];
+        if (blockType == FLAT_BLOCK) {
+            return blockDataOffset;
+        }
+        return state.singleData.get(blockDataOffset);
+    }
+
+    @Benchmark
+    public int singleBuffer(MyState state) {
+        int i = state.next();
+        int geoX = state.geoX[i];
+        int geoY = state.geoY[i];
+        int regionIndex = ((geoX >> 11) << 5) + (geoY >> 11);
+        int blockIndex = state.regionFirstBlockIndexes[regionIndex] + (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
+        byte blockType = state.blockTypes[blockIndex];
+        int blockDataOffset = state.blockOffsetIndex.getBlockDataOffset(blockType, blockIndex);
+        if (blockType == FLAT_BLOCK) {
+            return blockDataOffset;
+        }
+        return state.singleData.get(state.regionBases[regionIndex] + blockDataOffset);
+    }
+
+    @Benchmark
+    public int regionBuffers(MyState state) {
+        int i = state.next();
+        int geoX = state.geoX[i];
+        int geoY = state.geoY[i];
+        int regionIndex = ((geoX >> 11) << 5) + (geoY >> 11);
+        int blockIndex = state.regionFirstBlockIndexes[regionIndex] + (((geoX >> 3) & 0xFF) << 8) + ((geoY >> 3) & 0xFF);
+        byte blockType = state.blockTypes[blockIndex];
+        int blockDataOffset = state.blockOffsetIndex.getBlockDataOffset(blockType, blockIndex);
+        if (blockType == FLAT_BLOCK) {
+            return blockDataOffset;
+        }
+        return state.regionData[regionIndex].get(blockDataOffset);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jmh;
+
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+import ru.mosinnik.l2eve.geodriver.pathfinding.FlowField;
+import ru.mosinnik.l2eve.geodriver.pathfinding.GeoPathFinder;
+import ru.mosinnik.l2eve.geodriver.pathfinding.PathNode;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants.*;
+
+/**
+ * Толпа агентов с одной целью: A* на каждого агента против одного поля потока и чтения первого шага.
+ */
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Timeout(time = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FlowFieldBench {
+    private static final int agentCount = 300;
+    private static final int radius = 96;
+
+    private static final String tstRegion = TST_BLOCK_RESOURCE_MOST_COMPLEX;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FlowFieldBench.class.getSimpleName())
+                .build()
+        ).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class MyState {
+
+        GeoDriverBytes driver;
+        GeoPathFinder finder;
+        long target;
+        long[] agents = new long[agentCount];
+
+        @SneakyThrows
+        @Setup(Level.Trial)
+        public void setup() {
+            BenchRegion region = BenchRegion.resolve(tstRegion);
+            driver = new GeoDriverBytes(GeoConfig.maxPerfBytes());
+            driver.loadFromL2J(List.of(region.path()));
+            finder = new GeoPathFinder(driver);
+
+            int targetX = region.geoX() + 1024;
+            int targetY = region.geoY() + 1024;
+            target = finder.node(targetX, targetY, Short.MAX_VALUE);
+            Random r = new Random(1);
+            for (int i = 0; i < agentCount; i++) {
+                agents[i] = finder.node(targetX + r.nextInt(2 * radius) - radius, targetY + r.nextInt(2 * radius) - radius, Short.MAX_VALUE);
+            }
+        }
+    }
+
+    @Benchmark
+    public void pathPerAgent(Blackhole blackhole, MyState state) {
+        int targetX = PathNode.geoX(state.target);
+        int targetY = PathNode.geoY(state.target);
+        for (long agent : state.agents) {
+            blackhole.consume(state.finder.findPath(agent, state.target,
+                    targetX - radius, targetY - radius, targetX + radius, targetY + radius, null));
+        }
+    }
+
+    @Benchmark
+    public void flowField(Blackhole blackhole, MyState state) {
+        flowField(blackhole, state, false);
+    }
+
+    @Benchmark
+    public void flowFieldParallel(Blackhole blackhole, MyState state) {
+        flowField(blackhole, state, true);
+    }
+
+    private static void flowField(Blackhole blackhole, MyState state, boolean parallel) {
+        FlowField field = FlowField.build(state.driver, state.target, radius, parallel);
+        for (long agent : state.agents) {
+            blackhole.consume(field.getDirection(PathNode.geoX(agent), PathNode.geoY(agent), PathNode.z(agent)));
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jmh;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.driver.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import static ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants.*;
+
+/**
+ * Аллокации на запрос по драйверам и операциям под {@code -prof gc}: в {@link #main} все прогоны
+ * проверяются по {@code gc.alloc.rate.norm}, аллоцирующие прогоны пишутся в лог и {@link #main} бросает
+ * {@link IllegalStateException}.
+ * <p>
+ * Разбивка по типам блоков - в JUnit тесте {@code GeoDriverAllocationTest}, здесь точки по всему региону.
+ */
+@Slf4j
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Timeout(time = 10)
+public class GeoDriverAllocationBench {
+    private static final int checkPointCount = 10000;
+
+    // допуск на шум профайлера, реальная аллокация - от 16 байт
+    private static final double MAX_ALLOC_BYTES_PER_OP = 1;
+
+    private static final String tstRegion = TST_BLOCK_RESOURCE_MOST_COMPLEX;
+
+    public static void main(String[] args) throws RunnerException {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(GeoDriverAllocationBench.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()
+        ).run();
+
+        List<String> failures = new ArrayList<>();
+        for (RunResult runResult : results) {
+            Result<?> allocRate = runResult.getSecondaryResults().get("gc.alloc.rate.norm");
+            if (allocRate != null && allocRate.getScore() > MAX_ALLOC_BYTES_PER_OP) {
+                failures.add(runResult.getParams().getBenchmark() + " " + runResult.getParams().getParam("driver")
+                        + ": " + allocRate.getScore() + " " + allocRate.getScoreUnit());
+            }
+        }
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> log.error("Allocating query: {}", failure));
+            throw new IllegalStateException(failures.size() + " allocating queries");
+        }
+        log.info("No allocating queries in {} runs", results.size());
+    }
+
+
+    @State(Scope.Benchmark)
+    public static class DriverState {
+
+        @Param({
+                "GeoDriverOld",
+                "GeoDriver",
+                "GeoDriverBytes",
+                "GeoDriverBytesMmap",
+                "GeoOverlay",
+        })
+        String driver;
+
+        IGeoDriver geoDriver;
+
+        int[] geoX = new int[checkPointCount];
+        int[] geoY = new int[checkPointCount];
+        int[] worldZ = new int[checkPointCount];
+        byte[] nswe = new byte[checkPointCount];
+        int[] outHeights = new int[IBlock.MAX_CELL_LAYERS];
+        byte[] outNswe = new byte[IBlock.MAX_CELL_LAYERS];
+        int[] outZ = new int[8];
+        byte[] outMask = new byte[8];
+        int index;
+
+        @SneakyThrows
+        @Setup(Level.Trial)
+        public void setup() {
+            BenchRegion region = BenchRegion.resolve(tstRegion);
+            int regionX = region.regionX();
+            int regionY = region.regionY();
+            GeoConfig config = GeoConfig.maxPerfBytes();
+            config.setBlockSummaryEnabled(true);
+            config.setHeightPyramidEnabled(true);
+            switch (driver) {
+                case "GeoDriverOld" -> {
+                    GeoDriver driverOld = new GeoDriver(new GeoConfig());
+                    driverOld.loadRegion(region.path(), regionX, regionY);
+                    geoDriver = driverOld;
+                }
+                case "GeoDriver" -> {
+                    GeoDriver geoDriverNew = new GeoDriver(config);
+                    geoDriverNew.loadRegion(region.path(), regionX, regionY);
+                    geoDriver = geoDriverNew;
+                }
+                case "GeoDriverBytes", "GeoOverlay" -> {
+                    GeoDriverBytes driverBytes = new GeoDriverBytes(config);
+                    driverBytes.loadFromL2J(List.of(region.path()));
+                    geoDriver = driver.equals("GeoOverlay") ? new GeoOverlay(driverBytes) : driverBytes;
+                }
+                case "GeoDriverBytesMmap" -> {
+                    GeoDriverBytes driverBytes = new GeoDriverBytes(config);
+                    driverBytes.loadFromL2J(List.of(region.path()));
+                    Path binGeoData = Path.of(GEODATA_BIN_DIR);
+                    Files.createDirectories(binGeoData);
+                    driverBytes.writeToFiles(binGeoData);
+
+                    GeoDriverBytesMmap driverBytesMmap = new GeoDriverBytesMmap();
+                    driverBytesMmap.loadBin(binGeoData);
+                    geoDriver = driverBytesMmap;
+                }
+                default -> throw new IllegalArgumentException("Unknown driver: " + driver);
+            }
+            if (geoDriver instanceof GeoOverlay overlay) {
+                int minGeoX = overlay.getGeoX(regionX * 32768 + GeoConstants.WORLD_MIN_X) + 100;
+                int minGeoY = overlay.getGeoY(regionY * 32768 + GeoConstants.WORLD_MIN_Y) + 100;
+                overlay.addObstacle(minGeoX, minGeoY, minGeoX + 20, minGeoY + 20, Short.MIN_VALUE, Short.MAX_VALUE);
+            }
+
+            Random r = new Random(1);
+            int cornerMinWorldX = regionX * 32768 + GeoConstants.WORLD_MIN_X;
+            int cornerMinWorldY = regionY * 32768 + GeoConstants.WORLD_MIN_Y;
+            for (int i = 0; i < checkPointCount; i++) {
+                int x = geoDriver.getGeoX(cornerMinWorldX + r.nextInt(32768));
+                int y = geoDriver.getGeoY(cornerMinWorldY + r.nextInt(32768));
+                geoX[i] = x;
+                geoY[i] = y;
+                worldZ[i] = geoDriver.getNearestZ(x, y, r.nextInt(16000) - 8000) + r.nextInt(128) - 64;
+                nswe[i] = (byte) (1 << r.nextInt(4));
+            }
+        }
+
+        int next() {
+            int i = index;
+            index = i + 1 == checkPointCount ? 0 : i + 1;
+            return i;
+        }
+    }
+
+    @Benchmark
+    public int getNearestZ(DriverState s) {
+        int i = s.next();
+        return s.geoDriver.getNearestZ(s.geoX[i], s.geoY[i], s.worldZ[i]);
+    }
+
+    @Benchmark
+    public int getNearestLayer(DriverState s) {
+        int i = s.next();
+        return s.geoDriver.getNearestLayer(s.geoX[i], s.geoY[i], s.worldZ[i]);
+    }
+
+    @Benchmark
+    public int getNextLowerZ(DriverState s) {
+        int i = s.next();
+        return s.geoDriver.getNextLowerZ(s.geoX[i], s.geoY[i], s.worldZ[i]);
+    }
+
+    @Benchmark
+    public int getNextHigherZ(DriverState s) {
+        int i = s.next();
+        return s.geoDriver.getNextHigherZ(s.geoX[i], s.geoY[i], s.worldZ[i]);
+    }
+
+    @Benchmark
+    public boolean checkNearestNSWE(DriverState s) {
+        int i = s.next();
+        return s.geoDriver.checkNearestNSWE(s.geoX[i], s.geoY[i], s.worldZ[i], s.nswe[i]);
+    }
+
+    @Benchmark
+    public int getLayers(DriverState s) {
+        int i = s.next();
+        return s.geoDriver.getLayers(s.geoX[i], s.geoY[i], s.outHeights, s.outNswe);
+    }
+
+    @Benchmark
+    public int expandNeighbours(DriverState s) {
+        int i = s.next();
+        return s.geoDriver.expandNeighbours(s.geoX[i], s.geoY[i], s.worldZ[i], s.outZ, s.outMask);
+    }
+
+    @Benchmark
+    public int getBlockMaxZ(DriverState s) {
+        int i = s.next();
+        return s.geoDriver.getBlockMaxZ(s.geoX[i], s.geoY[i]);
+    }
+
+    @Benchmark
+    public boolean isBlockUniform(DriverState s) {
+        int i = s.next();
+        return s.geoDriver.isBlockUniform(s.geoX[i], s.geoY[i]);
+    }
+
+    @Benchmark
+    public int getAreaMaxZ(DriverState s) {
+        int i = s.next();
+        return s.geoDriver.getAreaMaxZ(s.geoX[i] - 4, s.geoY[i] - 4, s.geoX[i] + 4, s.geoY[i] + 4);
+    }
+
+    @Benchmark
+    public boolean isRayAboveTerrain(DriverState s) {
+        int i = s.next();
+        return s.geoDriver.isRayAboveTerrain(s.geoX[i], s.geoY[i], s.worldZ[i] + 64, s.geoX[i] + 30, s.geoY[i] - 20, s.worldZ[i] + 64);
+    }
+}
@@ -30,8 +30,6 @@ import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 import ru.mosinnik.l2eve.geodriver.driver.*;
 
-import java.io.File;
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -57,8 +55,6 @@ public class GeoDriverBenchParams {
 //    private static final int regionX = 12;
 //    private static final int regionY = 24;
     private static final String tstRegion = TST_BLOCK_RESOURCE_MOST_COMPLEX;
-    private static final int regionX = 23;
-    private static final int regionY = 12;
 
 
     public static void main(String[] args) throws RunnerException {
@@ -126,6 +122,10 @@ public class GeoDriverBenchParams {
 //                "INDEXED_32_MULTILAYER_BLOCK",
         })
         GeoDriverBytesConstants.E blockType;
+        // формат bin для bytes драйверов: V1 - BIG_ENDIAN, V2 - LITTLE_ENDIAN
+        @Param({"V2"})
+        String format = "V2";
+        BenchRegion region;
         boolean loadFromFile = true;
         boolean saveToFile = false;
 
@@ -148,15 +148,11 @@ public class GeoDriverBenchParams {
             geoConfig.setIndexed32MultilayerBlockEnabled(true);
 
             driver = new GeoDriver(geoConfig);
-            File resource = new File(GeoDriverBenchParams.class.getClassLoader().getResource(tstRegion).getFile());
-            try {
-                driverOld.loadRegion(resource.toPath(), regionX, regionY);
-                driver.loadRegion(resource.toPath(), regionX, regionY);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+            region = BenchRegion.resolve(tstRegion);
+            driverOld.loadRegion(region.path(), region.regionX(), region.regionY());
+            driver.loadRegion(region.path(), region.regionX(), region.regionY());
             driverBytes = new GeoDriverBytes(geoConfig);
-            driverBytes.loadFromL2J(List.of(resource.toPath()));
+            driverBytes.loadFromL2J(List.of(region.path()), "V1".equals(format) ? BinHeader.V1 : BinHeader.V2);
 
             Path binGeoData = Path.of(GEODATA_BIN_DIR);
             Files.createDirectories(binGeoData);
@@ -170,8 +166,8 @@ public class GeoDriverBenchParams {
 
         @SneakyThrows
         public void generateCheckPoints() {
-            int cornerMinWorldX = regionX * 32768 + GeoConstants.WORLD_MIN_X;
-            int cornerMinWorldY = regionY * 32768 + GeoConstants.WORLD_MIN_Y;
+            int cornerMinWorldX = region.regionX() * 32768 + GeoConstants.WORLD_MIN_X;
+            int cornerMinWorldY = region.regionY() * 32768 + GeoConstants.WORLD_MIN_Y;
             int cornerMaxWorldX = cornerMinWorldX + 32768 - 1;
             int cornerMaxWorldY = cornerMinWorldY + 32768 - 1;
 
@@ -179,7 +175,7 @@ public class GeoDriverBenchParams {
 
             if (loadFromFile && blockType != null) {
                 Path dir = Path.of(DIR_WITH_POINTS);
-                List<String> pointsStrs = Files.readAllLines(dir.resolve(blockType.name() + "_points.txt"));
+                List<String> pointsStrs = Files.readAllLines(dir.resolve(pointsFileName()));
                 pointsStrs.forEach(pointStr -> {
                     String[] split = pointStr.split(";");
                     checkPoints.add(new Point(
@@ -224,10 +220,14 @@ public class GeoDriverBenchParams {
 
                 Path dir = Path.of(DIR_WITH_POINTS);
                 Files.createDirectories(dir);
-                Files.writeString(dir.resolve(blockType.name() + "_points.txt"), pointsString);
-                System.out.println("Points saved at " + blockType.name() + "_points.txt");
+                Files.writeString(dir.resolve(pointsFileName()), pointsString);
+                System.out.println("Points saved at " + pointsFileName());
             }
         }
+
+        private String pointsFileName() {
+            return region.regionX() + "_" + region.regionY() + "_" + blockType.name() + "_points.txt";
+        }
     }
 
     record Point(int x, int y, int geoX, int geoY, byte nswe) {
@@ -362,6 +362,23 @@ public class GeoDriverBenchParams {
 //        }
 //    }
 
+    @Benchmark
+    public void getNearestLayerBytes(Blackhole blackhole, MyState state) {
+        GeoDriverBytes driver = state.driverBytes;
+        for (Point checkPoint : state.checkPoints) {
+            blackhole.consume(driver.getNearestLayer(checkPoint.geoX(), checkPoint.geoY(), -3000));
+        }
+    }
+
+    @Benchmark
+    public void getNearestZAndCheckNSWEBytes(Blackhole blackhole, MyState state) {
+        GeoDriverBytes driver = state.driverBytes;
+        for (Point checkPoint : state.checkPoints) {
+            blackhole.consume(driver.getNearestZ(checkPoint.geoX(), checkPoint.geoY(), -3000));
+            blackhole.consume(driver.checkNearestNSWE(checkPoint.geoX(), checkPoint.geoY(), -3000, checkPoint.nswe()));
+        }
+    }
+
     //----  geo bytes mmap
 
 //    @Benchmark
@@ -404,4 +421,21 @@ public class GeoDriverBenchParams {
 //        }
 //    }
 
+    @Benchmark
+    public void getNearestLayerBytesMmap(Blackhole blackhole, MyState state) {
+        GeoDriverBytesMmap driver = state.driverBytesMmap;
+        for (Point checkPoint : state.checkPoints) {
+            blackhole.consume(driver.getNearestLayer(checkPoint.geoX(), checkPoint.geoY(), -3000));
+        }
+    }
+
+    @Benchmark
+    public void getNearestZAndCheckNSWEBytesMmap(Blackhole blackhole, MyState state) {
+        GeoDriverBytesMmap driver = state.driverBytesMmap;
+        for (Point checkPoint : state.checkPoints) {
+            blackhole.consume(driver.getNearestZ(checkPoint.geoX(), checkPoint.geoY(), -3000));
+            blackhole.consume(driver.checkNearestNSWE(checkPoint.geoX(), checkPoint.geoY(), -3000, checkPoint.nswe()));
+        }
+    }
+
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jmh;
+
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.driver.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants.*;
+
+/**
+ * Отсечение блоков по высоте (луч/снаряд на высоте z над блоком): сводная таблица min/max
+ * против декодирования всех 64 ячеек блока.
+ */
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Timeout(time = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GeoDriverBlockSummaryBench {
+    private static final int checkPointCount = 10000;
+
+    private static final String tstRegion = TST_BLOCK_RESOURCE_MOST_COMPLEX;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeoDriverBlockSummaryBench.class.getSimpleName())
+                .build()
+        ).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class MyState {
+
+        GeoDriverBytes driverBytes;
+        GeoDriverBytesMmap driverBytesMmap;
+        int[] geoXs = new int[checkPointCount];
+        int[] geoYs = new int[checkPointCount];
+        int[] zs = new int[checkPointCount];
+
+        @SneakyThrows
+        @Setup(Level.Trial)
+        public void setup() {
+            GeoConfig geoConfig = GeoConfig.maxPerfBytes();
+            geoConfig.setBlockSummaryEnabled(true);
+
+            BenchRegion region = BenchRegion.resolve(tstRegion);
+            driverBytes = new GeoDriverBytes(geoConfig);
+            driverBytes.loadFromL2J(List.of(region.path()));
+
+            Path binGeoData = Path.of(GEODATA_BIN_DIR);
+            Files.createDirectories(binGeoData);
+            driverBytes.writeToFiles(binGeoData);
+
+            driverBytesMmap = new GeoDriverBytesMmap();
+            driverBytesMmap.loadBin(binGeoData);
+
+            Random r = new Random(1);
+            for (int i = 0; i < checkPointCount; i++) {
+                geoXs[i] = region.geoX() + (r.nextInt(2048) & ~(IBlock.BLOCK_CELLS_X - 1));
+                geoYs[i] = region.geoY() + (r.nextInt(2048) & ~(IBlock.BLOCK_CELLS_Y - 1));
+                zs[i] = driverBytes.getNearestZ(geoXs[i], geoYs[i], Short.MAX_VALUE) + r.nextInt(400) - 100;
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(checkPointCount)
+    public void cullBySummaryBytes(Blackhole blackhole, MyState state) {
+        cullBySummary(blackhole, state, state.driverBytes);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(checkPointCount)
+    public void cullBySummaryBytesMmap(Blackhole blackhole, MyState state) {
+        cullBySummary(blackhole, state, state.driverBytesMmap);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(checkPointCount)
+    public void cullByCellsBytes(Blackhole blackhole, MyState state) {
+        for (int i = 0; i < checkPointCount; i++) {
+            blackhole.consume(isAboveCells(state.driverBytes, state.geoXs[i], state.geoYs[i], state.zs[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(checkPointCount)
+    public void cullByCellsBytesMmap(Blackhole blackhole, MyState state) {
+        for (int i = 0; i < checkPointCount; i++) {
+            blackhole.consume(isAboveCells(state.driverBytesMmap, state.geoXs[i], state.geoYs[i], state.zs[i]));
+        }
+    }
+
+    /**
+     * Ячейки декодируются только если z попал в диапазон [minZ, maxZ] блока.
+     */
+    private static void cullBySummary(Blackhole blackhole, MyState state, IGeoDriver driver) {
+        for (int i = 0; i < checkPointCount; i++) {
+            int geoX = state.geoXs[i];
+            int geoY = state.geoYs[i];
+            int z = state.zs[i];
+            boolean above;
+            if (z > driver.getBlockMaxZ(geoX, geoY)) {
+                above = true;
+            } else if (z <= driver.getBlockMinZ(geoX, geoY)) {
+                above = false;
+            } else {
+                above = isAboveCells(driver, geoX, geoY, z);
+            }
+            blackhole.consume(above);
+        }
+    }
+
+    private static boolean isAboveCells(IGeoDriver driver, int geoX, int geoY, int z) {
+        for (int x = 0; x < IBlock.BLOCK_CELLS_X; x++) {
+            for (int y = 0; y < IBlock.BLOCK_CELLS_Y; y++) {
+                if (driver.getNearestZ(geoX + x, geoY + y, Short.MAX_VALUE) >= z) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jmh;
+
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.mosinnik.l2eve.geodriver.abstraction.GeoScans;
+import ru.mosinnik.l2eve.geodriver.driver.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants.*;
+
+/**
+ * Длинные лучи и проверки "есть ли что-то выше z" по площади: спуск по пирамиде высот
+ * против обхода всех ячеек (GeoScans без уровней).
+ */
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Timeout(time = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GeoDriverHeightPyramidBench {
+    private static final int checkPointCount = 1000;
+
+    private static final String tstRegion = TST_BLOCK_RESOURCE_MOST_COMPLEX;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeoDriverHeightPyramidBench.class.getSimpleName())
+                .build()
+        ).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class MyState {
+
+        @Param({"64", "512", "2048"})
+        int distance;
+
+        GeoDriverBytesMmap driverBytesMmap;
+        int[] geoXs = new int[checkPointCount];
+        int[] geoYs = new int[checkPointCount];
+        int[] toGeoXs = new int[checkPointCount];
+        int[] toGeoYs = new int[checkPointCount];
+        int[] zs = new int[checkPointCount];
+
+        @SneakyThrows
+        @Setup(Level.Trial)
+        public void setup() {
+            GeoConfig geoConfig = GeoConfig.maxPerfBytes();
+            geoConfig.setHeightPyramidEnabled(true);
+
+            BenchRegion region = BenchRegion.resolve(tstRegion);
+            GeoDriverBytes driverBytes = new GeoDriverBytes(geoConfig);
+            driverBytes.loadFromL2J(List.of(region.path()));
+
+            Path binGeoData = Path.of(GEODATA_BIN_DIR);
+            Files.createDirectories(binGeoData);
+            driverBytes.writeToFiles(binGeoData);
+
+            driverBytesMmap = new GeoDriverBytesMmap();
+            driverBytesMmap.loadBin(binGeoData);
+
+            Random r = new Random(1);
+            int regionGeoX = region.geoX();
+            int regionGeoY = region.geoY();
+            int maxZ = driverBytesMmap.getAreaMaxZ(regionGeoX, regionGeoY, regionGeoX + 2047, regionGeoY + 2047);
+            for (int i = 0; i < checkPointCount; i++) {
+                geoXs[i] = regionGeoX + r.nextInt(2048);
+                geoYs[i] = regionGeoY + r.nextInt(2048);
+                double angle = r.nextDouble() * 2 * Math.PI;
+                toGeoXs[i] = Math.clamp(geoXs[i] + (int) (Math.cos(angle) * distance), regionGeoX, regionGeoX + 2047);
+                toGeoYs[i] = Math.clamp(geoYs[i] + (int) (Math.sin(angle) * distance), regionGeoY, regionGeoY + 2047);
+                // половина лучей над всем рельефом, половина у земли
+                zs[i] = i % 2 == 0 ? maxZ + 100 : driverBytesMmap.getNearestZ(geoXs[i], geoYs[i], maxZ) + 50;
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(checkPointCount)
+    public void rayPyramid(Blackhole blackhole, MyState state) {
+        HeightPyramid pyramid = state.driverBytesMmap.getHeightPyramid();
+        for (int i = 0; i < checkPointCount; i++) {
+            blackhole.consume(pyramid.isRayAboveTerrain(state.driverBytesMmap, state.geoXs[i], state.geoYs[i], state.zs[i],
+                state.toGeoXs[i], state.toGeoYs[i], state.zs[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(checkPointCount)
+    public void rayCells(Blackhole blackhole, MyState state) {
+        for (int i = 0; i < checkPointCount; i++) {
+            blackhole.consume(GeoScans.isRayAboveTerrain(state.driverBytesMmap, null, state.geoXs[i], state.geoYs[i], state.zs[i],
+                state.toGeoXs[i], state.toGeoYs[i], state.zs[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(checkPointCount)
+    public void areaPyramid(Blackhole blackhole, MyState state) {
+        HeightPyramid pyramid = state.driverBytesMmap.getHeightPyramid();
+        for (int i = 0; i < checkPointCount; i++) {
+            blackhole.consume(pyramid.hasHeightAbove(state.driverBytesMmap, Math.min(state.geoXs[i], state.toGeoXs[i]),
+                Math.min(state.geoYs[i], state.toGeoYs[i]), Math.max(state.geoXs[i], state.toGeoXs[i]),
+                Math.max(state.geoYs[i], state.toGeoYs[i]), state.zs[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(checkPointCount)
+    public void areaCells(Blackhole blackhole, MyState state) {
+        for (int i = 0; i < checkPointCount; i++) {
+            blackhole.consume(GeoScans.hasHeightAbove(state.driverBytesMmap, null, Math.min(state.geoXs[i], state.toGeoXs[i]),
+                Math.min(state.geoYs[i], state.toGeoYs[i]), Math.max(state.geoXs[i], state.toGeoXs[i]),
+                Math.max(state.geoYs[i], state.toGeoYs[i]), state.zs[i]));
+        }
+    }
+}
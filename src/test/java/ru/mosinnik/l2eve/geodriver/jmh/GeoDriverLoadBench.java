@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jmh;
+
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriver;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesMmap;
+import ru.mosinnik.l2eve.geodriver.synthetic.SyntheticGeoGenerator;
+import ru.mosinnik.l2eve.geodriver.synthetic.SyntheticGeoProfile;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants.*;
+
+/**
+ * Время холодной загрузки по каждому пути: {@link GeoDriver#loadRegion}, {@link GeoDriverBytes#loadFromL2J},
+ * {@link GeoDriverBytes#readFromFiles} и {@link GeoDriverBytesMmap#load}.
+ * <p>
+ * Одна загрузка = одна операция ({@link Mode#SingleShotTime}) без прогрева, поэтому первая итерация каждого форка
+ * и есть холодный старт, остальные показывают загрузку на прогретой JVM. Файлы к этому моменту уже лежат в page cache,
+ * так что замеряется работа загрузчика, а не диска.
+ * <p>
+ * Кроме времени пишутся счетчики {@link HeapCounters}: пик heap во время загрузки и сколько heap осталось занято
+ * загруженным драйвером. Аллокации за загрузку дает gc профайлер ({@code gc.alloc.rate.norm}).
+ * <p>
+ * Мир выбирается параметром {@code world}: {@code resources} - тестовые регионы из ресурсов,
+ * {@code synthetic:N} - первые N регионов {@link SyntheticGeoGenerator} (генерируются в
+ * {@link SyntheticGeoGenerator#SYNTHETIC_GEODATA_DIR} при первом запуске), {@code synthetic:166} - весь мир Interlude.
+ */
+@Threads(1)
+@Fork(value = 3, jvmArgsAppend = "-Xmx8g")
+@Warmup(iterations = 0)
+@Measurement(iterations = 5)
+@Timeout(time = 10, timeUnit = TimeUnit.MINUTES)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GeoDriverLoadBench {
+    private static final String[] tstRegions = {
+            TST_BLOCK_RESOURCE_ALMOST_EMPTY,
+            TST_BLOCK_RESOURCE_MOST_COMPLEX,
+            TST_BLOCK_RESOURCE_BIGGEST,
+    };
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeoDriverLoadBench.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()
+        ).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class MyState {
+
+        @Param({
+                "resources",
+                "synthetic:16",
+                "synthetic:166",
+        })
+        String world;
+
+        GeoConfig config = GeoConfig.maxPerfBytes();
+        List<Path> l2jPaths;
+        Path binDir;
+
+        @SneakyThrows
+        @Setup(Level.Trial)
+        public void setup() {
+            l2jPaths = resolveL2J(world);
+
+            // bin файлы готовятся один раз на мир и дальше только читаются
+            binDir = Path.of(GEODATA_BIN_DIR + "_load", world.replace(':', '_'));
+            Files.createDirectories(binDir);
+            GeoDriverBytes driverBytes = new GeoDriverBytes(config);
+            driverBytes.loadFromL2J(l2jPaths);
+            driverBytes.writeToFiles(binDir);
+        }
+    }
+
+    @SneakyThrows
+    static List<Path> resolveL2J(String world) {
+        List<Path> paths = new ArrayList<>();
+        if (world.equals("resources")) {
+            for (String tstRegion : tstRegions) {
+                URL resource = GeoDriverLoadBench.class.getClassLoader().getResource(tstRegion);
+                if (resource != null) {
+                    paths.add(new File(resource.getFile()).toPath());
+                }
+            }
+            if (paths.isEmpty()) {
+                throw new IllegalStateException("No test regions in resources: " + String.join(", ", tstRegions));
+            }
+            return paths;
+        }
+        if (!world.startsWith("synthetic:")) {
+            throw new IllegalArgumentException("Unknown world: " + world);
+        }
+        int regionCount = Integer.parseInt(world.substring("synthetic:".length()));
+        Path dir = Path.of(SyntheticGeoGenerator.SYNTHETIC_GEODATA_DIR);
+        for (int[] region : SyntheticGeoGenerator.worldRegions(regionCount)) {
+            paths.add(dir.resolve(region[0] + "_" + region[1] + ".l2j"));
+        }
+        if (!paths.stream().allMatch(Files::exists)) {
+            return new SyntheticGeoGenerator(SyntheticGeoProfile.interlude()).generateWorld(dir, regionCount);
+        }
+        return paths;
+    }
+
+    /**
+     * Heap вокруг одной загрузки. Перед итерацией делается gc и сбрасываются пики пулов, после итерации
+     * (вне замера времени) снимается сумма пиков heap пулов и занятый heap после gc, оба за вычетом занятого до загрузки.
+     * Пики пулов обновляются JVM на сборках, так что это оценка снизу.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HeapCounters {
+        public long peakHeapMb;
+        public long retainedHeapMb;
+
+        // загруженный драйвер держится до замера retained
+        Object driver;
+        private long usedBefore;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            driver = null;
+            usedBefore = usedHeapAfterGc();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    pool.resetPeakUsage();
+                }
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            long peak = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    peak += pool.getPeakUsage().getUsed();
+                }
+            }
+            peakHeapMb = (peak - usedBefore) >> 20;
+            retainedHeapMb = (usedHeapAfterGc() - usedBefore) >> 20;
+            driver = null;
+        }
+
+        private static long usedHeapAfterGc() {
+            System.gc();
+            return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        }
+    }
+
+    @Benchmark
+    public GeoDriver geoDriverLoadRegion(MyState state, HeapCounters counters) throws Exception {
+        GeoDriver driver = new GeoDriver(state.config);
+        for (Path path : state.l2jPaths) {
+            String[] split = path.getFileName().toString().split("[_.]");
+            driver.loadRegion(path, Integer.parseInt(split[0]), Integer.parseInt(split[1]));
+        }
+        counters.driver = driver;
+        return driver;
+    }
+
+    @Benchmark
+    public GeoDriverBytes geoDriverBytesLoadFromL2J(MyState state, HeapCounters counters) {
+        GeoDriverBytes driver = new GeoDriverBytes(state.config);
+        driver.loadFromL2J(state.l2jPaths);
+        counters.driver = driver;
+        return driver;
+    }
+
+    @Benchmark
+    public GeoDriverBytes geoDriverBytesReadFromFiles(MyState state, HeapCounters counters) {
+        GeoDriverBytes driver = new GeoDriverBytes(state.config);
+        driver.readFromFiles(state.binDir);
+        counters.driver = driver;
+        return driver;
+    }
+
+    @Benchmark
+    public GeoDriverBytesMmap geoDriverBytesMmapLoad(MyState state, HeapCounters counters) {
+        GeoDriverBytesMmap driver = new GeoDriverBytesMmap();
+        driver.load(state.binDir);
+        counters.driver = driver;
+        return driver;
+    }
+}
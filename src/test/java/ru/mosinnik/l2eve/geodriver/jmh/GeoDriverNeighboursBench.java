@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jmh;
+
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.mosinnik.l2eve.geodriver.Cell;
+import ru.mosinnik.l2eve.geodriver.Neighbours;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.driver.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants.*;
+
+/**
+ * Стоимость раскрытия одной ноды поиска пути: expandNeighbours против 8 соседей
+ * через getNearestZ + checkNearestNSWE.
+ */
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Timeout(time = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GeoDriverNeighboursBench {
+    private static final int checkPointCount = 10000;
+
+    private static final String tstRegion = TST_BLOCK_RESOURCE_MOST_COMPLEX;
+
+    private static final byte[] NSWE_FLAGS = {Cell.NSWE_EAST, Cell.NSWE_WEST, Cell.NSWE_SOUTH, Cell.NSWE_NORTH};
+    private static final int[] NSWE_DIRECTIONS = {Neighbours.EAST, Neighbours.WEST, Neighbours.SOUTH, Neighbours.NORTH};
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeoDriverNeighboursBench.class.getSimpleName())
+                .build()
+        ).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class MyState {
+
+        GeoDriver driver;
+        GeoDriverBytes driverBytes;
+        GeoDriverBytesMmap driverBytesMmap;
+        int[] geoXs = new int[checkPointCount];
+        int[] geoYs = new int[checkPointCount];
+        int[] outZ = new int[Neighbours.COUNT];
+        byte[] outMask = new byte[Neighbours.COUNT];
+
+        @SneakyThrows
+        @Setup(Level.Trial)
+        public void setup() {
+            GeoConfig geoConfig = GeoConfig.maxPerfBytes();
+
+            BenchRegion region = BenchRegion.resolve(tstRegion);
+            driver = new GeoDriver(geoConfig);
+            driver.loadRegion(region.path(), region.regionX(), region.regionY());
+
+            driverBytes = new GeoDriverBytes(geoConfig);
+            driverBytes.loadFromL2J(List.of(region.path()));
+
+            Path binGeoData = Path.of(GEODATA_BIN_DIR);
+            Files.createDirectories(binGeoData);
+            driverBytes.writeToFiles(binGeoData);
+
+            driverBytesMmap = new GeoDriverBytesMmap();
+            driverBytesMmap.loadBin(binGeoData);
+
+            Random r = new Random(1);
+            for (int i = 0; i < checkPointCount; i++) {
+                geoXs[i] = region.geoX() + r.nextInt(2048);
+                geoYs[i] = region.geoY() + r.nextInt(2048);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(checkPointCount)
+    public void expandNeighbours(Blackhole blackhole, MyState state) {
+        expand(blackhole, state, state.driver);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(checkPointCount)
+    public void expandNeighboursBytes(Blackhole blackhole, MyState state) {
+        expand(blackhole, state, state.driverBytes);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(checkPointCount)
+    public void expandNeighboursBytesMmap(Blackhole blackhole, MyState state) {
+        expand(blackhole, state, state.driverBytesMmap);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(checkPointCount)
+    public void expandByCalls(Blackhole blackhole, MyState state) {
+        expandByCalls(blackhole, state, state.driver);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(checkPointCount)
+    public void expandByCallsBytes(Blackhole blackhole, MyState state) {
+        expandByCalls(blackhole, state, state.driverBytes);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(checkPointCount)
+    public void expandByCallsBytesMmap(Blackhole blackhole, MyState state) {
+        expandByCalls(blackhole, state, state.driverBytesMmap);
+    }
+
+    private static void expand(Blackhole blackhole, MyState state, IGeoDriver driver) {
+        for (int i = 0; i < checkPointCount; i++) {
+            blackhole.consume(driver.expandNeighbours(state.geoXs[i], state.geoYs[i], -3000, state.outZ, state.outMask));
+        }
+    }
+
+    /**
+     * То, что делает поиск пути без expandNeighbours: z центра, затем NSWE и z каждого соседа
+     * отдельными вызовами, для диагоналей проверка обоих ортогональных соседей.
+     */
+    private static void expandByCalls(Blackhole blackhole, MyState state, IGeoDriver driver) {
+        for (int i = 0; i < checkPointCount; i++) {
+            int geoX = state.geoXs[i];
+            int geoY = state.geoYs[i];
+            int z = driver.getNearestZ(geoX, geoY, -3000);
+            int mask = 0;
+            for (int d = 0; d < NSWE_FLAGS.length; d++) {
+                if (driver.checkNearestNSWE(geoX, geoY, z, NSWE_FLAGS[d])) {
+                    int direction = NSWE_DIRECTIONS[d];
+                    state.outZ[direction] = driver.getNearestZ(geoX + Neighbours.dx(direction), geoY + Neighbours.dy(direction), z);
+                    mask |= Neighbours.bit(direction);
+                }
+            }
+            for (int direction = Neighbours.NORTH_EAST; direction < Neighbours.COUNT; direction++) {
+                int dx = Neighbours.dx(direction);
+                int dy = Neighbours.dy(direction);
+                int horizontal = dx > 0 ? Neighbours.EAST : Neighbours.WEST;
+                int vertical = dy > 0 ? Neighbours.SOUTH : Neighbours.NORTH;
+                byte horizontalFlag = dx > 0 ? Cell.NSWE_EAST : Cell.NSWE_WEST;
+                byte verticalFlag = dy > 0 ? Cell.NSWE_SOUTH : Cell.NSWE_NORTH;
+                if (Neighbours.isReachable(mask, horizontal)
+                    && Neighbours.isReachable(mask, vertical)
+                    && driver.checkNearestNSWE(geoX + dx, geoY, z, verticalFlag)
+                    && driver.checkNearestNSWE(geoX, geoY + dy, z, horizontalFlag)) {
+                    state.outZ[direction] = driver.getNearestZ(geoX + dx, geoY + dy, z);
+                    mask |= Neighbours.bit(direction);
+                }
+            }
+            blackhole.consume(mask);
+        }
+    }
+}
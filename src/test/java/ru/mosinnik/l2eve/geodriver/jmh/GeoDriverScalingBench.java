@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jmh;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.profile.LinuxPerfNormProfiler;
+import org.openjdk.jmh.profile.ProfilerException;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.driver.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants.*;
+
+/**
+ * Масштабирование драйверов по потокам: каждый драйвер и каждая операция на 1, 2, 4, … N потоках.
+ * <p>
+ * Драйвер общий на всех, а точки у каждого потока свои (seed = индекс потока), чтобы потоки
+ * не ходили по одним и тем же кэш-линиям синхронно. Количество потоков задаётся раннером в {@link #main},
+ * результаты всех прогонов пишутся в {@link #RESULT_CSV} в формате doc/Benchs.csv.
+ * <p>
+ * Параметры запуска: {@code -Dbench.maxThreads=N} (по умолчанию число ядер),
+ * {@code -Dbench.out=path} (по умолчанию {@link #RESULT_CSV}).
+ */
+@Slf4j
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Timeout(time = 10)
+public class GeoDriverScalingBench {
+    public static final String RESULT_CSV = "doc/BenchsScaling.csv";
+
+    private static final int checkPointCount = 10000;
+
+    private static final String tstRegion = TST_BLOCK_RESOURCE_MOST_COMPLEX;
+    private static final int regionX = 23;
+    private static final int regionY = 12;
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        int maxThreads = Integer.getInteger("bench.maxThreads", Runtime.getRuntime().availableProcessors());
+        Path out = Path.of(System.getProperty("bench.out", RESULT_CSV));
+
+        List<RunResult> results = new ArrayList<>();
+        for (int threads : threadCounts(maxThreads)) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(GeoDriverScalingBench.class.getSimpleName())
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class);
+            if (isPerfNormAvailable()) {
+                options.addProfiler(LinuxPerfNormProfiler.class);
+            }
+            results.addAll(new Runner(options.build()).run());
+            // пишем после каждого шага, чтобы прерванный прогон не терял уже посчитанное
+            writeCsv(out, results);
+        }
+    }
+
+    /**
+     * 1, 2, 4, … и сам maxThreads, если он не степень двойки.
+     */
+    static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads <<= 1) {
+            counts.add(threads);
+        }
+        counts.add(Math.max(1, maxThreads));
+        return counts;
+    }
+
+    /**
+     * perfnorm есть только на linux с доступным perf, профайлер сам проверяет это в конструкторе.
+     */
+    static boolean isPerfNormAvailable() {
+        try {
+            new LinuxPerfNormProfiler("");
+            return true;
+        } catch (ProfilerException | RuntimeException e) {
+            log.info("perfnorm is not available, skip: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Формат doc/Benchs.csv (табуляция, десятичная запятая) плюс колонка с количеством потоков.
+     * Вторичные результаты профайлеров идут отдельными строками вида {@code bench:gc.alloc.rate.norm}.
+     */
+    static void writeCsv(Path out, List<RunResult> results) throws IOException {
+        StringBuilder sb = new StringBuilder("Benchmark\t(driver)\t(threads)\tMode\tCnt\tScore\t±\tError\tUnits\n");
+        for (RunResult runResult : results) {
+            BenchmarkParams params = runResult.getParams();
+            String fullName = params.getBenchmark();
+            String benchmark = fullName.substring(fullName.lastIndexOf('.', fullName.lastIndexOf('.') - 1) + 1);
+            appendCsvRow(sb, benchmark, params, runResult.getPrimaryResult());
+            // JMH отдает вторичные результаты как Map<String, Result> с сырым типом
+            runResult.getSecondaryResults().forEach((label, result) -> appendCsvRow(sb, benchmark + ":" + label, params, result));
+        }
+        Path parent = out.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(out, sb);
+    }
+
+    private static void appendCsvRow(StringBuilder sb, String benchmark, BenchmarkParams params, Result<?> result) {
+        sb.append(benchmark).append('\t')
+                .append(params.getParam("driver")).append('\t')
+                .append(params.getThreads()).append('\t')
+                .append(params.getMode().shortLabel()).append('\t')
+                .append(result.getSampleCount()).append('\t')
+                .append(formatScore(result.getScore())).append('\t')
+                .append("±").append('\t')
+                .append(formatScore(result.getScoreError())).append('\t')
+                .append(result.getScoreUnit()).append('\n');
+    }
+
+    static String formatScore(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        return String.format(Locale.forLanguageTag("ru"), "%.3f", value);
+    }
+
+
+    @State(Scope.Benchmark)
+    public static class DriverState {
+
+        @Param({
+                "GeoDriverOld",
+                "GeoDriver",
+                "GeoDriverBytes",
+                "GeoDriverBytesMmap",
+        })
+        String driver;
+
+        IGeoDriver geoDriver;
+
+        @SneakyThrows
+        @Setup(Level.Trial)
+        public void setup() {
+            File resource = new File(GeoDriverScalingBench.class.getClassLoader().getResource(tstRegion).getFile());
+            switch (driver) {
+                case "GeoDriverOld" -> {
+                    GeoConfig geoConfigOld = new GeoConfig();
+                    geoConfigOld.setReuseFlatBlockEnabled(false);
+                    GeoDriver driverOld = new GeoDriver(geoConfigOld);
+                    driverOld.loadRegion(resource.toPath(), regionX, regionY);
+                    geoDriver = driverOld;
+                }
+                case "GeoDriver" -> {
+                    GeoDriver geoDriverNew = new GeoDriver(GeoConfig.maxPerfBytes());
+                    geoDriverNew.loadRegion(resource.toPath(), regionX, regionY);
+                    geoDriver = geoDriverNew;
+                }
+                case "GeoDriverBytes" -> {
+                    GeoDriverBytes driverBytes = new GeoDriverBytes(GeoConfig.maxPerfBytes());
+                    driverBytes.loadFromL2J(List.of(resource.toPath()));
+                    geoDriver = driverBytes;
+                }
+                case "GeoDriverBytesMmap" -> {
+                    GeoDriverBytes driverBytes = new GeoDriverBytes(GeoConfig.maxPerfBytes());
+                    driverBytes.loadFromL2J(List.of(resource.toPath()));
+                    Path binGeoData = Path.of(GEODATA_BIN_DIR);
+                    Files.createDirectories(binGeoData);
+                    driverBytes.writeToFiles(binGeoData);
+
+                    GeoDriverBytesMmap driverBytesMmap = new GeoDriverBytesMmap();
+                    driverBytesMmap.loadBin(binGeoData);
+                    geoDriver = driverBytesMmap;
+                }
+                default -> throw new IllegalArgumentException("Unknown driver: " + driver);
+            }
+        }
+    }
+
+    /**
+     * Свой поток точек на каждый поток бенчмарка.
+     */
+    @State(Scope.Thread)
+    public static class PointsState {
+        int[] geoX = new int[checkPointCount];
+        int[] geoY = new int[checkPointCount];
+        int[] worldZ = new int[checkPointCount];
+        byte[] nswe = new byte[checkPointCount];
+        int[] outZ = new int[8];
+        byte[] outMask = new byte[8];
+        int index;
+
+        @Setup(Level.Trial)
+        public void setup(DriverState driverState, ThreadParams threadParams) {
+            IGeoDriver driver = driverState.geoDriver;
+            Random r = new Random(31L * threadParams.getThreadIndex() + 1);
+            int cornerMinWorldX = regionX * 32768 + GeoConstants.WORLD_MIN_X;
+            int cornerMinWorldY = regionY * 32768 + GeoConstants.WORLD_MIN_Y;
+            for (int i = 0; i < checkPointCount; i++) {
+                int x = driver.getGeoX(cornerMinWorldX + r.nextInt(32768));
+                int y = driver.getGeoY(cornerMinWorldY + r.nextInt(32768));
+                // высота рядом с реальным слоем, чтобы не бить всё время в крайние случаи
+                int z = driver.getNearestZ(x, y, r.nextInt(16000) - 8000) + r.nextInt(128) - 64;
+                geoX[i] = x;
+                geoY[i] = y;
+                worldZ[i] = z;
+                nswe[i] = (byte) (1 << r.nextInt(4));
+            }
+        }
+
+        int next() {
+            int i = index;
+            index = i + 1 == checkPointCount ? 0 : i + 1;
+            return i;
+        }
+    }
+
+    @Benchmark
+    public int getNearestZ(DriverState driverState, PointsState points) {
+        int i = points.next();
+        return driverState.geoDriver.getNearestZ(points.geoX[i], points.geoY[i], points.worldZ[i]);
+    }
+
+    @Benchmark
+    public int getNextLowerZ(DriverState driverState, PointsState points) {
+        int i = points.next();
+        return driverState.geoDriver.getNextLowerZ(points.geoX[i], points.geoY[i], points.worldZ[i]);
+    }
+
+    @Benchmark
+    public int getNextHigherZ(DriverState driverState, PointsState points) {
+        int i = points.next();
+        return driverState.geoDriver.getNextHigherZ(points.geoX[i], points.geoY[i], points.worldZ[i]);
+    }
+
+    @Benchmark
+    public boolean checkNearestNSWE(DriverState driverState, PointsState points) {
+        int i = points.next();
+        return driverState.geoDriver.checkNearestNSWE(points.geoX[i], points.geoY[i], points.worldZ[i], points.nswe[i]);
+    }
+
+    @Benchmark
+    public int expandNeighbours(DriverState driverState, PointsState points) {
+        int i = points.next();
+        return driverState.geoDriver.expandNeighbours(points.geoX[i], points.geoY[i], points.worldZ[i], points.outZ, points.outMask);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jmh;
+
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConstants;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+import ru.mosinnik.l2eve.geodriver.jfr.GeoJfrDriver;
+
+import java.util.List;
+import java.util.Random;
+
+import static ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants.*;
+
+/**
+ * Цена {@link GeoJfrDriver} без запущенной записи JFR: голый драйвер, обертка с выключенной выборкой
+ * и обертка с выборкой 1/1024, где события создаются, но JFR их отбрасывает.
+ * Первые два варианта должны совпадать в пределах погрешности.
+ */
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Timeout(time = 10)
+public class GeoJfrOverheadBench {
+    private static final int checkPointCount = 10000;
+
+    private static final String tstRegion = TST_BLOCK_RESOURCE_MOST_COMPLEX;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeoJfrOverheadBench.class.getSimpleName())
+                .build()
+        ).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class MyState {
+
+        @Param({
+                "raw",
+                "off",
+                "sampled",
+        })
+        String mode;
+
+        IGeoDriver driver;
+        int[] geoX = new int[checkPointCount];
+        int[] geoY = new int[checkPointCount];
+        int[] worldZ = new int[checkPointCount];
+        int index;
+
+        @SneakyThrows
+        @Setup(Level.Trial)
+        public void setup() {
+            BenchRegion region = BenchRegion.resolve(tstRegion);
+            GeoDriverBytes driverBytes = new GeoDriverBytes(GeoConfig.maxPerfBytes());
+            driverBytes.loadFromL2J(List.of(region.path()));
+            driver = switch (mode) {
+                case "raw" -> driverBytes;
+                case "off" -> new GeoJfrDriver(driverBytes, 0);
+                case "sampled" -> new GeoJfrDriver(driverBytes, 1024);
+                default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+            };
+
+            Random r = new Random(1);
+            int cornerMinWorldX = region.regionX() * 32768 + GeoConstants.WORLD_MIN_X;
+            int cornerMinWorldY = region.regionY() * 32768 + GeoConstants.WORLD_MIN_Y;
+            for (int i = 0; i < checkPointCount; i++) {
+                geoX[i] = driver.getGeoX(cornerMinWorldX + r.nextInt(32768));
+                geoY[i] = driver.getGeoY(cornerMinWorldY + r.nextInt(32768));
+                worldZ[i] = r.nextInt(16000) - 8000;
+            }
+        }
+
+        int next() {
+            int i = index;
+            index = i + 1 == checkPointCount ? 0 : i + 1;
+            return i;
+        }
+    }
+
+    @Benchmark
+    public int getNearestZ(MyState state) {
+        int i = state.next();
+        return state.driver.getNearestZ(state.geoX[i], state.geoY[i], state.worldZ[i]);
+    }
+
+    @Benchmark
+    public boolean checkNearestNSWE(MyState state) {
+        int i = state.next();
+        return state.driver.checkNearestNSWE(state.geoX[i], state.geoY[i], state.worldZ[i], (byte) 1);
+    }
+}
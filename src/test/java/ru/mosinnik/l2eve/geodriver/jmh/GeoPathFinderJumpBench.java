@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jmh;
+
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+import ru.mosinnik.l2eve.geodriver.pathfinding.GeoPathFinder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants.*;
+
+/**
+ * A* по ячейкам против прыжков через однородные блоки на тестовых регионах,
+ * пары точек на расстоянии до 200 клеток, поиск в окне вокруг них.
+ */
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Timeout(time = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeoPathFinderJumpBench {
+    private static final int pairCount = 100;
+    private static final int maxDistance = 200;
+    private static final int window = 64;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeoPathFinderJumpBench.class.getSimpleName())
+                .build()
+        ).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class MyState {
+
+        // регион из ресурсов, -Dbench.region подменяет его, см. BenchRegion
+        @Param({"25_22", "23_12", "12_24"})
+        String region;
+
+        // без сводки однородность complex и multilayer блоков проверяется декодированием блока
+        @Param({"true", "false"})
+        boolean blockSummary;
+
+        GeoPathFinder plain;
+        GeoPathFinder jump;
+        long[] starts = new long[pairCount];
+        long[] goals = new long[pairCount];
+        int[][] bounds = new int[pairCount][];
+
+        @SneakyThrows
+        @Setup(Level.Trial)
+        public void setup() {
+            String tstRegion = switch (region) {
+                case "25_22" -> TST_BLOCK_RESOURCE_ALMOST_EMPTY;
+                case "23_12" -> TST_BLOCK_RESOURCE_MOST_COMPLEX;
+                default -> TST_BLOCK_RESOURCE_BIGGEST;
+            };
+            BenchRegion benchRegion = BenchRegion.resolve(tstRegion);
+
+            GeoConfig geoConfig = GeoConfig.maxPerfBytes();
+            geoConfig.setBlockSummaryEnabled(blockSummary);
+            GeoDriverBytes driver = new GeoDriverBytes(geoConfig);
+            driver.loadFromL2J(List.of(benchRegion.path()));
+
+            plain = new GeoPathFinder(driver);
+            jump = new GeoPathFinder(driver);
+            jump.setJumpUniformBlocks(true);
+
+            Random r = new Random(1);
+            for (int i = 0; i < pairCount; i++) {
+                int geoX = benchRegion.geoX() + maxDistance + r.nextInt(2048 - 2 * maxDistance);
+                int geoY = benchRegion.geoY() + maxDistance + r.nextInt(2048 - 2 * maxDistance);
+                int toGeoX = geoX + r.nextInt(2 * maxDistance) - maxDistance;
+                int toGeoY = geoY + r.nextInt(2 * maxDistance) - maxDistance;
+                starts[i] = plain.node(geoX, geoY, Short.MAX_VALUE);
+                goals[i] = plain.node(toGeoX, toGeoY, Short.MAX_VALUE);
+                bounds[i] = new int[]{
+                        Math.min(geoX, toGeoX) - window, Math.min(geoY, toGeoY) - window,
+                        Math.max(geoX, toGeoX) + window, Math.max(geoY, toGeoY) + window
+                };
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(pairCount)
+    public void plainAStar(Blackhole blackhole, MyState state) {
+        findPaths(blackhole, state, state.plain);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(pairCount)
+    public void jumpUniformBlocks(Blackhole blackhole, MyState state) {
+        findPaths(blackhole, state, state.jump);
+    }
+
+    private static void findPaths(Blackhole blackhole, MyState state, GeoPathFinder finder) {
+        for (int i = 0; i < pairCount; i++) {
+            int[] bounds = state.bounds[i];
+            blackhole.consume(finder.findPath(state.starts[i], state.goals[i], bounds[0], bounds[1], bounds[2], bounds[3], null));
+        }
+    }
+}
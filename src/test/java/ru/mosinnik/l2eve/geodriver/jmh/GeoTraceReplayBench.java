@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jmh;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.driver.GeoTraceRecorder;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants.GEODATA_DIR;
+
+/**
+ * Проигрывание записанной {@link GeoTraceRecorder} трассы на каждом драйвере, в один поток и во все ядра.
+ * <p>
+ * Трасса берется из {@code -Dbench.trace} (по умолчанию {@link GeoTraceReplayer#TRACE_FILE}),
+ * геодата - все .l2j из {@code -Dbench.geodata} (по умолчанию geodata). Каждый поток идет по трассе
+ * со своего смещения, одна операция - один запрос из трассы.
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Timeout(time = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GeoTraceReplayBench {
+    private static final int chunk = 1024;
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, Runtime.getRuntime().availableProcessors()}) {
+            new Runner(new OptionsBuilder()
+                    .include(GeoTraceReplayBench.class.getSimpleName())
+                    .threads(threads)
+                    .build()
+            ).run();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class TraceState {
+
+        @Param({
+                "GeoDriver",
+                "GeoDriverBytes",
+                "GeoDriverBytesMmap",
+        })
+        String driver;
+
+        IGeoDriver geoDriver;
+        long[] trace;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            trace = GeoTraceRecorder.readFromFile(Path.of(System.getProperty("bench.trace", GeoTraceReplayer.TRACE_FILE)));
+            if (trace.length < chunk) {
+                throw new IllegalStateException("Trace is too short: " + trace.length + " records");
+            }
+            geoDriver = GeoTraceReplayer.loadDriver(driver, Path.of(System.getProperty("bench.geodata", GEODATA_DIR)));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class CursorState {
+        int position;
+
+        @Setup(Level.Trial)
+        public void setup(TraceState traceState, ThreadParams threadParams) {
+            position = (int) ((long) traceState.trace.length * threadParams.getThreadIndex() / threadParams.getThreadCount());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(chunk)
+    public long replay(TraceState traceState, CursorState cursor) {
+        long[] trace = traceState.trace;
+        int from = cursor.position;
+        if (from + chunk > trace.length) {
+            from = 0;
+        }
+        cursor.position = from + chunk;
+        return GeoTraceRecorder.replay(traceState.geoDriver, trace, from, from + chunk);
+    }
+}
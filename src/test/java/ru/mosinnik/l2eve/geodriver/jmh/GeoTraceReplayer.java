@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jmh;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriver;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesMmap;
+import ru.mosinnik.l2eve.geodriver.driver.GeoTraceRecorder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants.GEODATA_BIN_DIR;
+import static ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants.GEODATA_DIR;
+
+/**
+ * Проигрывание записанной {@link GeoTraceRecorder} трассы на всех драйверах без JMH,
+ * например прямо на машине сервера с боевой геодатой.
+ * <p>
+ * Аргументы: файл трассы, каталог с .l2j, число потоков (по умолчанию 1), число проходов (по умолчанию 10).
+ * Каждый поток проигрывает трассу со своего смещения. Первый однопоточный проход дает контрольную сумму,
+ * у всех драйверов она должна совпадать.
+ */
+@Slf4j
+public class GeoTraceReplayer {
+
+    public static final String TRACE_FILE = GEODATA_DIR + "/trace.l2gt";
+    public static final String[] DRIVERS = {"GeoDriver", "GeoDriverBytes", "GeoDriverBytesMmap"};
+
+    public static void main(String[] args) throws Exception {
+        Path traceFile = Path.of(args.length > 0 ? args[0] : TRACE_FILE);
+        Path geodataDir = Path.of(args.length > 1 ? args[1] : GEODATA_DIR);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        int passes = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        long[] trace = GeoTraceRecorder.readFromFile(traceFile);
+        log.info("Read {} trace records from {}", trace.length, traceFile);
+
+        Long expectedChecksum = null;
+        for (String driverName : DRIVERS) {
+            IGeoDriver driver = loadDriver(driverName, geodataDir);
+            long checksum = GeoTraceRecorder.replay(driver, trace, 0, trace.length);
+            if (expectedChecksum == null) {
+                expectedChecksum = checksum;
+            } else if (expectedChecksum != checksum) {
+                log.warn("{}: checksum {} differs from {}", driverName, checksum, expectedChecksum);
+            }
+
+            List<Thread> workers = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int offset = (int) ((long) trace.length * t / threads);
+                Thread worker = new Thread(() -> {
+                    for (int pass = 0; pass < passes; pass++) {
+                        GeoTraceRecorder.replay(driver, trace, offset, trace.length);
+                        GeoTraceRecorder.replay(driver, trace, 0, offset);
+                    }
+                }, "replay-" + t);
+                workers.add(worker);
+                worker.start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            long elapsed = System.nanoTime() - start;
+            long queries = (long) trace.length * passes * threads;
+            log.info("{}: {} threads, {} queries in {} ms, {} ns/query per thread, {} queries/s total",
+                driverName, threads, queries, elapsed / 1_000_000, elapsed * threads / Math.max(1, queries),
+                queries * 1_000_000_000L / Math.max(1, elapsed));
+        }
+    }
+
+    /**
+     * Драйвер по имени со всеми .l2j регионами каталога. Для GeoDriverBytesMmap bin файлы
+     * пишутся в {@link ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants#GEODATA_BIN_DIR}.
+     */
+    @SneakyThrows
+    public static IGeoDriver loadDriver(String driverName, Path geodataDir) {
+        GeoConfig config = GeoConfig.maxPerfBytes();
+        switch (driverName) {
+            case "GeoDriver" -> {
+                GeoDriver driver = new GeoDriver(config);
+                try (Stream<Path> pathStream = Files.list(geodataDir)) {
+                    for (Path path : pathStream.filter(path -> path.getFileName().toString().endsWith(".l2j")).toList()) {
+                        String[] split = path.getFileName().toString().split("[_.]");
+                        driver.loadRegion(path, Integer.parseInt(split[0]), Integer.parseInt(split[1]));
+                    }
+                }
+                return driver;
+            }
+            case "GeoDriverBytes" -> {
+                GeoDriverBytes driver = new GeoDriverBytes(config);
+                driver.loadFromL2JDir(geodataDir);
+                return driver;
+            }
+            case "GeoDriverBytesMmap" -> {
+                GeoDriverBytes driverBytes = new GeoDriverBytes(config);
+                driverBytes.loadFromL2JDir(geodataDir);
+                Path binGeoData = Path.of(GEODATA_BIN_DIR);
+                Files.createDirectories(binGeoData);
+                driverBytes.writeToFiles(binGeoData);
+
+                GeoDriverBytesMmap driver = new GeoDriverBytesMmap();
+                driver.loadBin(binGeoData);
+                return driver;
+            }
+            default -> throw new IllegalArgumentException("Unknown driver: " + driverName);
+        }
+    }
+}
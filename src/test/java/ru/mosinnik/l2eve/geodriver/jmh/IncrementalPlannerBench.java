@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.jmh;
+
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+import ru.mosinnik.l2eve.geodriver.pathfinding.GeoPathFinder;
+import ru.mosinnik.l2eve.geodriver.pathfinding.IncrementalPlanner;
+import ru.mosinnik.l2eve.geodriver.pathfinding.PathNode;
+import ru.mosinnik.l2eve.geodriver.util.LongList;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants.*;
+
+/**
+ * Погоня за движущейся целью: записанная траектория цели проигрывается целиком, агент каждый тик
+ * перепланирует путь и делает шаг. Инкрементальное перепланирование против A* с нуля на каждом тике,
+ * счетчик expandedNodes дает раскрытые узлы в секунду.
+ */
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Timeout(time = 10)
+// счетчик операций осмыслен только в режиме пропускной способности
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IncrementalPlannerBench {
+    private static final int tickCount = 200;
+    private static final int agentStepsPerTick = 2;
+
+    private static final String tstRegion = TST_BLOCK_RESOURCE_MOST_COMPLEX;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IncrementalPlannerBench.class.getSimpleName())
+                .build()
+        ).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class MyState {
+
+        GeoPathFinder finder;
+        IncrementalPlanner planner;
+        long agentStart;
+        // траектория цели по тикам
+        long[] targets = new long[tickCount];
+        LongList path = new LongList();
+
+        @SneakyThrows
+        @Setup(Level.Trial)
+        public void setup() {
+            BenchRegion region = BenchRegion.resolve(tstRegion);
+            GeoDriverBytes driver = new GeoDriverBytes(GeoConfig.maxPerfBytes());
+            driver.loadFromL2J(List.of(region.path()));
+            finder = new GeoPathFinder(driver);
+            planner = new IncrementalPlanner(finder);
+
+            int targetX = region.geoX() + 1024;
+            int targetY = region.geoY() + 1024;
+            agentStart = finder.node(targetX - 60, targetY - 40, Short.MAX_VALUE);
+            long target = finder.node(targetX, targetY, Short.MAX_VALUE);
+            Random r = new Random(1);
+            for (int tick = 0; tick < tickCount; tick++) {
+                targetX += r.nextInt(3) - 1;
+                targetY += r.nextInt(3) - 1;
+                target = finder.node(targetX, targetY, PathNode.z(target));
+                targets[tick] = target;
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long expandedNodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            expandedNodes = 0;
+        }
+    }
+
+    @Benchmark
+    public void incremental(Blackhole blackhole, MyState state, Counters counters) {
+        long expandedBefore = state.planner.getExpandedNodes();
+        state.planner.release(1);
+        long agent = state.agentStart;
+        for (long target : state.targets) {
+            if (state.planner.plan(1, agent, target, state.path)) {
+                agent = state.path.get(Math.min(agentStepsPerTick, state.path.size() - 1));
+            }
+            blackhole.consume(agent);
+        }
+        counters.expandedNodes += state.planner.getExpandedNodes() - expandedBefore;
+    }
+
+    @Benchmark
+    public void fromScratch(Blackhole blackhole, MyState state, Counters counters) {
+        long agent = state.agentStart;
+        for (long target : state.targets) {
+            if (state.finder.findPath(agent, target, 0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE, state.path) != GeoPathFinder.NO_PATH) {
+                agent = state.path.get(Math.min(agentStepsPerTick, state.path.size() - 1));
+            }
+            counters.expandedNodes += state.finder.getLastExpandedNodes();
+            blackhole.consume(agent);
+        }
+    }
+}
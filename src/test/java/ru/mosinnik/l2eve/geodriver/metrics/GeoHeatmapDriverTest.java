@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.metrics;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants;
+import ru.mosinnik.l2eve.geodriver.synthetic.SyntheticGeoGenerator;
+import ru.mosinnik.l2eve.geodriver.synthetic.SyntheticGeoProfile;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS_Y;
+
+public class GeoHeatmapDriverTest {
+
+    private static Path dir;
+    private static GeoDriverBytes bytesDriver;
+    private static int geoX;
+    private static int geoY;
+    private static int regionIndex;
+
+    private GeoHeatmapDriver heatmapDriver;
+
+    @BeforeClass
+    public static void generate() throws Exception {
+        dir = Files.createTempDirectory("heatmap");
+        List<Path> paths = new SyntheticGeoGenerator(SyntheticGeoProfile.interlude()).generateWorld(dir, 1);
+        int[] region = SyntheticGeoGenerator.worldRegions(1).get(0);
+        geoX = region[0] * IRegion.REGION_CELLS_X;
+        geoY = region[1] * IRegion.REGION_CELLS_Y;
+        regionIndex = region[0] * GEO_REGIONS_Y + region[1];
+        bytesDriver = new GeoDriverBytes(GeoConfig.lowMemory());
+        bytesDriver.loadFromL2J(paths);
+    }
+
+    @AfterClass
+    public static void cleanup() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Before
+    public void wrap() {
+        heatmapDriver = new GeoHeatmapDriver(bytesDriver);
+    }
+
+    @Test
+    public void shouldCountBlockAccesses() {
+        for (int i = 0; i < 10; i++) {
+            heatmapDriver.getNearestZ(geoX + 20, geoY + 30, 0);
+        }
+        // другая ячейка того же блока
+        heatmapDriver.checkNearestNSWE(geoX + 23, geoY + 25, 0, (byte) 1);
+        heatmapDriver.getLayers(geoX + 40, geoY + 40, new int[IBlock.MAX_CELL_LAYERS], new byte[IBlock.MAX_CELL_LAYERS]);
+        // регион без геодаты не считается
+        heatmapDriver.getNearestZ(geoX - 1, geoY, 0);
+
+        assertSame(bytesDriver, heatmapDriver.getDriver());
+        assertEquals(11, heatmapDriver.getCounter(geoX + 16, geoY + 24));
+        assertEquals(1, heatmapDriver.getCounter(geoX + 40, geoY + 40));
+        assertEquals(0, heatmapDriver.getCounter(geoX, geoY));
+        assertEquals(0, heatmapDriver.getCounter(geoX - 1, geoY));
+    }
+
+    @Test
+    public void shouldSaturateAndDecay() {
+        for (int i = 0; i < 1000; i++) {
+            heatmapDriver.getNextLowerZ(geoX, geoY, 0);
+        }
+        for (int i = 0; i < 3; i++) {
+            heatmapDriver.getNextHigherZ(geoX + 8, geoY, 0);
+        }
+        assertEquals(GeoHeatmapDriver.MAX_COUNTER, heatmapDriver.getCounter(geoX, geoY));
+
+        heatmapDriver.decay();
+        assertEquals(127, heatmapDriver.getCounter(geoX, geoY));
+        assertEquals(1, heatmapDriver.getCounter(geoX + 8, geoY));
+
+        heatmapDriver.decay();
+        assertEquals(63, heatmapDriver.getCounter(geoX, geoY));
+        assertEquals(0, heatmapDriver.getCounter(geoX + 8, geoY));
+
+        heatmapDriver.clear();
+        assertEquals(0, heatmapDriver.getCounter(geoX, geoY));
+    }
+
+    @Test
+    public void shouldWriteAndSummarizeHeatmap() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            heatmapDriver.getNearestLayer(geoX + 100, geoY + 200, 0);
+        }
+        heatmapDriver.getNearestLayer(geoX + 300, geoY + 200, 0);
+
+        Path file = dir.resolve("heatmap.l2gh");
+        heatmapDriver.writeToFile(file);
+        GeoHeatmap heatmap = GeoHeatmap.readFromFile(file);
+        GeoHeatmap snapshot = heatmapDriver.snapshot();
+        assertArrayEquals(new int[]{regionIndex}, heatmap.getRegionIndexes());
+        assertEquals(snapshot, heatmap);
+        heatmap.getRegionIndexes()[0] = regionIndex + 1;
+        assertEquals(snapshot, heatmap);
+
+        int blockIndex = ((100 >> 3) << 8) + (200 >> 3);
+        assertEquals(100, heatmap.getCounter(regionIndex, blockIndex));
+        assertEquals(0, heatmap.getCounter(regionIndex + 1, blockIndex));
+        assertEquals(bytesDriver.getBlockType(geoX + 100, geoY + 200), heatmap.getBlockType(regionIndex, blockIndex));
+        assertEquals(-1, heatmap.getBlockType(regionIndex + 1, blockIndex));
+        assertEquals(Map.of(regionIndex / GEO_REGIONS_Y + "_" + regionIndex % GEO_REGIONS_Y, 101L), heatmap.regionHeat());
+
+        Map<String, GeoHeatmap.BlockTypeHeat> summary = heatmap.summarizeByBlockType(50);
+        assertEquals(IRegion.REGION_BLOCKS, summary.values().stream().mapToLong(GeoHeatmap.BlockTypeHeat::blocks).sum());
+        assertEquals(2, summary.values().stream().mapToLong(GeoHeatmap.BlockTypeHeat::touchedBlocks).sum());
+        assertEquals(101, summary.values().stream().mapToLong(GeoHeatmap.BlockTypeHeat::heat).sum());
+        String hotType = GeoDriverBytesConstants.blockTypeToName(bytesDriver.getBlockType(geoX + 100, geoY + 200));
+        assertEquals(1, summary.get(hotType).hotBlocks());
+    }
+}
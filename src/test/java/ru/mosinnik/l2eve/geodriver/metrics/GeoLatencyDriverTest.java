@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.metrics;
+
+import org.junit.Test;
+import ru.mosinnik.l2eve.geodriver.driver.NullDriver;
+import ru.mosinnik.l2eve.geodriver.util.LatencyHistogram;
+
+import javax.management.MBeanServer;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GeoLatencyDriverTest {
+
+    @Test
+    public void shouldRecordSampledQueries() {
+        GeoLatencyDriver driver = new GeoLatencyDriver(new NullDriver(), "null", 1);
+        for (int i = 0; i < 100; i++) {
+            driver.getNearestZ(i, i, 0);
+            driver.checkNearestNSWE(i, i, 0, (byte) 1);
+        }
+        driver.getNextLowerZ(1, 1, 0);
+
+        Map<String, LatencyHistogram.Snapshot> snapshot = driver.snapshot();
+        // у NullDriver нет блоков, все идет в UNKNOWN
+        assertEquals(List.of("getNearestZ", "checkNearestNSWE", "getNextLowerZ",
+            "getNearestZ/UNKNOWN", "checkNearestNSWE/UNKNOWN", "getNextLowerZ/UNKNOWN"), List.copyOf(snapshot.keySet()));
+        assertEquals(100, snapshot.get("getNearestZ").getTotalCount());
+        assertEquals(100, driver.snapshot(GeoLatencyDriver.OP_CHECK_NEAREST_NSWE, -1).getTotalCount());
+        assertEquals(0, driver.snapshot(GeoLatencyDriver.OP_GET_NEXT_HIGHER_Z, -1).getTotalCount());
+        assertEquals(100, driver.snapshot(GeoLatencyDriver.OP_CHECK_NEAREST_NSWE, 100).getTotalCount());
+
+        driver.reset();
+        assertTrue(driver.snapshot().isEmpty());
+    }
+
+    @Test
+    public void shouldNotRecordWhenDisabled() {
+        GeoLatencyDriver driver = new GeoLatencyDriver(new NullDriver(), "null", 0);
+        assertEquals(0, driver.getSampleEvery());
+        driver.getNearestZ(1, 1, 0);
+        assertTrue(driver.snapshot().isEmpty());
+    }
+
+    @Test
+    public void shouldExposeMBean() throws Exception {
+        GeoLatencyDriver driver = new GeoLatencyDriver(new NullDriver(), "test driver", 1);
+        driver.getNearestZ(1, 1, 0);
+        GeoLatencyMonitor monitor = new GeoLatencyMonitor(driver);
+        monitor.registerMBean();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertTrue(server.isRegistered(monitor.getObjectName()));
+            assertEquals("test driver", server.getAttribute(monitor.getObjectName(), "Name"));
+            assertEquals(1, server.getAttribute(monitor.getObjectName(), "SampleEvery"));
+            TabularData counts = (TabularData) server.getAttribute(monitor.getObjectName(), "Counts");
+            assertEquals(2, counts.size());
+            server.invoke(monitor.getObjectName(), "reset", null, null);
+            assertTrue(driver.snapshot().isEmpty());
+        } finally {
+            monitor.unregisterMBean();
+        }
+        assertNull(monitor.getObjectName());
+        assertFalse(server.queryNames(null, null).toString().contains("test driver"));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.metrics;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriver;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesMmap;
+import ru.mosinnik.l2eve.geodriver.driver.NullDriver;
+import ru.mosinnik.l2eve.geodriver.synthetic.SyntheticGeoGenerator;
+import ru.mosinnik.l2eve.geodriver.synthetic.SyntheticGeoProfile;
+import ru.mosinnik.l2eve.geodriver.util.NativeMemory;
+
+import javax.management.MBeanServer;
+import javax.management.openmbean.TabularData;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GeoMemoryReportTest {
+
+    private static Path dir;
+    private static List<Path> paths;
+    private static int[] region;
+    private static GeoDriverBytes bytesDriver;
+
+    @BeforeClass
+    public static void generate() throws Exception {
+        dir = Files.createTempDirectory("memory-report");
+        paths = new SyntheticGeoGenerator(SyntheticGeoProfile.interlude()).generateWorld(dir, 1);
+        region = SyntheticGeoGenerator.worldRegions(1).get(0);
+        bytesDriver = new GeoDriverBytes(GeoConfig.lowMemory());
+        bytesDriver.loadFromL2J(paths);
+    }
+
+    @AfterClass
+    public static void cleanup() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void shouldReportBytesDriver() {
+        GeoMemoryReport report = bytesDriver.getMemoryReport();
+        assertSame(report, bytesDriver.getMemoryReport());
+
+        assertEquals("GeoDriverBytes", report.driver());
+        assertEquals(bytesDriver.getDataSize(), report.payloadBytes());
+        assertEquals(report.payloadBytes(), report.blockBytesByType().values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(IRegion.REGION_BLOCKS, report.blockCountsByType().values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(Map.of(region[0] + "_" + region[1], report.payloadBytes()), report.regionBytesByRegion());
+        assertEquals(report.totalBytes(), report.heapBytes());
+        assertEquals(0, report.mappedBytes());
+        assertEquals(-1, report.residentBytes());
+        assertTrue(report.indexBytes() > IRegion.REGION_BLOCKS);
+    }
+
+    @Test
+    public void shouldReportMappedDriver() throws Exception {
+        Path binDir = Files.createDirectory(dir.resolve("bin"));
+        bytesDriver.writeToFiles(binDir);
+        GeoDriverBytesMmap driver = new GeoDriverBytesMmap();
+        driver.loadBin(binDir);
+
+        GeoMemoryReport report = driver.getMemoryReport();
+        GeoMemoryReport bytesReport = bytesDriver.getMemoryReport();
+        assertEquals(bytesReport.blockCountsByType(), report.blockCountsByType());
+        assertEquals(bytesReport.blockBytesByType(), report.blockBytesByType());
+        assertEquals(bytesReport.payloadBytes(), report.mappedBytes());
+        assertEquals(report.indexBytes(), report.heapBytes());
+
+        if (NativeMemory.isSupported()) {
+            driver.touchRegion(region[0], region[1]);
+            report = driver.getMemoryReport();
+            // страницы считаются целиком
+            assertTrue(report.residentBytes() >= report.payloadBytes());
+            assertEquals(report.residentBytes(), (long) report.regionResidentBytesByRegion().get(region[0] + "_" + region[1]));
+        }
+    }
+
+    @Test
+    public void shouldEstimateObjectDriver() throws Exception {
+        GeoDriver driver = new GeoDriver(GeoConfig.lowMemory());
+        driver.loadRegion(paths.get(0), region[0], region[1]);
+
+        GeoMemoryReport report = driver.getMemoryReport();
+        assertEquals(bytesDriver.getMemoryReport().blockCountsByType(), report.blockCountsByType());
+        // IRegion[], Region и IBlock[] как в doc/Memory.md
+        assertEquals(4112 + 16 + 262160, report.indexBytes());
+        assertEquals(0, (long) report.blockBytesByType().get("FLAT_BLOCK"));
+        assertEquals(report.totalBytes(), report.heapBytes());
+    }
+
+    @Test
+    public void shouldReportEmptyForUnknownDriver() {
+        GeoMemoryReport report = GeoMemoryReporter.reportOf(new NullDriver());
+        assertEquals(0, report.totalBytes());
+        assertTrue(report.blockCountsByType().isEmpty());
+        assertTrue(report.regionBytesByRegion().isEmpty());
+    }
+
+    @Test
+    public void shouldExposeMBean() throws Exception {
+        GeoMemoryMonitor monitor = new GeoMemoryMonitor(bytesDriver, "test memory");
+        monitor.registerMBean();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals("GeoDriverBytes", server.getAttribute(monitor.getObjectName(), "DriverName"));
+            assertEquals(bytesDriver.getDataSize(), server.getAttribute(monitor.getObjectName(), "PayloadBytes"));
+            TabularData regions = (TabularData) server.getAttribute(monitor.getObjectName(), "RegionBytes");
+            assertEquals(1, regions.size());
+        } finally {
+            monitor.unregisterMBean();
+        }
+        assertNull(monitor.getObjectName());
+    }
+}
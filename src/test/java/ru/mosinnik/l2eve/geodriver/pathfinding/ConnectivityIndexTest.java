@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.pathfinding;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.mosinnik.l2eve.geodriver.Cell;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriver;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+
+import static org.junit.Assert.*;
+import static ru.mosinnik.l2eve.geodriver.synthetic.TestRegions.*;
+
+public class ConnectivityIndexTest {
+
+    // стена во всю высоту региона по x = WALL_X
+    private static final int WALL_X = 1000;
+    // блок с платформой на высоте 400, с платформы никуда не уйти
+    private static final int PLATFORM_BLOCK = (10 << 8) + 10;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void shouldSplitByWallsAndLayers() throws Exception {
+        Path dir = temp.getRoot().toPath();
+        Path walled = write(dir, REGION_X, REGION_Y, generateWalledRegion());
+        Path open = write(dir, REGION_X + 1, REGION_Y, flatRegion(0));
+        GeoDriverBytes driver = new GeoDriverBytes(GeoConfig.maxPerfBytes());
+        driver.loadFromL2J(List.of(walled, open));
+
+        ConnectivityIndex index = ConnectivityIndex.build(driver);
+        check(index);
+
+        Path file = dir.resolve("connectivity.bin");
+        index.writeToFile(file);
+        ConnectivityIndex read = ConnectivityIndex.readFromFile(file, driver);
+        assertNotNull(read);
+        check(read);
+        assertEquals(index.sizeInBytes(), read.sizeInBytes());
+        assertNull(ConnectivityIndex.readFromFile(dir.resolve("missing.bin"), driver));
+
+        // индекс от другой геодаты не читается
+        GeoDriverBytes other = new GeoDriverBytes(GeoConfig.maxPerfBytes());
+        other.loadFromL2J(List.of(walled));
+        assertNull(ConnectivityIndex.readFromFile(file, other));
+        write(dir, REGION_X, REGION_Y, flatRegion(0));
+        other = new GeoDriverBytes(GeoConfig.maxPerfBytes());
+        other.loadFromL2J(List.of(walled, open));
+        assertNull(ConnectivityIndex.readFromFile(file, other));
+        // те же типы блоков, другие высоты
+        write(dir, REGION_X, REGION_Y, generateWalledRegion());
+        write(dir, REGION_X + 1, REGION_Y, flatRegion(16));
+        other = new GeoDriverBytes(GeoConfig.maxPerfBytes());
+        other.loadFromL2J(List.of(walled, open));
+        assertNull(ConnectivityIndex.readFromFile(file, other));
+
+        // отпечаток по содержимому ячеек, а не по кодированию блоков: другой драйвер той же геодаты читает индекс
+        write(dir, REGION_X + 1, REGION_Y, flatRegion(0));
+        GeoDriver objectDriver = new GeoDriver(GeoConfig.maxPerfBytes());
+        objectDriver.loadRegion(walled, REGION_X, REGION_Y);
+        objectDriver.loadRegion(open, REGION_X + 1, REGION_Y);
+        assertNotNull(ConnectivityIndex.readFromFile(file, objectDriver));
+    }
+
+    private static void check(ConnectivityIndex index) {
+        int left = index.getComponent(GEO_X + 10, GEO_Y + 10, 0);
+        int right = index.getComponent(GEO_X + 1500, GEO_Y + 2000, 0);
+        int otherRegion = index.getComponent(GEO_X + 3000, GEO_Y + 5, 0);
+        assertNotEquals(ConnectivityIndex.NO_COMPONENT, left);
+        assertNotEquals(left, right);
+        assertEquals(right, otherRegion);
+        assertFalse(index.sameComponent(GEO_X + WALL_X - 1, GEO_Y + 7, 0, GEO_X + WALL_X + 1, GEO_Y + 7, 0));
+        assertTrue(index.sameComponent(GEO_X + WALL_X + 1, GEO_Y + 7, 0, GEO_X + 2100, GEO_Y + 900, 0));
+
+        // платформа и земля под ней
+        int platformX = GEO_X + (PLATFORM_BLOCK >> 8) * IBlock.BLOCK_CELLS_X + 3;
+        int platformY = GEO_Y + (PLATFORM_BLOCK & 0xFF) * IBlock.BLOCK_CELLS_Y + 4;
+        assertEquals(left, index.getComponent(platformX, platformY, 0));
+        int platform = index.getComponent(platformX, platformY, 400);
+        assertNotEquals(left, platform);
+        assertNotEquals(platform, index.getComponent(platformX + 1, platformY, 400));
+        // посередине между слоями при равенстве первый в порядке хранения, как у драйвера
+        assertEquals(platform, index.getComponent(platformX, platformY, 200));
+        assertFalse(index.sameComponent(platformX, platformY, 350, GEO_X + 10, GEO_Y + 10, 0));
+
+        // без геодаты отказать нельзя
+        assertEquals(ConnectivityIndex.NO_COMPONENT, index.getComponent(GEO_X - 5, GEO_Y, 0));
+        assertTrue(index.sameComponent(GEO_X - 5, GEO_Y, 0, GEO_X + 10, GEO_Y + 10, 0));
+    }
+
+    private static byte[] generateWalledRegion() {
+        IntBinaryOperator wallBlockTypes = wallBlockTypes(WALL_X);
+        return region((blockX, blockY) -> (blockX << 8) + blockY == PLATFORM_BLOCK ? IBlock.TYPE_MULTILAYER : wallBlockTypes.applyAsInt(blockX, blockY),
+            (x, y, heights, nswe) -> {
+                if (((x >> 3) << 8) + (y >> 3) == PLATFORM_BLOCK) {
+                    heights[0] = 400;
+                    nswe[0] = 0;
+                    heights[1] = 0;
+                    nswe[1] = Cell.NSWE_ALL;
+                    return 2;
+                }
+                heights[0] = 0;
+                nswe[0] = wallNswe(WALL_X, x);
+                return 1;
+            });
+    }
+}
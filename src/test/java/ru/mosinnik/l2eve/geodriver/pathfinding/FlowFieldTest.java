@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.pathfinding;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.mosinnik.l2eve.geodriver.Cell;
+import ru.mosinnik.l2eve.geodriver.Neighbours;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+import static ru.mosinnik.l2eve.geodriver.synthetic.TestRegions.*;
+
+public class FlowFieldTest {
+
+    // стена по x = WALL_X, проход в ней только с запада на восток
+    private static final int WALL_X = 1000;
+    private static final int GAP_Y = 1480;
+    private static final int GAP_WIDTH = 3;
+    private static final int RADIUS = 64;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void shouldMatchPathFinderCosts() throws Exception {
+        GeoDriverBytes driver = load(GeoConfig.maxPerfBytes(), temp.getRoot().toPath(), generateRegion());
+        GeoPathFinder finder = new GeoPathFinder(driver);
+
+        // цель за проходом и перед ним
+        check(driver, finder, finder.node(GEO_X + WALL_X + 20, GEO_Y + 1500, 0), true);
+        check(driver, finder, finder.node(GEO_X + WALL_X - 20, GEO_Y + 1500, 0), false);
+    }
+
+    private static void check(GeoDriverBytes driver, GeoPathFinder finder, long target, boolean reachableAcrossWall) {
+        FlowField field = FlowField.build(driver, target, RADIUS, false);
+        FlowField parallel = FlowField.build(driver, target, RADIUS, true);
+        int targetX = PathNode.geoX(target);
+        int targetY = PathNode.geoY(target);
+        assertEquals(0, field.getCost(targetX, targetY, 0));
+        assertEquals(FlowField.NO_DIRECTION, field.getDirection(targetX, targetY, 0));
+        assertEquals(FlowField.UNREACHABLE, field.getCost(targetX + RADIUS + 1, targetY, 0));
+        assertFalse(field.contains(targetX + RADIUS + 1, targetY));
+
+        Random r = new Random(3);
+        int reachable = 0;
+        int acrossWall = 0;
+        for (int i = 0; i < 200; i++) {
+            int geoX = targetX + r.nextInt(2 * RADIUS + 1) - RADIUS;
+            int geoY = targetY + r.nextInt(2 * RADIUS + 1) - RADIUS;
+            int cost = finder.findPath(finder.node(geoX, geoY, 0), target,
+                targetX - RADIUS, targetY - RADIUS, targetX + RADIUS, targetY + RADIUS, null);
+            int fieldCost = field.getCost(geoX, geoY, 0);
+            assertEquals(cost == GeoPathFinder.NO_PATH ? FlowField.UNREACHABLE : cost, fieldCost);
+            assertEquals(fieldCost, parallel.getCost(geoX, geoY, 0));
+            assertEquals(field.getDirection(geoX, geoY, 0), parallel.getDirection(geoX, geoY, 0));
+            if (fieldCost == FlowField.UNREACHABLE) {
+                assertEquals(FlowField.NO_DIRECTION, field.getDirection(geoX, geoY, 0));
+                continue;
+            }
+            reachable++;
+            if ((geoX < GEO_X + WALL_X) != (targetX < GEO_X + WALL_X)) {
+                acrossWall++;
+            }
+
+            // шаги по полю приводят к цели, стоимость убывает на стоимость шага
+            int x = geoX;
+            int y = geoY;
+            int z = driver.getNearestZ(x, y, 0);
+            while (field.getCost(x, y, z) > 0) {
+                int direction = field.getDirection(x, y, z);
+                int before = field.getCost(x, y, z);
+                x += Neighbours.dx(direction);
+                y += Neighbours.dy(direction);
+                z = driver.getNearestZ(x, y, z);
+                assertEquals(before - PathNode.cost(direction), field.getCost(x, y, z));
+            }
+            assertEquals(targetX, x);
+            assertEquals(targetY, y);
+        }
+        assertTrue(reachable > 50);
+        assertEquals(reachableAcrossWall, acrossWall > 0);
+    }
+
+    @Test
+    public void cacheShouldRebuildOnMoveAndTtl() throws Exception {
+        GeoDriverBytes driver = load(GeoConfig.maxPerfBytes(), temp.getRoot().toPath(), generateRegion());
+
+        FlowFieldCache cache = new FlowFieldCache(driver, 16, 60_000, 2, false);
+        FlowField field = cache.get(1, GEO_X + 100, GEO_Y + 100, 0);
+        assertSame(field, cache.get(1, GEO_X + 102, GEO_Y + 99, 0));
+        assertNotSame(field, cache.get(1, GEO_X + 103, GEO_Y + 100, 0));
+        assertNotSame(field, cache.get(2, GEO_X + 100, GEO_Y + 100, 0));
+        assertEquals(2, cache.size());
+        assertTrue(cache.sizeInBytes() > 0);
+        cache.invalidate(2);
+        assertEquals(1, cache.size());
+
+        // параллельные запросы одной цели получают одно поле
+        FlowFieldCache shared = new FlowFieldCache(driver, 64, 60_000, 2, true);
+        List<FlowField> fields = IntStream.range(0, 8).parallel()
+            .mapToObj(i -> shared.get(1, GEO_X + 100, GEO_Y + 100, 0))
+            .toList();
+        assertTrue(fields.stream().allMatch(f -> f == fields.get(0)));
+
+        FlowFieldCache expiring = new FlowFieldCache(driver, 16, 0, 2, false);
+        field = expiring.get(1, GEO_X + 100, GEO_Y + 100, 0);
+        assertNotSame(field, expiring.get(1, GEO_X + 100, GEO_Y + 100, 0));
+        expiring.removeExpired();
+        assertEquals(0, expiring.size());
+    }
+
+    private static byte[] generateRegion() {
+        return region(wallBlockTypes(WALL_X), (x, y, heights, nswe) -> {
+            heights[0] = 0;
+            if (y >= GAP_Y && y < GAP_Y + GAP_WIDTH) {
+                nswe[0] = x == WALL_X ? Cell.NSWE_ALL & ~Cell.NSWE_WEST : Cell.NSWE_ALL;
+            } else {
+                nswe[0] = wallNswe(WALL_X, x);
+            }
+            return 1;
+        });
+    }
+}
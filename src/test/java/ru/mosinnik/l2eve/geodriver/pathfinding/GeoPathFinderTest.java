@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.pathfinding;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.mosinnik.l2eve.geodriver.Cell;
+import ru.mosinnik.l2eve.geodriver.abstraction.GeoScans;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+import ru.mosinnik.l2eve.geodriver.util.LongList;
+
+import java.util.Random;
+import java.util.function.IntBinaryOperator;
+
+import static org.junit.Assert.*;
+import static ru.mosinnik.l2eve.geodriver.synthetic.TestRegions.*;
+
+public class GeoPathFinderTest {
+
+    // окно поиска в начале региона, за ним геодата плоская
+    private static final int AREA = 256;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void jumpShouldKeepPathCost() throws Exception {
+        byte[] region = generateRegion();
+        for (boolean summary : new boolean[]{false, true}) {
+            GeoConfig config = GeoConfig.maxPerfBytes();
+            config.setBlockSummaryEnabled(summary);
+            check(load(config, temp.getRoot().toPath(), region));
+        }
+    }
+
+    private static void check(GeoDriverBytes driver) {
+        assertTrue(driver.isBlockUniform(GEO_X + 3, GEO_Y + 3));
+        // стенки и холмы неоднородны, одна высота без стенок однородна
+        assertFalse(driver.isBlockUniform(GEO_X + 8 + 2, GEO_Y + 8 * 2 + 5));
+        assertFalse(driver.isBlockUniform(GEO_X + 3, GEO_Y + 8 * 2 + 1));
+        assertTrue(driver.isBlockUniform(GEO_X + 8 + 6, GEO_Y + 8 * 4 + 6));
+        // однородность по содержимому, а не по типу блока
+        assertTrue(driver.isBlockUniform(GEO_X + 3, GEO_Y + 8 * 4 + 3));
+        assertFalse(driver.isBlockUniform(GEO_X - 1, GEO_Y));
+        for (int x = GEO_X; x < GEO_X + AREA; x += IBlock.BLOCK_CELLS_X) {
+            for (int y = GEO_Y; y < GEO_Y + AREA; y += IBlock.BLOCK_CELLS_Y) {
+                long summary = GeoScans.summarizeBlock(driver, x, y);
+                boolean uniform = ((summary >>> 32) != 0) && (GeoScans.minHeight((int) summary) == GeoScans.maxHeight((int) summary));
+                assertEquals(uniform, driver.isBlockUniform(x, y));
+            }
+        }
+
+        GeoPathFinder plain = new GeoPathFinder(driver);
+        GeoPathFinder jump = new GeoPathFinder(driver);
+        jump.setJumpUniformBlocks(true);
+        LongList plainPath = new LongList();
+        LongList jumpPath = new LongList();
+        Random r = new Random(7);
+        int found = 0;
+        for (int i = 0; i < 100; i++) {
+            long start = plain.node(GEO_X + r.nextInt(AREA), GEO_Y + r.nextInt(AREA), 0);
+            long goal = plain.node(GEO_X + r.nextInt(AREA), GEO_Y + r.nextInt(AREA), 0);
+            int cost = plain.findPath(start, goal, GEO_X, GEO_Y, GEO_X + AREA - 1, GEO_Y + AREA - 1, plainPath);
+            int jumpCost = jump.findPath(start, goal, GEO_X, GEO_Y, GEO_X + AREA - 1, GEO_Y + AREA - 1, jumpPath);
+            assertEquals(PathNode.toString(start) + " -> " + PathNode.toString(goal), cost, jumpCost);
+            if (cost == GeoPathFinder.NO_PATH) {
+                continue;
+            }
+            found++;
+            assertEquals(start, jumpPath.get(0));
+            assertEquals(goal, jumpPath.get(jumpPath.size() - 1));
+            int pathCost = 0;
+            for (int j = 1; j < jumpPath.size(); j++) {
+                long from = jumpPath.get(j - 1);
+                long to = jumpPath.get(j);
+                assertTrue(PathNode.toString(from) + " -> " + PathNode.toString(to),
+                    Math.max(Math.abs(PathNode.geoX(to) - PathNode.geoX(from)), Math.abs(PathNode.geoY(to) - PathNode.geoY(from))) == 1);
+                pathCost += PathNode.heuristic(from, to);
+            }
+            assertEquals(cost, pathCost);
+
+            int[] costs = new int[2];
+            int[] jumpCosts = new int[2];
+            long[] targets = {goal, plain.node(GEO_X + r.nextInt(AREA), GEO_Y + r.nextInt(AREA), 0)};
+            plain.findCosts(start, GEO_X, GEO_Y, GEO_X + AREA - 1, GEO_Y + AREA - 1, targets, costs);
+            jump.findCosts(start, GEO_X, GEO_Y, GEO_X + AREA - 1, GEO_Y + AREA - 1, targets, jumpCosts);
+            assertArrayEquals(costs, jumpCosts);
+        }
+        assertTrue(found > 50);
+    }
+
+    /**
+     * Плоские блоки с вкраплениями: блоки со стенкой, блоки-холмы, открытые complex и multilayer блоки одной высоты
+     */
+    private static byte[] generateRegion() {
+        IntBinaryOperator kinds = (blockX, blockY) -> (blockX * 7 + blockY * 13) % 8;
+        return region((blockX, blockY) -> {
+            int kind = kinds.applyAsInt(blockX, blockY);
+            return kind == 1 || kind == 2 || kind == 3 ? IBlock.TYPE_COMPLEX : kind == 4 ? IBlock.TYPE_MULTILAYER : IBlock.TYPE_FLAT;
+        }, (x, y, heights, nswe) -> {
+            int kind = kinds.applyAsInt(x >> 3, y >> 3);
+            int cellX = x & 7;
+            int cellY = y & 7;
+            heights[0] = 0;
+            nswe[0] = Cell.NSWE_ALL;
+            if (kind == 1 && cellY > 0) {
+                // стенка с проходом по краю блока
+                nswe[0] = wallNswe(4, cellX);
+            } else if (kind == 2) {
+                // холм
+                heights[0] = Math.min(Math.min(cellX, 7 - cellX), Math.min(cellY, 7 - cellY)) * 8;
+            }
+            return 1;
+        });
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.pathfinding;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+import ru.mosinnik.l2eve.geodriver.driver.GeoOverlay;
+import ru.mosinnik.l2eve.geodriver.driver.NullDriver;
+import ru.mosinnik.l2eve.geodriver.synthetic.TestRegions;
+import ru.mosinnik.l2eve.geodriver.util.LongList;
+
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static ru.mosinnik.l2eve.geodriver.synthetic.TestRegions.*;
+
+public class HpaGraphTest {
+
+    // стена во всю высоту региона по x = WALL_X с проходом шириной GAP_WIDTH от GAP_Y
+    private static final int WALL_X = 1000;
+    private static final int GAP_Y = 1500;
+    private static final int GAP_WIDTH = 3;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void shouldFindPathThroughGap() throws Exception {
+        Path dir = temp.getRoot().toPath();
+        GeoOverlay overlay = new GeoOverlay(TestRegions.load(GeoConfig.maxPerfBytes(), dir, walledRegion(WALL_X, GAP_Y, GAP_WIDTH)));
+        GeoPathFinder finder = new GeoPathFinder(overlay);
+
+        long start = finder.node(GEO_X + 900, GEO_Y + 1400, 0);
+        long goal = finder.node(GEO_X + 1100, GEO_Y + 1400, 0);
+        LongList path = new LongList();
+        int cost = finder.findPath(start, goal, GEO_X, GEO_Y, GEO_X + 2047, GEO_Y + 2047, path);
+        assertNotEquals(GeoPathFinder.NO_PATH, cost);
+        assertEquals(start, path.get(0));
+        assertEquals(goal, path.get(path.size() - 1));
+        assertTrue(cost > 200 * PathNode.STRAIGHT_COST);
+        checkContinuous(path);
+        boolean throughGap = false;
+        for (int i = 0; i < path.size(); i++) {
+            if (PathNode.geoX(path.get(i)) == GEO_X + WALL_X) {
+                int y = PathNode.geoY(path.get(i)) - GEO_Y;
+                assertTrue(y >= GAP_Y && y < GAP_Y + GAP_WIDTH);
+                throughGap = true;
+            }
+        }
+        assertTrue(throughGap);
+        // прямоугольник без прохода
+        assertEquals(GeoPathFinder.NO_PATH, finder.findPath(start, goal, GEO_X, GEO_Y, GEO_X + 2047, GEO_Y + GAP_Y - 1, null));
+
+        HpaGraph graph = HpaGraph.build(overlay, HpaGraph.DEFAULT_CLUSTER_BLOCKS);
+        assertTrue(graph.getClusterCount() > 0);
+        checkHpaPath(new HpaPathFinder(graph), finder, GEO_X + 100, GEO_Y + 100, GEO_X + 1900, GEO_Y + 1900);
+        checkHpaPath(new HpaPathFinder(graph), finder, GEO_X + 900, GEO_Y + 1400, GEO_X + 1100, GEO_Y + 1400);
+        // один кластер
+        checkHpaPath(new HpaPathFinder(graph), finder, GEO_X + 5, GEO_Y + 5, GEO_X + 60, GEO_Y + 30);
+
+        graph.writeToFiles(dir);
+        HpaGraph read = HpaGraph.readFromFiles(dir, overlay, HpaGraph.DEFAULT_CLUSTER_BLOCKS);
+        assertNotNull(read);
+        assertEquals(graph.getClusterCount(), read.getClusterCount());
+        assertEquals(graph.getNodeCount(), read.getNodeCount());
+        assertEquals(graph.getEdgeCount(), read.getEdgeCount());
+        checkHpaPath(new HpaPathFinder(read), finder, GEO_X + 100, GEO_Y + 100, GEO_X + 1900, GEO_Y + 1900);
+        assertNull(HpaGraph.readFromFiles(dir, overlay, 4));
+        assertNull(HpaGraph.readFromFiles(dir.resolve("missing"), overlay, HpaGraph.DEFAULT_CLUSTER_BLOCKS));
+        // граф от другой геодаты не читается
+        assertNull(HpaGraph.readFromFiles(dir, new NullDriver(), HpaGraph.DEFAULT_CLUSTER_BLOCKS));
+        // те же типы блоков, проход в другом месте
+        GeoDriverBytes movedGap = TestRegions.load(GeoConfig.maxPerfBytes(), temp.newFolder("moved").toPath(),
+            walledRegion(WALL_X, GAP_Y + 100, GAP_WIDTH));
+        assertNull(HpaGraph.readFromFiles(dir, movedGap, HpaGraph.DEFAULT_CLUSTER_BLOCKS));
+
+        // проход закрыт, граф пересчитан только по региону
+        overlay.addObstacle(GEO_X + WALL_X, GEO_Y + GAP_Y, GEO_X + WALL_X, GEO_Y + GAP_Y + GAP_WIDTH - 1, -100, 100);
+        graph.rebuildRegion(REGION_X, REGION_Y);
+        assertNull(new HpaPathFinder(graph).findPath(GEO_X + 100, GEO_Y + 100, 0, GEO_X + 1900, GEO_Y + 1900, 0));
+        checkHpaPath(new HpaPathFinder(graph), finder, GEO_X + 100, GEO_Y + 100, GEO_X + 900, GEO_Y + 1900);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectClusterSize() {
+        HpaGraph.build(new GeoDriverBytes(GeoConfig.maxPerfBytes()), 3);
+    }
+
+    private static void checkHpaPath(HpaPathFinder hpa, GeoPathFinder finder, int geoX, int geoY, int toGeoX, int toGeoY) {
+        long start = finder.node(geoX, geoY, 0);
+        long goal = finder.node(toGeoX, toGeoY, 0);
+        HpaPath hpaPath = hpa.findPath(start, goal);
+        assertNotNull(hpaPath);
+        long[] waypoints = hpaPath.getWaypoints();
+        assertEquals(start, waypoints[0]);
+        assertEquals(goal, waypoints[waypoints.length - 1]);
+
+        LongList path = new LongList();
+        LongList segment = new LongList();
+        int cost = 0;
+        while (hpaPath.hasNext()) {
+            int segmentCost = hpaPath.refineNext(segment);
+            assertNotEquals(GeoPathFinder.NO_PATH, segmentCost);
+            cost += segmentCost;
+            for (int i = path.isEmpty() ? 0 : 1; i < segment.size(); i++) {
+                path.add(segment.get(i));
+            }
+        }
+        assertEquals(start, path.get(0));
+        assertEquals(goal, path.get(path.size() - 1));
+        checkContinuous(path);
+        assertTrue(cost >= PathNode.heuristic(start, goal));
+    }
+
+    private static void checkContinuous(LongList path) {
+        for (int i = 1; i < path.size(); i++) {
+            int dx = Math.abs(PathNode.geoX(path.get(i)) - PathNode.geoX(path.get(i - 1)));
+            int dy = Math.abs(PathNode.geoY(path.get(i)) - PathNode.geoY(path.get(i - 1)));
+            assertTrue(PathNode.toString(path.get(i - 1)) + " -> " + PathNode.toString(path.get(i)), dx <= 1 && dy <= 1 && dx + dy > 0);
+        }
+    }
+}
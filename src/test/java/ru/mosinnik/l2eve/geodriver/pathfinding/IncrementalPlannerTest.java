@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.pathfinding;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.mosinnik.l2eve.geodriver.Neighbours;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+import ru.mosinnik.l2eve.geodriver.driver.GeoOverlay;
+import ru.mosinnik.l2eve.geodriver.util.LongList;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static ru.mosinnik.l2eve.geodriver.synthetic.TestRegions.*;
+
+public class IncrementalPlannerTest {
+
+    // стена по x = WALL_X с проходом от GAP_Y
+    private static final int WALL_X = 1000;
+    private static final int GAP_Y = 1000;
+    private static final int GAP_WIDTH = 4;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void shouldFollowMovingTarget() throws Exception {
+        GeoDriverBytes driver = load(GeoConfig.maxPerfBytes(), temp.getRoot().toPath(), walledRegion(WALL_X, GAP_Y, GAP_WIDTH));
+        GeoOverlay overlay = new GeoOverlay(driver);
+
+        GeoPathFinder finder = new GeoPathFinder(overlay);
+        GeoPathFinder scratchFinder = new GeoPathFinder(overlay);
+        IncrementalPlanner planner = new IncrementalPlanner(finder);
+        LongList path = new LongList();
+        LongList scratchPath = new LongList();
+        long scratchExpanded = 0;
+
+        Random r = new Random(5);
+        long agent = finder.node(GEO_X + WALL_X - 60, GEO_Y + 900, 0);
+        int targetX = GEO_X + WALL_X + 40;
+        int targetY = GEO_Y + 1050;
+        for (int tick = 0; tick < 150; tick++) {
+            if (tick == 40) {
+                // препятствие поперек прохода, половина прохода остается открытой
+                overlay.addObstacle(GEO_X + WALL_X + 1, GEO_Y + GAP_Y, GEO_X + WALL_X + 3, GEO_Y + GAP_Y + 1, -100, 100);
+            }
+            targetX += r.nextInt(3) - 1;
+            targetY += r.nextInt(3) - 1;
+            long target = finder.node(targetX, targetY, 0);
+
+            assertTrue(planner.plan(1, agent, target, path));
+            assertEquals(agent, path.get(0));
+            assertEquals(target, path.get(path.size() - 1));
+            checkSteps(overlay, path);
+
+            int cost = scratchFinder.findPath(agent, target, 0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE, scratchPath);
+            assertNotEquals(GeoPathFinder.NO_PATH, cost);
+            scratchExpanded += scratchFinder.getLastExpandedNodes();
+
+            // агент делает два шага за тик
+            agent = path.get(Math.min(2, path.size() - 1));
+        }
+        assertTrue(planner.getRepairs() > 0);
+        assertTrue(planner.getExpandedNodes() + " vs " + scratchExpanded, planner.getExpandedNodes() * 2 < scratchExpanded);
+    }
+
+    @Test
+    public void shouldEvictAgents() throws Exception {
+        GeoDriverBytes driver = load(GeoConfig.maxPerfBytes(), temp.getRoot().toPath(), walledRegion(WALL_X, GAP_Y, GAP_WIDTH));
+        GeoPathFinder finder = new GeoPathFinder(driver);
+        IncrementalPlanner planner = new IncrementalPlanner(finder, 2);
+        LongList path = new LongList();
+        long target = finder.node(GEO_X + 50, GEO_Y + 50, 0);
+        for (int agentId = 0; agentId < 3; agentId++) {
+            assertTrue(planner.plan(agentId, finder.node(GEO_X + 10 + agentId, GEO_Y + 10, 0), target, path));
+        }
+        assertEquals(2, planner.getAgentCount());
+        assertEquals(3, planner.getFullPlans());
+        planner.release(2);
+        assertEquals(1, planner.getAgentCount());
+        // за пределом раскрытых узлов пути нет
+        finder.setMaxExpandedNodes(1000);
+        assertFalse(planner.plan(5, finder.node(GEO_X + 10, GEO_Y + 10, 0), finder.node(GEO_X + 2000, GEO_Y + 2000, 0), path));
+        assertTrue(path.isEmpty());
+    }
+
+    private static void checkSteps(IGeoDriver driver, LongList path) {
+        int[] outZ = new int[Neighbours.COUNT];
+        byte[] outMask = new byte[Neighbours.COUNT];
+        for (int i = 1; i < path.size(); i++) {
+            long from = path.get(i - 1);
+            long to = path.get(i);
+            int mask = driver.expandNeighbours(PathNode.geoX(from), PathNode.geoY(from), PathNode.z(from), outZ, outMask);
+            boolean reachable = false;
+            for (int direction = 0; direction < Neighbours.COUNT; direction++) {
+                if ((PathNode.geoX(from) + Neighbours.dx(direction) == PathNode.geoX(to))
+                    && (PathNode.geoY(from) + Neighbours.dy(direction) == PathNode.geoY(to))) {
+                    reachable = Neighbours.isReachable(mask, direction) && (outZ[direction] == PathNode.z(to));
+                }
+            }
+            assertTrue(PathNode.toString(from) + " -> " + PathNode.toString(to), reachable);
+        }
+    }
+}
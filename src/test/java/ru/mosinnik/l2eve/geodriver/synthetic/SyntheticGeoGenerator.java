@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.synthetic;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import ru.mosinnik.l2eve.geodriver.Cell;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants.GEODATA_DIR;
+
+/**
+ * Генератор .l2j регионов по распределениям {@link SyntheticGeoProfile}: доли типов блоков, перепады и число
+ * разных высот в комплекс блоках, гистограммы слоев мультилеер блоков. Реальную геодату в репозиторий не положить,
+ * а на синтетической с теми же пропорциями замеры загрузки, памяти и скорости на всем мире воспроизводимы.
+ * <p>
+ * Регион зависит только от профиля и своих координат, так что миры с одним seed совпадают побайтово.
+ * Высоты кратны 8, как в реальных complex и multilayer блоках.
+ */
+@Slf4j
+public class SyntheticGeoGenerator {
+
+    public static final int INTERLUDE_REGIONS = 166;
+    public static final String SYNTHETIC_GEODATA_DIR = GEODATA_DIR + "/synthetic";
+
+    // прямоугольник регионов Interlude, первые INTERLUDE_REGIONS из него по порядку
+    private static final int MIN_REGION_X = 16;
+    private static final int MIN_REGION_Y = 10;
+    private static final int MAX_REGION_Y = 25;
+
+    private static final int MIN_HEIGHT = -16000;
+    private static final int MAX_HEIGHT = 16000;
+
+    private final SyntheticGeoProfile profile;
+
+    public SyntheticGeoGenerator(SyntheticGeoProfile profile) {
+        this.profile = profile;
+    }
+
+    public static void main(String[] args) {
+        new SyntheticGeoGenerator(SyntheticGeoProfile.interlude()).generateWorld(Path.of(SYNTHETIC_GEODATA_DIR), INTERLUDE_REGIONS);
+    }
+
+    /**
+     * Координаты первых regionCount регионов мира
+     */
+    public static List<int[]> worldRegions(int regionCount) {
+        List<int[]> regions = new ArrayList<>(regionCount);
+        int columns = MAX_REGION_Y - MIN_REGION_Y + 1;
+        for (int i = 0; i < regionCount; i++) {
+            regions.add(new int[]{MIN_REGION_X + i / columns, MIN_REGION_Y + i % columns});
+        }
+        return regions;
+    }
+
+    /**
+     * Пишет регионы X_Y.l2j в dir, генерация идет параллельно
+     *
+     * @return пути файлов в порядке {@link #worldRegions(int)}
+     */
+    @SneakyThrows
+    public List<Path> generateWorld(Path dir, int regionCount) {
+        Files.createDirectories(dir);
+        List<int[]> regions = worldRegions(regionCount);
+        List<Path> paths = regions.stream()
+            .map(region -> dir.resolve(region[0] + "_" + region[1] + ".l2j"))
+            .toList();
+        long start = System.currentTimeMillis();
+        regions.parallelStream().forEach(region -> write(dir.resolve(region[0] + "_" + region[1] + ".l2j"), generateRegion(region[0], region[1])));
+        log.info("Generated {} synthetic regions in {} ms", regionCount, System.currentTimeMillis() - start);
+        return paths;
+    }
+
+    @SneakyThrows
+    private static void write(Path path, byte[] data) {
+        Files.write(path, data);
+    }
+
+    public byte[] generateRegion(int regionX, int regionY) {
+        Random r = new Random(profile.getSeed() * 1_000_003L + regionX * 64L + regionY);
+        double[] phases = {r.nextDouble() * Math.PI * 2, r.nextDouble() * Math.PI * 2, r.nextDouble() * Math.PI * 2};
+        int maxLayers = Math.max(profile.getCellLayerWeights().length, profile.getNoHolesLayerWeights().length);
+        ByteBuffer bb = ByteBuffer.allocate(IRegion.REGION_BLOCKS * (1 + IBlock.BLOCK_CELLS * (1 + 2 * maxLayers)))
+            .order(ByteOrder.LITTLE_ENDIAN);
+        for (int blockIndex = 0; blockIndex < IRegion.REGION_BLOCKS; blockIndex++) {
+            int base = terrainHeight(blockIndex >> 8, blockIndex & 0xFF, phases);
+            double kind = r.nextDouble();
+            if (kind < profile.getFlatShare()) {
+                bb.put((byte) IBlock.TYPE_FLAT);
+                bb.putShort((short) base);
+            } else if (kind < profile.getFlatShare() + profile.getComplexShare()) {
+                bb.put((byte) IBlock.TYPE_COMPLEX);
+                putComplex(bb, r, base);
+            } else {
+                bb.put((byte) IBlock.TYPE_MULTILAYER);
+                putMultilayer(bb, r, base);
+            }
+        }
+        return Arrays.copyOf(bb.array(), bb.position());
+    }
+
+    /**
+     * Плавный рельеф по блокам, высота кратна 8
+     */
+    private static int terrainHeight(int blockX, int blockY, double[] phases) {
+        double h = Math.sin(blockX * 0.02 + phases[0]) + Math.sin(blockY * 0.03 + phases[1]) + Math.sin((blockX + blockY) * 0.011 + phases[2]);
+        return ((int) (h * 1200) - 2000) & ~7;
+    }
+
+    private void putComplex(ByteBuffer bb, Random r, int base) {
+        int[] heights = new int[IBlock.BLOCK_CELLS];
+        boolean oneNswe;
+        double kind = r.nextDouble();
+        double bound = profile.getOneHeightShare();
+        if (kind < bound) {
+            // одна высота, разные nswe
+            Arrays.fill(heights, base);
+            oneNswe = false;
+        } else if (kind < (bound += profile.getBaseHeightOneNsweShare())) {
+            // склон с общим nswe: перепад до 2040
+            fillSlope(heights, r, base, 8 + Math.min(2032, exponential(r, profile.getSlopeDeltaMean())));
+            oneNswe = true;
+        } else if (kind < (bound += profile.getBaseHeightShare())) {
+            // неровности до 120
+            fillDistinct(heights, r, base, 8 + r.nextInt(113), 2 + r.nextInt(14));
+            oneNswe = false;
+        } else if (kind < (bound += profile.getFewHeightsShare())) {
+            fillDistinct(heights, r, base, 128 + exponential(r, profile.getRoughDeltaMean()), 2 + r.nextInt(14));
+            oneNswe = false;
+        } else if (kind < (bound += profile.getFewHeightsOneNsweShare())) {
+            // обрыв с общим nswe: перепад больше 2040
+            fillDistinct(heights, r, base, 2048 + r.nextInt(2000), 2 + r.nextInt(14));
+            oneNswe = true;
+        } else {
+            fillDistinct(heights, r, base, 128 + exponential(r, profile.getRoughDeltaMean()), 16 + r.nextInt(49));
+            oneNswe = false;
+        }
+
+        int nswe = Cell.NSWE_ALL;
+        boolean nsweVaries = false;
+        for (int cell = 0; cell < IBlock.BLOCK_CELLS; cell++) {
+            int cellNswe = nswe;
+            if (!oneNswe && (r.nextDouble() < profile.getClosedCellShare())) {
+                cellNswe = r.nextInt(Cell.NSWE_ALL);
+                nsweVaries = true;
+            }
+            bb.putShort(TestRegions.layer(heights[cell], cellNswe));
+        }
+        if (!oneNswe && !nsweVaries) {
+            // хотя бы одна ячейка с закрытым направлением, иначе блок уйдет в классы с общим nswe
+            bb.putShort(bb.position() - 2, TestRegions.layer(heights[IBlock.BLOCK_CELLS - 1], Cell.NSWE_ALL & ~Cell.NSWE_NORTH));
+        }
+    }
+
+    private static int exponential(Random r, int mean) {
+        return (int) (-Math.log(1 - r.nextDouble()) * mean);
+    }
+
+    /**
+     * Наклонная плоскость с перепадом delta от base
+     */
+    private static void fillSlope(int[] heights, Random r, int base, int delta) {
+        boolean alongX = r.nextBoolean();
+        for (int cell = 0; cell < IBlock.BLOCK_CELLS; cell++) {
+            int step = alongX ? cell >> 3 : cell & 7;
+            heights[cell] = clamp(base + delta * step / 7);
+        }
+    }
+
+    /**
+     * Ровно distinct разных высот в пределах перепада delta, крайние высоты присутствуют всегда
+     */
+    private static void fillDistinct(int[] heights, Random r, int base, int delta, int distinct) {
+        int steps = Math.max(1, delta >> 3);
+        distinct = Math.min(distinct, steps + 1);
+        int[] values = new int[distinct];
+        values[0] = base;
+        values[distinct - 1] = base + (steps << 3);
+        for (int i = 1; i < distinct - 1; i++) {
+            values[i] = base + ((1 + r.nextInt(steps - 1)) << 3);
+        }
+        // совпавшие случайные высоты раздвигаются по свободным шагам
+        Arrays.sort(values);
+        for (int i = 1; i < distinct - 1; i++) {
+            values[i] = Math.max(values[i], values[i - 1] + 8);
+        }
+        for (int i = distinct - 2; i > 0; i--) {
+            values[i] = Math.min(values[i], values[i + 1] - 8);
+        }
+        for (int cell = 0; cell < IBlock.BLOCK_CELLS; cell++) {
+            heights[cell] = clamp(values[cell < distinct ? cell : r.nextInt(distinct)]);
+        }
+    }
+
+    private void putMultilayer(ByteBuffer bb, Random r, int base) {
+        boolean noHoles = r.nextDouble() < profile.getNoHolesShare();
+        int blockLayers = pick(r, profile.getNoHolesLayerWeights());
+        int firstLayers = -1;
+        for (int cell = 0; cell < IBlock.BLOCK_CELLS; cell++) {
+            int layers = noHoles ? blockLayers : pick(r, profile.getCellLayerWeights());
+            if (cell == 0) {
+                firstLayers = layers;
+            } else if (!noHoles && (cell == IBlock.BLOCK_CELLS - 1) && (layers == firstLayers)) {
+                // с дырками - хотя бы две разные высоты столбов
+                layers = firstLayers == 1 ? 2 : firstLayers - 1;
+            }
+            bb.put((byte) layers);
+            // слои пишутся сверху вниз, нижний на высоте рельефа, между этажами от 64 до 400
+            int[] heights = new int[layers];
+            heights[layers - 1] = base;
+            for (int layer = layers - 2; layer >= 0; layer--) {
+                heights[layer] = heights[layer + 1] + 64 + (r.nextInt(43) << 3);
+            }
+            for (int layer = 0; layer < layers; layer++) {
+                int nswe = r.nextDouble() < profile.getClosedCellShare() ? r.nextInt(Cell.NSWE_ALL) : Cell.NSWE_ALL;
+                bb.putShort(TestRegions.layer(clamp(heights[layer]), nswe));
+            }
+        }
+    }
+
+    private static int pick(Random r, double[] weights) {
+        double sum = Arrays.stream(weights).sum();
+        double value = r.nextDouble() * sum;
+        for (int i = 0; i < weights.length; i++) {
+            value -= weights[i];
+            if ((value < 0) && (weights[i] > 0)) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private static int clamp(int height) {
+        return Math.max(MIN_HEIGHT, Math.min(MAX_HEIGHT, height)) & ~7;
+    }
+}
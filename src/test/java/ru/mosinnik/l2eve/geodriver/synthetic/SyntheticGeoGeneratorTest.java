@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.synthetic;
+
+import org.junit.Test;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants.*;
+
+public class SyntheticGeoGeneratorTest {
+
+    private static final double TOLERANCE = 0.01;
+
+    @Test
+    public void shouldBeDeterministic() {
+        SyntheticGeoGenerator generator = new SyntheticGeoGenerator(SyntheticGeoProfile.interlude());
+        assertArrayEquals(generator.generateRegion(20, 18), generator.generateRegion(20, 18));
+        assertFalse(Arrays.equals(generator.generateRegion(20, 18), generator.generateRegion(20, 19)));
+
+        List<int[]> regions = SyntheticGeoGenerator.worldRegions(SyntheticGeoGenerator.INTERLUDE_REGIONS);
+        Set<Integer> distinct = regions.stream().map(region -> region[0] * 100 + region[1]).collect(Collectors.toSet());
+        assertEquals(SyntheticGeoGenerator.INTERLUDE_REGIONS, distinct.size());
+    }
+
+    @Test
+    public void shouldFollowProfile() throws Exception {
+        SyntheticGeoProfile profile = SyntheticGeoProfile.interlude();
+        Path dir = Files.createTempDirectory("synthetic");
+        try {
+            List<Path> paths = new SyntheticGeoGenerator(profile).generateWorld(dir, 1);
+            int[] region = SyntheticGeoGenerator.worldRegions(1).get(0);
+            GeoDriverBytes driver = new GeoDriverBytes(GeoConfig.lowMemory());
+            driver.loadFromL2J(paths);
+
+            int[] counts = new int[INDEXED_32_MULTILAYER_BLOCK + 1];
+            for (int block = 0; block < IRegion.REGION_BLOCKS; block++) {
+                int geoX = region[0] * IRegion.REGION_CELLS_X + (block >> 8) * IBlock.BLOCK_CELLS_X;
+                int geoY = region[1] * IRegion.REGION_CELLS_Y + (block & 0xFF) * IBlock.BLOCK_CELLS_Y;
+                counts[driver.getBlockType(geoX, geoY)]++;
+            }
+
+            int complex = counts[ONE_HEIGHT_COMPLEX_BLOCK] + counts[BASE_HEIGHT_ONE_NSWE_COMPLEX_BLOCK] + counts[BASE_HEIGHT_COMPLEX_BLOCK]
+                + counts[FEW_HEIGHTS_COMPLEX_BLOCK] + counts[FEW_HEIGHTS_ONE_NSWE_COMPLEX_BLOCK] + counts[COMPLEX_BLOCK];
+            int multilayer = counts[NO_HOLES_MULTILAYER_BLOCK] + counts[MULTILAYER_BLOCK];
+            assertEquals(IRegion.REGION_BLOCKS, counts[FLAT_BLOCK] + complex + multilayer);
+            assertShare(profile.getFlatShare(), counts[FLAT_BLOCK], IRegion.REGION_BLOCKS);
+            assertShare(profile.getComplexShare(), complex, IRegion.REGION_BLOCKS);
+
+            assertShare(profile.getOneHeightShare(), counts[ONE_HEIGHT_COMPLEX_BLOCK], complex);
+            assertShare(profile.getBaseHeightOneNsweShare(), counts[BASE_HEIGHT_ONE_NSWE_COMPLEX_BLOCK], complex);
+            assertShare(profile.getBaseHeightShare(), counts[BASE_HEIGHT_COMPLEX_BLOCK], complex);
+            assertShare(profile.getFewHeightsShare(), counts[FEW_HEIGHTS_COMPLEX_BLOCK], complex);
+            assertShare(profile.getFewHeightsOneNsweShare(), counts[FEW_HEIGHTS_ONE_NSWE_COMPLEX_BLOCK], complex);
+            assertShare(profile.getNoHolesShare(), counts[NO_HOLES_MULTILAYER_BLOCK], multilayer);
+        } finally {
+            try (Stream<Path> paths = Files.walk(dir)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private static void assertShare(double expected, int count, int total) {
+        assertEquals(expected, (double) count / total, TOLERANCE);
+    }
+}
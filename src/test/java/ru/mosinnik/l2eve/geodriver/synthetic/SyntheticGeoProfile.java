@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.synthetic;
+
+import lombok.Data;
+
+/**
+ * Распределения, по которым {@link SyntheticGeoGenerator} строит регионы.
+ * <p>
+ * Доли подтипов комплекс и мультилеер блоков заданы так, чтобы {@code BlockManager} со всеми включенными
+ * типами разложил блоки по тем же классам, что и на реальной геодате. Гистограммы слоев - веса по индексу
+ * числа слоев в ячейке.
+ */
+@Data
+public class SyntheticGeoProfile {
+
+    private long seed = 1;
+
+    private double flatShare;
+    private double complexShare;
+    // остальное - мультилеер
+
+    // доли внутри комплекс блоков, остальное - обычный ComplexBlock: перепад > 120 и от 16 высот
+    private double oneHeightShare;
+    private double baseHeightOneNsweShare;
+    private double baseHeightShare;
+    private double fewHeightsShare;
+    private double fewHeightsOneNsweShare;
+
+    // перепад высот в блоке: склон с одним nswe (до 2040) и неровная местность (от 128)
+    private int slopeDeltaMean;
+    private int roughDeltaMean;
+    // доля ячеек с закрытыми направлениями в блоках с разными nswe
+    private double closedCellShare;
+
+    // доля мультилеер блоков с одинаковым числом слоев во всех ячейках
+    private double noHolesShare;
+    private double[] noHolesLayerWeights;
+    private double[] cellLayerWeights;
+
+    /**
+     * Статистика Interlude по 166 регионам: 7562313 flat, 2698780 complex и 617883 multilayer блоков.
+     * Комплекс блоки по классам {@code GeoConfig.lowMemory()}: 23821 one height, 1531897 base height one nswe,
+     * 430841 base height, 85930 few heights, 1214 few heights one nswe, 625077 complex.
+     * Мультилеер: 253993 без дырок, в среднем ~1.9 слоя на ячейку.
+     */
+    public static SyntheticGeoProfile interlude() {
+        SyntheticGeoProfile profile = new SyntheticGeoProfile();
+        profile.setFlatShare(7562313d / 10878976);
+        profile.setComplexShare(2698780d / 10878976);
+        profile.setOneHeightShare(23821d / 2698780);
+        profile.setBaseHeightOneNsweShare(1531897d / 2698780);
+        profile.setBaseHeightShare(430841d / 2698780);
+        profile.setFewHeightsShare(85930d / 2698780);
+        profile.setFewHeightsOneNsweShare(1214d / 2698780);
+        profile.setSlopeDeltaMean(160);
+        profile.setRoughDeltaMean(400);
+        profile.setClosedCellShare(0.15);
+        profile.setNoHolesShare(253993d / 617883);
+        profile.setNoHolesLayerWeights(new double[]{0, 0, 0.85, 0.1, 0.05});
+        profile.setCellLayerWeights(new double[]{0, 0.3, 0.55, 0.09, 0.04, 0.015, 0.003, 0.001, 0.001});
+        return profile;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.synthetic;
+
+import ru.mosinnik.l2eve.geodriver.Cell;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Маленькие .l2j регионы для тестов, описанные функциями: тип блока по блоку и слои ячейки по ячейке региона.
+ * В отличие от {@link SyntheticGeoGenerator} данные задаются точно, так что тесты могут ставить стены,
+ * проходы и платформы в известные ячейки.
+ */
+public final class TestRegions {
+
+    public static final int REGION_X = 20;
+    public static final int REGION_Y = 18;
+    public static final int GEO_X = REGION_X * IRegion.REGION_CELLS_X;
+    public static final int GEO_Y = REGION_Y * IRegion.REGION_CELLS_Y;
+
+    private TestRegions() {
+    }
+
+    /**
+     * Слои ячейки региона
+     */
+    @FunctionalInterface
+    public interface CellLayers {
+
+        /**
+         * @param x       x ячейки в регионе
+         * @param y       y ячейки в регионе
+         * @param heights высоты слоев в порядке хранения
+         * @param nswe    NSWE слоев
+         * @return число слоев, для flat и complex блоков берется только первый
+         */
+        int get(int x, int y, int[] heights, int[] nswe);
+    }
+
+    /**
+     * Упакованный слой complex и multilayer блока
+     */
+    public static short layer(int height, int nswe) {
+        return (short) (((height << 1) & 0xFFF0) | nswe);
+    }
+
+    /**
+     * Блоки обходятся в порядке записи, тип блока запрашивается перед его ячейками.
+     *
+     * @param blockTypes тип блока {@link IBlock} по (blockX, blockY), flat блок берет высоту первой ячейки
+     */
+    public static byte[] region(IntBinaryOperator blockTypes, CellLayers cells) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer bb = ByteBuffer.allocate(1 + IBlock.BLOCK_CELLS * (1 + 2 * IBlock.MAX_CELL_LAYERS)).order(ByteOrder.LITTLE_ENDIAN);
+        int[] heights = new int[IBlock.MAX_CELL_LAYERS];
+        int[] nswe = new int[IBlock.MAX_CELL_LAYERS];
+        for (int blockIndex = 0; blockIndex < IRegion.REGION_BLOCKS; blockIndex++) {
+            int blockX = blockIndex >> 8;
+            int blockY = blockIndex & 0xFF;
+            int blockType = blockTypes.applyAsInt(blockX, blockY);
+            bb.clear();
+            bb.put((byte) blockType);
+            if (blockType == IBlock.TYPE_FLAT) {
+                cells.get(blockX * IBlock.BLOCK_CELLS_X, blockY * IBlock.BLOCK_CELLS_Y, heights, nswe);
+                bb.putShort((short) heights[0]);
+            } else {
+                for (int cell = 0; cell < IBlock.BLOCK_CELLS; cell++) {
+                    int layers = cells.get(blockX * IBlock.BLOCK_CELLS_X + (cell >> 3), blockY * IBlock.BLOCK_CELLS_Y + (cell & 7), heights, nswe);
+                    if (blockType == IBlock.TYPE_MULTILAYER) {
+                        bb.put((byte) layers);
+                    } else {
+                        layers = 1;
+                    }
+                    for (int i = 0; i < layers; i++) {
+                        bb.putShort(layer(heights[i], nswe[i]));
+                    }
+                }
+            }
+            out.write(bb.array(), 0, bb.position());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Регион из flat блоков одной высоты
+     */
+    public static byte[] flatRegion(int height) {
+        return region((blockX, blockY) -> IBlock.TYPE_FLAT, (x, y, heights, nswe) -> {
+            heights[0] = height;
+            return 1;
+        });
+    }
+
+    /**
+     * Равнина высоты 0 со стеной во всю высоту региона по x = wallX и проходом в стене [gapY, gapY + gapWidth).
+     * Блоки вдоль стены complex, остальные flat.
+     */
+    public static byte[] walledRegion(int wallX, int gapY, int gapWidth) {
+        return region(wallBlockTypes(wallX), (x, y, heights, nswe) -> {
+            heights[0] = 0;
+            nswe[0] = (y >= gapY) && (y < gapY + gapWidth) ? Cell.NSWE_ALL : wallNswe(wallX, x);
+            return 1;
+        });
+    }
+
+    /**
+     * Complex блоки с двух сторон стены по x = wallX, остальные flat
+     */
+    public static IntBinaryOperator wallBlockTypes(int wallX) {
+        return (blockX, blockY) -> (blockX == (wallX - 1) >> 3) || (blockX == (wallX + 1) >> 3) ? IBlock.TYPE_COMPLEX : IBlock.TYPE_FLAT;
+    }
+
+    /**
+     * NSWE ячейки с x у стены по x = wallX: сама стена закрыта, соседи не могут в нее войти
+     */
+    public static int wallNswe(int wallX, int x) {
+        if (x == wallX) {
+            return 0;
+        }
+        if (x == wallX - 1) {
+            return Cell.NSWE_ALL & ~Cell.NSWE_EAST;
+        }
+        if (x == wallX + 1) {
+            return Cell.NSWE_ALL & ~Cell.NSWE_WEST;
+        }
+        return Cell.NSWE_ALL;
+    }
+
+    /**
+     * Пишет регион как regionX_regionY.l2j в dir
+     */
+    public static Path write(Path dir, int regionX, int regionY, byte[] region) throws IOException {
+        return Files.write(dir.resolve(regionX + "_" + regionY + ".l2j"), region);
+    }
+
+    /**
+     * GeoDriverBytes с регионом в REGION_X, REGION_Y
+     */
+    public static GeoDriverBytes load(GeoConfig config, Path dir, byte[] region) throws IOException {
+        GeoDriverBytes driver = new GeoDriverBytes(config);
+        driver.loadFromL2J(List.of(write(dir, REGION_X, REGION_Y, region)));
+        return driver;
+    }
+}
@@ -0,0 +1,565 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.util;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import ru.mosinnik.l2eve.geodriver.LayerData;
+import ru.mosinnik.l2eve.geodriver.Neighbours;
+import ru.mosinnik.l2eve.geodriver.abstraction.GeoScans;
+import ru.mosinnik.l2eve.geodriver.abstraction.IBlock;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriver;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesConstants;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesMmap;
+
+import java.io.Serial;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+import static ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants.GEODATA_BIN_DIR;
+import static ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants.GEODATA_DIR;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS;
+import static ru.mosinnik.l2eve.geodriver.driver.GeoConstants.GEO_REGIONS_Y;
+
+/**
+ * Сверка драйверов по всему миру: каждая ячейка каждого блока всех загруженных регионов,
+ * эталон - {@link GeoDriver} с legacy блоками.
+ * <p>
+ * Для ячейки сравниваются все слои ({@code getLayers}), соседи {@code expandNeighbours} с каждого слоя,
+ * затем запросы на нескольких высотах: на каждом слое, чуть выше и ниже слоя, между слоями и далеко за крайними слоями.
+ * Для блока сравниваются сводка ({@code summarizeBlock}, min и max высоты, открытость, однородность) и максимум
+ * высоты по площади блока, у кандидатов со сводкой и пирамидой высот они читаются из них.
+ * Эталон считается один раз на ячейку и сверяется со всеми кандидатами. Обход идет fork-join задачами
+ * по строкам блоков регионов, расхождения считаются по типу блока кандидата, первые из них
+ * (по координатам) сохраняются для отчета.
+ * <p>
+ * Аргументы: каталог с .l2j (по умолчанию {@link ru.mosinnik.l2eve.geodriver.GeoDriverTestConstants#GEODATA_DIR}),
+ * дальше необязательные каталоги с готовыми bin файлами для проверки через {@link GeoDriverBytesMmap}.
+ * Без них bin файлы собираются в конфигурациях из {@code -Dverifier.configs} (имена из {@link #configs()} через
+ * запятую, по умолчанию {@code all}) и сверяется их mmap. GeoDriverBytes в куче на тех же блоках сверяется
+ * во всех конфигурациях в {@code GeoDriverVerifierTest}.
+ */
+@Slf4j
+public class GeoDriverVerifier {
+
+    public static final int DEFAULT_MAX_SAMPLES = 10;
+    public static final String CONFIGS_PROPERTY = "verifier.configs";
+    public static final String DEFAULT_CONFIGS = "all";
+
+    // запросы, расхождение пишется с этим именем
+    private static final String[] OPS = {"getLayers", "getNearestZ", "getNearestLayer", "getNextLowerZ", "getNextHigherZ",
+        "checkNearestNSWE", "hasGeoPos", "expandNeighbours", "summarizeBlock", "getBlockMinZ", "getBlockMaxZ",
+        "isBlockAllOpen", "isBlockUniform", "getAreaMaxZ"};
+    private static final int OP_GET_LAYERS = 0;
+    private static final int OP_GET_NEAREST_Z = 1;
+    private static final int OP_GET_NEAREST_LAYER = 2;
+    private static final int OP_GET_NEXT_LOWER_Z = 3;
+    private static final int OP_GET_NEXT_HIGHER_Z = 4;
+    private static final int OP_CHECK_NEAREST_NSWE = 5;
+    private static final int OP_HAS_GEO_POS = 6;
+    private static final int OP_EXPAND_NEIGHBOURS = 7;
+    private static final int OP_SUMMARIZE_BLOCK = 8;
+    private static final int OP_GET_BLOCK_MIN_Z = 9;
+    private static final int OP_GET_BLOCK_MAX_Z = 10;
+    private static final int OP_IS_BLOCK_ALL_OPEN = 11;
+    private static final int OP_IS_BLOCK_UNIFORM = 12;
+    private static final int OP_GET_AREA_MAX_Z = 13;
+
+    // строк блоков региона на одну листовую задачу
+    private static final int ROWS_PER_TASK = 8;
+    private static final int FAR_Z = 16_000;
+    private static final int BLOCK_TYPES = GeoDriverBytesConstants.E.values().length;
+
+    private final IGeoDriver reference;
+    private final String[] names;
+    private final IGeoDriver[] candidates;
+    private final int maxSamples;
+
+    public GeoDriverVerifier(IGeoDriver reference, Map<String, IGeoDriver> candidates) {
+        this(reference, candidates, DEFAULT_MAX_SAMPLES);
+    }
+
+    /**
+     * @param maxSamples сколько первых расхождений хранить на кандидата и тип блока
+     */
+    public GeoDriverVerifier(IGeoDriver reference, Map<String, IGeoDriver> candidates, int maxSamples) {
+        this.reference = reference;
+        this.names = candidates.keySet().toArray(String[]::new);
+        this.candidates = candidates.values().toArray(IGeoDriver[]::new);
+        this.maxSamples = maxSamples;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path geodataDir = Path.of(args.length > 0 ? args[0] : GEODATA_DIR);
+
+        long start = System.nanoTime();
+        GeoDriver reference = new GeoDriver(new GeoConfig());
+        List<Path> paths;
+        try (Stream<Path> pathStream = Files.list(geodataDir)) {
+            paths = pathStream.filter(path -> path.getFileName().toString().endsWith(".l2j")).sorted().toList();
+        }
+        paths.parallelStream().forEach(path -> loadRegion(reference, path));
+
+        Map<String, IGeoDriver> candidates = new LinkedHashMap<>();
+        if (args.length > 1) {
+            for (int i = 1; i < args.length; i++) {
+                GeoDriverBytesMmap mmap = new GeoDriverBytesMmap();
+                mmap.loadBin(Path.of(args[i]));
+                candidates.put("GeoDriverBytesMmap:" + args[i], mmap);
+            }
+        } else {
+            Map<String, GeoConfig> configs = configs();
+            for (String configName : System.getProperty(CONFIGS_PROPERTY, DEFAULT_CONFIGS).split(",")) {
+                GeoConfig config = configs.get(configName);
+                if (config == null) {
+                    throw new IllegalArgumentException("Unknown config: " + configName + ", expected one of " + configs.keySet());
+                }
+                GeoDriverBytes bytes = new GeoDriverBytes(config);
+                bytes.loadFromL2J(paths);
+                Path binDir = Path.of(GEODATA_BIN_DIR, "verify_" + configName);
+                Files.createDirectories(binDir);
+                bytes.writeToFiles(binDir);
+                GeoDriverBytesMmap mmap = new GeoDriverBytesMmap();
+                mmap.loadBin(binDir);
+                candidates.put("GeoDriverBytesMmap:" + configName, mmap);
+            }
+        }
+        log.info("Loaded {} regions and {} candidates in {} ms", paths.size(), candidates.size(), (System.nanoTime() - start) / 1_000_000);
+
+        Report report = new GeoDriverVerifier(reference, candidates).verify(ForkJoinPool.commonPool());
+        report.log();
+        log.info("Total wall time {} ms", (System.nanoTime() - start) / 1_000_000);
+        if (!report.isEquivalent()) {
+            throw new IllegalStateException("Drivers are not equivalent to the reference");
+        }
+    }
+
+    /**
+     * Конфигурации кодирования блоков, которые проверяются без явных bin каталогов
+     */
+    public static Map<String, GeoConfig> configs() {
+        GeoConfig all = GeoConfig.lowMemory();
+        all.setIndexedMultilayerBlockEnabled(true);
+        all.setIndexed32MultilayerBlockEnabled(true);
+        all.setBlockSummaryEnabled(true);
+        all.setHeightPyramidEnabled(true);
+
+        Map<String, GeoConfig> configs = new LinkedHashMap<>();
+        configs.put("legacy", new GeoConfig());
+        configs.put("maxPerfBytes", GeoConfig.maxPerfBytes());
+        configs.put("lowMemory", GeoConfig.lowMemory());
+        configs.put("all", all);
+        return configs;
+    }
+
+    @SneakyThrows
+    private static void loadRegion(GeoDriver driver, Path path) {
+        String[] split = path.getFileName().toString().split("[_.]");
+        // регионы пишутся в разные ячейки массива, гонок нет
+        driver.loadRegion(path, Integer.parseInt(split[0]), Integer.parseInt(split[1]));
+    }
+
+    public Report verify(ForkJoinPool pool) {
+        long start = System.nanoTime();
+        Report report = new Report(names, maxSamples);
+
+        // наличие регионов сверяется по всем 1024, ячейки - только в загруженных
+        List<Integer> regions = new ArrayList<>();
+        for (int regionIndex = 0; regionIndex < GEO_REGIONS; regionIndex++) {
+            int geoX = (regionIndex / GEO_REGIONS_Y) * IRegion.REGION_CELLS_X;
+            int geoY = (regionIndex % GEO_REGIONS_Y) * IRegion.REGION_CELLS_Y;
+            boolean expected = reference.hasGeoPos(geoX, geoY);
+            for (int c = 0; c < candidates.length; c++) {
+                boolean actual = candidates[c].hasGeoPos(geoX, geoY);
+                if (actual != expected) {
+                    report.mismatch(c, -1, geoX, geoY, 0, OP_HAS_GEO_POS, expected ? 1 : 0, actual ? 1 : 0);
+                }
+            }
+            if (expected) {
+                regions.add(regionIndex);
+            }
+        }
+
+        int[] regionIndexes = regions.stream().mapToInt(Integer::intValue).toArray();
+        pool.invoke(new SweepTask(report, regionIndexes, 0, regionIndexes.length * IRegion.REGION_BLOCKS_X));
+        report.regions = regionIndexes.length;
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * Строки блоков: {@code unit = regionPosition * REGION_BLOCKS_X + blockX}
+     */
+    private final class SweepTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient Report report;
+        private final int[] regionIndexes;
+        private final int fromUnit;
+        private final int toUnit;
+
+        SweepTask(Report report, int[] regionIndexes, int fromUnit, int toUnit) {
+            this.report = report;
+            this.regionIndexes = regionIndexes;
+            this.fromUnit = fromUnit;
+            this.toUnit = toUnit;
+        }
+
+        @Override
+        protected void compute() {
+            if (toUnit - fromUnit > ROWS_PER_TASK) {
+                int middle = (fromUnit + toUnit) >>> 1;
+                invokeAll(new SweepTask(report, regionIndexes, fromUnit, middle),
+                    new SweepTask(report, regionIndexes, middle, toUnit));
+                return;
+            }
+            Scratch scratch = new Scratch();
+            for (int unit = fromUnit; unit < toUnit; unit++) {
+                int regionIndex = regionIndexes[unit / IRegion.REGION_BLOCKS_X];
+                int geoX = (regionIndex / GEO_REGIONS_Y) * IRegion.REGION_CELLS_X + (unit % IRegion.REGION_BLOCKS_X) * IBlock.BLOCK_CELLS_X;
+                int regionGeoY = (regionIndex % GEO_REGIONS_Y) * IRegion.REGION_CELLS_Y;
+                for (int y = regionGeoY; y < regionGeoY + IRegion.REGION_CELLS_Y; y += IBlock.BLOCK_CELLS_Y) {
+                    verifyBlock(report, scratch, geoX, y);
+                }
+                for (int x = geoX; x < geoX + IBlock.BLOCK_CELLS_X; x++) {
+                    for (int y = regionGeoY; y < regionGeoY + IRegion.REGION_CELLS_Y; y++) {
+                        verifyCell(report, scratch, x, y);
+                    }
+                }
+                scratch.blocks += IRegion.REGION_BLOCKS_Y;
+            }
+            report.cells.addAndGet(scratch.cells);
+            report.probes.addAndGet(scratch.probesCount);
+            report.blocks.addAndGet(scratch.blocks);
+        }
+    }
+
+    private static final class Scratch {
+        final int[] heights = new int[IBlock.MAX_CELL_LAYERS];
+        final byte[] nswe = new byte[IBlock.MAX_CELL_LAYERS];
+        final int[] candidateHeights = new int[IBlock.MAX_CELL_LAYERS];
+        final byte[] candidateNswe = new byte[IBlock.MAX_CELL_LAYERS];
+        final int[] outZ = new int[Neighbours.COUNT];
+        final byte[] outMask = new byte[Neighbours.COUNT];
+        final int[] candidateOutZ = new int[Neighbours.COUNT];
+        final byte[] candidateOutMask = new byte[Neighbours.COUNT];
+        final int[] probes = new int[IBlock.MAX_CELL_LAYERS * 4 + 1];
+        final long[] expected = new long[OPS.length];
+        long cells;
+        long probesCount;
+        long blocks;
+    }
+
+    /**
+     * Эталон блока - одна сводка, ответы блочных запросов выводятся из нее по контракту {@link IGeoDriver}:
+     * запросы эталона по умолчанию заново проходят все ячейки блока на каждый вызов
+     */
+    private void verifyBlock(Report report, Scratch s, int geoX, int geoY) {
+        int maxGeoX = geoX + IBlock.BLOCK_CELLS_X - 1;
+        int maxGeoY = geoY + IBlock.BLOCK_CELLS_Y - 1;
+        boolean hasGeo = reference.hasGeoPos(geoX, geoY);
+        long summary = GeoScans.summarizeBlock(reference, geoX, geoY, s.heights, s.nswe);
+        boolean allOpen = (summary >>> 32) != 0;
+        int minZ = hasGeo ? GeoScans.minHeight((int) summary) : Integer.MAX_VALUE;
+        int maxZ = hasGeo ? GeoScans.maxHeight((int) summary) : Integer.MIN_VALUE;
+        s.expected[OP_SUMMARIZE_BLOCK] = summary;
+        s.expected[OP_GET_BLOCK_MIN_Z] = minZ;
+        s.expected[OP_GET_BLOCK_MAX_Z] = maxZ;
+        s.expected[OP_IS_BLOCK_ALL_OPEN] = !hasGeo || allOpen ? 1 : 0;
+        s.expected[OP_IS_BLOCK_UNIFORM] = hasGeo && allOpen && (minZ == maxZ) ? 1 : 0;
+        s.expected[OP_GET_AREA_MAX_Z] = maxZ;
+        for (int c = 0; c < candidates.length; c++) {
+            IGeoDriver candidate = candidates[c];
+            check(report, s, c, geoX, geoY, 0, OP_SUMMARIZE_BLOCK, GeoScans.summarizeBlock(candidate, geoX, geoY, s.candidateHeights, s.candidateNswe));
+            check(report, s, c, geoX, geoY, 0, OP_GET_BLOCK_MIN_Z, candidate.getBlockMinZ(geoX, geoY));
+            check(report, s, c, geoX, geoY, 0, OP_GET_BLOCK_MAX_Z, candidate.getBlockMaxZ(geoX, geoY));
+            check(report, s, c, geoX, geoY, 0, OP_IS_BLOCK_ALL_OPEN, candidate.isBlockAllOpen(geoX, geoY) ? 1 : 0);
+            check(report, s, c, geoX, geoY, 0, OP_IS_BLOCK_UNIFORM, candidate.isBlockUniform(geoX, geoY) ? 1 : 0);
+            check(report, s, c, geoX, geoY, 0, OP_GET_AREA_MAX_Z, candidate.getAreaMaxZ(geoX, geoY, maxGeoX, maxGeoY));
+        }
+    }
+
+    private void verifyCell(Report report, Scratch s, int geoX, int geoY) {
+        int layers = reference.getLayers(geoX, geoY, s.heights, s.nswe);
+        for (int c = 0; c < candidates.length; c++) {
+            int candidateLayers = candidates[c].getLayers(geoX, geoY, s.candidateHeights, s.candidateNswe);
+            if (!sameLayers(layers, s, candidateLayers)) {
+                report.mismatch(c, candidates[c].getBlockType(geoX, geoY), geoX, geoY, 0, OP_GET_LAYERS,
+                    layers == 0 ? 0 : LayerData.pack(s.heights[0], s.nswe[0]),
+                    candidateLayers == 0 ? 0 : LayerData.pack(s.candidateHeights[0], s.candidateNswe[0]));
+            }
+        }
+
+        for (int i = 0; i < layers; i++) {
+            verifyNeighbours(report, s, geoX, geoY, s.heights[i]);
+        }
+
+        int probeCount = probes(layers, s);
+        for (int p = 0; p < probeCount; p++) {
+            int worldZ = s.probes[p];
+            byte nswe = (byte) (1 << ((geoX + geoY + p) & 3));
+            // у legacy блоков эталона ближайшая высота и проверка NSWE - проекции ближайшего слоя,
+            // а соседние высоты выводятся из слоев ячейки: поиск в ячейке один вместо пяти
+            int nearestLayer = reference.getNearestLayer(geoX, geoY, worldZ);
+            s.expected[OP_GET_NEAREST_Z] = LayerData.height(nearestLayer);
+            s.expected[OP_GET_NEAREST_LAYER] = nearestLayer;
+            s.expected[OP_GET_NEXT_LOWER_Z] = nextLowerZ(layers, s.heights, worldZ);
+            s.expected[OP_GET_NEXT_HIGHER_Z] = nextHigherZ(layers, s.heights, worldZ);
+            s.expected[OP_CHECK_NEAREST_NSWE] = LayerData.checkNswe(nearestLayer, nswe) ? 1 : 0;
+            for (int c = 0; c < candidates.length; c++) {
+                IGeoDriver candidate = candidates[c];
+                check(report, s, c, geoX, geoY, worldZ, OP_GET_NEAREST_Z, candidate.getNearestZ(geoX, geoY, worldZ));
+                check(report, s, c, geoX, geoY, worldZ, OP_GET_NEAREST_LAYER, candidate.getNearestLayer(geoX, geoY, worldZ));
+                check(report, s, c, geoX, geoY, worldZ, OP_GET_NEXT_LOWER_Z, candidate.getNextLowerZ(geoX, geoY, worldZ));
+                check(report, s, c, geoX, geoY, worldZ, OP_GET_NEXT_HIGHER_Z, candidate.getNextHigherZ(geoX, geoY, worldZ));
+                check(report, s, c, geoX, geoY, worldZ, OP_CHECK_NEAREST_NSWE, candidate.checkNearestNSWE(geoX, geoY, worldZ, nswe) ? 1 : 0);
+            }
+        }
+        s.cells++;
+        s.probesCount += probeCount;
+    }
+
+    /**
+     * Маска доступных направлений, при совпадении масок - высота и NSWE соседа по первому расходящемуся направлению
+     */
+    private void verifyNeighbours(Report report, Scratch s, int geoX, int geoY, int worldZ) {
+        int mask = reference.expandNeighbours(geoX, geoY, worldZ, s.outZ, s.outMask);
+        for (int c = 0; c < candidates.length; c++) {
+            int candidateMask = candidates[c].expandNeighbours(geoX, geoY, worldZ, s.candidateOutZ, s.candidateOutMask);
+            long expected = mask;
+            long actual = candidateMask;
+            for (int direction = 0; (expected == actual) && (direction < Neighbours.COUNT); direction++) {
+                if (Neighbours.isReachable(mask, direction)) {
+                    expected = neighbour(s.outZ[direction], s.outMask[direction]);
+                    actual = neighbour(s.candidateOutZ[direction], s.candidateOutMask[direction]);
+                }
+            }
+            if (expected != actual) {
+                report.mismatch(c, candidates[c].getBlockType(geoX, geoY), geoX, geoY, worldZ, OP_EXPAND_NEIGHBOURS, expected, actual);
+            }
+        }
+    }
+
+    private static long neighbour(int z, byte nswe) {
+        return ((long) z << 8) | (nswe & 0xFF);
+    }
+
+    private void check(Report report, Scratch s, int candidate, int geoX, int geoY, int worldZ, int op, long actual) {
+        if (actual != s.expected[op]) {
+            report.mismatch(candidate, candidates[candidate].getBlockType(geoX, geoY), geoX, geoY, worldZ, op, s.expected[op], actual);
+        }
+    }
+
+    /**
+     * Высший слой не выше worldZ, без такого слоя сама worldZ, как у всех legacy блоков
+     */
+    private static int nextLowerZ(int layers, int[] heights, int worldZ) {
+        int lowerZ = Integer.MIN_VALUE;
+        for (int i = 0; i < layers; i++) {
+            if (heights[i] <= worldZ) {
+                lowerZ = Math.max(lowerZ, heights[i]);
+            }
+        }
+        return lowerZ == Integer.MIN_VALUE ? worldZ : lowerZ;
+    }
+
+    /**
+     * Низший слой не ниже worldZ, без такого слоя сама worldZ, как у всех legacy блоков
+     */
+    private static int nextHigherZ(int layers, int[] heights, int worldZ) {
+        int higherZ = Integer.MAX_VALUE;
+        for (int i = 0; i < layers; i++) {
+            if (heights[i] >= worldZ) {
+                higherZ = Math.min(higherZ, heights[i]);
+            }
+        }
+        return higherZ == Integer.MAX_VALUE ? worldZ : higherZ;
+    }
+
+    private static boolean sameLayers(int layers, Scratch s, int candidateLayers) {
+        if (layers != candidateLayers) {
+            return false;
+        }
+        for (int i = 0; i < layers; i++) {
+            if ((s.heights[i] != s.candidateHeights[i]) || (s.nswe[i] != s.candidateNswe[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Высоты проверки: каждый слой и на единицу выше и ниже него (ловят ошибки строгости сравнения с высотой слоя),
+     * середина между соседними слоями (в ней решается выбор ближайшего) и далеко за крайними слоями.
+     * У ячейки с одним слоем высоты вдали дают те же ответы, что и на единицу выше и ниже слоя, и не проверяются:
+     * это почти все ячейки, так сверка идет почти вдвое быстрее
+     *
+     * @return количество высот в scratch.probes
+     */
+    private static int probes(int layers, Scratch s) {
+        int count = 0;
+        if (layers != 1) {
+            s.probes[count++] = FAR_Z;
+            s.probes[count++] = -FAR_Z;
+        }
+        for (int i = 0; i < layers; i++) {
+            s.probes[count++] = s.heights[i] - 1;
+            s.probes[count++] = s.heights[i];
+            s.probes[count++] = s.heights[i] + 1;
+            if (i + 1 < layers) {
+                s.probes[count++] = (s.heights[i] + s.heights[i + 1]) >> 1;
+            }
+        }
+        return count;
+    }
+
+    public record Mismatch(int blockType, int geoX, int geoY, int worldZ, String op, long expected, long actual) {
+        @Override
+        public String toString() {
+            return op + "(" + geoX + ", " + geoY + ", " + worldZ + ") expected " + expected + " but was " + actual;
+        }
+    }
+
+    public static final class Report {
+        private final String[] names;
+        private final int maxSamples;
+        // [кандидат][тип блока + 1], тип -1 - регион без геодаты или тип неизвестен
+        private final AtomicLongArray[] mismatchCounts;
+        private final List<List<List<Mismatch>>> samples = new ArrayList<>();
+        private final AtomicLong cells = new AtomicLong();
+        private final AtomicLong probes = new AtomicLong();
+        private final AtomicLong blocks = new AtomicLong();
+        private int regions;
+        private long elapsedNanos;
+
+        Report(String[] names, int maxSamples) {
+            this.names = names;
+            this.maxSamples = maxSamples;
+            this.mismatchCounts = new AtomicLongArray[names.length];
+            for (int c = 0; c < names.length; c++) {
+                mismatchCounts[c] = new AtomicLongArray(BLOCK_TYPES + 1);
+                List<List<Mismatch>> byType = new ArrayList<>();
+                for (int t = 0; t <= BLOCK_TYPES; t++) {
+                    byType.add(new ArrayList<>());
+                }
+                samples.add(byType);
+            }
+        }
+
+        void mismatch(int candidate, int blockType, int geoX, int geoY, int worldZ, int op, long expected, long actual) {
+            mismatchCounts[candidate].incrementAndGet(blockType + 1);
+            List<Mismatch> typeSamples = samples.get(candidate).get(blockType + 1);
+            Mismatch mismatch = new Mismatch(blockType, geoX, geoY, worldZ, OPS[op], expected, actual);
+            synchronized (typeSamples) {
+                // задачи идут в произвольном порядке, храним первые по координатам
+                typeSamples.add(mismatch);
+                typeSamples.sort(Comparator.comparingInt(Mismatch::geoX).thenComparingInt(Mismatch::geoY).thenComparingInt(Mismatch::worldZ));
+                if (typeSamples.size() > maxSamples) {
+                    typeSamples.removeLast();
+                }
+            }
+        }
+
+        public boolean isEquivalent() {
+            for (AtomicLongArray counts : mismatchCounts) {
+                for (int i = 0; i < counts.length(); i++) {
+                    if (counts.get(i) != 0) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Расхождения по имени типа блока кандидата, только ненулевые
+         */
+        public Map<String, Long> getMismatchCounts(String candidate) {
+            int c = List.of(names).indexOf(candidate);
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (int slot = 0; slot <= BLOCK_TYPES; slot++) {
+                long count = mismatchCounts[c].get(slot);
+                if (count != 0) {
+                    result.put(GeoDriverBytesConstants.blockTypeToName(slot - 1), count);
+                }
+            }
+            return result;
+        }
+
+        public List<Mismatch> getFirstMismatches(String candidate, int blockType) {
+            List<Mismatch> typeSamples = samples.get(List.of(names).indexOf(candidate)).get(blockType + 1);
+            synchronized (typeSamples) {
+                return List.copyOf(typeSamples);
+            }
+        }
+
+        public long getCells() {
+            return cells.get();
+        }
+
+        public long getProbes() {
+            return probes.get();
+        }
+
+        public long getBlocks() {
+            return blocks.get();
+        }
+
+        public int getRegions() {
+            return regions;
+        }
+
+        public void log() {
+            log.info("Verified {} regions, {} blocks, {} cells, {} z probes per candidate in {} ms",
+                regions, getBlocks(), getCells(), getProbes(), elapsedNanos / 1_000_000);
+            for (String name : names) {
+                Map<String, Long> counts = getMismatchCounts(name);
+                if (counts.isEmpty()) {
+                    log.info("{}: equivalent", name);
+                    continue;
+                }
+                log.warn("{}: mismatches {}", name, counts);
+                for (int blockType = -1; blockType < BLOCK_TYPES; blockType++) {
+                    for (Mismatch mismatch : getFirstMismatches(name, blockType)) {
+                        log.warn("-- {} {}", GeoDriverBytesConstants.blockTypeToName(blockType), mismatch);
+                    }
+                }
+            }
+        }
+    }
+}
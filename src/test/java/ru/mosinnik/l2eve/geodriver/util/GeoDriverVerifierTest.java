@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.util;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ru.mosinnik.l2eve.geodriver.abstraction.IGeoDriver;
+import ru.mosinnik.l2eve.geodriver.abstraction.IRegion;
+import ru.mosinnik.l2eve.geodriver.driver.GeoConfig;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriver;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytes;
+import ru.mosinnik.l2eve.geodriver.driver.GeoDriverBytesMmap;
+import ru.mosinnik.l2eve.geodriver.driver.GeoOverlay;
+import ru.mosinnik.l2eve.geodriver.synthetic.SyntheticGeoGenerator;
+import ru.mosinnik.l2eve.geodriver.synthetic.SyntheticGeoProfile;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GeoDriverVerifierTest {
+
+    private static Path dir;
+    private static GeoDriver reference;
+    private static Map<String, IGeoDriver> candidates;
+    private static int geoX;
+    private static int geoY;
+
+    @BeforeClass
+    public static void generate() throws Exception {
+        dir = Files.createTempDirectory("verifier");
+        List<Path> paths = new SyntheticGeoGenerator(SyntheticGeoProfile.interlude()).generateWorld(dir, 1);
+        int[] region = SyntheticGeoGenerator.worldRegions(1).get(0);
+        geoX = region[0] * IRegion.REGION_CELLS_X;
+        geoY = region[1] * IRegion.REGION_CELLS_Y;
+
+        reference = new GeoDriver(new GeoConfig());
+        reference.loadRegion(paths.get(0), region[0], region[1]);
+
+        candidates = new LinkedHashMap<>();
+        for (Map.Entry<String, GeoConfig> config : GeoDriverVerifier.configs().entrySet()) {
+            GeoDriverBytes bytes = new GeoDriverBytes(config.getValue());
+            bytes.loadFromL2J(paths);
+            Path binDir = Files.createDirectories(dir.resolve(config.getKey()));
+            bytes.writeToFiles(binDir);
+            GeoDriverBytesMmap mmap = new GeoDriverBytesMmap();
+            mmap.loadBin(binDir);
+            candidates.put("GeoDriverBytes:" + config.getKey(), bytes);
+            candidates.put("GeoDriverBytesMmap:" + config.getKey(), mmap);
+        }
+    }
+
+    @AfterClass
+    public static void cleanup() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void shouldVerifyAllConfigsEquivalent() {
+        GeoDriverVerifier.Report report = new GeoDriverVerifier(reference, candidates).verify(ForkJoinPool.commonPool());
+        report.log();
+
+        assertTrue(report.isEquivalent());
+        assertEquals(1, report.getRegions());
+        assertEquals(IRegion.REGION_BLOCKS, report.getBlocks());
+        assertEquals(IRegion.REGION_CELLS, report.getCells());
+        // у ячейки с одним слоем три высоты: слой и на единицу выше и ниже
+        assertTrue(report.getProbes() >= 3L * IRegion.REGION_CELLS);
+    }
+
+    @Test
+    public void shouldReportFirstMismatchesPerBlockType() {
+        GeoDriverBytes bytes = (GeoDriverBytes) candidates.get("GeoDriverBytes:lowMemory");
+        GeoOverlay overlay = new GeoOverlay(bytes);
+        overlay.addObstacle(geoX + 100, geoY + 100, geoX + 120, geoY + 120, Short.MIN_VALUE, Short.MAX_VALUE);
+
+        GeoDriverVerifier.Report report = new GeoDriverVerifier(reference, Map.of("overlay", overlay), 3)
+            .verify(new ForkJoinPool(2));
+
+        assertFalse(report.isEquivalent());
+        Map<String, Long> counts = report.getMismatchCounts("overlay");
+        assertFalse(counts.isEmpty());
+        int blockType = bytes.getBlockType(geoX + 100, geoY + 100);
+        List<GeoDriverVerifier.Mismatch> mismatches = report.getFirstMismatches("overlay", blockType);
+        assertEquals(3, mismatches.size());
+        // первые по координатам - сводка блока с препятствием в его начале: препятствие закрывает ровный блок
+        for (GeoDriverVerifier.Mismatch mismatch : mismatches) {
+            assertEquals(blockType, mismatch.blockType());
+            assertEquals(geoX + 96, mismatch.geoX());
+            assertEquals(geoY + 96, mismatch.geoY());
+        }
+        assertEquals(List.of("summarizeBlock", "isBlockAllOpen", "isBlockUniform"),
+            mismatches.stream().map(GeoDriverVerifier.Mismatch::op).toList());
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.util;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.mosinnik.l2eve.geodriver.metrics.GeoHeatmap;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Сводка по файлу тепловой карты {@link ru.mosinnik.l2eve.geodriver.metrics.GeoHeatmapDriver}:
+ * нагрев по типам блоков и самые горячие регионы.
+ * <p>
+ * Аргументы: файл карты, порог горячего блока (по умолчанию 64), сколько регионов показать (по умолчанию 20).
+ */
+@Slf4j
+public class GeoHeatmapSummary {
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("Usage: GeoHeatmapSummary <heatmap file> [hot threshold] [regions]");
+        }
+        GeoHeatmap heatmap = GeoHeatmap.readFromFile(Path.of(args[0]));
+        int hotThreshold = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int regionLimit = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        Map<String, GeoHeatmap.BlockTypeHeat> byBlockType = heatmap.summarizeByBlockType(hotThreshold);
+        long totalHeat = byBlockType.values().stream().mapToLong(GeoHeatmap.BlockTypeHeat::heat).sum();
+        log.info("Heatmap {}: {} regions, hot threshold {}", args[0], heatmap.getRegionCount(), hotThreshold);
+        log.info(String.format("%-40s %10s %10s %10s %8s", "block type", "blocks", "touched", "hot", "heat %"));
+        byBlockType.forEach((blockType, heat) -> log.info(String.format("%-40s %10d %10d %10d %8.2f",
+            blockType, heat.blocks(), heat.touchedBlocks(), heat.hotBlocks(), totalHeat == 0 ? 0.0 : heat.heat() * 100.0 / totalHeat)));
+
+        log.info("Hottest regions:");
+        heatmap.regionHeat().entrySet().stream()
+            .limit(regionLimit)
+            .forEach(entry -> log.info(String.format("%-8s %12d", entry.getKey(), entry.getValue())));
+    }
+}
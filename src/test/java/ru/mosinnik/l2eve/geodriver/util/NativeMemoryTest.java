@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2026 mosinnik
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.mosinnik.l2eve.geodriver.util;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class NativeMemoryTest {
+
+    @Test
+    public void shouldAdviseMappedBuffer() throws Exception {
+        assumeTrue(NativeMemory.isSupported());
+
+        Path file = Files.createTempFile("native-memory", ".bin");
+        try {
+            Files.write(file, new byte[3 * 4096 + 100]);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                // not page aligned like regions in data.bin
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 100, 2 * 4096);
+                assertEquals(0, NativeMemory.madvise(buffer, NativeMemory.MADV_RANDOM));
+                assertEquals(0, NativeMemory.madvise(buffer, NativeMemory.MADV_WILLNEED));
+                buffer.load();
+                assertTrue(NativeMemory.residentBytes(buffer) >= buffer.capacity());
+                int mlock = NativeMemory.mlock(buffer);
+                // ulimit -l can be too small in containers
+                if (mlock == 0) {
+                    assertEquals(0, NativeMemory.munlock(buffer));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void shouldNotSupportHeapBuffer() {
+        assertEquals(NativeMemory.NOT_SUPPORTED, NativeMemory.madvise(ByteBuffer.allocate(4096), NativeMemory.MADV_RANDOM));
+        assertEquals(NativeMemory.NOT_SUPPORTED, NativeMemory.residentBytes(ByteBuffer.allocate(4096)));
+    }
+
+    @Test
+    public void shouldParseProcStat() {
+        PageFaults pageFaults = PageFaults.parse(
+            "12345 (java (geo) x) S 1 12345 12345 0 -1 4194560 5530 0 17 0 158 24 0 0 20 0 31 0 2716 1 2 3");
+        assertEquals(5530, pageFaults.minor());
+        assertEquals(17, pageFaults.major());
+    }
+
+    @Test
+    public void shouldReadCurrentPageFaults() {
+        assumeTrue(Files.exists(Path.of("/proc/self/stat")));
+        PageFaults pageFaults = PageFaults.current();
+        assertTrue(pageFaults.isKnown());
+        assertTrue(pageFaults.minor() > 0);
+    }
+}